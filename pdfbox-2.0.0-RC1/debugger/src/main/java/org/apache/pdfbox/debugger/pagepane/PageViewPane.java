@@ -5,19 +5,17 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Font;
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.RenderingHints;
-import java.awt.Shape;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.geom.Area;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import javax.swing.BoxLayout;
@@ -53,13 +51,15 @@ public class PageViewPane implements ActionListener, AncestorListener {
     private List<MarkedContentNode> selectedStructureList;
     
     class TooltipArea {
-    	Area shape;
+    	MarkedContentNode node;
     	String tooltip;
     }
     
     public PageViewPane(PDDocument document) {
     	this.document = document;
     	this.renderer = new PDFRenderer(this.document);
+    	// the pages are rendered again on every selection
+    	this.renderer.setCacheEnabled(true);
     }
     
     public void setPage(PDPage pdPage, List<MarkedContentNode> pageMarkedContentList) {
@@ -109,12 +109,11 @@ public class PageViewPane implements ActionListener, AncestorListener {
     	if (this.pageMarkedContentList != null && !this.pageMarkedContentList.isEmpty()) {
     		this.tooltipArea = new ArrayList<TooltipArea>();
     		for (MarkedContentNode mc : this.pageMarkedContentList) {
-    			Area outline = mc.getOutlineArea();
     			String tooltip = mc.getTooltip();
     			
-    			if (outline != null && tooltip != null) {
+    			if (tooltip != null) {
     				TooltipArea item = new TooltipArea();
-   					item.shape = outline;
+   					item.node = mc;
    					item.tooltip = tooltip;
    					this.tooltipArea.add(item);
     			}
@@ -230,18 +229,13 @@ public class PageViewPane implements ActionListener, AncestorListener {
         		Graphics2D g2 = pageImage.createGraphics();
         		this.initUserSpaceGraphics(g2);
         		
-            	if (this.tooltipArea != null && !this.tooltipArea.isEmpty()) {
-            		for (TooltipArea item : this.tooltipArea) {
-            			Shape ts = g2.getTransform().createTransformedShape(item.shape);
-            			label.addArea(ts.getBounds2D(), item.tooltip);
-            		}
-            	}
+            	label.setAreas(this.tooltipArea, g2.getTransform());
             	
         		if (this.selectedStructureList != null && !this.selectedStructureList.isEmpty()) {
             		for (MarkedContentNode mc : this.selectedStructureList) {
-            			Area outline = mc.getOutlineArea();
+            			Rectangle2D outline = mc.getOutlineBounds();
             			if (outline != null) {
-            				g2.draw(outline.getBounds2D());
+            				g2.draw(outline);
             			}
             		}
             	}
@@ -251,7 +245,7 @@ public class PageViewPane implements ActionListener, AncestorListener {
         			g2.setStroke(new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 
         					0, new float[]{3}, 0));
         			for (ArtifactNode artifact : artifactList) {
-        				Rectangle2D rect = artifact.outline.getBounds2D();
+        				Rectangle2D rect = artifact.outline;
         				g2.draw(rect);
         				int x1 = (int) rect.getX();
         				int y1 = (int) rect.getY();
@@ -325,27 +319,36 @@ public class PageViewPane implements ActionListener, AncestorListener {
     class ImageLabel extends JLabel {
 		private static final long serialVersionUID = 1L;
 
-		private List<Shape> outline = new ArrayList<Shape>();
-		private Map<Shape, String> tooltipAreaMap = new HashMap<Shape, String>();
+		private List<TooltipArea> areas;
+		private AffineTransform userSpace;
 		
 		public ImageLabel() {
     		super();
     	}
 		
-		public void addArea(Shape shape, String tooltip) {
-			this.outline.add(shape);
-			this.tooltipAreaMap.put(shape, tooltip);
+		/**
+		 * Sets the tooltip areas and the transform from user space to the image.
+		 */
+		public void setAreas(List<TooltipArea> areas, AffineTransform transform) {
+			this.areas = areas;
+			this.userSpace = transform;
 		}
 		
 		@Override
 		public boolean contains(int x, int y) {
-			if (this.outline == null || this.outline.isEmpty()) {
+			if (this.areas == null || this.areas.isEmpty()) {
+				return false;
+			}
+			Point2D p;
+			try {
+				p = this.userSpace.inverseTransform(new Point2D.Double(x, y), null);
+			} catch (NoninvertibleTransformException e) {
 				return false;
 			}
-			Point p = new Point(x, y);
-			for (Shape s : this.outline) {
-				if (s.contains(p)) {
-					this.setToolTipText(this.tooltipAreaMap.get(s));
+			// test the single glyphs, paths and images, the bounds of a paragraph overlap others
+			for (TooltipArea area : this.areas) {
+				if (area.node.outlineContains(p.getX(), p.getY())) {
+					this.setToolTipText(area.tooltip);
 					return true;
 				}
 			}
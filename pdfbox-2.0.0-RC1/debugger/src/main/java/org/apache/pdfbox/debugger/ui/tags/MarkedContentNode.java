@@ -1,8 +1,8 @@
 package org.apache.pdfbox.debugger.ui.tags;
 
 import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
-import java.util.List;
 
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.cos.COSObject;
@@ -15,16 +15,17 @@ import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDMarkedConte
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
+import org.apache.pdfbox.rendering.MarkedContentIndex;
 
 public class MarkedContentNode {
 
 	private int mcid = -1;
-	private PDPage page;
+	private int pageIndex = -1;
 	private String stmRef;
 	private StructureNode parent;
 	
 	private String contentString;
-	private PDMarkedContent markedContent;
+	private boolean resolved = false;
 	
 	private boolean isAnnotRef = false;
 	private String annotSubType;
@@ -35,35 +36,34 @@ public class MarkedContentNode {
 
 	public MarkedContentNode(int mcid, StructureNode parent, PDFTagsTreeModel model) throws IOException {
 		this.mcid = mcid;
-		this.page = parent.getPage();
+		this.pageIndex = model.getPageIndex(parent.getPage());
 		this.parent = parent;
 		this.model = model;
-		this.findMarkedContent();
 	}
 
 	public MarkedContentNode(PDMarkedContentReference mcRef, StructureNode parent, PDFTagsTreeModel model) throws IOException {
 		this.mcid = mcRef.getMCID();
-		this.page = mcRef.getPage();
+		this.pageIndex = model.getPageIndex(mcRef.getPage());
 		if (mcRef.getStm() != null) {
 			this.stmRef = PDMarkedContent.createXObjectRefTag(mcRef.getStm());			
 		}
 		
 		this.parent = parent;
 		this.model = model;
-		this.findMarkedContent();
 	}
 	
 	public MarkedContentNode(PDObjectReference objRef, StructureNode parent, PDFTagsTreeModel model) throws IOException {
 		this.mcid = -1;
 		this.parent = parent;
 		this.model = model;
+		this.resolved = true;
 		COSObject obj = (COSObject) objRef.getCOSObject().getItem(COSName.OBJ);
 		COSObjectable refObj = objRef.getReferencedObject();
 		if (refObj != null) {
 			this.isAnnotRef = true;
 			if (refObj instanceof PDAnnotation) {
 				PDAnnotation annot = (PDAnnotation) refObj;
-				this.page = annot.getPage();
+				this.pageIndex = model.getPageIndex(annot.getPage());
 				this.annotContents = annot.getContents();
 
 				if (refObj instanceof PDAnnotationLink) {
@@ -84,50 +84,46 @@ public class MarkedContentNode {
 				+ (this.annotSubType == null ? PDObjectReference.TYPE : this.annotSubType);
 	}
 	
-	private void findMarkedContent() throws IOException {
-		List<PDMarkedContent> contents = this.model.getPageStructureExtractor().extract(this.page);
-		
-		for (PDMarkedContent content : contents) {
-			if (content.isArtifact()) {
-				// process Artifact
-				continue;
-			}
-			
-			if (this.stmRef != null) {
-				if (this.findMarkedContent(content)) {
-					break;
-				}
-			} else {
-				if (content.getMCID() >= 0 && content.getMCID() == this.mcid) {
-					this.markedContent = content;
-					this.contentString = content.getContentString();
-					break;
-				}
-			}
+	/**
+	 * Looks up the content string in the page structure, the page content is only extracted
+	 * when the content of this node is requested.
+	 */
+	private void resolve() {
+		if (this.resolved) {
+			return;
+		}
+		this.resolved = true;
+		PDMarkedContent content = this.getMarkedContent();
+		if (content != null) {
+			this.contentString = this.stmRef != null ? "xobject: " + this.parent.getAlt()
+					: content.getContentString();
 		}
 	}
 	
-	private boolean findMarkedContent(PDMarkedContent node) {
-		if (node.getContents() == null || node.getContents().isEmpty()) {
-			return false;
+	/**
+	 * Gets the marked content from the structure cache of the page structure extractor. The
+	 * node doesn't keep it, a page which has been evicted from the cache is extracted again.
+	 * 
+	 * @return the marked content, or null if it isn't found
+	 */
+	public PDMarkedContent getMarkedContent() {
+		if (this.pageIndex < 0 || this.mcid < 0) {
+			return null;
 		}
-		for (Object content : node.getContents()) {
-			if (content instanceof PDMarkedContent) {
-				if (this.stmRef.equals(((PDMarkedContent) content).getXObjectRefTag())) {
-					this.contentString = "xobject: " + this.parent.getAlt();
-					this.markedContent = (PDMarkedContent) content;
-					return true;
-				}
+		try {
+			MarkedContentIndex index = this.model.getPageStructureExtractor().getMarkedContentIndex(this.pageIndex);
+			if (index == null) {
+				return null;
 			}
+			return this.stmRef != null ? index.getByXObjectRefTag(this.stmRef) : index.get(this.mcid);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
 		}
-		return false;
-	}
-	
-	public PDMarkedContent getMarkedContent() {
-		return this.markedContent;
 	}
 
 	public String getContentString() {
+		this.resolve();
 		return this.contentString;
 	}
 	
@@ -135,8 +131,12 @@ public class MarkedContentNode {
 		return this.mcid;
 	}
 	
+	public int getPageIndex() {
+		return this.pageIndex;
+	}
+	
 	public PDPage getPage() {
-		return this.page;
+		return this.model.getPage(this.pageIndex);
 	}
 
 	public StructureNode getParent() {
@@ -144,8 +144,9 @@ public class MarkedContentNode {
 	}
 
 	public Area getOutlineArea() {
-		if (this.markedContent != null) {
-			return this.markedContent.getOutlineArea();
+		PDMarkedContent content = this.getMarkedContent();
+		if (content != null) {
+			return content.getOutlineArea();
 		}
 		if (this.isAnnotRef) {
 			return this.annotOutline;
@@ -153,6 +154,32 @@ public class MarkedContentNode {
 		return null;
 	}
 	
+	/**
+	 * Gets the bounding box of the content, cheaper than {@link #getOutlineArea()}.
+	 */
+	public Rectangle2D getOutlineBounds() {
+		PDMarkedContent content = this.getMarkedContent();
+		if (content != null) {
+			return content.getOutlineBounds();
+		}
+		if (this.isAnnotRef && this.annotOutline != null) {
+			return this.annotOutline.getBounds2D();
+		}
+		return null;
+	}
+	
+	/**
+	 * Tests if a point in user space hits one of the glyphs, paths or images of the content, or
+	 * the outline of the annotation.
+	 */
+	public boolean outlineContains(double x, double y) {
+		PDMarkedContent content = this.getMarkedContent();
+		if (content != null) {
+			return content.outlineContains(x, y);
+		}
+		return this.isAnnotRef && this.annotOutline != null && this.annotOutline.contains(x, y);
+	}
+	
 	public String getTooltip() {
 		return this.parent.getAlt();
 	}
@@ -182,6 +209,7 @@ public class MarkedContentNode {
 	
 	@Override
 	public String toString() {
+		this.resolve();
 		StringBuilder buf = new StringBuilder();
 		if (this.mcid >= 0) {
 			buf.append(mcid + " - ");			
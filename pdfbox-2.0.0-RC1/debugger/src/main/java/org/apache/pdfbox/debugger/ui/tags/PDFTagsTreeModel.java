@@ -1,16 +1,20 @@
 package org.apache.pdfbox.debugger.ui.tags;
 
-import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 
+import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDPageStructure;
 import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureElement;
 import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureTreeRoot;
 import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDMarkedContent;
@@ -18,12 +22,16 @@ import org.apache.pdfbox.rendering.DocumentStructureExtractor;
 
 public class PDFTagsTreeModel implements TreeModel {
 
+	private PDDocument document;
 	private PDStructureTreeRoot structureRoot;
 	private DocumentStructureExtractor pageStructureExtractor;
 	private List<StructureNode> documentNodes;
+	private StructureNode[] rootKidNodes;
 	private String lang;
+	private Map<COSDictionary, Integer> pageIndexes;
 	
 	public PDFTagsTreeModel(PDDocument document) {
+		this.document = document;
 		this.structureRoot = document.getDocumentCatalog().getStructureTreeRoot();
 		this.lang = document.getDocumentCatalog().getLanguage();
 		this.pageStructureExtractor = new DocumentStructureExtractor(document);
@@ -33,11 +41,15 @@ public class PDFTagsTreeModel implements TreeModel {
 	public void loadTags() {
 		this.documentNodes = new ArrayList<StructureNode>();
 		List<Object> kids = this.structureRoot.getKids();
+		this.rootKidNodes = new StructureNode[kids == null ? 0 : kids.size()];
 		if (kids != null && !kids.isEmpty()) {
-			for (Object kid : kids) {
+			for (int i = 0; i < kids.size(); i++) {
+				Object kid = kids.get(i);
 				if (kid instanceof PDStructureElement) {
 					try {
-						this.documentNodes.add(new StructureNode((PDStructureElement) kid, null, this));
+						StructureNode node = new StructureNode((PDStructureElement) kid, null, this);
+						this.documentNodes.add(node);
+						this.rootKidNodes[i] = node;
 					} catch (IOException e) {
 						e.printStackTrace();
 					}
@@ -46,12 +58,46 @@ public class PDFTagsTreeModel implements TreeModel {
 		}
 	}
 	
+	/**
+	 * Gets the marked content nodes of a page in reading order. The nodes are looked up through
+	 * the parent tree, only documents without parent tree need a walk of the whole tree.
+	 */
 	public List<MarkedContentNode> getPageMarkedContents(PDPage page) throws IOException {
+		PDPageStructure pageStructure = this.structureRoot.getPageStructure(page);
+		if (pageStructure == null) {
+			return this.findPageMarkedContents(page);
+		}
+		List<MarkedContentNode> ret = new ArrayList<MarkedContentNode>();
+		for (PDPageStructure.Entry entry : pageStructure.getMarkedContents()) {
+			Object node = this.getNode(entry.getKidPath());
+			if (node instanceof MarkedContentNode) {
+				ret.add((MarkedContentNode) node);
+			}
+		}
+		return ret;
+	}
+	
+	private Object getNode(int[] kidPath) throws IOException {
+		if (kidPath.length == 0 || kidPath[0] >= this.rootKidNodes.length) {
+			return null;
+		}
+		Object node = this.rootKidNodes[kidPath[0]];
+		for (int i = 1; i < kidPath.length && node instanceof StructureNode; i++) {
+			node = ((StructureNode) node).getChildNode(kidPath[i]);
+		}
+		return node;
+	}
+	
+	private List<MarkedContentNode> findPageMarkedContents(PDPage page) throws IOException {
 		List<MarkedContentNode> ret = new ArrayList<MarkedContentNode>();
+		int pageIndex = this.getPageIndex(page);
+		if (pageIndex < 0) {
+			return ret;
+		}
 		for (StructureNode node : this.documentNodes) {
 			List<MarkedContentNode> mcNodes = node.getAllMarkedContentNode();
 			for (MarkedContentNode mcNode : mcNodes) {
-				if (mcNode.getPage() != null && mcNode.getPage().getCOSObject() == page.getCOSObject()) { // equals?
+				if (mcNode.getPageIndex() == pageIndex) {
 					ret.add(mcNode);
 				}
 			}
@@ -59,19 +105,46 @@ public class PDFTagsTreeModel implements TreeModel {
 		return ret;
 	}
 	
+	/**
+	 * Gets the index of a page, the page indexes are collected on first call.
+	 * 
+	 * @param page the page, or null
+	 * @return the page index, or -1 if the page isn't a page of the document
+	 */
+	public int getPageIndex(PDPage page) {
+		if (page == null) {
+			return -1;
+		}
+		if (this.pageIndexes == null) {
+			this.pageIndexes = new IdentityHashMap<COSDictionary, Integer>();
+			int i = 0;
+			for (PDPage p : this.document.getPages()) {
+				this.pageIndexes.put(p.getCOSObject(), i++);
+			}
+		}
+		Integer pageIndex = this.pageIndexes.get(page.getCOSObject());
+		return pageIndex == null ? -1 : pageIndex.intValue();
+	}
+	
+	public PDPage getPage(int pageIndex) {
+		return pageIndex < 0 ? null : this.document.getPage(pageIndex);
+	}
+	
 	public static class ArtifactNode {
-		public Area outline;
+		public Rectangle2D outline;
 	}
 	public List<ArtifactNode> getArtifacts(PDPage page) throws IOException {
 		List<PDMarkedContent> contents = this.pageStructureExtractor.extract(page);
 		List<ArtifactNode> artifactList = new ArrayList<ArtifactNode>();
 		for (PDMarkedContent content : contents) {
 			if (content.isArtifact()) {
-				Area area = content.getOutlineArea();
+				Rectangle2D bounds = content.getOutlineBounds();
+				if (bounds == null) {
+					continue;
+				}
 				ArtifactNode artifact = new ArtifactNode();
-				artifact.outline = area;
+				artifact.outline = bounds;
 				artifactList.add(artifact);
-				continue;
 			}
 		}
 		return artifactList;
@@ -124,8 +197,7 @@ public class PDFTagsTreeModel implements TreeModel {
 	public int getChildCount(Object parent) {
 		int count = 0;
 		if (parent instanceof PDStructureTreeRoot) {
-			List<Object> kids = ((PDStructureTreeRoot) parent).getKids();
-			count = kids.size();
+			count = this.documentNodes.size();
 		} else if (parent instanceof StructureNode) {
 			count = ((StructureNode) parent).getChildCount();
 		} 
@@ -136,8 +208,7 @@ public class PDFTagsTreeModel implements TreeModel {
 	public boolean isLeaf(Object node) {
 		boolean isLeaf = false;
 		if (node instanceof PDStructureTreeRoot) {
-			List<Object> kids = ((PDStructureTreeRoot) node).getKids();
-			isLeaf = kids.isEmpty();
+			isLeaf = this.documentNodes.isEmpty();
 		} else if (node instanceof StructureNode) {
 			isLeaf = ((StructureNode) node).getChildCount() == 0;
 		} else {
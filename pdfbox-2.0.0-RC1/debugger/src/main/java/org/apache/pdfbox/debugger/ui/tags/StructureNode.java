@@ -13,28 +13,26 @@ public class StructureNode {
 
 	private PDStructureElement structure;
 	private PDFTagsTreeModel model;
-	private List<Object> children;
+	private List<Object> kids;
+	private Object[] children;
 	private StructureNode parent;
 	private String lang;
 
+	/**
+	 * Creates a node, the kid nodes are created on first access.
+	 */
 	public StructureNode(PDStructureElement structure, StructureNode parent, PDFTagsTreeModel model) throws IOException {
 		this.structure = structure;
 		this.model = model;
 		this.parent = parent;
 		this.lang = this.structure.getLanguage();
-		this.init();
 	}
 	
-	private void init() throws IOException {
-		if ( this.structure.getKids() == null ||  this.structure.getKids().isEmpty()) {
-			return;
-		}
-		int count =  this.structure.getKids().size();
-		this.children = new ArrayList<Object>(count);
-		for (int i = 0; i < count; i++) {
-			Object item =  this.structure.getKids().get(i);
-			this.children.add(this.createEntry(item));
+	private List<Object> getKids() {
+		if (this.kids == null) {
+			this.kids = this.structure.getKids();
 		}
+		return this.kids;
 	}
 	
 	private Object createEntry(Object item) throws IOException {
@@ -55,13 +53,17 @@ public class StructureNode {
 	}
 	
 	public Object getChildNode(int index) throws IOException {
-		if (this.children == null || this.children.isEmpty()) {
+		List<Object> kids = this.getKids();
+		if (index < 0 || index >= kids.size()) {
 			return null;
 		}
-		if (index < 0 || index >= this.children.size()) {
-			return null;
+		if (this.children == null) {
+			this.children = new Object[kids.size()];
 		}
-		return this.children.get(index);
+		if (this.children[index] == null) {
+			this.children[index] = this.createEntry(kids.get(index));
+		}
+		return this.children[index];
 	}
 	
 	public PDPage getPage() {
@@ -73,7 +75,7 @@ public class StructureNode {
 	}
 	
 	public int getChildCount() {
-		return this.structure.getKids().size();
+		return this.getKids().size();
 	}
 	
 	public String getAlt() {
@@ -81,17 +83,15 @@ public class StructureNode {
 			return this.structure.getAlternateDescription();
 		}
 		String type = this.structure.getStandardStructureType();
-		if ("Link".equalsIgnoreCase(type)) {
-			for (Object obj : this.children) {
-				if (obj instanceof MarkedContentNode) {
-					MarkedContentNode mcNode = (MarkedContentNode) obj;
-					if (mcNode.isAnnotRef() && mcNode.getAnnotContents() != null) {
-						return mcNode.getAnnotContents();
-					}
+		if ("Link".equalsIgnoreCase(type) || "Form".equalsIgnoreCase(type)) {
+			for (int i = 0; i < this.getChildCount(); i++) {
+				Object obj;
+				try {
+					obj = this.getChildNode(i);
+				} catch (IOException e) {
+					e.printStackTrace();
+					continue;
 				}
-			}
-		} else if ("Form".equalsIgnoreCase(type)) {
-			for (Object obj : this.children) {
 				if (obj instanceof MarkedContentNode) {
 					MarkedContentNode mcNode = (MarkedContentNode) obj;
 					if (mcNode.isAnnotRef() && mcNode.getAnnotContents() != null) {
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.contentstream;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+/**
+ * Keeps the parsed operators of content streams of a document, so that a stream which is
+ * processed several times is parsed only once: a form which is drawn on every page, e.g. a
+ * letterhead, the glyph procedures of a Type 3 font, and optionally pages which are processed
+ * several times, e.g. rendered and then their text extracted. The least recently used streams
+ * are evicted when their total {@link ParsedContentStream#getSize() size} exceeds the maximum
+ * size. The size is an estimate of the bytes they keep, including strings and the data of inline
+ * images.
+ *
+ * <p>A stream is parsed again when its data has been replaced, or a page when its /Contents entry
+ * has been replaced or changed. Streams which are changed in any other way must be removed with
+ * {@link #remove(PDContentStream)}.</p>
+ *
+ * @see org.apache.pdfbox.pdmodel.PDDocument#setContentStreamCache(ContentStreamCache)
+ */
+public class ContentStreamCache
+{
+    /**
+     * The default maximum size, 25 MB.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 25L << 20;
+
+    private final long maximumSize;
+    private final boolean cachePages;
+    private final Map<COSBase, Entry> entries = new LinkedHashMap<COSBase, Entry>(16, 0.75f, true);
+    private long size;
+
+    /**
+     * Creates a cache with the default maximum size, for pages and the streams they use.
+     */
+    public ContentStreamCache()
+    {
+        this(DEFAULT_MAXIMUM_SIZE, true);
+    }
+
+    /**
+     * Creates a cache with the given maximum size, for pages and the streams they use.
+     *
+     * @param maximumSize the maximum total size of the parsed content streams, in bytes
+     */
+    public ContentStreamCache(long maximumSize)
+    {
+        this(maximumSize, true);
+    }
+
+    /**
+     * Creates a cache with the given maximum size.
+     *
+     * @param maximumSize the maximum total size of the parsed content streams, in bytes
+     * @param cachePages true if pages are cached, false if only the streams they use, like forms
+     * and Type 3 glyphs, are cached
+     */
+    public ContentStreamCache(long maximumSize, boolean cachePages)
+    {
+        if (maximumSize < 0)
+        {
+            throw new IllegalArgumentException("Negative maximum size: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.cachePages = cachePages;
+    }
+
+    /**
+     * Returns true if the given content stream is cached, i.e. it isn't a page or pages are
+     * cached.
+     *
+     * @param contentStream the content stream
+     * @return true if the content stream is cached
+     */
+    public boolean isCached(PDContentStream contentStream)
+    {
+        return cachePages || !(contentStream instanceof PDPage);
+    }
+
+    /**
+     * Returns the parsed operators of the given content stream.
+     *
+     * @param contentStream the content stream
+     * @return the parsed content stream, or null if it isn't in the cache
+     */
+    public synchronized ParsedContentStream get(PDContentStream contentStream)
+    {
+        COSBase key = contentStream.getCOSObject();
+        Entry entry = entries.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+        if (!entry.isCurrent(getContents(contentStream)))
+        {
+            // the stream has new data, or the page has new contents
+            entries.remove(key);
+            size -= entry.parsed.getSize();
+            return null;
+        }
+        return entry.parsed;
+    }
+
+    /**
+     * Stores the parsed operators of the given content stream. Nothing is stored if they exceed
+     * the maximum size on their own, or if the stream isn't {@link #isCached(PDContentStream)
+     * cached}.
+     *
+     * @param contentStream the content stream
+     * @param parsed the parsed content stream
+     */
+    public synchronized void put(PDContentStream contentStream, ParsedContentStream parsed)
+    {
+        if (parsed.getSize() > maximumSize || !isCached(contentStream))
+        {
+            return;
+        }
+        Entry previous = entries.put(contentStream.getCOSObject(),
+                new Entry(getContents(contentStream), parsed));
+        if (previous != null)
+        {
+            size -= previous.parsed.getSize();
+        }
+        size += parsed.getSize();
+
+        // evict the least recently used streams
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maximumSize)
+        {
+            size -= iterator.next().parsed.getSize();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes the given content stream, it will be parsed again the next time it is processed.
+     *
+     * @param contentStream the content stream
+     */
+    public synchronized void remove(PDContentStream contentStream)
+    {
+        Entry entry = entries.remove(contentStream.getCOSObject());
+        if (entry != null)
+        {
+            size -= entry.parsed.getSize();
+        }
+    }
+
+    /**
+     * Removes all content streams.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the /Contents entry of a page, or the stream itself.
+     */
+    private static COSBase getContents(PDContentStream contentStream)
+    {
+        if (contentStream instanceof PDPage)
+        {
+            return ((PDPage) contentStream).getCOSObject().getDictionaryObject(COSName.CONTENTS);
+        }
+        return contentStream.getCOSObject();
+    }
+
+    private static final class Entry
+    {
+        private final COSBase contents;
+        private final COSBase[] streams;
+        private final int[] versions;
+        private final ParsedContentStream parsed;
+
+        private Entry(COSBase contents, ParsedContentStream parsed)
+        {
+            this.contents = contents;
+            this.parsed = parsed;
+            streams = getStreams(contents);
+            versions = new int[streams.length];
+            for (int i = 0; i < streams.length; i++)
+            {
+                versions[i] = getVersion(streams[i]);
+            }
+        }
+
+        /**
+         * Returns true if the given contents are the ones which were parsed, and their data
+         * hasn't been replaced.
+         */
+        private boolean isCurrent(COSBase currentContents)
+        {
+            if (currentContents != contents)
+            {
+                return false;
+            }
+            COSBase[] currentStreams = getStreams(currentContents);
+            if (currentStreams.length != streams.length)
+            {
+                return false;
+            }
+            for (int i = 0; i < streams.length; i++)
+            {
+                if (currentStreams[i] != streams[i] || getVersion(streams[i]) != versions[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the streams of a page's /Contents array, or the contents itself.
+         */
+        private static COSBase[] getStreams(COSBase contents)
+        {
+            if (contents instanceof COSArray)
+            {
+                COSArray array = (COSArray) contents;
+                COSBase[] streams = new COSBase[array.size()];
+                for (int i = 0; i < streams.length; i++)
+                {
+                    streams[i] = array.getObject(i);
+                }
+                return streams;
+            }
+            return new COSBase[] { contents };
+        }
+
+        private static int getVersion(COSBase stream)
+        {
+            return stream instanceof COSStream ? ((COSStream) stream).getDataVersion() : 0;
+        }
+    }
+}
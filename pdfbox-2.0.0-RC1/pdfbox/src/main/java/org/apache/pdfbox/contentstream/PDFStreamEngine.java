@@ -22,7 +22,6 @@ import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,11 +30,11 @@ import java.util.Stack;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 import org.apache.pdfbox.contentstream.operator.state.EmptyGraphicsStackException;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSNumber;
-import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSString;
 import org.apache.pdfbox.filter.MissingImageReaderException;
 import org.apache.pdfbox.pdfparser.PDFStreamParser;
@@ -456,25 +455,45 @@ public abstract class PDFStreamEngine
      */
     private void processStreamOperators(PDContentStream contentStream) throws IOException
     {
-        List<COSBase> arguments = new ArrayList<COSBase>();
-        PDFStreamParser parser = new PDFStreamParser(contentStream);
-        Object token = parser.parseNextToken();
-        while (token != null)
+        // the operands are reused for all operators, numbers are kept as primitives
+        OperandStack arguments = new OperandStack();
+
+        // replay the operators if the stream has been parsed before
+        ContentStreamCache cache = currentPage != null ? currentPage.getContentStreamCache() : null;
+        if (cache != null && !cache.isCached(contentStream))
         {
-            if (token instanceof COSObject)
-            {
-                arguments.add(((COSObject) token).getObject());
-            }
-            else if (token instanceof Operator)
+            cache = null;
+        }
+        ParsedContentStream parsed = cache != null ? cache.get(contentStream) : null;
+        if (parsed != null)
+        {
+            for (int i = 0; i < parsed.getOperatorCount(); i++)
             {
-                processOperator((Operator) token, arguments);
-                arguments = new ArrayList<COSBase>();
+                parsed.getOperands(i, arguments);
+                processOperator(parsed.getOperator(i), arguments);
             }
-            else
+            return;
+        }
+
+        // the operators are recorded while they are processed, the stream is only cached if it
+        // could be parsed and processed to the end
+        ParsedContentStream.Builder recorder =
+                cache != null ? new ParsedContentStream.Builder() : null;
+        PDFStreamParser parser = new PDFStreamParser(contentStream);
+        Operator operator = parser.parseNextOperator(arguments);
+        while (operator != null)
+        {
+            if (recorder != null)
             {
-                arguments.add((COSBase) token);
+                recorder.add(operator, arguments);
             }
-            token = parser.parseNextToken();
+            processOperator(operator, arguments);
+            arguments.clear();
+            operator = parser.parseNextOperator(arguments);
+        }
+        if (recorder != null)
+        {
+            cache.put(contentStream, recorder.build());
         }
     }
 
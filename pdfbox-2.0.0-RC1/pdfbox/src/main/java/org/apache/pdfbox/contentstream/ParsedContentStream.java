@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.contentstream;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.pdfbox.contentstream.operator.OperandStack;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+
+/**
+ * The operators of a content stream and their operands, as parsed by
+ * {@link PDFStreamParser#parseNextOperator(OperandStack)}. The operands of all operators are
+ * kept in a single {@link OperandStack}, so numbers stay primitives. Instances are immutable and
+ * may be replayed by several threads at the same time.
+ *
+ * @see ContentStreamCache
+ */
+public final class ParsedContentStream
+{
+    // estimated bytes of an operator, of an operand slot, of an object, of an array element and
+    // of a dictionary entry
+    private static final long OPERATOR_WEIGHT = 8;
+    private static final long OPERAND_WEIGHT = 17;
+    private static final long OBJECT_WEIGHT = 16;
+    private static final long ARRAY_ELEMENT_WEIGHT = 8;
+    private static final long DICTIONARY_ENTRY_WEIGHT = 40;
+
+    private final Operator[] operators;
+    /** the index of the first operand of each operator, plus the total number of operands */
+    private final int[] operandStarts;
+    private final OperandStack operands;
+    private final long size;
+
+    private ParsedContentStream(Operator[] operators, int[] operandStarts, OperandStack operands,
+            long size)
+    {
+        this.operators = operators;
+        this.operandStarts = operandStarts;
+        this.operands = operands;
+        this.size = size;
+    }
+
+    /**
+     * Parses all operators of the given content stream.
+     *
+     * @param contentStream the content stream to parse
+     * @return the parsed content stream
+     * @throws IOException if there is an error reading or parsing the content stream
+     */
+    public static ParsedContentStream parse(PDContentStream contentStream) throws IOException
+    {
+        Builder builder = new Builder();
+        OperandStack arguments = new OperandStack();
+        PDFStreamParser parser = new PDFStreamParser(contentStream);
+        Operator operator = parser.parseNextOperator(arguments);
+        while (operator != null)
+        {
+            builder.add(operator, arguments);
+            arguments.clear();
+            operator = parser.parseNextOperator(arguments);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of operators.
+     */
+    public int getOperatorCount()
+    {
+        return operators.length;
+    }
+
+    /**
+     * Returns the operator at the given index.
+     *
+     * @param index the index of the operator
+     * @return the operator
+     */
+    public Operator getOperator(int index)
+    {
+        return operators[index];
+    }
+
+    /**
+     * Replaces the content of the given stack with the operands of the operator at the given
+     * index.
+     *
+     * @param index the index of the operator
+     * @param arguments the stack which receives the operands
+     */
+    public void getOperands(int index, OperandStack arguments)
+    {
+        arguments.clear();
+        for (int i = operandStarts[index], end = operandStarts[index + 1]; i < end; i++)
+        {
+            arguments.push(operands, i);
+        }
+    }
+
+    /**
+     * Returns an estimate of the memory which is used, in bytes. Besides the operators and
+     * operands this counts the bytes of strings and of the data of inline images.
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Estimates the memory of an operand object.
+     */
+    private static long getObjectWeight(COSBase object)
+    {
+        if (object instanceof COSName)
+        {
+            // names are shared
+            return 0;
+        }
+        if (object instanceof COSString)
+        {
+            return OBJECT_WEIGHT + ((COSString) object).getBytes().length;
+        }
+        long weight = OBJECT_WEIGHT;
+        if (object instanceof COSArray)
+        {
+            for (COSBase element : (COSArray) object)
+            {
+                weight += ARRAY_ELEMENT_WEIGHT + getObjectWeight(element);
+            }
+        }
+        else if (object instanceof COSDictionary)
+        {
+            for (COSBase value : ((COSDictionary) object).getValues())
+            {
+                weight += DICTIONARY_ENTRY_WEIGHT + getObjectWeight(value);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Collects the operators of a content stream while it is parsed.
+     */
+    static final class Builder
+    {
+        private Operator[] operators = new Operator[64];
+        private int[] operandStarts = new int[65];
+        private final OperandStack operands = new OperandStack();
+        private int count;
+        private long size;
+
+        /**
+         * Adds an operator, the operands are copied.
+         */
+        void add(Operator operator, OperandStack arguments)
+        {
+            if (count == operators.length)
+            {
+                operators = Arrays.copyOf(operators, count * 2);
+                operandStarts = Arrays.copyOf(operandStarts, count * 2 + 1);
+            }
+            for (int i = 0; i < arguments.size(); i++)
+            {
+                operands.push(arguments, i);
+                size += OPERAND_WEIGHT;
+                if (!arguments.isNumber(i))
+                {
+                    size += getObjectWeight(arguments.get(i));
+                }
+            }
+            size += OPERATOR_WEIGHT;
+            if (operator.getImageData() != null)
+            {
+                // an inline image
+                size += OBJECT_WEIGHT + operator.getImageData().length;
+            }
+            if (operator.getImageParameters() != null)
+            {
+                size += getObjectWeight(operator.getImageParameters());
+            }
+            operators[count++] = operator;
+            operandStarts[count] = operands.size();
+        }
+
+        ParsedContentStream build()
+        {
+            return new ParsedContentStream(Arrays.copyOf(operators, count),
+                    Arrays.copyOf(operandStarts, count + 1), operands, size);
+        }
+    }
+}
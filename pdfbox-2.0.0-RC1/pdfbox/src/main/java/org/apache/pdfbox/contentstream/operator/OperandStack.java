@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.contentstream.operator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSNumber;
+
+/**
+ * The operands of a content stream operator. The stack is reused for all operators of a stream,
+ * and plain numbers are kept as primitives: {@link #getFloat(int)} reads them without creating
+ * a {@link COSNumber}, while {@link #get(int)} creates the COS object on first use, so the stack
+ * can be passed to code which expects a list of COS objects.
+ *
+ * <p>A number is stored as an unscaled value and a scale, like a {@link BigDecimal}, so that the
+ * float value is exactly the one of the {@link COSFloat} which would have been parsed.</p>
+ */
+public final class OperandStack extends AbstractList<COSBase> implements RandomAccess
+{
+    private static final byte OBJECT = 0;
+    private static final byte INTEGER = 1;
+    private static final byte REAL = 2;
+
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+        1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private byte[] types = new byte[16];
+    private long[] unscaledValues = new long[16];
+    private int[] scales = new int[16];
+    /** the operands which are objects, and the numbers which have been materialized */
+    private COSBase[] objects = new COSBase[16];
+    private int size;
+    private final StringBuilder numberText = new StringBuilder();
+
+    /**
+     * Pushes an operand which isn't a plain number.
+     *
+     * @param operand the operand, may be null
+     */
+    public void push(COSBase operand)
+    {
+        int index = grow();
+        types[index] = OBJECT;
+        objects[index] = operand;
+    }
+
+    /**
+     * Pushes an integer operand.
+     *
+     * @param value the value of the integer
+     */
+    public void pushInteger(long value)
+    {
+        int index = grow();
+        types[index] = INTEGER;
+        unscaledValues[index] = value;
+        scales[index] = 0;
+        objects[index] = null;
+    }
+
+    /**
+     * Pushes a real operand, e.g. "-12.50" is pushed with the unscaled value -1250 and the
+     * scale 2.
+     *
+     * @param unscaledValue the digits of the number without the decimal point
+     * @param scale the number of digits after the decimal point, at least 0
+     */
+    public void pushReal(long unscaledValue, int scale)
+    {
+        int index = grow();
+        types[index] = REAL;
+        unscaledValues[index] = unscaledValue;
+        scales[index] = scale;
+        objects[index] = null;
+    }
+
+    /**
+     * Pushes a copy of an operand of another stack, a number stays a primitive.
+     *
+     * @param source the stack to copy from
+     * @param index the index of the operand in the source stack
+     */
+    public void push(OperandStack source, int index)
+    {
+        source.checkIndex(index);
+        int target = grow();
+        types[target] = source.types[index];
+        unscaledValues[target] = source.unscaledValues[index];
+        scales[target] = source.scales[index];
+        objects[target] = source.objects[index];
+    }
+
+    private int grow()
+    {
+        if (size == types.length)
+        {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            unscaledValues = Arrays.copyOf(unscaledValues, capacity);
+            scales = Arrays.copyOf(scales, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+        modCount++;
+        return size++;
+    }
+
+    /**
+     * Returns true if the operand at the given index is a number, without creating a COS object.
+     *
+     * @param index the index of the operand
+     * @return true if the operand is a number
+     */
+    public boolean isNumber(int index)
+    {
+        checkIndex(index);
+        return types[index] != OBJECT || objects[index] instanceof COSNumber;
+    }
+
+    /**
+     * Returns the float value of a numeric operand, without creating a COS object.
+     *
+     * @param index the index of the operand
+     * @return the value of the operand
+     * @throws ClassCastException if the operand isn't a number
+     */
+    public float getFloat(int index)
+    {
+        checkIndex(index);
+        long unscaledValue = unscaledValues[index];
+        int scale = scales[index];
+        switch (types[index])
+        {
+            case INTEGER:
+                return unscaledValue;
+            case REAL:
+                // the same fast path as BigDecimal.floatValue(), the division is exact
+                if (Math.abs(unscaledValue) < 1L << 22 && scale < FLOAT_POWERS_OF_TEN.length)
+                {
+                    return unscaledValue / FLOAT_POWERS_OF_TEN[scale];
+                }
+                return BigDecimal.valueOf(unscaledValue, scale).floatValue();
+            default:
+                return ((COSNumber) objects[index]).floatValue();
+        }
+    }
+
+    /**
+     * Returns the double value of a numeric operand, without creating a COS object.
+     *
+     * @param index the index of the operand
+     * @return the value of the operand
+     * @throws ClassCastException if the operand isn't a number
+     */
+    public double getDouble(int index)
+    {
+        checkIndex(index);
+        long unscaledValue = unscaledValues[index];
+        int scale = scales[index];
+        switch (types[index])
+        {
+            case INTEGER:
+                return unscaledValue;
+            case REAL:
+                if (Math.abs(unscaledValue) < 1L << 52 && scale < DOUBLE_POWERS_OF_TEN.length)
+                {
+                    return unscaledValue / DOUBLE_POWERS_OF_TEN[scale];
+                }
+                return BigDecimal.valueOf(unscaledValue, scale).doubleValue();
+            default:
+                return ((COSNumber) objects[index]).doubleValue();
+        }
+    }
+
+    /**
+     * Returns the operand at the given index. A COS object for a number is created on first
+     * use.
+     *
+     * @param index the index of the operand
+     * @return the operand
+     */
+    @Override
+    public COSBase get(int index)
+    {
+        checkIndex(index);
+        COSBase object = objects[index];
+        if (object == null && types[index] != OBJECT)
+        {
+            object = createNumber(index);
+            objects[index] = object;
+        }
+        return object;
+    }
+
+    private COSNumber createNumber(int index)
+    {
+        if (types[index] == INTEGER)
+        {
+            return COSInteger.get(unscaledValues[index]);
+        }
+        // the digits with the decimal point, e.g. -1250 with the scale 2 is "-12.50"
+        long unscaledValue = unscaledValues[index];
+        int scale = scales[index];
+        numberText.setLength(0);
+        if (unscaledValue < 0)
+        {
+            numberText.append('-');
+        }
+        int start = numberText.length();
+        numberText.append(Math.abs(unscaledValue));
+        while (numberText.length() - start <= scale)
+        {
+            numberText.insert(start, '0');
+        }
+        numberText.insert(numberText.length() - scale, '.');
+        try
+        {
+            return COSNumber.get(numberText);
+        }
+        catch (IOException e)
+        {
+            // can't happen, the text is always a valid number
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Replaces the operand at the given index.
+     *
+     * @param index the index of the operand
+     * @param element the new operand
+     * @return the previous operand
+     */
+    @Override
+    public COSBase set(int index, COSBase element)
+    {
+        COSBase previous = get(index);
+        types[index] = OBJECT;
+        objects[index] = element;
+        return previous;
+    }
+
+    /**
+     * Appends an operand, like {@link #push(COSBase)}. Other positions aren't supported.
+     *
+     * @param index the index, must be the size of the stack
+     * @param element the operand
+     */
+    @Override
+    public void add(int index, COSBase element)
+    {
+        if (index != size)
+        {
+            throw new UnsupportedOperationException("Operands can only be appended");
+        }
+        push(element);
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Removes all operands, the storage is kept for the next operator.
+     */
+    @Override
+    public void clear()
+    {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
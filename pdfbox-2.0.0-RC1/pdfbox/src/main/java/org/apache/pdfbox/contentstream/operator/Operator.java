@@ -35,6 +35,12 @@ public final class Operator
     /** map for singleton operator objects; use {@link ConcurrentHashMap} for better scalability with multiple threads */
     private static final ConcurrentMap<String,Operator> operators = new ConcurrentHashMap<String, Operator>();
 
+    /**
+     * lookup table for {@link #getOperator(char[], int)}, indexed by a hash of the keyword; races
+     * are harmless as operators are immutable and a miss falls back to the map
+     */
+    private static final Operator[] operatorTable = new Operator[256];
+
     /**
      * Constructor.
      *
@@ -83,6 +89,52 @@ public final class Operator
         return operation;
     }
 
+    /**
+     * Returns the operator for a keyword which has been read into a buffer, without creating a
+     * string for operators which have been seen before.
+     *
+     * @param keyword the buffer holding the keyword
+     * @param length the length of the keyword
+     *
+     * @return The operator that matches the operator keyword.
+     */
+    public static Operator getOperator( char[] keyword, int length )
+    {
+        int hash = 0;
+        for( int i = 0; i < length; i++ )
+        {
+            hash = 31 * hash + keyword[i];
+        }
+        int index = (hash ^ (hash >>> 8)) & (operatorTable.length - 1);
+        Operator operation = operatorTable[index];
+        if( operation != null && operation.matches( keyword, length ) )
+        {
+            return operation;
+        }
+        operation = getOperator( new String( keyword, 0, length ) );
+        if( !operation.theOperator.equals( "ID" ) && !operation.theOperator.equals( "BI" ) )
+        {
+            operatorTable[index] = operation;
+        }
+        return operation;
+    }
+
+    private boolean matches( char[] keyword, int length )
+    {
+        if( theOperator.length() != length )
+        {
+            return false;
+        }
+        for( int i = 0; i < length; i++ )
+        {
+            if( theOperator.charAt( i ) != keyword[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * This will get the name of the operator.
      *
@@ -17,6 +17,7 @@
 package org.apache.pdfbox.contentstream.operator;
 
 import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.PDFStreamEngine;
 import java.util.List;
 import java.io.IOException;
@@ -68,4 +69,39 @@ public abstract class OperatorProcessor
      * Returns the name of this operator, e.g. "BI".
      */
     public abstract String getName();
+
+    /**
+     * Returns true if the operand at the given index is a number. Numbers on an
+     * {@link OperandStack} are checked without creating a COS object.
+     *
+     * @param operands the operands of the operator
+     * @param index the index of the operand
+     * @return true if the operand is a number
+     */
+    protected static boolean isNumber(List<COSBase> operands, int index)
+    {
+        if (operands instanceof OperandStack)
+        {
+            return ((OperandStack) operands).isNumber(index);
+        }
+        return operands.get(index) instanceof COSNumber;
+    }
+
+    /**
+     * Returns the float value of a numeric operand. Numbers on an {@link OperandStack} are read
+     * without creating a COS object.
+     *
+     * @param operands the operands of the operator
+     * @param index the index of the operand
+     * @return the value of the operand
+     * @throws ClassCastException if the operand isn't a number
+     */
+    protected static float getFloat(List<COSBase> operands, int index)
+    {
+        if (operands instanceof OperandStack)
+        {
+            return ((OperandStack) operands).getFloat(index);
+        }
+        return ((COSNumber) operands.get(index)).floatValue();
+    }
 }
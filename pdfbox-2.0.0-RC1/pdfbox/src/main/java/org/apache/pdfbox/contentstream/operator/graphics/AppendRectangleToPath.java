@@ -21,7 +21,6 @@ import java.io.IOException;
 import java.util.List;
 
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 
 /**
@@ -34,17 +33,12 @@ public final class AppendRectangleToPath extends GraphicsOperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
-        COSNumber x = (COSNumber) operands.get(0);
-        COSNumber y = (COSNumber) operands.get(1);
-        COSNumber w = (COSNumber) operands.get(2);
-        COSNumber h = (COSNumber) operands.get(3);
-
-        float x1 = x.floatValue();
-        float y1 = y.floatValue();
+        float x1 = getFloat(operands, 0);
+        float y1 = getFloat(operands, 1);
 
         // create a pair of coordinates for the transformation
-        float x2 = w.floatValue() + x1;
-        float y2 = h.floatValue() + y1;
+        float x2 = getFloat(operands, 2) + x1;
+        float y2 = getFloat(operands, 3) + y1;
 
         Point2D p0 = context.transformedPoint(x1, y1);
         Point2D p1 = context.transformedPoint(x2, y1);
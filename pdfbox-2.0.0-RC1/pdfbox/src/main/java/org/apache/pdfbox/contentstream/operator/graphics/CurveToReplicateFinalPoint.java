@@ -21,7 +21,6 @@ import java.util.List;
 import java.awt.geom.Point2D;
 
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 
 /**
@@ -34,13 +33,8 @@ public final class CurveToReplicateFinalPoint extends GraphicsOperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
-        COSNumber x1 = (COSNumber)operands.get(0);
-        COSNumber y1 = (COSNumber)operands.get(1);
-        COSNumber x3 = (COSNumber)operands.get(2);
-        COSNumber y3 = (COSNumber)operands.get(3);
-
-        Point2D.Float point1 = context.transformedPoint(x1.floatValue(), y1.floatValue());
-        Point2D.Float point3 = context.transformedPoint(x3.floatValue(), y3.floatValue());
+        Point2D.Float point1 = context.transformedPoint(getFloat(operands, 0), getFloat(operands, 1));
+        Point2D.Float point3 = context.transformedPoint(getFloat(operands, 2), getFloat(operands, 3));
 
         context.curveTo(point1.x, point1.y,
                         point3.x, point3.y,
@@ -23,7 +23,6 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 
 /**
@@ -38,15 +37,10 @@ public class CurveToReplicateInitialPoint extends GraphicsOperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
-        COSNumber x2 = (COSNumber)operands.get(0);
-        COSNumber y2 = (COSNumber)operands.get(1);
-        COSNumber x3 = (COSNumber)operands.get(2);
-        COSNumber y3 = (COSNumber)operands.get(3);
-
         Point2D currentPoint = context.getCurrentPoint();
 
-        Point2D.Float point2 = context.transformedPoint(x2.floatValue(), y2.floatValue());
-        Point2D.Float point3 = context.transformedPoint(x3.floatValue(), y3.floatValue());
+        Point2D.Float point2 = context.transformedPoint(getFloat(operands, 0), getFloat(operands, 1));
+        Point2D.Float point3 = context.transformedPoint(getFloat(operands, 2), getFloat(operands, 3));
 
         if (currentPoint == null)
         {
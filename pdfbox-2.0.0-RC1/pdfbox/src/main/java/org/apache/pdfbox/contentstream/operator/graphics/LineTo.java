@@ -23,7 +23,6 @@ import java.awt.geom.Point2D;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 
 /**
@@ -39,10 +38,7 @@ public class LineTo extends GraphicsOperatorProcessor
     public void process(Operator operator, List<COSBase> operands) throws IOException
     {
         // append straight line segment from the current point to the point
-        COSNumber x = (COSNumber)operands.get(0);
-        COSNumber y = (COSNumber)operands.get(1);
-
-        Point2D.Float pos = context.transformedPoint(x.floatValue(), y.floatValue());
+        Point2D.Float pos = context.transformedPoint(getFloat(operands, 0), getFloat(operands, 1));
 
         if (context.getCurrentPoint() == null)
         {
@@ -21,7 +21,6 @@ import java.io.IOException;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
 
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.util.Matrix;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
@@ -42,15 +41,9 @@ public class Concatenate extends OperatorProcessor
         }
         
         // concatenate matrix to current transformation matrix
-        COSNumber a = (COSNumber) arguments.get(0);
-        COSNumber b = (COSNumber) arguments.get(1);
-        COSNumber c = (COSNumber) arguments.get(2);
-        COSNumber d = (COSNumber) arguments.get(3);
-        COSNumber e = (COSNumber) arguments.get(4);
-        COSNumber f = (COSNumber) arguments.get(5);
-
-        Matrix matrix = new Matrix(a.floatValue(), b.floatValue(), c.floatValue(),
-                                   d.floatValue(), e.floatValue(), f.floatValue());
+        Matrix matrix = new Matrix(getFloat(arguments, 0), getFloat(arguments, 1),
+                getFloat(arguments, 2), getFloat(arguments, 3),
+                getFloat(arguments, 4), getFloat(arguments, 5));
 
         context.getGraphicsState().getCurrentTransformationMatrix().concatenate(matrix);
     }
@@ -20,7 +20,6 @@ import java.util.List;
 
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 
@@ -40,8 +39,7 @@ public class SetLineWidth extends OperatorProcessor
         {
             throw new MissingOperandException(operator, arguments);
         }
-        COSNumber width = (COSNumber) arguments.get(0);
-        context.getGraphicsState().setLineWidth(width.floatValue());
+        context.getGraphicsState().setLineWidth(getFloat(arguments, 0));
     }
 
     @Override
@@ -22,7 +22,6 @@ import org.apache.pdfbox.contentstream.operator.MissingOperandException;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.util.Matrix;
 
 /**
@@ -40,15 +39,9 @@ public class SetMatrix extends OperatorProcessor
             throw new MissingOperandException(operator, arguments);
         }
         
-        COSNumber a = (COSNumber)arguments.get( 0 );
-        COSNumber b = (COSNumber)arguments.get( 1 );
-        COSNumber c = (COSNumber)arguments.get( 2 );
-        COSNumber d = (COSNumber)arguments.get( 3 );
-        COSNumber e = (COSNumber)arguments.get( 4 );
-        COSNumber f = (COSNumber)arguments.get( 5 );
-
-        Matrix matrix = new Matrix(a.floatValue(), b.floatValue(), c.floatValue(),
-                                   d.floatValue(), e.floatValue(), f.floatValue());
+        Matrix matrix = new Matrix(getFloat(arguments, 0), getFloat(arguments, 1),
+                getFloat(arguments, 2), getFloat(arguments, 3),
+                getFloat(arguments, 4), getFloat(arguments, 5));
 
         context.setTextMatrix(matrix);
         context.setTextLineMatrix(matrix.clone());
@@ -24,7 +24,6 @@ import org.apache.pdfbox.contentstream.operator.MissingOperandException;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.util.Matrix;
 
 /**
@@ -50,20 +49,16 @@ public class MoveText extends OperatorProcessor
             return;
         }        
         
-        COSBase base0 = arguments.get(0);
-        COSBase base1 = arguments.get(1);
-        if (!(base0 instanceof COSNumber))
+        if (!isNumber(arguments, 0))
         {
             return;
         }
-        if (!(base1 instanceof COSNumber))
+        if (!isNumber(arguments, 1))
         {
             return;
         }
-        COSNumber x = (COSNumber) base0;
-        COSNumber y = (COSNumber) base1;
 
-        Matrix matrix = new Matrix(1, 0, 0, 1, x.floatValue(), y.floatValue());
+        Matrix matrix = new Matrix(1, 0, 0, 1, getFloat(arguments, 0), getFloat(arguments, 1));
         textLineMatrix.concatenate(matrix);
         context.setTextMatrix(textLineMatrix.clone());
     }
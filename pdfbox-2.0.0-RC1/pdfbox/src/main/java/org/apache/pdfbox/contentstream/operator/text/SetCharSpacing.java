@@ -21,7 +21,6 @@ import java.util.List;
 
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 
@@ -43,11 +42,10 @@ public class SetCharSpacing extends OperatorProcessor
         // there are some documents which are incorrectly structured, and have
         // a wrong number of arguments to this, so we will assume the last argument
         // in the list
-        Object charSpacing = arguments.get(arguments.size()-1);
-        if (charSpacing instanceof COSNumber)
+        int charSpacing = arguments.size()-1;
+        if (isNumber(arguments, charSpacing))
         {
-            COSNumber characterSpacing = (COSNumber)charSpacing;
-            context.getGraphicsState().getTextState().setCharacterSpacing(characterSpacing.floatValue());
+            context.getGraphicsState().getTextState().setCharacterSpacing(getFloat(arguments, charSpacing));
         }
     }
 
@@ -22,7 +22,6 @@ import java.util.List;
 import org.apache.pdfbox.contentstream.operator.MissingOperandException;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSName;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 
@@ -45,17 +44,16 @@ public class SetFontAndSize extends OperatorProcessor
         }
 
         COSBase base0 = arguments.get(0);
-        COSBase base1 = arguments.get(1);
         if (!(base0 instanceof COSName))
         {
             return;
         }
-        if (!(base1 instanceof COSNumber))
+        if (!isNumber(arguments, 1))
         {
             return;
         }
         COSName fontName = (COSName) base0;
-        float fontSize = ((COSNumber) base1).floatValue();
+        float fontSize = getFloat(arguments, 1);
         context.getGraphicsState().getTextState().setFontSize(fontSize);
         PDFont font = context.getResources().getFont(fontName);
         context.getGraphicsState().getTextState().setFont(font);
@@ -23,7 +23,6 @@ import org.apache.pdfbox.contentstream.operator.MissingOperandException;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 
 /**
  * Tz: Set horizontal text scaling.
@@ -40,8 +39,7 @@ public class SetTextHorizontalScaling extends OperatorProcessor
             throw new MissingOperandException(operator, arguments);
         }
         
-        COSNumber scaling = (COSNumber)arguments.get(0);
-        context.getGraphicsState().getTextState().setHorizontalScaling(scaling.floatValue());
+        context.getGraphicsState().getTextState().setHorizontalScaling(getFloat(arguments, 0));
     }
 
     @Override
@@ -19,7 +19,6 @@ package org.apache.pdfbox.contentstream.operator.text;
 import java.util.List;
 
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 
@@ -33,8 +32,7 @@ public class SetTextLeading extends OperatorProcessor
     @Override
     public void process(Operator operator, List<COSBase> arguments)
     {
-        COSNumber leading = (COSNumber)arguments.get( 0 );
-        context.getGraphicsState().getTextState().setLeading( leading.floatValue() );
+        context.getGraphicsState().getTextState().setLeading( getFloat(arguments, 0) );
     }
 
     @Override
@@ -19,7 +19,6 @@ package org.apache.pdfbox.contentstream.operator.text;
 import java.util.List;
 
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 
@@ -39,13 +38,11 @@ public class SetTextRise extends OperatorProcessor
         {
             return;
         }
-        COSBase base = arguments.get(0);
-        if (!(base instanceof COSNumber))
+        if (!isNumber(arguments, 0))
         {
             return;
         }
-        COSNumber rise = (COSNumber) base;
-        context.getGraphicsState().getTextState().setRise( rise.floatValue() );
+        context.getGraphicsState().getTextState().setRise( getFloat(arguments, 0) );
     }
 
     @Override
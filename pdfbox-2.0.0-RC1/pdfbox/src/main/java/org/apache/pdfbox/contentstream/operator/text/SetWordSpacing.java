@@ -19,7 +19,6 @@ package org.apache.pdfbox.contentstream.operator.text;
 import java.util.List;
 
 import org.apache.pdfbox.cos.COSBase;
-import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
 
@@ -37,13 +36,11 @@ public class SetWordSpacing extends OperatorProcessor
         {
             return;
         }
-        COSBase base = arguments.get(0);
-        if (!(base instanceof COSNumber))
+        if (!isNumber(arguments, 0))
         {
             return;
         }
-        COSNumber wordSpacing = (COSNumber) base;
-        context.getGraphicsState().getTextState().setWordSpacing( wordSpacing.floatValue() );
+        context.getGraphicsState().getTextState().setWordSpacing( getFloat(arguments, 0) );
     }
 
     @Override
@@ -78,6 +78,12 @@ public class COSDocument extends COSBase implements Closeable
 
     private ScratchFile scratchFile;
 
+    /** false if the scratch file is shared with other documents and stays open */
+    private final boolean closeScratchFile;
+
+    /** loads the objects which aren't parsed yet, if the document is loaded lazily */
+    private ICOSParser parser;
+
     /**
      * Constructor. Uses main memory to buffer PDF streams.
      */
@@ -94,8 +100,23 @@ public class COSDocument extends COSBase implements Closeable
      * 
      */
     public COSDocument(ScratchFile scratchFile)
+    {
+        this(scratchFile, true);
+    }
+
+    /**
+     * Constructor that will use the provide memory handler for storage of the
+     * PDF streams, and may leave it open when the document is closed.
+     *
+     * @param scratchFile memory handler for buffering of PDF streams
+     * @param closeScratchFile <code>false</code> if the memory handler is shared with other
+     * documents; the buffers of this document are released when it's closed, but the memory
+     * handler stays open
+     */
+    public COSDocument(ScratchFile scratchFile, boolean closeScratchFile)
     {
         this.scratchFile = scratchFile;
+        this.closeScratchFile = closeScratchFile;
     }
 
     /**
@@ -232,7 +253,7 @@ public class COSDocument extends COSBase implements Closeable
     {
         for (Map.Entry<COSObjectKey, COSObject> entry : objectPool.entrySet())
         {
-            if (entry.getValue().getObject() == object)
+            if (!entry.getValue().isObjectNull() && entry.getValue().getObject() == object)
             {
                 return entry.getKey();
             }
@@ -372,7 +393,10 @@ public class COSDocument extends COSBase implements Closeable
      */
     public List<COSObject> getObjects()
     {
-        return new ArrayList<COSObject>(objectPool.values());
+        synchronized (objectPool)
+        {
+            return new ArrayList<COSObject>(objectPool.values());
+        }
     }
 
     /**
@@ -425,6 +449,11 @@ public class COSDocument extends COSBase implements Closeable
             {
                 for (COSObject object : list) 
                 {
+                    if (object.isObjectNull())
+                    {
+                        // never loaded
+                        continue;
+                    }
                     COSBase cosObject = object.getObject();
                     if (cosObject instanceof COSStream)
                     {
@@ -433,7 +462,7 @@ public class COSDocument extends COSBase implements Closeable
                 }
             }
 
-            if (scratchFile != null)
+            if (scratchFile != null && closeScratchFile)
             {
                 scratchFile.close();
             }
@@ -496,7 +525,7 @@ public class COSDocument extends COSBase implements Closeable
             for (COSObject next : parser.getObjects())
             {
                 COSObjectKey key = new COSObjectKey(next);
-                if (objectPool.get(key) == null || objectPool.get(key).getObject() == null
+                if (objectPool.get(key) == null || objectPool.get(key).isObjectNull()
                         // xrefTable stores negated objNr of objStream for objects in objStreams
                         || (xrefTable.containsKey(key)
                             && xrefTable.get(key) == -objStream.getObjectNumber()))
@@ -519,23 +548,46 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObject getObjectFromPool(COSObjectKey key) throws IOException
     {
-        COSObject obj = null;
-        if( key != null )
+        // the pool may be populated by several threads which parse object streams
+        synchronized (objectPool)
         {
-            obj = objectPool.get(key);
+            COSObject obj = null;
+            if( key != null )
+            {
+                obj = objectPool.get(key);
+            }
+            if (obj == null)
+            {
+                // this was a forward reference, make "proxy" object
+                obj = new COSObject(null);
+                obj.setParser(parser);
+                if( key != null )
+                {
+                    obj.setObjectNumber(key.getNumber());
+                    obj.setGenerationNumber(key.getGeneration());
+                    objectPool.put(key, obj);
+                }
+            }
+            return obj;
         }
-        if (obj == null)
+    }
+
+    /**
+     * Sets the parser which loads objects when they are first used. Objects in the pool which
+     * haven't been parsed yet and all objects added later are loaded by this parser.
+     *
+     * @param parser the parser, or null to load no objects lazily
+     */
+    public void setParser(ICOSParser parser)
+    {
+        this.parser = parser;
+        for (COSObject object : objectPool.values())
         {
-            // this was a forward reference, make "proxy" object
-            obj = new COSObject(null);
-            if( key != null )
+            if (object.isObjectNull())
             {
-                obj.setObjectNumber(key.getNumber());
-                obj.setGenerationNumber(key.getGeneration());
-                objectPool.put(key, obj);
+                object.setParser(parser);
             }
         }
-        return obj;
     }
 
     /**
@@ -545,7 +597,10 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObject removeObject(COSObjectKey key)
     {
-        return objectPool.remove(key);
+        synchronized (objectPool)
+        {
+            return objectPool.remove(key);
+        }
     }
 
     /**
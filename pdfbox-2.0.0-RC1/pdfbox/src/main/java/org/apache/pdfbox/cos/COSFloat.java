@@ -18,30 +18,63 @@ package org.apache.pdfbox.cos;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.math.BigDecimal;
+
+import org.apache.pdfbox.util.Charsets;
 
 /**
  * This class represents a floating point number in a PDF document.
  *
+ * <p>The number is kept as primitives: the float value and the double value, both rounded
+ * correctly from the decimal number. Numbers are parsed without creating intermediate objects,
+ * and written with the shortest digits which identify the value.</p>
+ *
  * @author Ben Litchfield
  * 
  */
 public class COSFloat extends COSNumber
 {
-    private BigDecimal value;
-    private String valueAsString;
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+        1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /**
+     * More significant digits may not fit into a long.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private float value;
+    private double doubleValue;
+    // true if the value was given as a float, it is written with the digits of the float then
+    private boolean singlePrecision;
 
     /**
      * Constructor.
      *
      * @param aFloat The primitive float object that this object wraps.
+     * @throws NumberFormatException if the value is infinite or NaN.
      */
     public COSFloat( float aFloat )
     {
-        // use a BigDecimal as intermediate state to avoid 
-        // a floating point string representation of the float value
-        value = new BigDecimal(String.valueOf(aFloat));
-        valueAsString = removeNullDigits(value.toPlainString());
+        if (Float.isNaN(aFloat) || Float.isInfinite(aFloat))
+        {
+            throw new NumberFormatException("Not a PDF number: " + aFloat);
+        }
+        if (aFloat == 0)
+        {
+            // no negative zero, like the decimal number "-0.0"
+            aFloat = 0;
+        }
+        value = aFloat;
+        // the double value is the one of the decimal digits of the float, not the binary value
+        doubleValue = Double.parseDouble(Float.toString(aFloat));
+        if ((float) doubleValue != aFloat)
+        {
+            doubleValue = aFloat;
+        }
+        singlePrecision = true;
     }
 
     /**
@@ -53,45 +86,192 @@ public class COSFloat extends COSNumber
      */
     public COSFloat( String aFloat ) throws IOException
     {
-        try
-        {
-            valueAsString = aFloat; 
-            value = new BigDecimal( valueAsString );
-        }
-        catch( NumberFormatException e )
+        this((CharSequence) aFloat);
+    }
+
+    /**
+     * Constructor for a number which has been read into a buffer.
+     *
+     * @param aFloat the decimal number, optionally with an exponent.
+     *
+     * @throws IOException If aFloat is not a float.
+     */
+    COSFloat( CharSequence aFloat ) throws IOException
+    {
+        if (!parse(aFloat, 0, false))
         {
-            if (aFloat.startsWith("0.00000-"))
+            int length = aFloat.length();
+            if (length > 8 && startsWith(aFloat, "0.00000-"))
             {
                 // PDFBOX-2990 has 0.00000-33917698
                 // Let's wait what other floats will be coming before doing a more general workaround.
-                try
+                if (!parse(aFloat, 8, true))
                 {
-                    valueAsString = "-0.00000" + aFloat.substring(8);
-                    value = new BigDecimal(valueAsString);
-                }
-                catch (NumberFormatException e2)
-                {
-                    throw new IOException("Error expected floating point number actual='" + aFloat + "'", e2);
+                    throw new IOException("Error expected floating point number actual='" + aFloat + "'");
                 }
             }
             else
             {
-                throw new IOException("Error expected floating point number actual='" + aFloat + "'", e);
+                throw new IOException("Error expected floating point number actual='" + aFloat + "'");
             }
         }
     }
 
-    private String removeNullDigits(String plainStringValue)
+    private static boolean startsWith(CharSequence text, String prefix)
     {
-        // remove fraction digit "0" only
-        if (plainStringValue.indexOf('.') > -1 && !plainStringValue.endsWith(".0"))
+        for (int i = 0; i < prefix.length(); i++)
+        {
+            if (text.charAt(i) != prefix.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a decimal number with the syntax of {@link java.math.BigDecimal#BigDecimal(String)}:
+     * an optional sign, digits with an optional decimal point, and an optional exponent.
+     *
+     * @param text the number
+     * @param start the index of the first character to parse
+     * @param lenientNegative true for the PDFBOX-2990 workaround: the number is negative and its
+     * value is the part after start, divided by 10^5
+     * @return false if the number is malformed
+     */
+    private boolean parse(CharSequence text, int start, boolean lenientNegative)
+    {
+        int length = text.length();
+        int index = start;
+        boolean negative = lenientNegative;
+        if (!lenientNegative && index < length && (text.charAt(index) == '-' || text.charAt(index) == '+'))
+        {
+            negative = text.charAt(index) == '-';
+            index++;
+        }
+        long unscaledValue = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        // the decimal exponent of the last digit
+        long exponent = lenientNegative ? -5 : 0;
+        boolean point = lenientNegative;
+        for (; index < length; index++)
+        {
+            char c = text.charAt(index);
+            if (c >= '0' && c <= '9')
+            {
+                digits++;
+                if (significantDigits > 0 || c != '0')
+                {
+                    significantDigits++;
+                    if (significantDigits <= MAX_LONG_DIGITS)
+                    {
+                        // longer numbers are left to the JDK below
+                        unscaledValue = unscaledValue * 10 + (c - '0');
+                    }
+                }
+                if (point)
+                {
+                    exponent--;
+                }
+            }
+            else if (c == '.' && !point)
+            {
+                point = true;
+            }
+            else
+            {
+                break;
+            }
+        }
+        if (digits == 0)
+        {
+            return false;
+        }
+        if (index < length && (text.charAt(index) == 'e' || text.charAt(index) == 'E'))
+        {
+            index++;
+            boolean negativeExponent = false;
+            if (index < length && (text.charAt(index) == '-' || text.charAt(index) == '+'))
+            {
+                negativeExponent = text.charAt(index) == '-';
+                index++;
+            }
+            int exponentStart = index;
+            long explicitExponent = 0;
+            for (; index < length && text.charAt(index) >= '0' && text.charAt(index) <= '9'; index++)
+            {
+                explicitExponent = explicitExponent * 10 + (text.charAt(index) - '0');
+                if (explicitExponent > Integer.MAX_VALUE)
+                {
+                    return false;
+                }
+            }
+            if (index == exponentStart)
+            {
+                return false;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (index != length)
+        {
+            return false;
+        }
+
+        if (unscaledValue == 0)
+        {
+            // no negative zero, like BigDecimal
+            value = 0;
+            doubleValue = 0;
+        }
+        else if (significantDigits <= MAX_LONG_DIGITS && unscaledValue < 1L << 53 &&
+                exponent >= -22 && exponent <= 22)
         {
-            while (plainStringValue.endsWith("0") && !plainStringValue.endsWith(".0"))
+            // both values are exact, so the result is rounded correctly
+            doubleValue = exponent < 0 ? unscaledValue / DOUBLE_POWERS_OF_TEN[(int) -exponent]
+                    : unscaledValue * DOUBLE_POWERS_OF_TEN[(int) exponent];
+            if (unscaledValue < 1L << 24 && exponent >= -10 && exponent <= 10)
             {
-                plainStringValue = plainStringValue.substring(0,plainStringValue.length()-1);
+                value = exponent < 0 ? unscaledValue / FLOAT_POWERS_OF_TEN[(int) -exponent]
+                        : unscaledValue * FLOAT_POWERS_OF_TEN[(int) exponent];
             }
+            else
+            {
+                value = toFloat(doubleValue, text, start, lenientNegative);
+            }
+            if (negative)
+            {
+                value = -value;
+                doubleValue = -doubleValue;
+            }
+        }
+        else
+        {
+            // rare: many digits or a large exponent, let the JDK round the number
+            String number = (lenientNegative ? "-0.00000" : "")
+                    + text.subSequence(start, length).toString();
+            doubleValue = Double.parseDouble(number);
+            value = Float.parseFloat(number);
         }
-        return plainStringValue;
+        return true;
+    }
+
+    /**
+     * Rounds a correctly rounded double to a float. This is correct unless the double is
+     * exactly half way between two floats, then the decimal number decides.
+     */
+    private static float toFloat(double doubleValue, CharSequence text, int start,
+            boolean lenientNegative)
+    {
+        float floatValue = (float) doubleValue;
+        double neighbour = Math.nextAfter(floatValue, doubleValue);
+        if (floatValue != doubleValue && 2 * (doubleValue - floatValue) == neighbour - floatValue)
+        {
+            String number = (lenientNegative ? "0.00000" : "")
+                    + text.subSequence(start, text.length()).toString();
+            return Math.abs(Float.parseFloat(number));
+        }
+        return floatValue;
     }
 
     /**
@@ -102,7 +282,7 @@ public class COSFloat extends COSNumber
     @Override
     public float floatValue()
     {
-        return value.floatValue();
+        return value;
     }
 
     /**
@@ -113,7 +293,7 @@ public class COSFloat extends COSNumber
     @Override
     public double doubleValue()
     {
-        return value.doubleValue();
+        return doubleValue;
     }
 
     /**
@@ -124,7 +304,7 @@ public class COSFloat extends COSNumber
     @Override
     public long longValue()
     {
-        return value.longValue();
+        return (long) doubleValue;
     }
 
     /**
@@ -135,7 +315,7 @@ public class COSFloat extends COSNumber
     @Override
     public int intValue()
     {
-        return value.intValue();
+        return (int) longValue();
     }
 
     /**
@@ -145,7 +325,7 @@ public class COSFloat extends COSNumber
     public boolean equals( Object o )
     {
         return o instanceof COSFloat && 
-                Float.floatToIntBits(((COSFloat)o).value.floatValue()) == Float.floatToIntBits(value.floatValue());
+                Float.floatToIntBits(((COSFloat)o).value) == Float.floatToIntBits(value);
     }
 
     /**
@@ -154,7 +334,7 @@ public class COSFloat extends COSNumber
     @Override
     public int hashCode()
     {
-        return value.hashCode();
+        return Float.floatToIntBits(value);
     }
 
     /**
@@ -163,7 +343,7 @@ public class COSFloat extends COSNumber
     @Override
     public String toString()
     {
-        return "COSFloat{" + valueAsString + "}";
+        return "COSFloat{" + new String(format(), Charsets.ISO_8859_1) + "}";
     }
 
     /**
@@ -187,6 +367,99 @@ public class COSFloat extends COSNumber
      */
     public void writePDF( OutputStream output ) throws IOException
     {
-        output.write(valueAsString.getBytes("ISO-8859-1"));
+        output.write(format());
+    }
+
+    /**
+     * Formats the value in plain notation, with the shortest digits of {@link Float#toString(float)}
+     * or {@link Double#toString(double)} which identify the value, and without trailing zeros
+     * after the first fraction digit.
+     */
+    private byte[] format()
+    {
+        String digits = singlePrecision ? Float.toString(value) : Double.toString(doubleValue);
+        int length = digits.length();
+        int exponentIndex = digits.indexOf('E');
+        int exponent = 0;
+        if (exponentIndex >= 0)
+        {
+            exponent = Integer.parseInt(digits.substring(exponentIndex + 1));
+            length = exponentIndex;
+        }
+        byte[] buffer = new byte[length + Math.abs(exponent) + 3];
+        int size = 0;
+        int index = 0;
+        if (digits.charAt(0) == '-')
+        {
+            buffer[size++] = '-';
+            index++;
+        }
+        if (exponent < 0)
+        {
+            // d.ddd with an exponent < 0: 0.000dddd
+            buffer[size++] = '0';
+            buffer[size++] = '.';
+            for (int i = -1; i > exponent; i--)
+            {
+                buffer[size++] = '0';
+            }
+            for (; index < length; index++)
+            {
+                if (digits.charAt(index) != '.')
+                {
+                    buffer[size++] = (byte) digits.charAt(index);
+                }
+            }
+        }
+        else
+        {
+            // move the decimal point by the exponent, a real always has a fraction digit so that
+            // it isn't read back as an integer
+            int point = digits.indexOf('.');
+            int integerDigits = point - index + exponent;
+            int written = 0;
+            for (; index < length; index++)
+            {
+                char c = digits.charAt(index);
+                if (c == '.')
+                {
+                    continue;
+                }
+                if (written == integerDigits)
+                {
+                    buffer[size++] = '.';
+                }
+                buffer[size++] = (byte) c;
+                written++;
+            }
+            for (; written < integerDigits; written++)
+            {
+                buffer[size++] = '0';
+            }
+            if (written == integerDigits)
+            {
+                buffer[size++] = '.';
+                buffer[size++] = '0';
+            }
+        }
+        int point = -1;
+        for (int i = 0; i < size; i++)
+        {
+            if (buffer[i] == '.')
+            {
+                point = i;
+            }
+        }
+        if (point >= 0)
+        {
+            // remove fraction digit "0" only, but keep one fraction digit
+            while (size > point + 2 && buffer[size - 1] == '0')
+            {
+                size--;
+            }
+        }
+        byte[] result = new byte[size];
+        System.arraycopy(buffer, 0, result, 0, size);
+        return result;
     }
 }
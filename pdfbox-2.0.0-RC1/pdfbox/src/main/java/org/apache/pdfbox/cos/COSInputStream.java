@@ -41,6 +41,11 @@ public final class COSInputStream extends FilterInputStream
     /**
      * Creates a new COSInputStream from an encoded input stream.
      *
+     * <p>This method holds no lock, streams of the same or of different documents may be
+     * decoded by several threads at once. The filters are stateless shared instances, each call
+     * uses its own buffers, and the encoded input and the scratch file synchronize their own
+     * access.</p>
+     *
      * @param filters Filters to be applied.
      * @param parameters Filter parameters.
      * @param in Encoded input stream.
@@ -48,48 +53,83 @@ public final class COSInputStream extends FilterInputStream
      * @return Decoded stream.
      * @throws IOException If the stream could not be read.
      */
-    synchronized static COSInputStream create(List<Filter> filters, COSDictionary parameters, InputStream in,
+    static COSInputStream create(List<Filter> filters, COSDictionary parameters, InputStream in,
                                  ScratchFile scratchFile) throws IOException
     {
         List<DecodeResult> results = new ArrayList<DecodeResult>();
         InputStream input = in;
-        if (filters.isEmpty())
+        for (int i = 0; i < filters.size(); i++)
         {
-            input = in;
+            input = decodeFully(filters.get(i), parameters, i, input, scratchFile, results);
         }
-        else
+        return new COSInputStream(input, results);
+    }
+
+    /**
+     * Creates a new COSInputStream which decodes the data while it is read. Each filter which
+     * supports it wraps the stream of the previous filter, see
+     * {@link Filter#decodeStream(InputStream, COSDictionary, int)}, so a chain of such filters
+     * is decoded with constant memory. Other filters are decoded fully into a buffer, like
+     * {@link #create(List, COSDictionary, InputStream, ScratchFile)} does.
+     *
+     * @param filters Filters to be applied.
+     * @param parameters Filter parameters.
+     * @param in Encoded input stream.
+     * @param scratchFile Scratch file to use, or null.
+     * @return Decoding stream.
+     * @throws IOException If the stream could not be read.
+     */
+    static COSInputStream createStreaming(List<Filter> filters, COSDictionary parameters,
+                                          InputStream in, ScratchFile scratchFile)
+            throws IOException
+    {
+        List<DecodeResult> results = new ArrayList<DecodeResult>();
+        InputStream input = in;
+        for (int i = 0; i < filters.size(); i++)
         {
-            // apply filters
-            for (int i = 0; i < filters.size(); i++)
+            InputStream decoded = filters.get(i).decodeStream(input, parameters, i);
+            if (decoded != null)
             {
-                if (scratchFile != null)
-                {
-                    // scratch file
-                    final RandomAccess buffer = scratchFile.createBuffer();
-                    DecodeResult result = filters.get(i).decode(input, new RandomAccessOutputStream(buffer), parameters, i);
-                    results.add(result);
-                    input = new RandomAccessInputStream(buffer)
-                    {
-                        @Override
-                        public void close() throws IOException
-                        {
-                            buffer.close();
-                        }
-                    };
-                }
-                else
-                {
-                    // in-memory
-                    ByteArrayOutputStream output = new ByteArrayOutputStream();
-                    DecodeResult result = filters.get(i).decode(input, output, parameters, i);
-                    results.add(result);
-                    input = new ByteArrayInputStream(output.toByteArray());
-                }
+                results.add(DecodeResult.DEFAULT);
+                input = decoded;
+            }
+            else
+            {
+                input = decodeFully(filters.get(i), parameters, i, input, scratchFile, results);
             }
         }
         return new COSInputStream(input, results);
     }
 
+    private static InputStream decodeFully(Filter filter, COSDictionary parameters, int index,
+                                           InputStream input, ScratchFile scratchFile,
+                                           List<DecodeResult> results) throws IOException
+    {
+        if (scratchFile != null)
+        {
+            // scratch file
+            final RandomAccess buffer = scratchFile.createBuffer();
+            DecodeResult result = filter.decode(input, new RandomAccessOutputStream(buffer), parameters, index);
+            results.add(result);
+            return new RandomAccessInputStream(buffer)
+            {
+                @Override
+                public void close() throws IOException
+                {
+                    buffer.close();
+                }
+            };
+        }
+        else
+        {
+            // in-memory
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            DecodeResult result = filter.decode(input, output, parameters, index);
+            results.add(result);
+            return new ByteArrayInputStream(output.toByteArray());
+        }
+    }
+
     private final List<DecodeResult> decodeResults;
 
     /**
@@ -18,6 +18,7 @@ package org.apache.pdfbox.cos;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -38,6 +39,10 @@ public final class COSName extends COSBase implements Comparable<COSName>
     // hey are already defined as static constants and don't need to be synchronized
     private static Map<String, COSName> commonNameMap = new HashMap<String, COSName>();
 
+    // lookup table for names read by the parsers, indexed by a hash of the bytes of the name;
+    // races are harmless as names are immutable and a miss falls back to the maps
+    private static final COSName[] byteNameTable = new COSName[1024];
+
     //
     // IMPORTANT: this list is *alphabetized* and does not need any JavaDoc
     //
@@ -470,6 +475,7 @@ public final class COSName extends COSBase implements Comparable<COSName>
     public static final COSName STD_CF = new COSName("StdCF");
     public static final COSName STEM_H = new COSName("StemH");
     public static final COSName STEM_V = new COSName("StemV");
+    public static final COSName STM = new COSName("Stm");
     public static final COSName STM_F = new COSName("StmF");
     public static final COSName STR_F = new COSName("StrF");
     public static final COSName STRUCT_PARENT = new COSName("StructParent");
@@ -579,6 +585,55 @@ public final class COSName extends COSBase implements Comparable<COSName>
         return name;
     }
 
+    /**
+     * This will get a COSName object for a name which has been read into a buffer, without
+     * decoding the bytes for ASCII names which have been seen before.
+     * 
+     * @param bytes The buffer holding the UTF-8 encoded name.
+     * @param length The length of the name.
+     * 
+     * @return A COSName with the specified name.
+     */
+    public static COSName getPDFName(byte[] bytes, int length)
+    {
+        int hash = 0;
+        boolean ascii = true;
+        for (int i = 0; i < length; i++)
+        {
+            int b = bytes[i];
+            hash = 31 * hash + b;
+            ascii &= b >= 0;
+        }
+        if (!ascii)
+        {
+            return getPDFName(new String(bytes, 0, length, Charsets.UTF_8));
+        }
+        int index = (hash ^ (hash >>> 10)) & (byteNameTable.length - 1);
+        COSName name = byteNameTable[index];
+        if (name == null || !name.matches(bytes, length))
+        {
+            name = getPDFName(new String(bytes, 0, length, Charsets.US_ASCII));
+            byteNameTable[index] = name;
+        }
+        return name;
+    }
+
+    private boolean matches(byte[] bytes, int length)
+    {
+        if (name.length() != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (name.charAt(i) != bytes[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Private constructor. This will limit the number of COSName objects. that are created.
      * 
@@ -703,5 +758,6 @@ public final class COSName extends COSBase implements Comparable<COSName>
     {
         // Clear them all
         nameMap.clear();
+        Arrays.fill(byteNameTable, null);
     }
 }
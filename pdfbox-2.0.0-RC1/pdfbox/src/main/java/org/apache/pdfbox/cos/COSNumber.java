@@ -77,7 +77,23 @@ public abstract class COSNumber extends COSBase
      */
     public static COSNumber get( String number ) throws IOException
     {
-        if (number.length() == 1) 
+        return get( (CharSequence) number );
+    }
+
+    /**
+     * This factory method will get the appropriate number object for a number which has been
+     * read into a buffer, e.g. a {@link StringBuilder} which is reused by a parser.
+     *
+     * @param number The characters of the number.
+     *
+     * @return A number object, either float or int.
+     *
+     * @throws IOException If the characters are not a number.
+     */
+    public static COSNumber get( CharSequence number ) throws IOException
+    {
+        int length = number.length();
+        if (length == 1) 
         {
             char digit = number.charAt(0);
             if ('0' <= digit && digit <= '9') 
@@ -94,24 +110,46 @@ public abstract class COSNumber extends COSBase
                 throw new IOException("Not a number: " + number);
             }
         } 
-        else if (number.indexOf('.') == -1 && (number.toLowerCase().indexOf('e') == -1)) 
+        for (int i = 0; i < length; i++)
         {
-            try
+            char c = number.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E')
             {
-                if (number.charAt(0) == '+')
-                {
-                    return COSInteger.get(Long.parseLong(number.substring(1)));
-                }
-                return COSInteger.get(Long.parseLong(number));
+                return new COSFloat(number);
             }
-            catch( NumberFormatException e )
+        }
+        return COSInteger.get(parseLong(number));
+    }
+
+    /**
+     * Parses an integer like {@link Long#parseLong(String)}, also with a leading "+".
+     */
+    private static long parseLong( CharSequence number ) throws IOException
+    {
+        int length = number.length();
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (number.charAt(0) == '-' || number.charAt(0) == '+'))
+        {
+            negative = number.charAt(0) == '-';
+            index++;
+        }
+        if (index == length)
+        {
+            throw new IOException( "Value is not an integer: " + number );
+        }
+        // accumulate negatively, so that Long.MIN_VALUE can be parsed
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; index < length; index++)
+        {
+            int digit = number.charAt(index) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10 || result * 10 < limit + digit)
             {
-                throw new IOException( "Value is not an integer: " + number, e );
+                throw new IOException( "Value is not an integer: " + number );
             }
-        } 
-        else 
-        {
-            return new COSFloat(number);
+            result = result * 10 - digit;
         }
+        return negative ? result : -result;
     }
 }
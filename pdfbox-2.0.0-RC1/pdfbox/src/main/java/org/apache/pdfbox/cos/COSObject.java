@@ -18,6 +18,9 @@ package org.apache.pdfbox.cos;
 
 import java.io.IOException;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 /**
  * This class represents a PDF object.
  *
@@ -26,7 +29,11 @@ import java.io.IOException;
  */
 public class COSObject extends COSBase implements COSUpdateInfo
 {
-    private COSBase baseObject;
+    private static final Log LOG = LogFactory.getLog(COSObject.class);
+
+    private volatile COSBase baseObject;
+    private volatile ICOSParser parser;
+    private boolean loading; // guarded by the lock of the parser
     private long objectNumber;
     private int generationNumber;
     private boolean needToBeUpdated;
@@ -54,9 +61,10 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public COSBase getDictionaryObject( COSName key )
     {
         COSBase retval =null;
-        if( baseObject instanceof COSDictionary )
+        COSBase object = getObject();
+        if( object instanceof COSDictionary )
         {
-            retval = ((COSDictionary)baseObject).getDictionaryObject( key );
+            retval = ((COSDictionary)object).getDictionaryObject( key );
         }
         return retval;
     }
@@ -71,23 +79,83 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public COSBase getItem( COSName key )
     {
         COSBase retval =null;
-        if( baseObject instanceof COSDictionary )
+        COSBase object = getObject();
+        if( object instanceof COSDictionary )
         {
-            retval = ((COSDictionary)baseObject).getItem( key );
+            retval = ((COSDictionary)object).getItem( key );
         }
         return retval;
     }
 
     /**
-     * This will get the object that this object encapsulates.
+     * This will get the object that this object encapsulates. If the object hasn't been loaded
+     * yet and the document is loaded lazily, it is parsed now. The objects of a document are
+     * loaded under the lock of its parser, so a thread which asks for an object which another
+     * thread is loading waits for it.
      *
      * @return The encapsulated object.
      */
     public COSBase getObject()
     {
+        COSBase object = baseObject;
+        if (object != null)
+        {
+            return object;
+        }
+        ICOSParser objectParser = parser;
+        if (objectParser != null)
+        {
+            synchronized (objectParser)
+            {
+                // load only once, also if parsing fails or reaches this object again
+                if (baseObject == null && parser != null && !loading)
+                {
+                    loading = true;
+                    try
+                    {
+                        COSBase loaded = objectParser.dereferenceCOSObject(this);
+                        if (baseObject == null)
+                        {
+                            baseObject = loaded;
+                        }
+                    }
+                    catch (IOException e)
+                    {
+                        LOG.error("Can't dereference " + this, e);
+                    }
+                    finally
+                    {
+                        // cleared after the object is set, see the check above
+                        parser = null;
+                        loading = false;
+                    }
+                }
+            }
+        }
+        // read again, the parser is cleared only after the object has been set
         return baseObject;
     }
 
+    /**
+     * Tells whether the encapsulated object is null, without loading it.
+     *
+     * @return true if the object is null or hasn't been loaded yet
+     */
+    public boolean isObjectNull()
+    {
+        return baseObject == null;
+    }
+
+    /**
+     * Sets the parser which loads the object when it is first used.
+     *
+     * @param parser the parser, or null
+     */
+    void setParser(ICOSParser parser)
+    {
+        this.parser = parser;
+    }
+
     /**
      * This will set the object that this object encapsulates.
      *
@@ -33,6 +33,8 @@ import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.io.RandomAccess;
 import org.apache.pdfbox.io.RandomAccessInputStream;
 import org.apache.pdfbox.io.RandomAccessOutputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadView;
 import org.apache.pdfbox.io.ScratchFile;
 
 /**
@@ -43,8 +45,10 @@ import org.apache.pdfbox.io.ScratchFile;
 public class COSStream extends COSDictionary implements Closeable
 {
     private RandomAccess randomAccess;      // backing store, in-memory or on-disk
+    private RandomAccessRead sourceView;    // encoded data in the source, if not copied
     private final ScratchFile scratchFile;  // used as a temp buffer during decoding
     private boolean isWriting;              // true if there's an open OutputStream
+    private int dataVersion;                // incremented when the data is replaced
     
     private static final Log LOG = LogFactory.getLog(COSStream.class);
     
@@ -73,7 +77,8 @@ public class COSStream extends COSDictionary implements Closeable
      */
     private void checkClosed() throws IOException
     {
-        if ((randomAccess != null) && randomAccess.isClosed())
+        if ((randomAccess != null && randomAccess.isClosed())
+            || (sourceView != null && sourceView.isClosed()))
         {
             throw new IOException("COSStream has been closed and cannot be read. " +
                                   "Perhaps its enclosing PDDocument has been closed?");
@@ -104,7 +109,7 @@ public class COSStream extends COSDictionary implements Closeable
      */
     private void ensureRandomAccessExists(boolean forInputStream) throws IOException
     {
-        if (randomAccess == null)
+        if (randomAccess == null && sourceView == null)
         {
             if (forInputStream && LOG.isDebugEnabled())
             {
@@ -114,6 +119,52 @@ public class COSStream extends COSDictionary implements Closeable
             randomAccess = scratchFile.createBuffer();
         }
     }
+
+    /**
+     * Returns the encoded data: the data which was written to the stream, or the range of the
+     * source set with {@link #setSource(RandomAccessRead, long, long)}.
+     */
+    private RandomAccessRead getEncodedData() throws IOException
+    {
+        ensureRandomAccessExists(true);
+        return randomAccess != null ? randomAccess : sourceView;
+    }
+
+    /**
+     * Uses a range of the given source as the encoded stream data. The data isn't copied, it is
+     * read from the source each time the stream is read, so the source must stay open as long
+     * as this stream is used. Writing to the stream replaces the source. Experts only!
+     *
+     * @param source the source, usually the PDF file which is parsed
+     * @param offset the position of the first byte of the encoded data in the source
+     * @param length the length of the encoded data
+     * @throws IOException if the previous data of the stream can't be released
+     */
+    public void setSource(RandomAccessRead source, long offset, long length) throws IOException
+    {
+        if (isWriting)
+        {
+            throw new IllegalStateException("Cannot set the source while there is an open stream writer");
+        }
+        if (randomAccess != null)
+        {
+            randomAccess.close();
+            randomAccess = null;
+        }
+        sourceView = new RandomAccessReadView(source, offset, length);
+        dataVersion++;
+    }
+
+    /**
+     * Returns a number which changes each time the data of this stream is replaced, so that
+     * information derived from the data, e.g. parsed content, can be checked for being outdated.
+     *
+     * @return the version of the stream data
+     */
+    public int getDataVersion()
+    {
+        return dataVersion;
+    }
     
     /**
      * Returns a new InputStream which reads the encoded PDF stream data. Experts only!
@@ -128,8 +179,7 @@ public class COSStream extends COSDictionary implements Closeable
         {
             throw new IllegalStateException("Cannot read while there is an open stream writer");
         }
-        ensureRandomAccessExists(true);
-        return new RandomAccessInputStream(randomAccess);
+        return new RandomAccessInputStream(getEncodedData());
     }
 
     /**
@@ -158,11 +208,31 @@ public class COSStream extends COSDictionary implements Closeable
         {
             throw new IllegalStateException("Cannot read while there is an open stream writer");
         }
-        ensureRandomAccessExists(true);
-        InputStream input = new RandomAccessInputStream(randomAccess);
+        InputStream input = new RandomAccessInputStream(getEncodedData());
         return COSInputStream.create(getFilterList(), this, input, scratchFile);
     }
 
+    /**
+     * Returns a new InputStream which decodes the stream data while it is read, instead of
+     * decoding each filter completely before the data can be read. Filters like FlateDecode,
+     * with or without predictor, ASCII85Decode, ASCIIHexDecode and RunLengthDecode are decoded
+     * with constant memory, the image filters are still decoded completely. The decode results
+     * of the streamed filters are not repaired.
+     *
+     * @return InputStream containing decoded stream data.
+     * @throws IOException If the stream could not be read.
+     */
+    public COSInputStream createStreamingInputStream() throws IOException
+    {
+        checkClosed();
+        if (isWriting)
+        {
+            throw new IllegalStateException("Cannot read while there is an open stream writer");
+        }
+        InputStream input = new RandomAccessInputStream(getEncodedData());
+        return COSInputStream.createStreaming(getFilterList(), this, input, scratchFile);
+    }
+
     /**
      * This will create an output stream that can be written to.
      *
@@ -206,7 +276,9 @@ public class COSStream extends COSDictionary implements Closeable
         {
             setItem(COSName.FILTER, filters);
         }
+        sourceView = null;
         randomAccess = scratchFile.createBuffer(); // discards old data - TODO: close existing buffer?
+        dataVersion++;
         OutputStream randomOut = new RandomAccessOutputStream(randomAccess);
         OutputStream cosOut = new COSOutputStream(getFilterList(), this, randomOut, scratchFile);
         isWriting = true;
@@ -250,7 +322,9 @@ public class COSStream extends COSDictionary implements Closeable
         {
             throw new IllegalStateException("Cannot have more than one open stream writer.");
         }
+        sourceView = null;
         randomAccess = scratchFile.createBuffer(); // discards old data - TODO: close existing buffer?
+        dataVersion++;
         OutputStream out = new RandomAccessOutputStream(randomAccess);
         isWriting = true;
         return new FilterOutputStream(out)
@@ -380,5 +454,9 @@ public class COSStream extends COSDictionary implements Closeable
         {
             randomAccess.close();
         }
+        if (sourceView != null)
+        {
+            sourceView.close();
+        }
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.cos;
+
+import java.io.IOException;
+
+/**
+ * A parser which loads the indirect objects of a document when they are first used.
+ */
+public interface ICOSParser
+{
+    /**
+     * Parses the given indirect object from the source of the document. {@link COSObject} calls
+     * this while holding the lock of the parser, so objects are loaded one at a time, but this
+     * may be called again while the parser is parsing another object.
+     *
+     * @param object the object to be loaded
+     * @return the parsed object, {@link COSNull#NULL} if the object isn't defined
+     * @throws IOException if the object can't be parsed
+     */
+    COSBase dereferenceCOSObject(COSObject object) throws IOException;
+}
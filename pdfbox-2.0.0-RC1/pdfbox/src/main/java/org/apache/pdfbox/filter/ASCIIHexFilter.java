@@ -16,6 +16,7 @@
  */
 package org.apache.pdfbox.filter;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -92,6 +93,102 @@ final class ASCIIHexFilter extends Filter
         return new DecodeResult(parameters);
     }
 
+    @Override
+    public InputStream decodeStream(InputStream encoded, COSDictionary parameters, int index)
+    {
+        return new ASCIIHexInputStream(encoded);
+    }
+
+    /**
+     * Decodes hex digits while they are read, with the same rules as
+     * {@link #decode(InputStream, OutputStream, COSDictionary, int)}.
+     */
+    private final class ASCIIHexInputStream extends FilterInputStream
+    {
+        private boolean eod;
+
+        private ASCIIHexInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (eod)
+            {
+                return -1;
+            }
+            int firstByte = in.read();
+            while (isWhitespace(firstByte))
+            {
+                firstByte = in.read();
+            }
+            if (firstByte == -1 || isEOD(firstByte))
+            {
+                eod = true;
+                return -1;
+            }
+            if (REVERSE_HEX[firstByte] == -1)
+            {
+                LOG.error("Invalid hex, int: " + firstByte + " char: " + (char)firstByte);
+            }
+            int value = REVERSE_HEX[firstByte] * 16;
+            int secondByte = in.read();
+            if (secondByte == -1 || isEOD(secondByte))
+            {
+                // second value behaves like 0 in case of EOD
+                eod = true;
+                return value & 0xff;
+            }
+            if (REVERSE_HEX[secondByte] == -1)
+            {
+                LOG.error("Invalid hex, int: " + secondByte + " char: " + (char)secondByte);
+            }
+            value += REVERSE_HEX[secondByte];
+            return value & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int count = 0;
+            while (count < len)
+            {
+                int value = read();
+                if (value == -1)
+                {
+                    break;
+                }
+                b[off + count++] = (byte) value;
+            }
+            return count == 0 && len > 0 ? -1 : count;
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            return eod ? 0 : in.available() / 2;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = 0;
+            while (skipped < n && read() != -1)
+            {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+
     // whitespace
     //   0  0x00  Null (NUL)
     //   9  0x09  Tab (HT)
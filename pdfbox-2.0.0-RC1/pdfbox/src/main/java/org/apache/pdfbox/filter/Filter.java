@@ -60,6 +60,28 @@ public abstract class Filter
     public abstract DecodeResult decode(InputStream encoded, OutputStream decoded, COSDictionary parameters,
                             int index) throws IOException;
 
+    /**
+     * Returns a stream which decodes the data while it is read, so that a chain of filters can
+     * be decoded without holding the whole output of each filter. Filters which can only decode
+     * a complete stream, like the image filters, return null and are decoded with
+     * {@link #decode(InputStream, OutputStream, COSDictionary, int)}.
+     *
+     * <p>A streaming decode doesn't repair the parameters, the decode result of a streamed filter
+     * is {@link DecodeResult#DEFAULT}. Closing the returned stream closes the encoded
+     * stream.</p>
+     *
+     * @param encoded the encoded byte stream
+     * @param parameters the parameters used for decoding
+     * @param index the index to the filter being decoded
+     * @return the decoding stream, or null if this filter doesn't support streaming
+     * @throws IOException if the stream cannot be decoded
+     */
+    public InputStream decodeStream(InputStream encoded, COSDictionary parameters, int index)
+            throws IOException
+    {
+        return null;
+    }
+
     /**
      * Encodes data.
      * @param input the byte stream to encode
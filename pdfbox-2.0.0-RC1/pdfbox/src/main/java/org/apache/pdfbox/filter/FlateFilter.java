@@ -85,6 +85,23 @@ final class FlateFilter extends Filter
         return new DecodeResult(parameters);
     }
 
+    @Override
+    public InputStream decodeStream(InputStream encoded, COSDictionary parameters, int index)
+            throws IOException
+    {
+        InputStream decoded = new FlateInputStream(encoded);
+        final COSDictionary decodeParams = getDecodeParams(parameters, index);
+        if (decodeParams != null && decodeParams.getInt(COSName.PREDICTOR) > 1)
+        {
+            int predictor = decodeParams.getInt(COSName.PREDICTOR);
+            int colors = Math.min(decodeParams.getInt(COSName.COLORS, 1), 32);
+            int bitsPerPixel = decodeParams.getInt(COSName.BITS_PER_COMPONENT, 8);
+            int columns = decodeParams.getInt(COSName.COLUMNS, 1);
+            decoded = new PredictorInputStream(decoded, predictor, colors, bitsPerPixel, columns);
+        }
+        return decoded;
+    }
+
     // Use Inflater instead of InflateInputStream to avoid an EOFException due to a probably
     // missing Z_STREAM_END, see PDFBOX-1232 for details
     private void decompress(InputStream in, OutputStream out) throws IOException, DataFormatException 
@@ -93,23 +110,30 @@ final class FlateFilter extends Filter
         int read = in.read(buf); 
         if (read > 0) 
         { 
-            Inflater inflater = new Inflater(); 
-            inflater.setInput(buf,0,read); 
-            byte[] res = new byte[2048]; 
-            while (true) 
-            { 
-                int resRead = inflater.inflate(res); 
-                if (resRead != 0) 
-                { 
-                    out.write(res,0,resRead); 
-                    continue; 
-                } 
-                if (inflater.finished() || inflater.needsDictionary() || in.available() == 0) 
-                {
-                    break;
-                } 
-                read = in.read(buf); 
+            Inflater inflater = InflaterPool.acquire();
+            try
+            {
                 inflater.setInput(buf,0,read); 
+                byte[] res = new byte[2048]; 
+                while (true) 
+                { 
+                    int resRead = inflater.inflate(res); 
+                    if (resRead != 0) 
+                    { 
+                        out.write(res,0,resRead); 
+                        continue; 
+                    } 
+                    if (inflater.finished() || inflater.needsDictionary() || in.available() == 0) 
+                    {
+                        break;
+                    } 
+                    read = in.read(buf); 
+                    inflater.setInput(buf,0,read); 
+                }
+            }
+            finally
+            {
+                InflaterPool.release(inflater);
             }
         }
         out.flush();
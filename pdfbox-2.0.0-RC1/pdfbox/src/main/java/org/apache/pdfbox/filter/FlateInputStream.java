@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Inflates zlib/deflate data while it is read. Like {@link FlateFilter} it doesn't fail on a
+ * missing Z_STREAM_END, the stream simply ends with the encoded data.
+ */
+final class FlateInputStream extends InputStream
+{
+    private static final Log LOG = LogFactory.getLog(FlateInputStream.class);
+
+    private final InputStream in;
+    private Inflater inflater = InflaterPool.acquire();
+    private final byte[] buffer = new byte[2048];
+    private final byte[] single = new byte[1];
+    private boolean eof;
+
+    FlateInputStream(InputStream in)
+    {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        if (inflater == null)
+        {
+            throw new IOException("Stream closed");
+        }
+        while (!eof)
+        {
+            int n;
+            try
+            {
+                n = inflater.inflate(b, off, len);
+            }
+            catch (DataFormatException e)
+            {
+                // if the stream is corrupt a DataFormatException may occur
+                LOG.error("FlateFilter: stop reading corrupt stream due to a DataFormatException");
+                eof = true;
+                throw new IOException(e);
+            }
+            if (n > 0)
+            {
+                return n;
+            }
+            if (inflater.finished() || inflater.needsDictionary() || !inflater.needsInput())
+            {
+                eof = true;
+            }
+            else
+            {
+                int read = in.read(buffer);
+                if (read == -1)
+                {
+                    eof = true;
+                }
+                else
+                {
+                    inflater.setInput(buffer, 0, read);
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return eof ? 0 : 1;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (inflater != null)
+        {
+            InflaterPool.release(inflater);
+            inflater = null;
+        }
+        in.close();
+    }
+}
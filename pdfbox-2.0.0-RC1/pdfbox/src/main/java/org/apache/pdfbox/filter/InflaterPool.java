@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.filter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * A bounded pool of {@link Inflater} instances. An inflater holds native zlib memory which is
+ * only released by {@link Inflater#end()} or by finalization, so creating one for every stream
+ * is expensive when many small streams are decoded. Inflaters which don't fit into the pool are
+ * ended right away.
+ */
+final class InflaterPool
+{
+    private static final int CAPACITY = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private static final BlockingQueue<Inflater> POOL = new ArrayBlockingQueue<Inflater>(CAPACITY);
+
+    private InflaterPool()
+    {
+    }
+
+    /**
+     * Returns an inflater from the pool, or a new one if the pool is empty.
+     */
+    static Inflater acquire()
+    {
+        Inflater inflater = POOL.poll();
+        return inflater != null ? inflater : new Inflater();
+    }
+
+    /**
+     * Returns an inflater to the pool. It must not be used by the caller afterwards.
+     *
+     * @param inflater the inflater which is no longer used
+     */
+    static void release(Inflater inflater)
+    {
+        inflater.reset();
+        if (!POOL.offer(inflater))
+        {
+            inflater.end();
+        }
+    }
+}
@@ -44,7 +44,6 @@ public final class Predictor
         {
             // calculate sizes
             final int bitsPerPixel = colors * bitsPerComponent;
-            final int bytesPerPixel = (bitsPerPixel + 7) / 8;
             final int rowlength = (columns * bitsPerPixel + 7) / 8;
             byte[] actline = new byte[rowlength];
             byte[] lastline = new byte[rowlength];
@@ -74,156 +73,176 @@ public final class Predictor
                     offset += i;
                 }
 
-                // do prediction as specified in PNG-Specification 1.2
-                switch (linepredictor)
+                decodePredictorRow(linepredictor, colors, bitsPerComponent, columns, actline, lastline);
+                System.arraycopy(actline, 0, lastline, 0, rowlength);
+                out.write(actline);
+            }
+        }
+    }
+    
+    /**
+     * Decodes a single row of predicted data.
+     *
+     * @param linepredictor the predictor of the row, for PNG predictors 10 plus the predictor
+     * byte of the row
+     * @param colors the number of color components per sample
+     * @param bitsPerComponent the number of bits per color component
+     * @param columns the number of samples per row
+     * @param actline the row to decode, decoded in place
+     * @param lastline the previous decoded row, or zeros for the first row
+     */
+    static void decodePredictorRow(int linepredictor, int colors, int bitsPerComponent, int columns,
+            byte[] actline, byte[] lastline)
+    {
+        final int bitsPerPixel = colors * bitsPerComponent;
+        final int bytesPerPixel = (bitsPerPixel + 7) / 8;
+        final int rowlength = actline.length;
+        // do prediction as specified in PNG-Specification 1.2
+        switch (linepredictor)
+        {
+            case 2:
+                // PRED TIFF SUB
+                if (bitsPerComponent == 8)
                 {
-                    case 2:
-                        // PRED TIFF SUB
-                        if (bitsPerComponent == 8)
-                        {
-                            // for 8 bits per component it is the same algorithm as PRED SUB of PNG format
-                            for (int p = bytesPerPixel; p < rowlength; p++)
-                            {
-                                int sub = actline[p] & 0xff;
-                                int left = actline[p - bytesPerPixel] & 0xff;
-                                actline[p] = (byte) (sub + left);
-                            }
-                            break;
-                        }
-                        if (bitsPerComponent == 16)
+                    // for 8 bits per component it is the same algorithm as PRED SUB of PNG format
+                    for (int p = bytesPerPixel; p < rowlength; p++)
+                    {
+                        int sub = actline[p] & 0xff;
+                        int left = actline[p - bytesPerPixel] & 0xff;
+                        actline[p] = (byte) (sub + left);
+                    }
+                    break;
+                }
+                if (bitsPerComponent == 16)
+                {
+                    for (int p = bytesPerPixel; p < rowlength; p += 2)
+                    {
+                        int sub = ((actline[p] & 0xff) << 8) + (actline[p + 1] & 0xff);
+                        int left = (((actline[p - bytesPerPixel] & 0xff) << 8)
+                                + (actline[p - bytesPerPixel + 1] & 0xff));
+                        actline[p] = (byte) (((sub + left) >> 8) & 0xff);
+                        actline[p + 1] = (byte) ((sub + left) & 0xff);
+                    }
+                    break;
+                }
+                if (bitsPerComponent == 1 && colors == 1)
+                {
+                    // bytesPerPixel cannot be used:
+                    // "A row shall occupy a whole number of bytes, rounded up if necessary.
+                    // Samples and their components shall be packed into bytes 
+                    // from high-order to low-order bits."
+                    for (int p = 0; p < rowlength; p++)
+                    {
+                        for (int bit = 7; bit >= 0; --bit)
                         {
-                            for (int p = bytesPerPixel; p < rowlength; p += 2)
+                            int sub = (actline[p] >> bit) & 1;
+                            if (p == 0 && bit == 7)
                             {
-                                int sub = ((actline[p] & 0xff) << 8) + (actline[p + 1] & 0xff);
-                                int left = (((actline[p - bytesPerPixel] & 0xff) << 8)
-                                        + (actline[p - bytesPerPixel + 1] & 0xff));
-                                actline[p] = (byte) (((sub + left) >> 8) & 0xff);
-                                actline[p + 1] = (byte) ((sub + left) & 0xff);
+                                continue;
                             }
-                            break;
-                        }
-                        if (bitsPerComponent == 1 && colors == 1)
-                        {
-                            // bytesPerPixel cannot be used:
-                            // "A row shall occupy a whole number of bytes, rounded up if necessary.
-                            // Samples and their components shall be packed into bytes 
-                            // from high-order to low-order bits."
-                            for (int p = 0; p < rowlength; p++)
+                            int left;
+                            if (bit == 7)
                             {
-                                for (int bit = 7; bit >= 0; --bit)
-                                {
-                                    int sub = (actline[p] >> bit) & 1;
-                                    if (p == 0 && bit == 7)
-                                    {
-                                        continue;
-                                    }
-                                    int left;
-                                    if (bit == 7)
-                                    {
-                                        // use bit #0 from previous byte
-                                        left = actline[p - 1] & 1;
-                                    }
-                                    else
-                                    {
-                                        // use "previous" bit
-                                        left = (actline[p] >> (bit + 1)) & 1;
-                                    }
-                                    if (((sub + left) & 1) == 0)
-                                    {
-                                        // reset bit
-                                        actline[p] = (byte) (actline[p] & ~(1 << bit));
-                                    }
-                                    else
-                                    {
-                                        // set bit
-                                        actline[p] = (byte) (actline[p] | (1 << bit));
-                                    }
-                                }
+                                // use bit #0 from previous byte
+                                left = actline[p - 1] & 1;
                             }
-                            break;
-                        }
-                        // everything else, i.e. bpc 2 and 4, but has been tested for bpc 1 and 8 too
-                        int elements = columns * colors;
-                        for (int p = colors; p < elements; ++p)
-                        {
-                            int bytePosSub = p * bitsPerComponent / 8;
-                            int bitPosSub = 8 - p * bitsPerComponent % 8 - bitsPerComponent;
-                            int bytePosLeft = (p - colors) * bitsPerComponent / 8;
-                            int bitPosLeft = 8 - (p - colors) * bitsPerComponent % 8 - bitsPerComponent;
-
-                            int sub = getBitSeq(actline[bytePosSub], bitPosSub, bitsPerComponent);
-                            int left = getBitSeq(actline[bytePosLeft], bitPosLeft, bitsPerComponent);
-                            actline[bytePosSub] = (byte) calcSetBitSeq(actline[bytePosSub], bitPosSub, bitsPerComponent, sub + left);
-                        }
-                        break;
-                    case 10:
-                        // PRED NONE
-                        // do nothing
-                        break;
-                    case 11:
-                        // PRED SUB
-                        for (int p = bytesPerPixel; p < rowlength; p++)
-                        {
-                            int sub = actline[p];
-                            int left = actline[p - bytesPerPixel];
-                            actline[p] = (byte) (sub + left);
-                        }
-                        break;
-                    case 12:
-                        // PRED UP
-                        for (int p = 0; p < rowlength; p++)
-                        {
-                            int up = actline[p] & 0xff;
-                            int prior = lastline[p] & 0xff;
-                            actline[p] = (byte) ((up + prior) & 0xff);
-                        }
-                        break;
-                    case 13:
-                        // PRED AVG
-                        for (int p = 0; p < rowlength; p++)
-                        {
-                            int avg = actline[p] & 0xff;
-                            int left = p - bytesPerPixel >= 0 ? actline[p - bytesPerPixel] & 0xff : 0;
-                            int up = lastline[p] & 0xff;
-                            actline[p] = (byte) ((avg + (left + up) / 2) & 0xff);
-                        }
-                        break;
-                    case 14:
-                        // PRED PAETH
-                        for (int p = 0; p < rowlength; p++)
-                        {
-                            int paeth = actline[p] & 0xff;
-                            int a = p - bytesPerPixel >= 0 ? actline[p - bytesPerPixel] & 0xff : 0;// left
-                            int b = lastline[p] & 0xff;// upper
-                            int c = p - bytesPerPixel >= 0 ? lastline[p - bytesPerPixel] & 0xff : 0;// upperleft
-                            int value = a + b - c;
-                            int absa = Math.abs(value - a);
-                            int absb = Math.abs(value - b);
-                            int absc = Math.abs(value - c);
-
-                            if (absa <= absb && absa <= absc)
+                            else
                             {
-                                actline[p] = (byte) ((paeth + a) & 0xff);
+                                // use "previous" bit
+                                left = (actline[p] >> (bit + 1)) & 1;
                             }
-                            else if (absb <= absc)
+                            if (((sub + left) & 1) == 0)
                             {
-                                actline[p] = (byte) ((paeth + b) & 0xff);
+                                // reset bit
+                                actline[p] = (byte) (actline[p] & ~(1 << bit));
                             }
                             else
                             {
-                                actline[p] = (byte) ((paeth + c) & 0xff);
+                                // set bit
+                                actline[p] = (byte) (actline[p] | (1 << bit));
                             }
                         }
-                        break;
-                    default:
-                        break;
+                    }
+                    break;
                 }
-                System.arraycopy(actline, 0, lastline, 0, rowlength);
-                out.write(actline);
-            }
+                // everything else, i.e. bpc 2 and 4, but has been tested for bpc 1 and 8 too
+                int elements = columns * colors;
+                for (int p = colors; p < elements; ++p)
+                {
+                    int bytePosSub = p * bitsPerComponent / 8;
+                    int bitPosSub = 8 - p * bitsPerComponent % 8 - bitsPerComponent;
+                    int bytePosLeft = (p - colors) * bitsPerComponent / 8;
+                    int bitPosLeft = 8 - (p - colors) * bitsPerComponent % 8 - bitsPerComponent;
+
+                    int sub = getBitSeq(actline[bytePosSub], bitPosSub, bitsPerComponent);
+                    int left = getBitSeq(actline[bytePosLeft], bitPosLeft, bitsPerComponent);
+                    actline[bytePosSub] = (byte) calcSetBitSeq(actline[bytePosSub], bitPosSub, bitsPerComponent, sub + left);
+                }
+                break;
+            case 10:
+                // PRED NONE
+                // do nothing
+                break;
+            case 11:
+                // PRED SUB
+                for (int p = bytesPerPixel; p < rowlength; p++)
+                {
+                    int sub = actline[p];
+                    int left = actline[p - bytesPerPixel];
+                    actline[p] = (byte) (sub + left);
+                }
+                break;
+            case 12:
+                // PRED UP
+                for (int p = 0; p < rowlength; p++)
+                {
+                    int up = actline[p] & 0xff;
+                    int prior = lastline[p] & 0xff;
+                    actline[p] = (byte) ((up + prior) & 0xff);
+                }
+                break;
+            case 13:
+                // PRED AVG
+                for (int p = 0; p < rowlength; p++)
+                {
+                    int avg = actline[p] & 0xff;
+                    int left = p - bytesPerPixel >= 0 ? actline[p - bytesPerPixel] & 0xff : 0;
+                    int up = lastline[p] & 0xff;
+                    actline[p] = (byte) ((avg + (left + up) / 2) & 0xff);
+                }
+                break;
+            case 14:
+                // PRED PAETH
+                for (int p = 0; p < rowlength; p++)
+                {
+                    int paeth = actline[p] & 0xff;
+                    int a = p - bytesPerPixel >= 0 ? actline[p - bytesPerPixel] & 0xff : 0;// left
+                    int b = lastline[p] & 0xff;// upper
+                    int c = p - bytesPerPixel >= 0 ? lastline[p - bytesPerPixel] & 0xff : 0;// upperleft
+                    int value = a + b - c;
+                    int absa = Math.abs(value - a);
+                    int absb = Math.abs(value - b);
+                    int absc = Math.abs(value - c);
+
+                    if (absa <= absb && absa <= absc)
+                    {
+                        actline[p] = (byte) ((paeth + a) & 0xff);
+                    }
+                    else if (absb <= absc)
+                    {
+                        actline[p] = (byte) ((paeth + b) & 0xff);
+                    }
+                    else
+                    {
+                        actline[p] = (byte) ((paeth + c) & 0xff);
+                    }
+                }
+                break;
+            default:
+                break;
         }
     }
-    
+
     // get value from bit interval from a byte
     static int getBitSeq(int by, int startBit, int bitSize)
     {
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reverses TIFF or PNG prediction while the data is read, one row at a time. The output is the
+ * same as the one of {@link Predictor#decodePredictor}.
+ */
+final class PredictorInputStream extends InputStream
+{
+    private final InputStream in;
+    private final int predictor;
+    private final int colors;
+    private final int bitsPerComponent;
+    private final int columns;
+    private final byte[] actline;
+    private final byte[] lastline;
+    private int position;
+    private boolean eof;
+
+    PredictorInputStream(InputStream in, int predictor, int colors, int bitsPerComponent, int columns)
+    {
+        this.in = in;
+        this.predictor = predictor;
+        this.colors = colors;
+        this.bitsPerComponent = bitsPerComponent;
+        this.columns = columns;
+        int rowlength = (columns * colors * bitsPerComponent + 7) / 8;
+        actline = new byte[rowlength];
+        lastline = new byte[rowlength];
+        position = rowlength;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (position == actline.length && !nextRow())
+        {
+            return -1;
+        }
+        return actline[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        if (position == actline.length && !nextRow())
+        {
+            return -1;
+        }
+        int n = Math.min(len, actline.length - position);
+        System.arraycopy(actline, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    private boolean nextRow() throws IOException
+    {
+        if (eof || actline.length == 0)
+        {
+            return false;
+        }
+        System.arraycopy(actline, 0, lastline, 0, actline.length);
+        int linepredictor = predictor;
+        if (predictor >= 10)
+        {
+            // PNG predictor; each row starts with predictor type (0, 1, 2, 3, 4)
+            linepredictor = in.read();
+            if (linepredictor == -1)
+            {
+                eof = true;
+                return false;
+            }
+            linepredictor += 10;
+        }
+        int offset = 0;
+        int i;
+        while (offset < actline.length && (i = in.read(actline, offset, actline.length - offset)) != -1)
+        {
+            offset += i;
+        }
+        if (offset == 0 && predictor < 10)
+        {
+            eof = true;
+            return false;
+        }
+        Predictor.decodePredictorRow(linepredictor, colors, bitsPerComponent, columns, actline,
+                lastline);
+        position = 0;
+        return true;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return position < actline.length ? actline.length - position : in.available();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.pdfbox.filter;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -65,6 +66,104 @@ final class RunLengthDecodeFilter extends Filter
         return new DecodeResult(parameters);
     }
 
+    @Override
+    public InputStream decodeStream(InputStream encoded, COSDictionary parameters, int index)
+    {
+        return new RunLengthInputStream(encoded);
+    }
+
+    /**
+     * Expands runs while the data is read.
+     */
+    private static final class RunLengthInputStream extends FilterInputStream
+    {
+        private int literalCount;
+        private int repeatCount;
+        private int repeatByte;
+        private boolean eod;
+
+        private RunLengthInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            while (literalCount == 0 && repeatCount == 0)
+            {
+                int dupAmount = eod ? -1 : in.read();
+                if (dupAmount == -1 || dupAmount == RUN_LENGTH_EOD)
+                {
+                    eod = true;
+                    return -1;
+                }
+                if (dupAmount <= 127)
+                {
+                    literalCount = dupAmount + 1;
+                }
+                else
+                {
+                    repeatByte = in.read() & 0xff;
+                    repeatCount = 257 - dupAmount;
+                }
+            }
+            if (literalCount > 0)
+            {
+                int b = in.read();
+                if (b == -1)
+                {
+                    eod = true;
+                    literalCount = 0;
+                    return -1;
+                }
+                literalCount--;
+                return b;
+            }
+            repeatCount--;
+            return repeatByte;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int count = 0;
+            while (count < len)
+            {
+                int value = read();
+                if (value == -1)
+                {
+                    break;
+                }
+                b[off + count++] = (byte) value;
+            }
+            return count == 0 && len > 0 ? -1 : count;
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            return literalCount + repeatCount;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = 0;
+            while (skipped < n && read() != -1)
+            {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+
     @Override
     protected void encode(InputStream input, OutputStream encoded, COSDictionary parameters)
             throws IOException
@@ -18,6 +18,8 @@ package org.apache.pdfbox.io;
 
 import java.io.File;
 
+import org.apache.pdfbox.pdfparser.XrefIndexStore;
+
 /**
  * Controls how memory/temporary files are used for
  * buffering streams etc.
@@ -37,6 +39,24 @@ public final class MemoryUsageSetting
     
     /** directory to be used for scratch file */
     private File tempDir;
+
+    /** keep main-memory pages in direct buffers outside of the Java heap */
+    private boolean offHeapMainMemory;
+
+    /** map the file of a document into memory instead of reading it through a page cache */
+    private boolean mapInputFile;
+
+    /** leave the data of PDF streams in the loaded document instead of buffering it */
+    private boolean lazyStreamLoading;
+
+    /** parse the objects of a loaded document when they are used instead of when it's opened */
+    private boolean lazyObjectLoading;
+
+    /** number of threads which parse the object streams of a loaded document */
+    private int objectStreamParserThreads;
+
+    /** the store of xref indexes of loaded documents, or null */
+    private XrefIndexStore xrefIndexStore;
     
     /**
      * Private constructor for setup buffering memory usage called by one of the setup methods.
@@ -183,6 +203,12 @@ public final class MemoryUsageSetting
         MemoryUsageSetting copy = new MemoryUsageSetting( useMainMemory, useTempFile,
                                                           newMaxMainMemoryBytes, newMaxStorageBytes );
         copy.tempDir = tempDir;
+        copy.offHeapMainMemory = offHeapMainMemory;
+        copy.mapInputFile = mapInputFile;
+        copy.lazyStreamLoading = lazyStreamLoading;
+        copy.lazyObjectLoading = lazyObjectLoading;
+        copy.objectStreamParserThreads = objectStreamParserThreads;
+        copy.xrefIndexStore = xrefIndexStore;
         
         return copy;
     }
@@ -200,6 +226,150 @@ public final class MemoryUsageSetting
         return this;
     }
     
+    /**
+     * Sets whether the pages of a {@link ScratchFile} which are held in main-memory are kept
+     * in direct buffers outside of the Java heap instead of byte arrays. This avoids garbage
+     * collection work for the buffers of large documents; the main-memory restriction applies
+     * to the direct buffers, which are allocated in blocks of 1 MB. The maximum size of direct
+     * memory may have to be raised with the <code>-XX:MaxDirectMemorySize</code> JVM option.
+     * 
+     * @param offHeapMainMemory <code>true</code> to keep main-memory pages outside of the heap
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setOffHeapMainMemory(boolean offHeapMainMemory)
+    {
+        this.offHeapMainMemory = offHeapMainMemory;
+        return this;
+    }
+    
+    /**
+     * Returns <code>true</code> if main-memory pages are to be kept outside of the Java heap.
+     */
+    public boolean isOffHeapMainMemory()
+    {
+        return offHeapMainMemory;
+    }
+    
+    /**
+     * Sets whether a PDF file which is loaded is mapped into memory with a
+     * {@link RandomAccessMappedFile} instead of being read through a page cache on the heap.
+     * The mapped file doesn't count towards the main-memory restriction.
+     * 
+     * @param mapInputFile <code>true</code> to map the file into memory
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setMapInputFile(boolean mapInputFile)
+    {
+        this.mapInputFile = mapInputFile;
+        return this;
+    }
+    
+    /**
+     * Returns <code>true</code> if a PDF file which is loaded is to be mapped into memory.
+     */
+    public boolean isMapInputFile()
+    {
+        return mapInputFile;
+    }
+    
+    /**
+     * Sets whether the data of the PDF streams of a document which is loaded is left in the
+     * document source and only read when a stream is used, instead of being buffered when the
+     * document is parsed. Streams which are never used, like the images of pages which aren't
+     * processed, are then never read.
+     * 
+     * @param lazyStreamLoading <code>true</code> to read stream data on demand
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setLazyStreamLoading(boolean lazyStreamLoading)
+    {
+        this.lazyStreamLoading = lazyStreamLoading;
+        return this;
+    }
+    
+    /**
+     * Returns <code>true</code> if the data of PDF streams is to be read on demand.
+     */
+    public boolean isLazyStreamLoading()
+    {
+        return lazyStreamLoading;
+    }
+    
+    /**
+     * Sets whether the objects of a document which is loaded are parsed when they are first
+     * used, instead of parsing all objects reachable from the catalog when the document is
+     * opened. Opening a document then only reads its cross reference table and catalog.
+     * 
+     * @param lazyObjectLoading <code>true</code> to parse objects on demand
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setLazyObjectLoading(boolean lazyObjectLoading)
+    {
+        this.lazyObjectLoading = lazyObjectLoading;
+        return this;
+    }
+    
+    /**
+     * Returns <code>true</code> if the objects of a document are to be parsed on demand.
+     */
+    public boolean isLazyObjectLoading()
+    {
+        return lazyObjectLoading;
+    }
+    
+    /**
+     * Sets the number of threads which decompress and parse the object streams of a document
+     * concurrently when it is loaded. This speeds up loading documents which keep most of their
+     * objects in object streams, unless objects are parsed on demand.
+     * 
+     * @param threads the number of threads; <code>0</code> or <code>1</code> to parse object
+     *                streams when their objects are used
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setObjectStreamParserThreads(int threads)
+    {
+        this.objectStreamParserThreads = threads;
+        return this;
+    }
+    
+    /**
+     * Returns the number of threads which parse the object streams of a loaded document.
+     */
+    public int getObjectStreamParserThreads()
+    {
+        return objectStreamParserThreads;
+    }
+    
+    /**
+     * Sets a store for the cross reference indexes of loaded documents. A document whose index
+     * is in the store is opened without parsing its cross reference tables or searching for its
+     * objects, which saves time when a large or damaged document is loaded repeatedly.
+     * 
+     * @param xrefIndexStore the store, or <code>null</code> to parse the cross reference tables
+     *                       every time
+     * 
+     * @return this instance
+     */
+    public MemoryUsageSetting setXrefIndexStore(XrefIndexStore xrefIndexStore)
+    {
+        this.xrefIndexStore = xrefIndexStore;
+        return this;
+    }
+    
+    /**
+     * Returns the store for the cross reference indexes of loaded documents, or
+     * <code>null</code>.
+     */
+    public XrefIndexStore getXrefIndexStore()
+    {
+        return xrefIndexStore;
+    }
+    
     /**
      * Returns <code>true</code> if main-memory is to be used.
      * 
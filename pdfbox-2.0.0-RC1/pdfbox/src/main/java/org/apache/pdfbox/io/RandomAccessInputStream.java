@@ -22,6 +22,10 @@ import java.io.IOException;
 /**
  * An InputStream which reads from a RandomAccessRead.
  * 
+ * <p>Several streams may share one RandomAccessRead, each read restores the stream position
+ * while holding the lock of the RandomAccessRead so that streams can be used by different
+ * threads.</p>
+ * 
  * @author Ben Litchfield
  * @author John Hewson
  */
@@ -50,47 +54,59 @@ public class RandomAccessInputStream extends InputStream
     @Override
     public int available() throws IOException
     {
-        restorePosition();
-        long available = input.length() - input.getPosition();
-        if (available > Integer.MAX_VALUE)
+        synchronized (input)
         {
-            return Integer.MAX_VALUE;
+            restorePosition();
+            long available = input.length() - input.getPosition();
+            if (available > Integer.MAX_VALUE)
+            {
+                return Integer.MAX_VALUE;
+            }
+            return (int)available;
         }
-        return (int)available;
     }
 
     @Override
     public int read() throws IOException
     {
-        restorePosition();
-        if (input.isEOF())
+        synchronized (input)
         {
-            return -1;
+            restorePosition();
+            if (input.isEOF())
+            {
+                return -1;
+            }
+            int b = input.read();
+            position += 1;
+            return b;
         }
-        int b = input.read();
-        position += 1;
-        return b;
     }
 
     @Override
     public int read(byte[] b, int off, int len) throws IOException
     {
-        restorePosition();
-        if (input.isEOF())
+        synchronized (input)
         {
-            return -1;
+            restorePosition();
+            if (input.isEOF())
+            {
+                return -1;
+            }
+            int n = input.read(b, off, len);
+            position += n;
+            return n;
         }
-        int n = input.read(b, off, len);
-        position += n;
-        return n;
     }
 
     @Override
     public long skip(long n) throws IOException
     {
-        restorePosition();
-        input.seek(position + n);
-        position += n;
-        return n;
+        synchronized (input)
+        {
+            restorePosition();
+            input.seek(position + n);
+            position += n;
+            return n;
+        }
     }
 }
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only {@link RandomAccessRead} for a file which is mapped into memory. The data is read
+ * directly from the mapping, nothing is copied into a page cache on the heap. Files larger than
+ * 2 GB are mapped in several chunks.
+ *
+ * <p>An instance must not be used by several threads at once, but {@link #createView()} creates
+ * further instances with their own position which share the mapping and can be used by other
+ * threads. The file is closed after mapping; the mapped memory is released when all instances
+ * using it have been garbage collected.</p>
+ */
+public class RandomAccessMappedFile implements RandomAccessRead
+{
+    /** the default chunk size is 1 GB */
+    private static final int DEFAULT_CHUNK_SHIFT = 30;
+
+    private final int chunkShift;
+    private final int chunkMask;
+
+    /** the mapped chunks, shared by all views; only absolute methods or duplicates are used */
+    private final MappedByteBuffer[] mappedChunks;
+    /** the private duplicates of the chunks used by this instance, created on first use */
+    private final ByteBuffer[] chunks;
+    private final long length;
+    private long position;
+    private boolean isClosed;
+
+    /**
+     * Maps the given file into memory.
+     *
+     * @param file the file to be read
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public RandomAccessMappedFile(File file) throws IOException
+    {
+        this(file, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Maps the given file into memory in chunks of the given size.
+     *
+     * @param file the file to be read
+     * @param chunkShift the binary logarithm of the chunk size, at most 30
+     * @throws IOException if the file can't be opened or mapped
+     */
+    RandomAccessMappedFile(File file, int chunkShift) throws IOException
+    {
+        this.chunkShift = chunkShift;
+        chunkMask = (1 << chunkShift) - 1;
+        int chunkSize = 1 << chunkShift;
+        RandomAccessFile raFile = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = raFile.getChannel();
+            length = channel.size();
+            int chunkCount = (int) ((length + chunkSize - 1) >>> chunkShift);
+            mappedChunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++)
+            {
+                long offset = (long) i << chunkShift;
+                mappedChunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(chunkSize, length - offset));
+            }
+        }
+        finally
+        {
+            // the mapping stays valid after the channel has been closed
+            raFile.close();
+        }
+        chunks = new ByteBuffer[mappedChunks.length];
+    }
+
+    private RandomAccessMappedFile(RandomAccessMappedFile mappedFile)
+    {
+        chunkShift = mappedFile.chunkShift;
+        chunkMask = mappedFile.chunkMask;
+        mappedChunks = mappedFile.mappedChunks;
+        chunks = new ByteBuffer[mappedChunks.length];
+        length = mappedFile.length;
+    }
+
+    /**
+     * Creates a new instance which reads the same mapping with its own position, starting at 0.
+     * The new instance may be used by another thread than this one.
+     *
+     * @return a new reader for the mapped file
+     * @throws IOException if this instance has been closed
+     */
+    public RandomAccessMappedFile createView() throws IOException
+    {
+        checkClosed();
+        return new RandomAccessMappedFile(this);
+    }
+
+    private ByteBuffer chunk(int index)
+    {
+        ByteBuffer chunk = chunks[index];
+        if (chunk == null)
+        {
+            chunk = mappedChunks[index].duplicate();
+            chunks[index] = chunk;
+        }
+        return chunk;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        checkClosed();
+        if (position >= length)
+        {
+            return -1;
+        }
+        int b = mappedChunks[(int) (position >>> chunkShift)].get((int) (position & chunkMask));
+        position++;
+        return b & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException
+    {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException
+    {
+        checkClosed();
+        if (position >= this.length)
+        {
+            return -1;
+        }
+        int total = (int) Math.min(length, this.length - position);
+        int read = 0;
+        while (read < total)
+        {
+            ByteBuffer chunk = chunk((int) (position >>> chunkShift));
+            int chunkOffset = (int) (position & chunkMask);
+            int count = Math.min(total - read, chunk.capacity() - chunkOffset);
+            chunk.position(chunkOffset);
+            chunk.get(b, offset + read, count);
+            read += count;
+            position += count;
+        }
+        return read;
+    }
+
+    @Override
+    public long getPosition() throws IOException
+    {
+        checkClosed();
+        return position;
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+        checkClosed();
+        if (position < 0)
+        {
+            throw new IOException("Invalid position " + position);
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+        checkClosed();
+        return length;
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return isClosed;
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        int result = read();
+        if (result != -1)
+        {
+            rewind(1);
+        }
+        return result;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException
+    {
+        seek(getPosition() - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException
+    {
+        byte[] b = new byte[length];
+        int bytesRead = 0;
+        while (bytesRead < length)
+        {
+            int count = read(b, bytesRead, length - bytesRead);
+            if (count < 0)
+            {
+                throw new EOFException();
+            }
+            bytesRead += count;
+        }
+        return b;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException
+    {
+        checkClosed();
+        return position >= length;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        checkClosed();
+        return (int) Math.min(Math.max(length - position, 0), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Closes this instance. The mapping isn't released until all views are unreachable, other
+     * views remain usable.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        isClosed = true;
+        for (int i = 0; i < chunks.length; i++)
+        {
+            chunks[i] = null;
+        }
+    }
+
+    private void checkClosed() throws IOException
+    {
+        if (isClosed)
+        {
+            throw new IOException("RandomAccessMappedFile already closed");
+        }
+    }
+}
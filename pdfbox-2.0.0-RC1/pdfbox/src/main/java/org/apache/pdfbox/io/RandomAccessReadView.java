@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A read-only view of a range of another {@link RandomAccessRead}, without copying the data.
+ *
+ * <p>Each read seeks the underlying source while holding its lock and restores the position of
+ * the source afterwards, so several views of one source can be used by different threads.
+ * Other code which reads the source at the same time must hold the same lock. COSParser does
+ * so when it loads objects lazily and while it parses object streams on several threads, but
+ * not during the rest of the initial parse: the views of a document must not be read by other
+ * threads before it has been loaded. Closing a view doesn't close the source.</p>
+ */
+public class RandomAccessReadView implements RandomAccessRead
+{
+    private final RandomAccessRead source;
+    private final long startPosition;
+    private final long length;
+    private long position;
+    private boolean isClosed;
+
+    /**
+     * Creates a view of a range of the given source.
+     *
+     * @param source the underlying source
+     * @param startPosition the position of the first byte of the view in the source
+     * @param length the length of the view
+     */
+    public RandomAccessReadView(RandomAccessRead source, long startPosition, long length)
+    {
+        this.source = source;
+        this.startPosition = startPosition;
+        this.length = length;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        checkClosed();
+        if (position >= length)
+        {
+            return -1;
+        }
+        synchronized (source)
+        {
+            long sourcePosition = source.getPosition();
+            try
+            {
+                source.seek(startPosition + position);
+                int b = source.read();
+                if (b != -1)
+                {
+                    position++;
+                }
+                return b;
+            }
+            finally
+            {
+                source.seek(sourcePosition);
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException
+    {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException
+    {
+        checkClosed();
+        if (position >= this.length)
+        {
+            return -1;
+        }
+        int count = (int) Math.min(length, this.length - position);
+        synchronized (source)
+        {
+            long sourcePosition = source.getPosition();
+            try
+            {
+                source.seek(startPosition + position);
+                int read = source.read(b, offset, count);
+                if (read > 0)
+                {
+                    position += read;
+                }
+                return read;
+            }
+            finally
+            {
+                source.seek(sourcePosition);
+            }
+        }
+    }
+
+    @Override
+    public long getPosition() throws IOException
+    {
+        checkClosed();
+        return position;
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+        checkClosed();
+        if (position < 0)
+        {
+            throw new IOException("Invalid position " + position);
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+        checkClosed();
+        return length;
+    }
+
+    /**
+     * Returns true if this view or its source has been closed.
+     */
+    @Override
+    public boolean isClosed()
+    {
+        return isClosed || source.isClosed();
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        int result = read();
+        if (result != -1)
+        {
+            rewind(1);
+        }
+        return result;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException
+    {
+        seek(getPosition() - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException
+    {
+        byte[] b = new byte[length];
+        int bytesRead = 0;
+        while (bytesRead < length)
+        {
+            int count = read(b, bytesRead, length - bytesRead);
+            if (count < 0)
+            {
+                throw new EOFException();
+            }
+            bytesRead += count;
+        }
+        return b;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException
+    {
+        checkClosed();
+        return position >= length;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        checkClosed();
+        return (int) Math.min(Math.max(length - position, 0), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Closes this view, the source stays open.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        isClosed = true;
+    }
+
+    private void checkClosed() throws IOException
+    {
+        if (isClosed())
+        {
+            throw new IOException("RandomAccessReadView already closed");
+        }
+    }
+}
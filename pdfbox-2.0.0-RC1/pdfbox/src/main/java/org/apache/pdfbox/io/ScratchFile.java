@@ -20,6 +20,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.BitSet;
 
 import org.apache.commons.logging.Log;
@@ -35,9 +36,18 @@ import org.apache.commons.logging.LogFactory;
  * additional ones in temporary file (defined by maximum main memory to
  * be used).</p>
  * 
+ * <p>In-memory pages are kept as byte arrays on the heap, or, if
+ * {@link MemoryUsageSetting#isOffHeapMainMemory()} is set, in direct byte buffers
+ * outside of the heap which are allocated in blocks of
+ * {@link #DIRECT_BLOCK_PAGE_COUNT} pages as needed. Off-heap pages and pages in
+ * temporary file are copied from and into an array which is owned by the buffer
+ * (see {@link #isHeapPage(int)}).</p>
+ * 
  * <p>Pages can be marked as 'free' in order to re-use them. For in-memory pages
- * this will release the used memory while for pages in temporary file this
- * simply marks the area as free to re-use.</p>
+ * this will release the used memory while for off-heap pages and pages in
+ * temporary file this simply marks the area as free to re-use. Free pages are
+ * kept in several stripes, each with its own lock, so that threads sharing
+ * a scratch file rarely wait for each other when they allocate or release pages.</p>
  * 
  * <p>If a temporary file was created (done with the first page to be stored
  * in temporary file) it is deleted when {@link ScratchFile#close()} is called.</p>
@@ -58,6 +68,10 @@ public class ScratchFile implements Closeable
      *  {@link #inMemoryPages} is setup for */
     private static final int INIT_UNRESTRICTED_MAINMEM_PAGECOUNT = 100000;
     private static final int PAGE_SIZE = 4096;
+    /** number of off-heap pages which are allocated at once (1 MB) */
+    private static final int DIRECT_BLOCK_PAGE_COUNT = 256;
+    /** maximum number of stripes of {@link #freePages} */
+    private static final int MAX_STRIPE_COUNT = 16;
     
     private final Object ioLock = new Object();
     private final File scratchFileDirectory;
@@ -65,12 +79,21 @@ public class ScratchFile implements Closeable
     private File file;
     /** random access to scratch file; only to be accessed under synchronization of {@link #ioLock} */
     private java.io.RandomAccessFile raf;
+    /** number of pages which have been created; only to be changed under synchronization of {@link #ioLock} */
     private volatile int pageCount = 0;
-    private final BitSet freePages = new BitSet();
+    /** free pages; page <code>idx</code> is bit <code>idx &gt;&gt;&gt; stripeShift</code> of
+     *  stripe <code>idx &amp; stripeMask</code>, each stripe is accessed under its own synchronization */
+    private final BitSet[] freePages;
+    private final int stripeShift;
+    private final int stripeMask;
     /** holds pointers to in-memory page content; will be initialized once in case of restricted
      *  main memory, otherwise it is enlarged as needed and first initialized to a size of
      *  {@link #INIT_UNRESTRICTED_MAINMEM_PAGECOUNT} */
     private volatile byte[][] inMemoryPages;
+    /** holds the off-heap pages, each a slice of a direct buffer holding {@link #DIRECT_BLOCK_PAGE_COUNT}
+     *  pages; it is enlarged as needed */
+    private volatile ByteBuffer[] directPages;
+    private final boolean useDirectMemory;
     private final int inMemoryMaxPageCount;
     private final int maxPageCount;
     private final boolean useScratchFile;
@@ -125,9 +148,31 @@ public class ScratchFile implements Closeable
                                        (int) Math.min(Integer.MAX_VALUE, memUsageSetting.getMaxMainMemoryBytes() / PAGE_SIZE) :
                                        Integer.MAX_VALUE) :
                                    0;
-        inMemoryPages = new byte[maxMainMemoryIsRestricted ? inMemoryMaxPageCount : INIT_UNRESTRICTED_MAINMEM_PAGECOUNT][];
+        useDirectMemory = memUsageSetting.useMainMemory() && memUsageSetting.isOffHeapMainMemory();
+        
+        // one stripe per processor, rounded up to a power of two
+        int stripeCount = Math.min(MAX_STRIPE_COUNT,
+                Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+        stripeShift = Integer.numberOfTrailingZeros(stripeCount);
+        stripeMask = stripeCount - 1;
+        freePages = new BitSet[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+        {
+            freePages[i] = new BitSet();
+        }
         
-        freePages.set(0, inMemoryPages.length);
+        if (useDirectMemory)
+        {
+            // direct pages are allocated by enlarge()
+            inMemoryPages = new byte[0][];
+            directPages = new ByteBuffer[0];
+        }
+        else
+        {
+            inMemoryPages = new byte[maxMainMemoryIsRestricted ? inMemoryMaxPageCount : INIT_UNRESTRICTED_MAINMEM_PAGECOUNT][];
+            pageCount = inMemoryPages.length;
+            addFreePages(0, pageCount);
+        }
     }
 
     /**
@@ -158,34 +203,78 @@ public class ScratchFile implements Closeable
      */
     int getNewPage() throws IOException
     {
-        synchronized (freePages)
+        int idx = takeFreePage();
+        while (idx < 0)
         {
-            int idx = freePages.nextSetBit( 0 );
-            
-            if (idx < 0)
+            synchronized (ioLock)
             {
-                enlarge();
-                
-                idx = freePages.nextSetBit( 0 );
+                // another thread may have enlarged in between
+                idx = takeFreePage();
                 if (idx < 0)
                 {
-                    throw new IOException("Maximum allowed scratch file memory exceeded.");
+                    if (!enlarge())
+                    {
+                        throw new IOException("Maximum allowed scratch file memory exceeded.");
+                    }
+                    idx = takeFreePage();
                 }
             }
-            
-            freePages.clear(idx);
-            
-            if (idx >= pageCount)
+        }
+        return idx;
+    }
+
+    /**
+     * Takes a free page, trying the stripe of the current thread first.
+     * 
+     * @return index of the page or <code>-1</code> if there is no free page
+     */
+    private int takeFreePage()
+    {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i <= stripeMask; i++)
+        {
+            int stripe = (start + i) & stripeMask;
+            BitSet free = freePages[stripe];
+            synchronized (free)
             {
-                pageCount = idx + 1;
+                int bit = free.nextSetBit(0);
+                if (bit >= 0)
+                {
+                    free.clear(bit);
+                    return (bit << stripeShift) | stripe;
+                }
             }
-            
-            return idx;
         }
+        return -1;
     }
 
     /**
-     * This will provide new free pages by either enlarging the scratch file 
+     * Marks a range of new pages as free.
+     * 
+     * @param from index of the first page
+     * @param to index after the last page
+     */
+    private void addFreePages(int from, int to)
+    {
+        for (int stripe = 0; stripe <= stripeMask; stripe++)
+        {
+            // bits of the first and after the last page of the range in this stripe
+            int fromBit = (int) (((long) from - stripe + stripeMask) >> stripeShift);
+            int toBit = (int) (((long) to - stripe + stripeMask) >> stripeShift);
+            if (fromBit < toBit)
+            {
+                synchronized (freePages[stripe])
+                {
+                    freePages[stripe].set(fromBit, toBit);
+                }
+            }
+        }
+    }
+
+    /**
+     * This will provide new free pages by either allocating a block of
+     * off-heap pages - in case off-heap memory is used and the maximum
+     * main memory isn't reached -, enlarging the scratch file
      * by a number of pages defined by {@link #ENLARGE_PAGE_COUNT} - in case
      * scratch file usage is allowed - or increase the {@link #inMemoryPages}
      * array in case main memory was not restricted. If neither of both is
@@ -196,9 +285,9 @@ public class ScratchFile implements Closeable
      * <p>If scratch file uage is allowed and scratch file does not exist already
      * it will be created.</p>
      * 
-     * <p>Only to be called under synchronization on {@link #freePages}.</p>
+     * @return <code>true</code> if new pages were added
      */
-    private void enlarge() throws IOException
+    private boolean enlarge() throws IOException
     {
         synchronized (ioLock)
         {
@@ -206,10 +295,37 @@ public class ScratchFile implements Closeable
      
             if (pageCount >= maxPageCount)
             {
-                return;
+                return false;
             }
 
-            if (useScratchFile)
+            if (useDirectMemory && pageCount < inMemoryMaxPageCount)
+            {
+                // allocate a block of off-heap pages
+                int count = Math.min(DIRECT_BLOCK_PAGE_COUNT,
+                        Math.min(inMemoryMaxPageCount, maxPageCount) - pageCount);
+                ByteBuffer block = ByteBuffer.allocateDirect(count * PAGE_SIZE);
+                ByteBuffer[] newDirectPages = directPages;
+                if (pageCount + count > newDirectPages.length)
+                {
+                    // double the size to keep the copying of large arrays rare
+                    newDirectPages = new ByteBuffer[(int) Math.min(Integer.MAX_VALUE,
+                            Math.max(2L * newDirectPages.length, pageCount + count))];
+                    System.arraycopy(directPages, 0, newDirectPages, 0, pageCount);
+                }
+                for (int i = 0; i < count; i++)
+                {
+                    block.limit((i + 1) * PAGE_SIZE);
+                    block.position(i * PAGE_SIZE);
+                    newDirectPages[pageCount + i] = block.slice();
+                }
+                directPages = newDirectPages;
+                // the pages must be valid before another thread can take them
+                int oldCount = pageCount;
+                pageCount = oldCount + count;
+                addFreePages(oldCount, oldCount + count);
+                return true;
+            }
+            else if (useScratchFile)
             {
                 // create scratch file is needed
                 if ( raf == null )
@@ -238,16 +354,17 @@ public class ScratchFile implements Closeable
                 }
                     
                 // enlarge if we do not overflow
-                if (pageCount + ENLARGE_PAGE_COUNT > pageCount)
-                {
-                    fileLen += ENLARGE_PAGE_COUNT * PAGE_SIZE;
-        
-                    raf.setLength(fileLen);
-        
-                    freePages.set(pageCount, pageCount + ENLARGE_PAGE_COUNT);
-                }
+                int count = Math.min(ENLARGE_PAGE_COUNT, maxPageCount - pageCount);
+                fileLen += (long) count * PAGE_SIZE;
+                
+                raf.setLength(fileLen);
+                
+                int oldCount = pageCount;
+                pageCount = oldCount + count;
+                addFreePages(oldCount, oldCount + count);
+                return true;
             }
-            else if (!maxMainMemoryIsRestricted)
+            else if (!maxMainMemoryIsRestricted && !useDirectMemory)
             {
                 // increase number of in-memory pages
                 int oldSize = inMemoryPages.length;
@@ -258,9 +375,12 @@ public class ScratchFile implements Closeable
                     System.arraycopy(inMemoryPages, 0, newInMemoryPages, 0, oldSize);
                     inMemoryPages = newInMemoryPages;
                     
-                    freePages.set(oldSize, newSize);
+                    pageCount = newSize;
+                    addFreePages(oldSize, newSize);
+                    return true;
                 }
             }
+            return false;
         }
     }
     
@@ -274,6 +394,21 @@ public class ScratchFile implements Closeable
         return PAGE_SIZE;
     }
     
+    /**
+     * Returns <code>true</code> if the page with specified index is kept as byte array on the
+     * heap. Such a page is returned by {@link #readPage(int)} and the array given to
+     * {@link #writePage(int, byte[])} is stored as is. All other pages are copied, so a buffer
+     * can use one array for all of them with {@link #readPage(int, byte[])}.
+     * 
+     * @param pageIdx index of page
+     * 
+     * @return <code>true</code> if the page is kept as byte array
+     */
+    boolean isHeapPage(int pageIdx)
+    {
+        return !useDirectMemory && pageIdx < inMemoryMaxPageCount;
+    }
+    
     /**
      * Reads the page with specified index.
      * 
@@ -285,15 +420,9 @@ public class ScratchFile implements Closeable
      */
     byte[] readPage(int pageIdx) throws IOException
     {
-        if ((pageIdx < 0) || (pageIdx >= pageCount))
-        {
-            checkClosed();
-            throw new IOException("Page index out of range: " + pageIdx + ". Max value: " + (pageCount - 1) );
-        }
-        
-        // check if we have the page in memory
-        if (pageIdx < inMemoryMaxPageCount)
+        if (isHeapPage(pageIdx))
         {
+            checkPageIndex(pageIdx);
             byte[] page = inMemoryPages[pageIdx];
             
             // handle case that we are closed
@@ -306,19 +435,52 @@ public class ScratchFile implements Closeable
             return page;
         }
         
-        synchronized (ioLock)
+        byte[] page = new byte[PAGE_SIZE];
+        readPage(pageIdx, page);
+        return page;
+    }
+    
+    /**
+     * Reads the page with specified index into the given array.
+     * 
+     * @param pageIdx index of page to read
+     * @param page array of size {@link #PAGE_SIZE} to be filled with the page data
+     * 
+     * @throws IOException
+     */
+    void readPage(int pageIdx, byte[] page) throws IOException
+    {
+        checkPageIndex(pageIdx);
+        
+        if (isHeapPage(pageIdx))
+        {
+            System.arraycopy(readPage(pageIdx), 0, page, 0, PAGE_SIZE);
+        }
+        else if (pageIdx < inMemoryMaxPageCount)
         {
-            if (raf == null)
+            ByteBuffer[] pages = directPages;
+            if (pages == null)
             {
                 checkClosed();
-                throw new IOException("Missing scratch file to read page with index " + pageIdx + " from.");
             }
-            
-            byte[] page = new byte[PAGE_SIZE];
-            raf.seek(((long)pageIdx - inMemoryMaxPageCount) * PAGE_SIZE);
-            raf.readFully(page);
-            
-            return page;
+            // a page is only used by one buffer at a time, so its position can be changed
+            ByteBuffer directPage = pages[pageIdx];
+            directPage.clear();
+            directPage.get(page);
+        }
+        else
+        {
+            synchronized (ioLock)
+            {
+                if (raf == null)
+                {
+                    checkClosed();
+                    throw new IOException("Missing scratch file to read page with index " + pageIdx + " from.");
+                }
+                
+                raf.seek(((long)pageIdx - inMemoryMaxPageCount) * PAGE_SIZE);
+                raf.readFully(page);
+            }
         }
     }
     
@@ -327,7 +489,7 @@ public class ScratchFile implements Closeable
      * or is written to scratch file.
      * 
      * <p>Provided page byte array must not be re-used for other pages since we
-     * store it as is in case of in-memory handling.</p>
+     * store it as is in case of in-memory handling on the heap (see {@link #isHeapPage(int)}).</p>
      * 
      * @param pageIdx index of page to write
      * @param page page to write (length has to be {@value #PAGE_SIZE})
@@ -337,18 +499,14 @@ public class ScratchFile implements Closeable
      */
     void writePage(int pageIdx, byte[] page) throws IOException
     {
-        if ((pageIdx<0) || (pageIdx>=pageCount))
-        {
-            checkClosed();
-            throw new IOException("Page index out of range: " + pageIdx + ". Max value: " + (pageCount - 1) );
-        }
+        checkPageIndex(pageIdx);
         
         if (page.length != PAGE_SIZE)
         {
             throw new IOException("Wrong page size to write: " + page.length + ". Expected: " + PAGE_SIZE );
         }
         
-        if (pageIdx < inMemoryMaxPageCount)
+        if (isHeapPage(pageIdx))
         {
             if (maxMainMemoryIsRestricted)
             {
@@ -366,6 +524,17 @@ public class ScratchFile implements Closeable
             // in case we were closed in between throw exception
             checkClosed();
         }
+        else if (pageIdx < inMemoryMaxPageCount)
+        {
+            ByteBuffer[] pages = directPages;
+            if (pages == null)
+            {
+                checkClosed();
+            }
+            ByteBuffer directPage = pages[pageIdx];
+            directPage.clear();
+            directPage.put(page);
+        }
         else
         {
             synchronized (ioLock)
@@ -377,6 +546,15 @@ public class ScratchFile implements Closeable
         }
     }
     
+    private void checkPageIndex(int pageIdx) throws IOException
+    {
+        if ((pageIdx < 0) || (pageIdx >= pageCount))
+        {
+            checkClosed();
+            throw new IOException("Page index out of range: " + pageIdx + ". Max value: " + (pageCount - 1) );
+        }
+    }
+    
     /**
      * Checks if this page handler has already been closed. If so,
      * an {@link IOException} is thrown.
@@ -433,23 +611,27 @@ public class ScratchFile implements Closeable
      * @param pageIndexes pages indexes of pages to release
      * @param count number of page indexes contained in provided array 
      */
-    void markPagesAsFree(int[] pageIndexes, int off, int count) {
-        
-        synchronized (freePages)
+    void markPagesAsFree(int[] pageIndexes, int off, int count)
+    {
+        for (int aIdx = off; aIdx < off + count; aIdx++)
         {
-            for (int aIdx = off; aIdx < count; aIdx++)
+            int pageIdx = pageIndexes[aIdx];
+            if ((pageIdx>=0) && (pageIdx<pageCount))
             {
-                int pageIdx = pageIndexes[aIdx];
-                if ((pageIdx>=0) && (pageIdx<pageCount) && (!freePages.get(pageIdx)))
+                BitSet free = freePages[pageIdx & stripeMask];
+                synchronized (free)
                 {
-                    freePages.set(pageIdx);
-                    if (pageIdx < inMemoryMaxPageCount)
+                    int bit = pageIdx >>> stripeShift;
+                    if (!free.get(bit))
                     {
-                        inMemoryPages[pageIdx] = null;  // remark: not in ioLock synchronization since behavior won't
-                                                        // change even in case of parallel called 'enlarge' method
+                        free.set(bit);
+                        if (isHeapPage(pageIdx))
+                        {
+                            inMemoryPages[pageIdx] = null;  // remark: not in ioLock synchronization since behavior won't
+                                                            // change even in case of parallel called 'enlarge' method
+                        }
                     }
                 }
-                    
             }
         }
     }
@@ -497,12 +679,18 @@ public class ScratchFile implements Closeable
                     }
                 }
             }
+            
+            // direct buffers are released when they are garbage collected
+            directPages = null;
+            pageCount = 0;
         }
         
-        synchronized (freePages)
+        for (BitSet free : freePages)
         {
-            freePages.clear();
-            pageCount = 0;
+            synchronized (free)
+            {
+                free.clear();
+            }
         }
         
         if (ioexc != null)
@@ -18,6 +18,7 @@ package org.apache.pdfbox.io;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,6 +51,11 @@ class ScratchFileBuffer implements RandomAccess
      * The current page data.
      */
     private byte[] currentPage;
+    /**
+     * The array which holds the current page if it isn't kept as array by the page handler,
+     * it is used for all such pages (see {@link ScratchFile#isHeapPage(int)}).
+     */
+    private byte[] pageArray;
     /**
      * The current position (for next read/write) of the buffer as an offset in the current page.
      */
@@ -129,10 +135,43 @@ class ScratchFileBuffer implements RandomAccess
         currentPagePositionInPageIndexes = pageCount;
         currentPageOffset = ((long)pageCount) * pageSize; 
         pageCount++;
-        currentPage = new byte[pageSize];
+        if (pageHandler.isHeapPage(newPageIdx))
+        {
+            currentPage = new byte[pageSize];
+        }
+        else
+        {
+            // the page is copied when it is written, the array can be reused
+            currentPage = getPageArray();
+            Arrays.fill(currentPage, (byte) 0);
+        }
         positionInPage = 0;
     }
     
+    /**
+     * Reads the page with the given index, into {@link #pageArray} if the page handler
+     * doesn't keep it as array.
+     */
+    private byte[] readPage(int pageIdx) throws IOException
+    {
+        if (pageHandler.isHeapPage(pageIdx))
+        {
+            return pageHandler.readPage(pageIdx);
+        }
+        byte[] page = getPageArray();
+        pageHandler.readPage(pageIdx, page);
+        return page;
+    }
+    
+    private byte[] getPageArray()
+    {
+        if (pageArray == null)
+        {
+            pageArray = new byte[pageSize];
+        }
+        return pageArray;
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -174,7 +213,7 @@ class ScratchFileBuffer implements RandomAccess
             if (currentPagePositionInPageIndexes+1 < pageCount)
             {
                 // we already have more pages assigned (there was a backward seek before)
-                currentPage = pageHandler.readPage(pageIndexes[++currentPagePositionInPageIndexes]);
+                currentPage = readPage(pageIndexes[++currentPagePositionInPageIndexes]);
                 currentPageOffset = ((long)currentPagePositionInPageIndexes) * pageSize;
                 positionInPage = 0;
             }
@@ -267,7 +306,7 @@ class ScratchFileBuffer implements RandomAccess
         // change to first page if we are not already there
         if (currentPagePositionInPageIndexes > 0)
         {
-            currentPage = pageHandler.readPage(pageIndexes[0]);
+            currentPage = readPage(pageIndexes[0]);
             currentPagePositionInPageIndexes = 0;
             currentPageOffset = 0;
         }
@@ -325,7 +364,7 @@ class ScratchFileBuffer implements RandomAccess
             
             int newPagePosition = (int) (seekToPosition / pageSize);
             
-            currentPage = pageHandler.readPage(pageIndexes[newPagePosition]);
+            currentPage = readPage(pageIndexes[newPagePosition]);
             currentPagePositionInPageIndexes = newPagePosition;
             currentPageOffset = ((long)currentPagePositionInPageIndexes) * pageSize;
             positionInPage = (int) (seekToPosition - currentPageOffset);
@@ -489,6 +528,7 @@ class ScratchFileBuffer implements RandomAccess
             
             pageIndexes = null;
             currentPage = null;
+            pageArray = null;
             currentPageOffset = 0;
             currentPagePositionInPageIndexes = -1;
             positionInPage = 0;
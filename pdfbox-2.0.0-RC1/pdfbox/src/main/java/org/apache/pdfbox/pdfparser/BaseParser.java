@@ -33,7 +33,6 @@ import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSObjectKey;
 import org.apache.pdfbox.cos.COSString;
-import org.apache.pdfbox.util.Charsets;
 
 
 import static org.apache.pdfbox.util.Charsets.ISO_8859_1;
@@ -120,6 +119,17 @@ public abstract class BaseParser
      */
     protected COSDocument document;
 
+    /**
+     * Buffer for the bytes of names, reused for all names read by this parser.
+     */
+    private byte[] nameBuffer = new byte[32];
+    private int nameLength;
+
+    /**
+     * Buffer for the characters of numbers, reused for all numbers read by this parser.
+     */
+    protected final StringBuilder numberBuffer = new StringBuilder();
+
     /**
      * Default constructor.
      */
@@ -716,7 +726,7 @@ public abstract class BaseParser
     protected COSName parseCOSName() throws IOException
     {
         readExpectedChar('/');
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        nameLength = 0;
         int c = seqSource.read();
         while (c != -1)
         {
@@ -737,7 +747,7 @@ public abstract class BaseParser
                     String hex = "" + ch1 + ch2;
                     try
                     {
-                        buffer.write(Integer.parseInt(hex, 16));
+                        appendNameByte(Integer.parseInt(hex, 16));
                     }
                     catch (NumberFormatException e)
                     {
@@ -749,7 +759,7 @@ public abstract class BaseParser
                 {
                     seqSource.unread(ch2);
                     c = ch1;
-                    buffer.write(ch);
+                    appendNameByte(ch);
                 }
             }
             else if (isEndOfName(ch))
@@ -758,7 +768,7 @@ public abstract class BaseParser
             }
             else
             {
-                buffer.write(ch);
+                appendNameByte(ch);
                 c = seqSource.read();
             }
         }
@@ -766,8 +776,16 @@ public abstract class BaseParser
         {
             seqSource.unread(c);
         }
-        String string = new String(buffer.toByteArray(), Charsets.UTF_8);
-        return COSName.getPDFName(string);
+        return COSName.getPDFName(nameBuffer, nameLength);
+    }
+
+    private void appendNameByte(int b)
+    {
+        if (nameLength == nameBuffer.length)
+        {
+            nameBuffer = Arrays.copyOf(nameBuffer, nameLength * 2);
+        }
+        nameBuffer[nameLength++] = (byte) b;
     }
 
     /**
@@ -908,7 +926,8 @@ public abstract class BaseParser
         {
             if( Character.isDigit(c) || c == '-' || c == '+' || c == '.')
             {
-                StringBuilder buf = new StringBuilder();
+                StringBuilder buf = numberBuffer;
+                buf.setLength(0);
                 int ic = seqSource.read();
                 c = (char)ic;
                 while( Character.isDigit( c )||
@@ -926,7 +945,7 @@ public abstract class BaseParser
                 {
                     seqSource.unread(ic);
                 }
-                retval = COSNumber.get( buf.toString() );
+                retval = COSNumber.get( buf );
             }
             else
             {
@@ -17,7 +17,10 @@
 package org.apache.pdfbox.pdfparser;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -25,6 +28,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +37,11 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.cos.COSArray;
@@ -45,9 +54,11 @@ import org.apache.pdfbox.cos.COSNumber;
 import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.cos.COSObjectKey;
 import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.ICOSParser;
 import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.pdfparser.XrefTrailerResolver.XRefType;
 import org.apache.pdfbox.pdmodel.encryption.SecurityHandler;
+import org.apache.pdfbox.util.Hex;
 
 
 import static org.apache.pdfbox.util.Charsets.ISO_8859_1;
@@ -61,7 +72,7 @@ import static org.apache.pdfbox.util.Charsets.ISO_8859_1;
  * This class is a much enhanced version of <code>QuickParser</code> presented in <a
  * href="https://issues.apache.org/jira/browse/PDFBOX-1104">PDFBOX-1104</a> by Jeremy Villalobos.
  */
-public class COSParser extends BaseParser
+public class COSParser extends BaseParser implements ICOSParser
 {
     private static final String PDF_HEADER = "%PDF-";
     private static final String FDF_HEADER = "%FDF-";
@@ -124,6 +135,36 @@ public class COSParser extends BaseParser
      */
     private boolean isLenient = true;
 
+    /**
+     * are stream bodies left in the source instead of being copied ?
+     */
+    private boolean isLazyStreamLoading = false;
+
+    /**
+     * are indirect objects parsed when they are used instead of when the document is opened ?
+     */
+    private boolean isLazyObjectLoading = false;
+
+    /**
+     * number of threads which parse the object streams when the document is opened.
+     */
+    private int objectStreamParserThreads = 0;
+
+    /**
+     * the store of xref indexes, or null.
+     */
+    private XrefIndexStore xrefIndexStore = null;
+
+    /**
+     * the fingerprint of the source for the xref index store.
+     */
+    private String xrefIndexFingerprint = null;
+
+    /**
+     * the number of bytes at the beginning and end of the source which are part of the fingerprint.
+     */
+    private static final int FINGERPRINT_BYTECOUNT = 65536;
+
     protected boolean initialParseDone = false;
     /**
      * Contains all found objects of a brute force search.
@@ -310,6 +351,108 @@ public class COSParser extends BaseParser
         return trailer;
     }
 
+    /**
+     * Looks up the index of the document in the xref index store and uses it instead of the xref
+     * tables, if there is one. A corrupt index is ignored.
+     *
+     * @return the trailer of the document, or null if there is no store or no index
+     * @throws IOException if the source can't be read
+     */
+    protected COSDictionary loadXrefIndex() throws IOException
+    {
+        if (xrefIndexStore == null)
+        {
+            return null;
+        }
+        xrefIndexFingerprint = computeFingerprint();
+        XrefIndex xrefIndex;
+        COSDictionary trailer;
+        try
+        {
+            xrefIndex = xrefIndexStore.load(xrefIndexFingerprint);
+            if (xrefIndex == null)
+            {
+                return null;
+            }
+            trailer = xrefIndex.createTrailer(document);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Ignored xref index of document " + xrefIndexFingerprint, e);
+            return null;
+        }
+        Map<COSObjectKey, Long> xrefTable = xrefIndex.createXrefTable();
+        xrefTrailerResolver.setResolved(xrefIndex.isXRefStream() ? XRefType.STREAM
+                : XRefType.TABLE, xrefTable, trailer);
+        document.setStartXref(xrefIndex.getStartXref());
+        document.setTrailer(trailer);
+        document.setIsXRefStream(xrefIndex.isXRefStream());
+        document.addXRefTable(xrefTable);
+        // the index is up to date
+        xrefIndexFingerprint = null;
+        return trailer;
+    }
+
+    /**
+     * Saves the index of the document to the xref index store, if the index wasn't loaded from
+     * there. The index contains all objects which have been found so far, including those which
+     * have been found by a brute force search. Errors are logged and otherwise ignored.
+     */
+    protected void saveXrefIndex()
+    {
+        if (xrefIndexStore == null || xrefIndexFingerprint == null
+                || xrefTrailerResolver.getXrefTable() == null)
+        {
+            return;
+        }
+        try
+        {
+            xrefIndexStore.save(xrefIndexFingerprint, new XrefIndex(document.getStartXref(),
+                    xrefTrailerResolver.getXrefType(), xrefTrailerResolver.getXrefTable(),
+                    document.getTrailer()));
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Couldn't save xref index of document " + xrefIndexFingerprint, e);
+        }
+        xrefIndexFingerprint = null;
+    }
+
+    /**
+     * Computes the fingerprint of the source for the xref index store from its length and a
+     * digest of the data at its beginning and end. Reading all of a huge file would take as
+     * long as the search the index is meant to avoid; changes of a PDF which is updated
+     * incrementally are at its end.
+     */
+    private String computeFingerprint() throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // should never happen
+            throw new RuntimeException(e);
+        }
+        long position = source.getPosition();
+        long length = source.length();
+        int count = (int) Math.min(FINGERPRINT_BYTECOUNT, length);
+        source.seek(0);
+        digest.update(source.readFully(count));
+        source.seek(length - count);
+        digest.update(source.readFully(count));
+        source.seek(position);
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(length).append('-');
+        for (byte b : digest.digest())
+        {
+            fingerprint.append(Hex.getString(b));
+        }
+        return fingerprint.toString();
+    }
+
     /**
      * Parses an xref object stream starting with indirect object id.
      * 
@@ -468,6 +611,146 @@ public class COSParser extends BaseParser
         this.isLenient = lenient;
     }
 
+    /**
+     * Return true if the data of streams is read from the source when it is used, instead of
+     * being copied when the stream is parsed.
+     *
+     * @return true if streams are loaded lazily
+     */
+    public boolean isLazyStreamLoading()
+    {
+        return isLazyStreamLoading;
+    }
+
+    /**
+     * Change whether the data of streams is copied when a stream is parsed, or only its
+     * position in the source is recorded and the data is read from the source when the stream
+     * is used. The source must stay open as long as the document is used, which it does unless
+     * it is closed by the caller. Streams with an invalid length are always copied. The data is
+     * read under the lock of the source, see {@link org.apache.pdfbox.io.RandomAccessReadView},
+     * the parser only holds that lock where it shares the source with other threads.
+     *
+     * This method can only be called before the parsing of the file.
+     *
+     * @param lazyStreamLoading true to load streams lazily
+     */
+    public void setLazyStreamLoading(boolean lazyStreamLoading)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change stream loading after parsing");
+        }
+        this.isLazyStreamLoading = lazyStreamLoading;
+    }
+
+    /**
+     * Return true if indirect objects are parsed when they are first used, instead of parsing
+     * the objects reachable from the catalog when the document is opened.
+     *
+     * @return true if objects are loaded lazily
+     */
+    public boolean isLazyObjectLoading()
+    {
+        return isLazyObjectLoading;
+    }
+
+    /**
+     * Change whether the objects reachable from the catalog are parsed when the document is
+     * opened, or each indirect object is parsed from its xref entry when it is first used,
+     * including objects in object streams. The source must stay open as long as the document
+     * is used.
+     *
+     * This method can only be called before the parsing of the file.
+     *
+     * @param lazyObjectLoading true to load objects lazily
+     */
+    public void setLazyObjectLoading(boolean lazyObjectLoading)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change object loading after parsing");
+        }
+        this.isLazyObjectLoading = lazyObjectLoading;
+    }
+
+    /**
+     * Returns the number of threads which parse the object streams of the document when it's
+     * opened, or 0 if object streams are parsed when their objects are used.
+     */
+    public int getObjectStreamParserThreads()
+    {
+        return objectStreamParserThreads;
+    }
+
+    /**
+     * Sets the number of threads which decompress and parse the object streams of the document
+     * concurrently when it's opened. The data of the object streams is read from the source one
+     * after another, only the decoding and parsing are done in parallel. This has no effect if
+     * objects are loaded lazily.
+     *
+     * This method can only be called before the parsing of the file.
+     *
+     * @param threads the number of threads, 0 or 1 to parse object streams when they are used
+     */
+    public void setObjectStreamParserThreads(int threads)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change object stream parsing after parsing");
+        }
+        this.objectStreamParserThreads = threads;
+    }
+
+    /**
+     * Returns the store of xref indexes, or null if there is none.
+     */
+    public XrefIndexStore getXrefIndexStore()
+    {
+        return xrefIndexStore;
+    }
+
+    /**
+     * Sets a store of xref indexes. If the store has an index for the document, the xref
+     * tables and streams aren't parsed and no brute force search for objects is done when the
+     * document is opened. Otherwise the index is saved to the store after the document has
+     * been opened.
+     *
+     * This method can only be called before the parsing of the file.
+     *
+     * @param xrefIndexStore the store, or null to parse the xref tables every time
+     */
+    public void setXrefIndexStore(XrefIndexStore xrefIndexStore)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change the xref index store after parsing");
+        }
+        this.xrefIndexStore = xrefIndexStore;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The object is parsed while holding the lock of the source, the position of the source
+     * is restored afterwards.</p>
+     */
+    @Override
+    public COSBase dereferenceCOSObject(COSObject object) throws IOException
+    {
+        synchronized (source)
+        {
+            long position = source.getPosition();
+            try
+            {
+                return parseObjectDynamically(object, false);
+            }
+            finally
+            {
+                source.seek(position);
+            }
+        }
+    }
+
     /**
      * Creates a unique object id using object number and object generation
      * number. (requires object number &lt; 2^31))
@@ -673,7 +956,7 @@ public class COSParser extends BaseParser
         final COSObjectKey objKey = new COSObjectKey(objNr, objGenNr);
         final COSObject pdfObject = document.getObjectFromPool(objKey);
 
-        if (pdfObject.getObject() == null)
+        if (pdfObject.isObjectNull())
         {
             // not previously parsed
             // ---- read offset or object stream object number from xref table
@@ -811,6 +1094,117 @@ public class COSParser extends BaseParser
         }
     }
 
+    /**
+     * Parses all object streams of the xref table with a pool of
+     * {@link #getObjectStreamParserThreads()} threads and adds their objects to the document, if
+     * more than one thread is set. Object streams which can't be parsed are skipped, their
+     * objects are parsed when they are used, as usual.
+     *
+     * @throws IOException If an IO error occurs.
+     */
+    protected void parseObjectStreams() throws IOException
+    {
+        if (objectStreamParserThreads < 2)
+        {
+            return;
+        }
+        // get the numbers of the objects in each object stream
+        Map<Long, Set<Long>> objectStreams = new TreeMap<Long, Set<Long>>();
+        for (Entry<COSObjectKey, Long> entry : xrefTrailerResolver.getXrefTable().entrySet())
+        {
+            long offsetOrObjstmObNr = entry.getValue();
+            if (offsetOrObjstmObNr < 0)
+            {
+                Set<Long> refObjNrs = objectStreams.get(-offsetOrObjstmObNr);
+                if (refObjNrs == null)
+                {
+                    refObjNrs = new HashSet<Long>();
+                    objectStreams.put(-offsetOrObjstmObNr, refObjNrs);
+                }
+                refObjNrs.add(entry.getKey().getNumber());
+            }
+        }
+        if (objectStreams.isEmpty())
+        {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(objectStreamParserThreads, objectStreams.size()));
+        try
+        {
+            Map<Long, Future<List<COSObject>>> results =
+                    new LinkedHashMap<Long, Future<List<COSObject>>>();
+            for (Long objstmObjNr : objectStreams.keySet())
+            {
+                COSBase objstmBaseObj;
+                try
+                {
+                    // streams which are left in the source are read by the workers under the
+                    // lock of the source, so don't read it at the same time
+                    synchronized (source)
+                    {
+                        objstmBaseObj = parseObjectDynamically(objstmObjNr, 0, true);
+                    }
+                }
+                catch (IOException e)
+                {
+                    LOG.warn("Skipped object stream " + objstmObjNr + ": " + e.getMessage());
+                    continue;
+                }
+                if (objstmBaseObj instanceof COSStream)
+                {
+                    final COSStream stream = (COSStream) objstmBaseObj;
+                    results.put(objstmObjNr, executor.submit(new Callable<List<COSObject>>()
+                    {
+                        @Override
+                        public List<COSObject> call() throws IOException
+                        {
+                            PDFObjectStreamParser parser = new PDFObjectStreamParser(stream, document);
+                            parser.parse();
+                            return parser.getObjects();
+                        }
+                    }));
+                }
+            }
+            // register all objects which are referenced to be contained in each object stream
+            for (Entry<Long, Future<List<COSObject>>> result : results.entrySet())
+            {
+                List<COSObject> objects;
+                try
+                {
+                    objects = result.getValue().get();
+                }
+                catch (ExecutionException e)
+                {
+                    LOG.warn("Skipped object stream " + result.getKey() + ": "
+                            + e.getCause().getMessage());
+                    continue;
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while parsing object streams");
+                }
+                Set<Long> refObjNrs = objectStreams.get(result.getKey());
+                for (COSObject next : objects)
+                {
+                    if (refObjNrs.contains(next.getObjectNumber()))
+                    {
+                        COSObject stmObj = document.getObjectFromPool(new COSObjectKey(next));
+                        if (stmObj.isObjectNull())
+                        {
+                            stmObj.setObject(next.getObject());
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     private void parseObjectStream(int objstmObjNr) throws IOException
     {
         final COSBase objstmBaseObj = parseObjectDynamically(objstmObjNr, 0, true);
@@ -855,7 +1249,7 @@ public class COSParser extends BaseParser
         else if (lengthBaseObj instanceof COSObject)
         {
             COSObject lengthObj = (COSObject) lengthBaseObj;
-            if (lengthObj.getObject() == null)
+            if (lengthObj.isObjectNull())
             {
                 // not read so far, keep current stream position
                 final long curFileOffset = source.getPosition();
@@ -863,7 +1257,7 @@ public class COSParser extends BaseParser
                 parseObjectDynamically(lengthObj, isObjectStream);
                 // reset current stream position
                 source.seek(curFileOffset);
-                if (lengthObj.getObject() == null)
+                if (lengthObj.isObjectNull())
                 {
                     throw new IOException("Length object content was not read.");
                 }
@@ -926,9 +1320,18 @@ public class COSParser extends BaseParser
             }
         }
 
-        // get output stream to copy data to
-        if (streamLengthObj != null && validateStreamLength(streamLengthObj.longValue()))
+        boolean isValidLength = streamLengthObj != null
+                && validateStreamLength(streamLengthObj.longValue());
+        if (isValidLength && isLazyStreamLoading)
+        {
+            // leave the data in the source and skip it
+            long offset = source.getPosition();
+            stream.setSource(source, offset, streamLengthObj.longValue());
+            source.seek(offset + streamLengthObj.longValue());
+        }
+        else if (isValidLength)
         {
+            // get output stream to copy data to
             OutputStream out = stream.createRawOutputStream();
             try
             {
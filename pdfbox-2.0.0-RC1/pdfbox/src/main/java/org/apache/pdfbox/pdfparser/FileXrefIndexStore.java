@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * An {@link XrefIndexStore} which keeps the index of one PDF file in a sidecar file next to it.
+ * The sidecar also records the length and the modification time of the PDF file; an index is
+ * only used if they and the fingerprint of the document are unchanged.
+ */
+public class FileXrefIndexStore implements XrefIndexStore
+{
+    /** the extension which is appended to the name of the PDF file */
+    public static final String EXTENSION = ".xrefidx";
+
+    private final File pdfFile;
+    private final File indexFile;
+
+    /**
+     * Creates a store which uses the sidecar file with the name of the PDF file followed by
+     * {@link #EXTENSION}.
+     *
+     * @param pdfFile the PDF file
+     */
+    public FileXrefIndexStore(File pdfFile)
+    {
+        this(pdfFile, new File(pdfFile.getPath() + EXTENSION));
+    }
+
+    /**
+     * Creates a store which uses the given sidecar file.
+     *
+     * @param pdfFile the PDF file
+     * @param indexFile the file which holds the index
+     */
+    public FileXrefIndexStore(File pdfFile, File indexFile)
+    {
+        this.pdfFile = pdfFile;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Returns the file which holds the index.
+     */
+    public File getIndexFile()
+    {
+        return indexFile;
+    }
+
+    @Override
+    public XrefIndex load(String fingerprint) throws IOException
+    {
+        if (!indexFile.isFile())
+        {
+            return null;
+        }
+        DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)));
+        try
+        {
+            if (input.readLong() != pdfFile.length()
+                    || input.readLong() != pdfFile.lastModified()
+                    || !input.readUTF().equals(fingerprint))
+            {
+                return null;
+            }
+            return XrefIndex.read(input);
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    @Override
+    public void save(String fingerprint, XrefIndex index) throws IOException
+    {
+        // write to a temporary file first, so that a concurrent reader never sees half an index
+        File tempFile = File.createTempFile(indexFile.getName(), ".tmp",
+                indexFile.getAbsoluteFile().getParentFile());
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try
+        {
+            output.writeLong(pdfFile.length());
+            output.writeLong(pdfFile.lastModified());
+            output.writeUTF(fingerprint);
+            index.write(output);
+        }
+        finally
+        {
+            output.close();
+        }
+        if (!tempFile.renameTo(indexFile))
+        {
+            // renameTo doesn't replace an existing file on all platforms
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile))
+            {
+                tempFile.delete();
+                throw new IOException("Can't write xref index " + indexFile);
+            }
+        }
+    }
+}
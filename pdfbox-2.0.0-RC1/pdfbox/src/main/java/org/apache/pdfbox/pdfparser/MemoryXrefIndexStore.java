@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An {@link XrefIndexStore} which keeps the indexes in main memory, so that a document which is
+ * opened again by the same application is opened without parsing its cross reference tables.
+ * The store isn't limited in size, an application should use one store for a bounded set of
+ * documents, or {@link #clear()} it from time to time.
+ */
+public class MemoryXrefIndexStore implements XrefIndexStore
+{
+    private final ConcurrentMap<String, XrefIndex> indexes =
+            new ConcurrentHashMap<String, XrefIndex>();
+
+    @Override
+    public XrefIndex load(String fingerprint)
+    {
+        return indexes.get(fingerprint);
+    }
+
+    @Override
+    public void save(String fingerprint, XrefIndex index)
+    {
+        indexes.put(fingerprint, index);
+    }
+
+    /**
+     * Returns the number of stored indexes.
+     */
+    public int size()
+    {
+        return indexes.size();
+    }
+
+    /**
+     * Removes all stored indexes.
+     */
+    public void clear()
+    {
+        indexes.clear();
+    }
+}
@@ -138,10 +138,27 @@ public class PDFParser extends COSParser
         password = decryptionPassword;
         keyStoreInputStream = keyStore;
         keyAlias = alias;
-        init(scratchFile);
+        init(new COSDocument(scratchFile));
     }
     
-    private void init(ScratchFile scratchFile) throws IOException
+    /**
+     * Constructor for a document which uses the given document object, e.g. one which shares
+     * its scratch file with other documents.
+     * 
+     * @param source input representing the pdf.
+     * @param decryptionPassword password to be used for decryption.
+     * @param document the document to be populated.
+     */
+    PDFParser(RandomAccessRead source, String decryptionPassword, COSDocument document)
+            throws IOException
+    {
+        super(source);
+        fileLen = source.length();
+        password = decryptionPassword;
+        init(document);
+    }
+    
+    private void init(COSDocument document) throws IOException
     {
         String eofLookupRangeStr = System.getProperty(SYSPROP_EOFLOOKUPRANGE);
         if (eofLookupRangeStr != null)
@@ -156,7 +173,7 @@ public class PDFParser extends COSParser
                         + " does not contain an integer value, but: '" + eofLookupRangeStr + "'");
             }
         }
-        document = new COSDocument(scratchFile);
+        this.document = document;
     }
     
     /**
@@ -175,34 +192,56 @@ public class PDFParser extends COSParser
     /**
      * The initial parse will first parse only the trailer, the xrefstart and all xref tables to have a pointer (offset)
      * to all the pdf's objects. It can handle linearized pdfs, which will have an xref at the end pointing to an xref
-     * at the beginning of the file. Last the root object is parsed.
+     * at the beginning of the file. Last the root object is parsed, and unless objects are loaded lazily the objects
+     * reachable from it.
      * 
      * @throws IOException If something went wrong.
      */
     protected void initialParse() throws IOException
     {
-        COSDictionary trailer = null;
-        // parse startxref
-        long startXRefOffset = getStartxrefOffset();
-        if (startXRefOffset > -1)
+        // use the stored xref index, if there is one
+        COSDictionary trailer = loadXrefIndex();
+        if (trailer == null)
         {
-            trailer = parseXref(startXRefOffset);
-        }
-        else if (isLenient())
-        {
-            trailer = rebuildTrailer();
+            // parse startxref
+            long startXRefOffset = getStartxrefOffset();
+            if (startXRefOffset > -1)
+            {
+                trailer = parseXref(startXRefOffset);
+            }
+            else if (isLenient())
+            {
+                trailer = rebuildTrailer();
+            }
         }
         // prepare decryption if necessary
         prepareDecryption();
     
+        if (!isLazyObjectLoading())
+        {
+            // decompress the object streams in parallel, if enabled
+            parseObjectStreams();
+        }
+    
         parseTrailerValuesDynamically(trailer);
     
-        COSObject catalogObj = document.getCatalog();
-        if (catalogObj != null && catalogObj.getObject() instanceof COSDictionary)
+        if (isLazyObjectLoading())
         {
-            parseDictObjects((COSDictionary) catalogObj.getObject(), (COSName[]) null);
+            // objects are parsed, and decrypted, when they are used
+            document.setParser(this);
             document.setDecrypted();
         }
+        else
+        {
+            COSObject catalogObj = document.getCatalog();
+            if (catalogObj != null && catalogObj.getObject() instanceof COSDictionary)
+            {
+                parseDictObjects((COSDictionary) catalogObj.getObject(), (COSName[]) null);
+                document.setDecrypted();
+            }
+        }
+        // store the xref index including any objects found by a brute force search
+        saveXrefIndex();
         initialParseDone = true;
     }
 
@@ -308,7 +347,7 @@ public class PDFParser extends COSParser
             if (value instanceof COSObject)
             {
                 COSObject object = (COSObject)value;
-                if (object.getObject() == null)
+                if (object.isObjectNull())
                 {
                     parseDictionaryRecursive(object);
                 }
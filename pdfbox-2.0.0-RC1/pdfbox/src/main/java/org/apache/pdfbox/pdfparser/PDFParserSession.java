@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessBuffer;
+import org.apache.pdfbox.io.RandomAccessMappedFile;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Loads many documents with one {@link ScratchFile}, for workloads which open a high volume of
+ * small documents. Every {@link PDDocument#load(InputStream)} creates a new scratch file, so the
+ * pages holding the copied input and the decoded streams are allocated anew for every document
+ * and become garbage when it's closed. The documents of a session share the scratch file
+ * instead: closing a document returns its pages to the session, and the next document reuses
+ * them.
+ *
+ * <p>By default the pages are kept off-heap, so reusing them doesn't involve the garbage
+ * collector at all. The scratch file is thread-safe, so a session may be used by several threads
+ * at once. Documents must be closed as usual; closing the session releases the scratch file and
+ * must be done after all its documents have been closed.</p>
+ */
+public class PDFParserSession implements Closeable
+{
+    private final MemoryUsageSetting memUsageSetting;
+    private final ScratchFile scratchFile;
+
+    /**
+     * Creates a session which keeps the pages in unrestricted off-heap main memory.
+     *
+     * @throws IOException if the scratch file can't be created
+     */
+    public PDFParserSession() throws IOException
+    {
+        this(MemoryUsageSetting.setupMainMemoryOnly().setOffHeapMainMemory(true));
+    }
+
+    /**
+     * Creates a session. The memory settings are shared by all documents of the session, also
+     * the limits, and the load options of the settings are applied to every document.
+     *
+     * @param memUsageSetting defines how memory is used for buffering input streams and PDF
+     * streams, and how documents are loaded
+     * @throws IOException if the scratch file can't be created
+     */
+    public PDFParserSession(MemoryUsageSetting memUsageSetting) throws IOException
+    {
+        this.memUsageSetting = memUsageSetting;
+        scratchFile = new ScratchFile(memUsageSetting);
+    }
+
+    /**
+     * Parses a PDF. The given input stream is copied to the pages of the session.
+     *
+     * @param input stream that contains the document, it isn't closed
+     * @return loaded document
+     * @throws IOException in case of a file reading or parsing error
+     */
+    public PDDocument load(InputStream input) throws IOException
+    {
+        return load(input, "");
+    }
+
+    /**
+     * Parses a PDF. The given input stream is copied to the pages of the session.
+     *
+     * @param input stream that contains the document, it isn't closed
+     * @param password password to be used for decryption
+     * @return loaded document
+     * @throws IOException in case of a file reading or parsing error
+     */
+    public PDDocument load(InputStream input, String password) throws IOException
+    {
+        return load(scratchFile.createBuffer(input), password);
+    }
+
+    /**
+     * Parses a PDF. The file is mapped if {@link MemoryUsageSetting#isMapInputFile()} is set,
+     * otherwise it's copied to the pages of the session.
+     *
+     * @param file file to be loaded
+     * @return loaded document
+     * @throws IOException in case of a file reading or parsing error
+     */
+    public PDDocument load(File file) throws IOException
+    {
+        return load(file, "");
+    }
+
+    /**
+     * Parses a PDF. The file is mapped if {@link MemoryUsageSetting#isMapInputFile()} is set,
+     * otherwise it's copied to the pages of the session.
+     *
+     * @param file file to be loaded
+     * @param password password to be used for decryption
+     * @return loaded document
+     * @throws IOException in case of a file reading or parsing error
+     */
+    public PDDocument load(File file, String password) throws IOException
+    {
+        if (memUsageSetting.isMapInputFile())
+        {
+            return load(new RandomAccessMappedFile(file), password);
+        }
+        InputStream input = new FileInputStream(file);
+        try
+        {
+            return load(input, password);
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    /**
+     * Parses a PDF. The array isn't copied and must not be modified while the document is open.
+     *
+     * @param input byte array that contains the document
+     * @return loaded document
+     * @throws IOException in case of a parsing error
+     */
+    public PDDocument load(byte[] input) throws IOException
+    {
+        return load(input, "");
+    }
+
+    /**
+     * Parses a PDF. The array isn't copied and must not be modified while the document is open.
+     *
+     * @param input byte array that contains the document
+     * @param password password to be used for decryption
+     * @return loaded document
+     * @throws IOException in case of a parsing error
+     */
+    public PDDocument load(byte[] input, String password) throws IOException
+    {
+        return load(new RandomAccessBuffer(input), password);
+    }
+
+    private PDDocument load(RandomAccessRead source, String password) throws IOException
+    {
+        COSDocument document = new COSDocument(scratchFile, false);
+        try
+        {
+            PDFParser parser = new PDFParser(source, password, document);
+            parser.setLazyStreamLoading(memUsageSetting.isLazyStreamLoading());
+            parser.setLazyObjectLoading(memUsageSetting.isLazyObjectLoading());
+            parser.setObjectStreamParserThreads(memUsageSetting.getObjectStreamParserThreads());
+            parser.setXrefIndexStore(memUsageSetting.getXrefIndexStore());
+            parser.parse();
+            return parser.getPDDocument();
+        }
+        catch (IOException e)
+        {
+            document.close();
+            source.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the pages of the session. Documents which are still open become unusable.
+     *
+     * @throws IOException if the scratch file can't be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        scratchFile.close();
+    }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.contentstream.PDContentStream;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSBoolean;
@@ -52,6 +53,15 @@ public class PDFStreamParser extends BaseParser
     
     private static final int MAX_BIN_CHAR_TEST_LENGTH = 10;
     private final byte[] binCharTestArr = new byte[MAX_BIN_CHAR_TEST_LENGTH];
+
+    /**
+     * Numbers with more digits may not fit into a long.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    // buffer reused by parseNextOperator()
+    private char[] keywordBuffer = new char[8];
+    private int keywordLength;
     
     /**
      * Constructor.
@@ -64,7 +74,7 @@ public class PDFStreamParser extends BaseParser
     @Deprecated
     public PDFStreamParser(PDStream stream) throws IOException
     {
-        super(new InputStreamSource(stream.createInputStream()));
+        super(new InputStreamSource(stream.getStream().createStreamingInputStream()));
     }
 
     /**
@@ -78,7 +88,7 @@ public class PDFStreamParser extends BaseParser
     @Deprecated
     public PDFStreamParser(COSStream stream) throws IOException
     {
-        super(new InputStreamSource(stream.createInputStream()));
+        super(new InputStreamSource(stream.createStreamingInputStream()));
     }
 
     /**
@@ -245,7 +255,8 @@ public class PDFStreamParser extends BaseParser
             {
                 /* We will be filling buf with the rest of the number.  Only
                  * allow 1 "." and "-" and "+" at start of number. */
-                StringBuffer buf = new StringBuffer();
+                StringBuilder buf = numberBuffer;
+                buf.setLength( 0 );
                 buf.append( c );
                 seqSource.read();
 
@@ -260,7 +271,7 @@ public class PDFStreamParser extends BaseParser
                         dotNotRead = false;
                     }
                 }
-                retval = COSNumber.get( buf.toString() );
+                retval = COSNumber.get( buf );
                 break;
             }
             case 'B':
@@ -269,18 +280,7 @@ public class PDFStreamParser extends BaseParser
                 retval = Operator.getOperator(next);
                 if( next.equals( "BI" ) )
                 {
-                    Operator beginImageOP = (Operator)retval;
-                    COSDictionary imageParams = new COSDictionary();
-                    beginImageOP.setImageParameters( imageParams );
-                    Object nextToken = null;
-                    while( (nextToken = parseNextToken()) instanceof COSName )
-                    {
-                        Object value = parseNextToken();
-                        imageParams.setItem( (COSName)nextToken, (COSBase)value );
-                    }
-                    //final token will be the image data, maybe??
-                    Operator imageData = (Operator)nextToken;
-                    beginImageOP.setImageData( imageData.getImageData() );
+                    parseInlineImage( (Operator)retval );
                 }
                 break;
             }
@@ -348,6 +348,285 @@ public class PDFStreamParser extends BaseParser
         return retval;
     }
 
+    /**
+     * Parses the parameters and the data of an inline image following the BI operator.
+     *
+     * @param beginImageOP the BI operator
+     * @throws IOException If an io error occurs while parsing the stream.
+     */
+    private void parseInlineImage( Operator beginImageOP ) throws IOException
+    {
+        COSDictionary imageParams = new COSDictionary();
+        beginImageOP.setImageParameters( imageParams );
+        Object nextToken = null;
+        while( (nextToken = parseNextToken()) instanceof COSName )
+        {
+            Object value = parseNextToken();
+            imageParams.setItem( (COSName)nextToken, (COSBase)value );
+        }
+        //final token will be the image data, maybe??
+        Operator imageData = (Operator)nextToken;
+        beginImageOP.setImageData( imageData.getImageData() );
+    }
+
+    /**
+     * This will parse the operands of the next operator onto the given stack, and return the
+     * operator. The tokens are the same as those of {@link #parseNextToken()}, but plain numbers
+     * are pushed as primitives, and keywords and names are looked up without creating strings,
+     * so that a content stream can be processed without allocating for every token. References
+     * are pushed as their (null) object, like {@link org.apache.pdfbox.contentstream.PDFStreamEngine}
+     * does.
+     *
+     * @param operands the stack for the operands, it isn't cleared
+     * @return The next operator in the stream or null if there are no more operators in the
+     * stream. Any operands following the last operator are left on the stack.
+     *
+     * @throws IOException If an io error occurs while parsing the stream.
+     */
+    public Operator parseNextOperator( OperandStack operands ) throws IOException
+    {
+        while( true )
+        {
+            skipSpaces();
+            int nextByte = seqSource.peek();
+            if( ((byte)nextByte) == -1 )
+            {
+                return null;
+            }
+            char c = (char)nextByte;
+            switch (c)
+            {
+                case '0':
+                case '1':
+                case '2':
+                case '3':
+                case '4':
+                case '5':
+                case '6':
+                case '7':
+                case '8':
+                case '9':
+                case '-':
+                case '+':
+                case '.':
+                    parseNumber( c, operands );
+                    break;
+                case 'n':
+                case 't':
+                case 'f':
+                case 'R':
+                case 'B':
+                {
+                    readKeyword();
+                    if( c == 'n' && keywordEquals( "null" ) )
+                    {
+                        operands.push( COSNull.NULL );
+                    }
+                    else if( c == 't' && keywordEquals( "true" ) )
+                    {
+                        operands.push( COSBoolean.TRUE );
+                    }
+                    else if( c == 'f' && keywordEquals( "false" ) )
+                    {
+                        operands.push( COSBoolean.FALSE );
+                    }
+                    else if( c == 'R' && keywordEquals( "R" ) )
+                    {
+                        // a reference without an object, see parseNextToken()
+                        operands.push( null );
+                    }
+                    else
+                    {
+                        Operator operator = Operator.getOperator( keywordBuffer, keywordLength );
+                        if( c == 'B' && operator.getName().equals( "BI" ) )
+                        {
+                            parseInlineImage( operator );
+                        }
+                        return operator;
+                    }
+                    break;
+                }
+                case '<':
+                case '[':
+                case '(':
+                case '/':
+                case 'I':
+                case ']':
+                {
+                    Object token = parseNextToken();
+                    if( token instanceof Operator )
+                    {
+                        return (Operator)token;
+                    }
+                    operands.push( (COSBase)token );
+                    break;
+                }
+                default:
+                {
+                    //we must be an operator
+                    readOperatorKeyword();
+                    if( isBlankKeyword() )
+                    {
+                        //we have a corrupt stream, stop reading here
+                        return null;
+                    }
+                    return Operator.getOperator( keywordBuffer, keywordLength );
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses a number, like the number case of {@link #parseNextToken()}. Numbers which fit into
+     * a long are pushed as primitives, all others as {@link COSNumber}s.
+     */
+    private void parseNumber( char first, OperandStack operands ) throws IOException
+    {
+        numberBuffer.setLength( 0 );
+        numberBuffer.append( first );
+        seqSource.read();
+
+        boolean negative = first == '-';
+        long unscaledValue = 0;
+        int digits = 0;
+        // the number of digits after the decimal point, -1 if there is no decimal point
+        int scale = first == '.' ? 0 : -1;
+        if( first >= '0' && first <= '9' )
+        {
+            unscaledValue = first - '0';
+            digits = 1;
+        }
+        char c;
+        while( Character.isDigit(c = (char) seqSource.peek()) || scale < 0 && c == '.' )
+        {
+            numberBuffer.append( c );
+            seqSource.read();
+            if( c == '.' )
+            {
+                scale = 0;
+            }
+            else
+            {
+                unscaledValue = unscaledValue * 10 + (c - '0');
+                digits++;
+                if( scale >= 0 )
+                {
+                    scale++;
+                }
+            }
+        }
+
+        if( numberBuffer.length() == 1 && (first == '-' || first == '.') )
+        {
+            // See https://issues.apache.org/jira/browse/PDFBOX-592
+            operands.pushInteger( 0 );
+        }
+        else if( digits == 0 || digits > MAX_LONG_DIGITS )
+        {
+            // invalid or too long for a long, let COSNumber handle it
+            operands.push( COSNumber.get( numberBuffer ) );
+        }
+        else if( scale < 0 )
+        {
+            operands.pushInteger( negative ? -unscaledValue : unscaledValue );
+        }
+        else
+        {
+            operands.pushReal( negative ? -unscaledValue : unscaledValue, scale );
+        }
+    }
+
+    /**
+     * Reads a keyword into the keyword buffer, like {@link #readString()}.
+     */
+    private void readKeyword() throws IOException
+    {
+        skipSpaces();
+        keywordLength = 0;
+        int c = seqSource.read();
+        while( !isEndOfName((char)c) && c != -1 )
+        {
+            appendKeywordChar( (char)c );
+            c = seqSource.read();
+        }
+        if (c != -1)
+        {
+            seqSource.unread(c);
+        }
+    }
+
+    /**
+     * Reads an operator into the keyword buffer, like {@link #readOperator()}.
+     */
+    private void readOperatorKeyword() throws IOException
+    {
+        skipSpaces();
+        keywordLength = 0;
+        int nextChar = seqSource.peek();
+        while(
+            nextChar != -1 && // EOF
+            !isWhitespace(nextChar) &&
+            !isClosing(nextChar) &&
+            nextChar != '[' &&
+            nextChar != '<' &&
+            nextChar != '(' &&
+            nextChar != '/' &&
+            (nextChar < '0' ||
+             nextChar > '9' ) )
+        {
+            char currentChar = (char) seqSource.read();
+            nextChar = seqSource.peek();
+            appendKeywordChar( currentChar );
+            // Type3 Glyph description has operators with a number in the name
+            if (currentChar == 'd' && (nextChar == '0' || nextChar == '1') ) 
+            {
+                appendKeywordChar( (char) seqSource.read() );
+                nextChar = seqSource.peek();
+            }
+        }
+    }
+
+    private void appendKeywordChar( char c )
+    {
+        if( keywordLength == keywordBuffer.length )
+        {
+            keywordBuffer = Arrays.copyOf( keywordBuffer, keywordLength * 2 );
+        }
+        keywordBuffer[keywordLength++] = c;
+    }
+
+    private boolean keywordEquals( String keyword )
+    {
+        if( keyword.length() != keywordLength )
+        {
+            return false;
+        }
+        for( int i = 0; i < keywordLength; i++ )
+        {
+            if( keyword.charAt( i ) != keywordBuffer[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the keyword is empty or consists of whitespace only, the same test as
+     * String.trim().length() == 0.
+     */
+    private boolean isBlankKeyword()
+    {
+        for( int i = 0; i < keywordLength; i++ )
+        {
+            if( keywordBuffer[i] > ' ' )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Looks up an amount of bytes if they contain only ASCII characters (no
      * control sequences etc.), and that these ASCII characters begin with a
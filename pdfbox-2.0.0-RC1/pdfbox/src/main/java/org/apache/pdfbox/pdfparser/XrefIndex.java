@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSObjectKey;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfparser.XrefTrailerResolver.XRefType;
+
+/**
+ * The resolved cross reference table and trailer of a parsed document, as stored by an
+ * {@link XrefIndexStore}. Applying an index to a new parser replaces the parsing of the xref
+ * tables and streams and any brute force search for objects which was needed to open the
+ * document. Entries of objects in object streams hold the negated number of the object stream,
+ * as in {@link XrefTrailerResolver#getXrefTable()}.
+ *
+ * <p>An index doesn't refer to the document it was created from, so one index may be applied
+ * to any number of parsers, also by several threads at once.</p>
+ */
+public final class XrefIndex
+{
+    private static final int MAGIC = 0x50584946; // "PXIF"
+    private static final int VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int REFERENCE = 1;
+    private static final int INTEGER = 2;
+    private static final int FLOAT = 3;
+    private static final int BOOLEAN = 4;
+    private static final int NAME = 5;
+    private static final int STRING = 6;
+    private static final int ARRAY = 7;
+    private static final int DICTIONARY = 8;
+
+    private final long startXref;
+    private final boolean isXRefStream;
+    private final long[] objectNumbers;
+    private final int[] generationNumbers;
+    private final long[] offsets;
+    /** the trailer, encoded so that it can be restored in any document */
+    private final byte[] trailer;
+
+    /**
+     * Creates an index from the resolved state of a parser.
+     *
+     * @param startXref the offset of the last xref section
+     * @param xrefType the type of the last xref section
+     * @param xrefTable the resolved xref table
+     * @param trailer the resolved trailer
+     * @throws IOException if the trailer contains values which can't be stored
+     */
+    XrefIndex(long startXref, XRefType xrefType, Map<COSObjectKey, Long> xrefTable,
+            COSDictionary trailer) throws IOException
+    {
+        this.startXref = startXref;
+        isXRefStream = XRefType.STREAM == xrefType;
+        int size = xrefTable.size();
+        objectNumbers = new long[size];
+        generationNumbers = new int[size];
+        offsets = new long[size];
+        int i = 0;
+        for (Entry<COSObjectKey, Long> entry : xrefTable.entrySet())
+        {
+            objectNumbers[i] = entry.getKey().getNumber();
+            generationNumbers[i] = entry.getKey().getGeneration();
+            offsets[i] = entry.getValue();
+            i++;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        writeObject(output, trailer);
+        output.flush();
+        this.trailer = bytes.toByteArray();
+    }
+
+    private XrefIndex(long startXref, boolean isXRefStream, long[] objectNumbers,
+            int[] generationNumbers, long[] offsets, byte[] trailer)
+    {
+        this.startXref = startXref;
+        this.isXRefStream = isXRefStream;
+        this.objectNumbers = objectNumbers;
+        this.generationNumbers = generationNumbers;
+        this.offsets = offsets;
+        this.trailer = trailer;
+    }
+
+    /**
+     * Returns the offset of the last xref section of the document.
+     */
+    public long getStartXref()
+    {
+        return startXref;
+    }
+
+    /**
+     * Returns true if the last xref section of the document is a cross reference stream.
+     */
+    public boolean isXRefStream()
+    {
+        return isXRefStream;
+    }
+
+    /**
+     * Returns the number of entries of the xref table.
+     */
+    public int size()
+    {
+        return offsets.length;
+    }
+
+    /**
+     * Creates a new xref table from this index.
+     *
+     * @return a map from object keys to offsets, or to negated object stream numbers
+     */
+    Map<COSObjectKey, Long> createXrefTable()
+    {
+        Map<COSObjectKey, Long> xrefTable = new HashMap<COSObjectKey, Long>(offsets.length * 2);
+        for (int i = 0; i < offsets.length; i++)
+        {
+            xrefTable.put(new COSObjectKey(objectNumbers[i], generationNumbers[i]), offsets[i]);
+        }
+        return xrefTable;
+    }
+
+    /**
+     * Creates a new trailer from this index. References are resolved with the object pool of the
+     * given document.
+     *
+     * @param document the document the trailer is for
+     * @return the trailer
+     * @throws IOException if the stored trailer is corrupt
+     */
+    COSDictionary createTrailer(COSDocument document) throws IOException
+    {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(trailer));
+        COSBase base = readObject(input, document);
+        if (!(base instanceof COSDictionary))
+        {
+            throw new IOException("Corrupt xref index, the trailer isn't a dictionary");
+        }
+        return (COSDictionary) base;
+    }
+
+    /**
+     * Writes this index in a compact binary form.
+     *
+     * @param out the stream to write to, it isn't closed
+     * @throws IOException if the index can't be written
+     */
+    public void write(OutputStream out) throws IOException
+    {
+        DataOutputStream output = new DataOutputStream(out);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(startXref);
+        output.writeBoolean(isXRefStream);
+        output.writeInt(offsets.length);
+        for (int i = 0; i < offsets.length; i++)
+        {
+            output.writeLong(objectNumbers[i]);
+            output.writeInt(generationNumbers[i]);
+            output.writeLong(offsets[i]);
+        }
+        output.writeInt(trailer.length);
+        output.write(trailer);
+        output.flush();
+    }
+
+    /**
+     * Reads an index which was written by {@link #write(OutputStream)}.
+     *
+     * @param in the stream to read from, it isn't closed
+     * @return the index
+     * @throws IOException if the index can't be read or is corrupt
+     */
+    public static XrefIndex read(InputStream in) throws IOException
+    {
+        DataInputStream input = new DataInputStream(in);
+        if (input.readInt() != MAGIC || input.readInt() != VERSION)
+        {
+            throw new IOException("Unknown xref index format");
+        }
+        long startXref = input.readLong();
+        boolean isXRefStream = input.readBoolean();
+        int size = input.readInt();
+        if (size < 0)
+        {
+            throw new IOException("Corrupt xref index, invalid size " + size);
+        }
+        long[] objectNumbers = new long[size];
+        int[] generationNumbers = new int[size];
+        long[] offsets = new long[size];
+        for (int i = 0; i < size; i++)
+        {
+            objectNumbers[i] = input.readLong();
+            generationNumbers[i] = input.readInt();
+            offsets[i] = input.readLong();
+        }
+        int length = input.readInt();
+        if (length < 0)
+        {
+            throw new IOException("Corrupt xref index, invalid trailer length " + length);
+        }
+        byte[] trailer = new byte[length];
+        input.readFully(trailer);
+        return new XrefIndex(startXref, isXRefStream, objectNumbers, generationNumbers, offsets,
+                trailer);
+    }
+
+    private static void writeObject(DataOutputStream output, COSBase base) throws IOException
+    {
+        if (base == null || base instanceof COSNull)
+        {
+            output.writeByte(NULL);
+        }
+        else if (base instanceof COSObject)
+        {
+            COSObject object = (COSObject) base;
+            output.writeByte(REFERENCE);
+            output.writeLong(object.getObjectNumber());
+            output.writeInt(object.getGenerationNumber());
+        }
+        else if (base instanceof COSInteger)
+        {
+            output.writeByte(INTEGER);
+            output.writeLong(((COSInteger) base).longValue());
+        }
+        else if (base instanceof COSFloat)
+        {
+            output.writeByte(FLOAT);
+            output.writeFloat(((COSFloat) base).floatValue());
+        }
+        else if (base instanceof COSBoolean)
+        {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean(((COSBoolean) base).getValue());
+        }
+        else if (base instanceof COSName)
+        {
+            output.writeByte(NAME);
+            output.writeUTF(((COSName) base).getName());
+        }
+        else if (base instanceof COSString)
+        {
+            byte[] bytes = ((COSString) base).getBytes();
+            output.writeByte(STRING);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+        else if (base instanceof COSArray)
+        {
+            COSArray array = (COSArray) base;
+            output.writeByte(ARRAY);
+            output.writeInt(array.size());
+            for (int i = 0; i < array.size(); i++)
+            {
+                writeObject(output, array.get(i));
+            }
+        }
+        else if (base instanceof COSDictionary && !(base instanceof COSStream))
+        {
+            COSDictionary dictionary = (COSDictionary) base;
+            output.writeByte(DICTIONARY);
+            output.writeInt(dictionary.size());
+            for (Entry<COSName, COSBase> entry : dictionary.entrySet())
+            {
+                output.writeUTF(entry.getKey().getName());
+                writeObject(output, entry.getValue());
+            }
+        }
+        else
+        {
+            throw new IOException("Can't store " + base.getClass().getSimpleName()
+                    + " in an xref index");
+        }
+    }
+
+    private static COSBase readObject(DataInputStream input, COSDocument document)
+            throws IOException
+    {
+        int type = input.readByte();
+        switch (type)
+        {
+            case NULL:
+                return COSNull.NULL;
+            case REFERENCE:
+                long number = input.readLong();
+                int generation = input.readInt();
+                return document.getObjectFromPool(new COSObjectKey(number, generation));
+            case INTEGER:
+                return COSInteger.get(input.readLong());
+            case FLOAT:
+                return new COSFloat(input.readFloat());
+            case BOOLEAN:
+                return COSBoolean.getBoolean(input.readBoolean());
+            case NAME:
+                return COSName.getPDFName(input.readUTF());
+            case STRING:
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                return new COSString(bytes);
+            case ARRAY:
+                int size = input.readInt();
+                COSArray array = new COSArray();
+                for (int i = 0; i < size; i++)
+                {
+                    array.add(readObject(input, document));
+                }
+                return array;
+            case DICTIONARY:
+                int count = input.readInt();
+                COSDictionary dictionary = new COSDictionary();
+                for (int i = 0; i < count; i++)
+                {
+                    COSName key = COSName.getPDFName(input.readUTF());
+                    dictionary.setItem(key, readObject(input, document));
+                }
+                return dictionary;
+            default:
+                throw new IOException("Corrupt xref index, unknown type " + type);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.io.IOException;
+
+/**
+ * A store for the {@link XrefIndex} of documents which are opened repeatedly. A parser which has
+ * a store looks up the index of its document before parsing the cross reference tables and
+ * saves the index after opening the document if there was none.
+ *
+ * <p>Documents are identified by a fingerprint which is computed from their length and the
+ * data at their beginning and end, where the trailer and any incremental updates are. An
+ * implementation may be used by several threads at once.</p>
+ *
+ * @see COSParser#setXrefIndexStore(XrefIndexStore)
+ */
+public interface XrefIndexStore
+{
+    /**
+     * Returns the index of a document.
+     *
+     * @param fingerprint the fingerprint of the document
+     * @return the stored index, or null if there is none
+     * @throws IOException if the index can't be read
+     */
+    XrefIndex load(String fingerprint) throws IOException;
+
+    /**
+     * Stores the index of a document.
+     *
+     * @param fingerprint the fingerprint of the document
+     * @param index the index
+     * @throws IOException if the index can't be stored
+     */
+    void save(String fingerprint, XrefIndex index) throws IOException;
+}
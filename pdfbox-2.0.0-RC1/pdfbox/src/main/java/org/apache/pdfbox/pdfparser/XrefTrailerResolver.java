@@ -278,6 +278,22 @@ public class XrefTrailerResolver
 
     }
 
+    /**
+     * Sets the resolved xref table and trailer, e.g. from an {@link XrefIndex}, instead of
+     * resolving them from the xref objects with {@link #setStartxref(long)}.
+     *
+     * @param xrefType the type of the last xref object
+     * @param xrefTable the resolved xref table
+     * @param trailer the resolved trailer
+     */
+    void setResolved( XRefType xrefType, Map<COSObjectKey, Long> xrefTable, COSDictionary trailer )
+    {
+        resolvedXrefTrailer = new XrefTrailerObj();
+        resolvedXrefTrailer.xrefType = xrefType;
+        resolvedXrefTrailer.trailer = trailer;
+        resolvedXrefTrailer.xrefTable.putAll( xrefTable );
+    }
+
     /**
      * Gets the resolved trailer. Might return <code>null</code> in case
      * {@link #setStartxref(long)} was not called before.
@@ -63,8 +63,22 @@ public class COSStandardOutputStream extends FilterOutputStream
      *
      * @param out The underlying stream to write to.
      * @param position The current position of output stream.
+     * @deprecated use {@link #COSStandardOutputStream(OutputStream, long)}
      */
+    @Deprecated
     public COSStandardOutputStream(OutputStream out, int position)
+    {
+        this(out, (long) position);
+    }
+
+    /**
+     * COSOutputStream constructor for an output stream which already holds the given number of
+     * bytes, e.g. the original document of an incremental update, which may be larger than 2 GB.
+     *
+     * @param out The underlying stream to write to.
+     * @param position The current position of output stream.
+     */
+    public COSStandardOutputStream(OutputStream out, long position)
     {
         super(out);
         this.position = position;
@@ -242,7 +242,7 @@ public class COSWriter implements ICOSVisitor, Closeable
 
         // write to buffer instead of output
         setOutput(new ByteArrayOutputStream());
-        setStandardOutput(new COSStandardOutputStream(output, inputStream.available()));
+        setStandardOutput(new COSStandardOutputStream(output, (long) inputStream.available()));
 
         incrementalInput = inputStream;
         incrementalOutput = outputStream;
@@ -265,7 +265,10 @@ public class COSWriter implements ICOSVisitor, Closeable
           long highestNumber=0;
           for ( COSObjectKey cosObjectKey : keySet ) 
           {
-            COSBase object = cosDoc.getObjectFromPool(cosObjectKey).getObject();
+            // objects which haven't been loaded can't have been changed; they get their key
+            // when they are reached while writing, see getObjectKey()
+            COSObject pooled = cosDoc.getObjectFromPool(cosObjectKey);
+            COSBase object = pooled.isObjectNull() ? null : pooled.getObject();
             if (object != null && cosObjectKey!= null && !(object instanceof COSNumber))
             {
                 objectKeys.put(object, cosObjectKey);
@@ -442,6 +445,10 @@ public class COSWriter implements ICOSVisitor, Closeable
         {
             addObjectToWrite( info );
         }
+        if (incrementalUpdate)
+        {
+            addChangedObjectsToWrite(doc);
+        }
 
         while( objectsToWrite.size() > 0 )
         {
@@ -463,6 +470,28 @@ public class COSWriter implements ICOSVisitor, Closeable
         }
     }
 
+    /**
+     * Adds the loaded objects of the document which are marked with
+     * {@link COSUpdateInfo#setNeedToBeUpdated(boolean)}, so that an incremental update contains
+     * them even if the objects referring to them haven't been changed.
+     */
+    private void addChangedObjectsToWrite(COSDocument doc)
+    {
+        for (COSObject object : doc.getObjects())
+        {
+            if (object.isObjectNull())
+            {
+                continue;
+            }
+            COSBase actual = object.getObject();
+            if (object.isNeedToBeUpdated()
+                    || actual instanceof COSUpdateInfo && ((COSUpdateInfo) actual).isNeedToBeUpdated())
+            {
+                addObjectToWrite(object);
+            }
+        }
+    }
+
     private void addObjectToWrite( COSBase object )
     {
         COSBase actual = object;
@@ -477,6 +506,12 @@ public class COSWriter implements ICOSVisitor, Closeable
         {
             COSBase cosBase=null;
             COSObjectKey cosObjectKey = null;
+            if (incrementalUpdate && object instanceof COSObject && actual != null
+                    && !objectKeys.containsKey(actual))
+            {
+                // assigns the original key if the object has been loaded while writing
+                getObjectKey(object);
+            }
             if(actual != null)
             {
                 cosObjectKey= objectKeys.get(actual);
@@ -584,7 +619,13 @@ public class COSWriter implements ICOSVisitor, Closeable
         //sort xref, needed only if object keys not regenerated
         Collections.sort(getXRefEntries());
         COSWriterXRefEntry lastEntry = getXRefEntries().get( getXRefEntries().size()-1);
-        trailer.setLong(COSName.SIZE, lastEntry.getKey().getNumber()+1);
+        long size = lastEntry.getKey().getNumber()+1;
+        if (incrementalUpdate)
+        {
+            // the update only lists the changed objects, but the size covers all revisions
+            size = Math.max(size, getNumber()+1);
+        }
+        trailer.setLong(COSName.SIZE, size);
         // Only need to stay, if an incremental update will be performed
         if (!incrementalUpdate) 
         {
@@ -850,6 +891,23 @@ public class COSWriter implements ICOSVisitor, Closeable
         {
             key = objectKeys.get(obj);
         }
+        if (key == null && incrementalUpdate && obj instanceof COSObject)
+        {
+            // an object of the original document which was loaded after prepareIncrement()
+            COSObject object = (COSObject) obj;
+            COSObjectKey originalKey = new COSObjectKey(object.getObjectNumber(),
+                    object.getGenerationNumber());
+            if (pdDocument.getDocument().getXrefTable().containsKey(originalKey))
+            {
+                key = originalKey;
+                objectKeys.put(obj, key);
+                if (actual != null)
+                {
+                    objectKeys.put(actual, key);
+                    keyObject.put(key, actual);
+                }
+            }
+        }
         if (key == null)
         {
             setNumber(getNumber()+1);
@@ -1065,7 +1123,7 @@ public class COSWriter implements ICOSVisitor, Closeable
         getStandardOutput().write(EOF);
         getStandardOutput().writeEOL();
 
-        if(incrementalUpdate)
+        if(incrementalUpdate && signatureInterface != null)
         {
             doWriteSignature();
         }
@@ -1210,6 +1268,15 @@ public class COSWriter implements ICOSVisitor, Closeable
         
         if(incrementalUpdate)
         {
+            if (signInterface == null)
+            {
+                // nothing has to be signed, so the update needn't be buffered: the original
+                // bytes are copied unchanged and the update is appended to them
+                long inLength = IOUtils.copy(incrementalInput, incrementalOutput);
+                setOutput(incrementalOutput);
+                setStandardOutput(new COSStandardOutputStream(incrementalOutput, inLength));
+                incrementalOutput = null;
+            }
             prepareIncrement(doc);
         }
         
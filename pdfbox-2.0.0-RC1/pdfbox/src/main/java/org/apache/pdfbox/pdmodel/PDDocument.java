@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Set;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.contentstream.ContentStreamCache;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
@@ -41,6 +42,7 @@ import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.io.RandomAccessBuffer;
 import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
 import org.apache.pdfbox.io.RandomAccessInputStream;
+import org.apache.pdfbox.io.RandomAccessMappedFile;
 import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.io.ScratchFile;
 import org.apache.pdfbox.pdfparser.PDFParser;
@@ -105,6 +107,10 @@ public class PDDocument implements Closeable
     
     // document-wide cached resources
     private ResourceCache resourceCache = new DefaultResourceCache();
+
+    // parsed content streams, by default of forms and Type 3 glyphs only
+    private ContentStreamCache contentStreamCache =
+            new ContentStreamCache(ContentStreamCache.DEFAULT_MAXIMUM_SIZE, false);
     
     /**
      * Creates an empty PDF document.
@@ -832,7 +838,8 @@ public class PDDocument implements Closeable
     }
 
     /**
-     * Parses a PDF.
+     * Parses a PDF. The file is mapped into memory if
+     * {@link MemoryUsageSetting#isMapInputFile()} is set.
      * 
      * @param file file to be loaded
      * @param password password to be used for decryption
@@ -847,8 +854,13 @@ public class PDDocument implements Closeable
     public static PDDocument load(File file, String password, InputStream keyStore, String alias,
                                   MemoryUsageSetting memUsageSetting) throws IOException
     {
-        RandomAccessBufferedFileInputStream raFile = new RandomAccessBufferedFileInputStream(file);
+        RandomAccessRead raFile = memUsageSetting.isMapInputFile() ?
+                new RandomAccessMappedFile(file) : new RandomAccessBufferedFileInputStream(file);
         PDFParser parser = new PDFParser(raFile, password, keyStore, alias, new ScratchFile(memUsageSetting));
+        parser.setLazyStreamLoading(memUsageSetting.isLazyStreamLoading());
+        parser.setLazyObjectLoading(memUsageSetting.isLazyObjectLoading());
+        parser.setObjectStreamParserThreads(memUsageSetting.getObjectStreamParserThreads());
+        parser.setXrefIndexStore(memUsageSetting.getXrefIndexStore());
         try
         {
             parser.parse();
@@ -969,6 +981,10 @@ public class PDDocument implements Closeable
         ScratchFile scratchFile = new ScratchFile(memUsageSetting);
         RandomAccessRead source = scratchFile.createBuffer(input);
         PDFParser parser = new PDFParser(source, password, keyStore, alias, scratchFile);
+        parser.setLazyStreamLoading(memUsageSetting.isLazyStreamLoading());
+        parser.setLazyObjectLoading(memUsageSetting.isLazyObjectLoading());
+        parser.setObjectStreamParserThreads(memUsageSetting.getObjectStreamParserThreads());
+        parser.setXrefIndexStore(memUsageSetting.getXrefIndexStore());
         parser.parse();
         return parser.getPDDocument();
     }
@@ -1103,6 +1119,11 @@ public class PDDocument implements Closeable
 
    /**
      * Save the PDF as an incremental update. This is only possible if the PDF was loaded from a file.
+     * The original bytes are copied unchanged, followed by the objects which have been marked with
+     * {@link org.apache.pdfbox.cos.COSUpdateInfo#setNeedToBeUpdated(boolean)}, the new objects
+     * they refer to, and a new xref section and trailer. Unless the document is signed the update
+     * isn't buffered, so the time needed depends on the size of the changes and on copying the
+     * original.
      *
      * @param output stream to write
      * @throws IOException if the output could not be written
@@ -1166,6 +1187,11 @@ public class PDDocument implements Closeable
         {
             // close all intermediate I/O streams
             document.close();
+
+            if (contentStreamCache != null)
+            {
+                contentStreamCache.clear();
+            }
             
             // close the source PDF stream, if we read from one
             if (pdfSource != null)
@@ -1349,6 +1375,29 @@ public class PDDocument implements Closeable
     {
         this.resourceCache = resourceCache;
     }
+
+    /**
+     * Returns the cache for the parsed content streams of this document, or null if there is
+     * none.
+     */
+    public ContentStreamCache getContentStreamCache()
+    {
+        return contentStreamCache;
+    }
+
+    /**
+     * Sets the cache for the parsed content streams of this document. By default, forms and
+     * Type 3 glyphs are cached, so that e.g. a letterhead which is drawn on every page is only
+     * parsed once. With a {@link ContentStreamCache#ContentStreamCache() cache for pages}, a page
+     * which is processed several times, e.g. rendered and then its text extracted, is also only
+     * parsed once. The cache is used by the pages which are retrieved afterwards.
+     *
+     * @param contentStreamCache A content stream cache, or null.
+     */
+    public void setContentStreamCache(ContentStreamCache contentStreamCache)
+    {
+        this.contentStreamCache = contentStreamCache;
+    }
     
     public boolean isTaggedPDF() 
     {
@@ -26,6 +26,7 @@ import java.util.Iterator;
 import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.contentstream.ContentStreamCache;
 import org.apache.pdfbox.contentstream.PDContentStream;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
@@ -60,6 +61,7 @@ public class PDPage implements PDContentStream
     private final COSDictionary page;
     private PDResources pageResources;
     private ResourceCache resourceCache;
+    private ContentStreamCache contentStreamCache;
     private PDRectangle mediaBox;
 
     /**
@@ -93,16 +95,32 @@ public class PDPage implements PDContentStream
     }
 
     /**
-     * Creates a new instance of PDPage for reading.
+     * Creates a new instance of PDPage for reading, resources are cached in the given cache.
      *
      * @param pageDictionary A page dictionary in a PDF document.
+     * @param resourceCache A resource cache, or null.
      */
-    PDPage(COSDictionary pageDictionary, ResourceCache resourceCache)
+    public PDPage(COSDictionary pageDictionary, ResourceCache resourceCache)
     {
         page = pageDictionary;
         this.resourceCache = resourceCache;
     }
 
+    /**
+     * Creates a new instance of PDPage for reading, resources and parsed content streams are
+     * cached in the given caches.
+     *
+     * @param pageDictionary A page dictionary in a PDF document.
+     * @param resourceCache A resource cache, or null.
+     * @param contentStreamCache A content stream cache, or null.
+     */
+    public PDPage(COSDictionary pageDictionary, ResourceCache resourceCache,
+            ContentStreamCache contentStreamCache)
+    {
+        this(pageDictionary, resourceCache);
+        this.contentStreamCache = contentStreamCache;
+    }
+
     /**
      * Convert this standard java object to a COS object.
      * 
@@ -145,7 +163,7 @@ public class PDPage implements PDContentStream
         COSBase base = page.getDictionaryObject(COSName.CONTENTS);
         if (base instanceof COSStream)
         {
-            return ((COSStream)base).createInputStream();
+            return ((COSStream)base).createStreamingInputStream();
         }
         else if (base instanceof COSArray && ((COSArray) base).size() > 0)
         {
@@ -155,7 +173,7 @@ public class PDPage implements PDContentStream
             for (int i = 0; i < streams.size(); i++)
             {
                 COSStream stream = (COSStream)streams.getObject(i);
-                inputStreams.add(stream.createInputStream());
+                inputStreams.add(stream.createStreamingInputStream());
                 inputStreams.add(new ByteArrayInputStream(delimiter));
             }
             return new SequenceInputStream(Collections.enumeration(inputStreams));
@@ -697,4 +715,12 @@ public class PDPage implements PDContentStream
     {
         return resourceCache;
     }
+
+    /**
+     * Returns the cache for the parsed content streams of this page, or null if there is none.
+     */
+    public ContentStreamCache getContentStreamCache()
+    {
+        return contentStreamCache;
+    }
 }
@@ -27,6 +27,8 @@ import java.util.Locale;
 import java.util.Stack;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.contentstream.ContentStreamCache;
+import org.apache.pdfbox.contentstream.PDContentStream;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSName;
@@ -120,6 +122,7 @@ public final class PDPageContentStream implements Closeable
     {
         this.document = document;
         COSName filter = compress ? COSName.FLATE_DECODE : null;
+        removeFromCache(document, sourcePage);
         
         // If request specifies the need to append to the document
         if (appendContent && sourcePage.hasContents())
@@ -204,6 +207,7 @@ public final class PDPageContentStream implements Closeable
     public PDPageContentStream(PDDocument doc, PDAppearanceStream appearance) throws IOException
     {
         this.document = doc;
+        removeFromCache(doc, appearance);
         
         output = appearance.getStream().createOutputStream();
         this.resources = appearance.getResources();
@@ -224,6 +228,7 @@ public final class PDPageContentStream implements Closeable
             throws IOException
     {
         this.document = doc;
+        removeFromCache(doc, appearance);
         
         output = outputStream;
         this.resources = appearance.getResources();
@@ -232,6 +237,18 @@ public final class PDPageContentStream implements Closeable
         formatDecimal.setGroupingUsed(false);
     }
 
+    /**
+     * Removes the content stream which is written from the document's content stream cache.
+     */
+    private static void removeFromCache(PDDocument document, PDContentStream contentStream)
+    {
+        ContentStreamCache cache = document != null ? document.getContentStreamCache() : null;
+        if (cache != null)
+        {
+            cache.remove(contentStream);
+        }
+    }
+
     /**
      * Begin some text operations.
      *
@@ -19,6 +19,7 @@ package org.apache.pdfbox.pdmodel;
 import java.util.ArrayDeque;
 import java.util.Iterator;
 import java.util.Queue;
+import org.apache.pdfbox.contentstream.ContentStreamCache;
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
@@ -186,7 +187,9 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
             }
 
             ResourceCache resourceCache = document != null ? document.getResourceCache() : null;
-            return new PDPage(next, resourceCache);
+            ContentStreamCache contentStreamCache =
+                    document != null ? document.getContentStreamCache() : null;
+            return new PDPage(next, resourceCache, contentStreamCache);
         }
 
         @Override
@@ -212,7 +215,9 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         }
 
         ResourceCache resourceCache = document != null ? document.getResourceCache() : null;
-        return new PDPage(dict, resourceCache);
+        ContentStreamCache contentStreamCache =
+                document != null ? document.getContentStreamCache() : null;
+        return new PDPage(dict, resourceCache, contentStreamCache);
     }
 
     /**
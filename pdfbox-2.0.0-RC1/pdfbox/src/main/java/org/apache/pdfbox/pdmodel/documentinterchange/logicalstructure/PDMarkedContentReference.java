@@ -108,7 +108,7 @@ public class PDMarkedContentReference implements COSObjectable
     }
 
     public COSObject getStm() {
-    	COSBase base = this.getCOSObject().getItem("Stm");
+    	COSBase base = this.getCOSObject().getItem(COSName.STM);
     	if (base != null) {
     		return (COSObject) base;
     	}
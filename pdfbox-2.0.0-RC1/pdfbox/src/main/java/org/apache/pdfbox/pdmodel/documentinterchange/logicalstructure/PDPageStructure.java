@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+
+/**
+ * The part of a structure tree which refers to the marked content of one page.
+ *
+ * <p>The structure elements are found through the StructParents entries of the page and of the
+ * form XObjects it uses and the {@link PDParentTreeIndex}, the structure tree isn't walked. The K
+ * entries of the ancestors are read once for all pages and kept by the
+ * {@link PDStructureTreeRoot}, so after the first pages the cost is proportional to the number
+ * of marked-content sequences of the page and the depth of their elements. Page content is
+ * never parsed.</p>
+ *
+ * <p>The marked contents are sorted in reading order, which is the depth first order of the
+ * structure tree. Marked contents which the parent tree refers to but which aren't a kid of
+ * their parent element, or whose element isn't connected to the structure tree root, are left
+ * out.</p>
+ */
+public class PDPageStructure
+{
+    /**
+     * A marked-content sequence of the page and its position in the structure tree.
+     */
+    public static final class Entry
+    {
+        private final PDStructureElement element;
+        private final int mcid;
+        private final COSStream contentStream;
+        private final int[] kidPath;
+
+        private Entry(PDStructureElement element, int mcid, COSStream contentStream,
+                int[] kidPath)
+        {
+            this.element = element;
+            this.mcid = mcid;
+            this.contentStream = contentStream;
+            this.kidPath = kidPath;
+        }
+
+        /**
+         * Returns the structure element which contains the marked-content sequence.
+         *
+         * @return the parent structure element
+         */
+        public PDStructureElement getStructureElement()
+        {
+            return element;
+        }
+
+        /**
+         * Returns the MCID of the marked-content sequence.
+         *
+         * @return the MCID
+         */
+        public int getMCID()
+        {
+            return mcid;
+        }
+
+        /**
+         * Returns the form XObject which contains the marked-content sequence.
+         *
+         * @return the form XObject stream, or null if the sequence is in the page content
+         */
+        public COSStream getContentStream()
+        {
+            return contentStream;
+        }
+
+        /**
+         * Returns the position of the marked-content sequence in the structure tree: the index
+         * in {@link PDStructureNode#getKids()} of the structure tree root, followed by the kid
+         * indexes of the descendants down to the marked-content item.
+         *
+         * @return the kid index path
+         */
+        public int[] getKidPath()
+        {
+            return kidPath.clone();
+        }
+    }
+
+    private final List<Entry> entries;
+
+    private PDPageStructure(List<Entry> entries)
+    {
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns the marked-content sequences of the page in reading order.
+     *
+     * @return the entries
+     */
+    public List<Entry> getMarkedContents()
+    {
+        return entries;
+    }
+
+    /**
+     * Returns the structure elements which directly contain marked content of the page, in
+     * reading order.
+     *
+     * @return the structure elements
+     */
+    public List<PDStructureElement> getStructureElements()
+    {
+        List<PDStructureElement> elements = new ArrayList<PDStructureElement>();
+        Map<COSDictionary, Boolean> seen = new IdentityHashMap<COSDictionary, Boolean>();
+        for (Entry entry : entries)
+        {
+            if (seen.put(entry.element.getCOSObject(), Boolean.TRUE) == null)
+            {
+                elements.add(entry.element);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Looks up the structure of a page.
+     *
+     * @param root the structure tree root
+     * @param page the page
+     * @return the page structure, or null if the structure tree has no parent tree
+     */
+    public static PDPageStructure create(PDStructureTreeRoot root, PDPage page)
+    {
+        PDParentTreeIndex parentTree = root.getParentTreeIndex();
+        if (parentTree == null)
+        {
+            return null;
+        }
+        return new Builder(root, page, parentTree).build();
+    }
+
+    private static final class Builder
+    {
+        private final PDStructureTreeRoot root;
+        private final COSDictionary pageDictionary;
+        private final PDPage page;
+        private final PDParentTreeIndex parentTree;
+        private final PDStructureKidIndex kidIndex;
+
+        private Builder(PDStructureTreeRoot root, PDPage page, PDParentTreeIndex parentTree)
+        {
+            this.root = root;
+            this.page = page;
+            this.pageDictionary = page.getCOSObject();
+            this.parentTree = parentTree;
+            this.kidIndex = root.getKidIndex();
+        }
+
+        private PDPageStructure build()
+        {
+            List<Entry> entries = new ArrayList<Entry>();
+            if (pageDictionary.containsKey(COSName.STRUCT_PARENTS))
+            {
+                addEntries(entries, page.getStructParents(), null);
+            }
+            PDResources resources = page.getResources();
+            if (resources != null)
+            {
+                addFormEntries(entries, resources.getCOSObject(),
+                        new IdentityHashMap<COSBase, Boolean>());
+            }
+            Collections.sort(entries, new Comparator<Entry>()
+            {
+                @Override
+                public int compare(Entry e1, Entry e2)
+                {
+                    return comparePaths(e1.kidPath, e2.kidPath);
+                }
+            });
+            return new PDPageStructure(entries);
+        }
+
+        private void addFormEntries(List<Entry> entries, COSDictionary resources,
+                Map<COSBase, Boolean> visited)
+        {
+            COSBase xobjects = resources.getDictionaryObject(COSName.XOBJECT);
+            if (!(xobjects instanceof COSDictionary))
+            {
+                return;
+            }
+            for (COSName name : ((COSDictionary) xobjects).keySet())
+            {
+                COSBase xobject = ((COSDictionary) xobjects).getDictionaryObject(name);
+                if (!(xobject instanceof COSStream) || visited.put(xobject, Boolean.TRUE) != null)
+                {
+                    continue;
+                }
+                COSStream form = (COSStream) xobject;
+                if (!COSName.FORM.equals(form.getCOSName(COSName.SUBTYPE)))
+                {
+                    continue;
+                }
+                if (form.containsKey(COSName.STRUCT_PARENTS))
+                {
+                    addEntries(entries, form.getInt(COSName.STRUCT_PARENTS), form);
+                }
+                COSBase formResources = form.getDictionaryObject(COSName.RESOURCES);
+                if (formResources instanceof COSDictionary)
+                {
+                    addFormEntries(entries, (COSDictionary) formResources, visited);
+                }
+            }
+        }
+
+        private void addEntries(List<Entry> entries, int key, COSStream form)
+        {
+            int count = parentTree.getMarkedContentCount(key);
+            for (int mcid = 0; mcid < count; mcid++)
+            {
+                COSDictionary parent = parentTree.getParentObject(key, mcid);
+                if (parent == null)
+                {
+                    continue;
+                }
+                int[] elementPath = kidIndex.getElementPath(parent);
+                if (elementPath == null)
+                {
+                    continue;
+                }
+                int kidIndex = findContentKid(parent, mcid, form);
+                if (kidIndex < 0)
+                {
+                    continue;
+                }
+                int[] kidPath = new int[elementPath.length + 1];
+                System.arraycopy(elementPath, 0, kidPath, 0, elementPath.length);
+                kidPath[elementPath.length] = kidIndex;
+                entries.add(new Entry(new PDStructureElement(parent), mcid, form, kidPath));
+            }
+        }
+
+        private int findContentKid(COSDictionary element, int mcid, COSStream form)
+        {
+            for (PDStructureKidIndex.ContentKid kid : kidIndex.getContentKids(element, mcid))
+            {
+                COSDictionary mcr = kid.getReference();
+                if (mcr == null)
+                {
+                    if (form == null)
+                    {
+                        return kid.getIndex();
+                    }
+                }
+                else
+                {
+                    COSBase stm = mcr.getDictionaryObject(COSName.STM);
+                    COSBase pg = mcr.getDictionaryObject(COSName.PG);
+                    if (form != null ? stm == form
+                            : stm == null && (pg == null || pg == pageDictionary))
+                    {
+                        return kid.getIndex();
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private static int comparePaths(int[] path1, int[] path2)
+        {
+            int length = Math.min(path1.length, path2.length);
+            for (int i = 0; i < length; i++)
+            {
+                if (path1[i] != path2[i])
+                {
+                    return path1[i] < path2[i] ? -1 : 1;
+                }
+            }
+            return path1.length - path2.length;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+
+/**
+ * A read-only index of the parent tree of a structure tree root.
+ *
+ * <p>The parent tree maps the StructParents key of a page or form XObject plus an MCID, or
+ * the StructParent key of an annotation or XObject, to its parent structure element. The whole
+ * number tree is read once into flat arrays, lookups don't touch the COS objects of the number
+ * tree again. When the keys are dense, which they usually are, a key is resolved by a direct
+ * array access, otherwise by a binary search.</p>
+ *
+ * <p>Malformed entries (non-integer keys, values which aren't arrays or dictionaries) are
+ * skipped, the first entry wins for duplicate keys.</p>
+ */
+public class PDParentTreeIndex
+{
+    private static final Log LOG = LogFactory.getLog(PDParentTreeIndex.class);
+
+    /** marks an entry which is the parent of a single object, not an MCID array */
+    private static final int OBJECT_ENTRY = -1;
+
+    private int[] keys;
+    private int[] offsets;
+    private int[] lengths;
+    private COSDictionary[] parents;
+    private int size;
+    private int[] denseSlots;
+
+    /**
+     * Reads the given parent tree.
+     *
+     * @param parentTree the root of the parent number tree
+     */
+    public PDParentTreeIndex(COSDictionary parentTree)
+    {
+        keys = new int[16];
+        offsets = new int[16];
+        lengths = new int[16];
+        parents = new COSDictionary[64];
+        int parentCount = 0;
+
+        Map<COSDictionary, Boolean> visited = new IdentityHashMap<COSDictionary, Boolean>();
+        Deque<COSDictionary> nodes = new ArrayDeque<COSDictionary>();
+        nodes.push(parentTree);
+        while (!nodes.isEmpty())
+        {
+            COSDictionary node = nodes.pop();
+            if (visited.put(node, Boolean.TRUE) != null)
+            {
+                LOG.warn("Parent tree contains a cycle, skipping node");
+                continue;
+            }
+            COSBase nums = node.getDictionaryObject(COSName.NUMS);
+            if (nums instanceof COSArray)
+            {
+                parentCount = addNums((COSArray) nums, parentCount);
+            }
+            COSBase kids = node.getDictionaryObject(COSName.KIDS);
+            if (kids instanceof COSArray)
+            {
+                COSArray kidArray = (COSArray) kids;
+                // push in reverse order so that the kids are read in tree order
+                for (int i = kidArray.size() - 1; i >= 0; i--)
+                {
+                    COSBase kid = kidArray.getObject(i);
+                    if (kid instanceof COSDictionary)
+                    {
+                        nodes.push((COSDictionary) kid);
+                    }
+                }
+            }
+        }
+        if (parentCount < parents.length)
+        {
+            parents = Arrays.copyOf(parents, parentCount);
+        }
+        sortByKey();
+        buildDenseSlots();
+    }
+
+    private int addNums(COSArray nums, int parentCount)
+    {
+        for (int i = 0; i + 1 < nums.size(); i += 2)
+        {
+            COSBase key = nums.getObject(i);
+            COSBase value = nums.getObject(i + 1);
+            if (!(key instanceof COSNumber))
+            {
+                LOG.warn("Skipping parent tree entry with key " + key);
+                continue;
+            }
+            int start = parentCount;
+            int length;
+            if (value instanceof COSArray)
+            {
+                COSArray array = (COSArray) value;
+                length = array.size();
+                parents = ensureCapacity(parents, parentCount + length);
+                for (int j = 0; j < length; j++)
+                {
+                    COSBase parent = array.getObject(j);
+                    parents[parentCount++] = parent instanceof COSDictionary ? (COSDictionary) parent : null;
+                }
+            }
+            else if (value instanceof COSDictionary)
+            {
+                length = OBJECT_ENTRY;
+                parents = ensureCapacity(parents, parentCount + 1);
+                parents[parentCount++] = (COSDictionary) value;
+            }
+            else
+            {
+                LOG.warn("Skipping parent tree entry " + key + " with value " + value);
+                continue;
+            }
+            if (size == keys.length)
+            {
+                keys = Arrays.copyOf(keys, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            keys[size] = ((COSNumber) key).intValue();
+            offsets[size] = start;
+            lengths[size] = length;
+            size++;
+        }
+        return parentCount;
+    }
+
+    private static COSDictionary[] ensureCapacity(COSDictionary[] array, int capacity)
+    {
+        if (capacity <= array.length)
+        {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private void sortByKey()
+    {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++)
+        {
+            sorted = keys[i - 1] < keys[i];
+        }
+        if (sorted)
+        {
+            keys = Arrays.copyOf(keys, size);
+            offsets = Arrays.copyOf(offsets, size);
+            lengths = Arrays.copyOf(lengths, size);
+            return;
+        }
+        // the number tree should be sorted already, sort the entries by key (stable) and drop
+        // duplicates otherwise
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++)
+        {
+            order[i] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] sortedKeys = new int[size];
+        int[] sortedOffsets = new int[size];
+        int[] sortedLengths = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++)
+        {
+            int slot = (int) order[i];
+            if (count > 0 && sortedKeys[count - 1] == keys[slot])
+            {
+                continue;
+            }
+            sortedKeys[count] = keys[slot];
+            sortedOffsets[count] = offsets[slot];
+            sortedLengths[count] = lengths[slot];
+            count++;
+        }
+        keys = Arrays.copyOf(sortedKeys, count);
+        offsets = Arrays.copyOf(sortedOffsets, count);
+        lengths = Arrays.copyOf(sortedLengths, count);
+        size = count;
+    }
+
+    private void buildDenseSlots()
+    {
+        if (size == 0 || keys[0] < 0)
+        {
+            return;
+        }
+        int maxKey = keys[size - 1];
+        if (maxKey > 2 * size + 64)
+        {
+            // sparse keys, use binary search
+            return;
+        }
+        denseSlots = new int[maxKey + 1];
+        Arrays.fill(denseSlots, -1);
+        for (int i = 0; i < size; i++)
+        {
+            denseSlots[keys[i]] = i;
+        }
+    }
+
+    private int slot(int key)
+    {
+        if (denseSlots != null)
+        {
+            return key >= 0 && key < denseSlots.length ? denseSlots[key] : -1;
+        }
+        int slot = Arrays.binarySearch(keys, 0, size, key);
+        return slot >= 0 ? slot : -1;
+    }
+
+    /**
+     * Returns the number of keys in the parent tree.
+     *
+     * @return the key count
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Tells whether the parent tree has an entry for the given key.
+     *
+     * @param key a StructParents or StructParent value
+     * @return true if there is an entry
+     */
+    public boolean containsKey(int key)
+    {
+        return slot(key) >= 0;
+    }
+
+    /**
+     * Returns the number of MCIDs with a parent entry for the given StructParents key, which is
+     * the highest MCID of the content stream plus one.
+     *
+     * @param structParents the StructParents value of a page or form XObject
+     * @return the MCID count, or 0 if there is no MCID array for this key
+     */
+    public int getMarkedContentCount(int structParents)
+    {
+        int slot = slot(structParents);
+        return slot >= 0 && lengths[slot] != OBJECT_ENTRY ? lengths[slot] : 0;
+    }
+
+    /**
+     * Returns the dictionary of the structure element which contains a marked-content sequence.
+     *
+     * @param structParents the StructParents value of the page or form XObject
+     * @param mcid the MCID of the marked-content sequence
+     * @return the parent structure element dictionary, or null if there is none
+     */
+    public COSDictionary getParentObject(int structParents, int mcid)
+    {
+        int slot = slot(structParents);
+        if (slot < 0 || lengths[slot] == OBJECT_ENTRY || mcid < 0 || mcid >= lengths[slot])
+        {
+            return null;
+        }
+        return parents[offsets[slot] + mcid];
+    }
+
+    /**
+     * Returns the dictionary of the structure element which contains an annotation or XObject.
+     *
+     * @param structParent the StructParent value of the annotation or XObject
+     * @return the parent structure element dictionary, or null if there is none
+     */
+    public COSDictionary getParentObject(int structParent)
+    {
+        int slot = slot(structParent);
+        if (slot < 0 || lengths[slot] != OBJECT_ENTRY)
+        {
+            return null;
+        }
+        return parents[offsets[slot]];
+    }
+
+    /**
+     * Returns the structure element which contains a marked-content sequence.
+     *
+     * @param structParents the StructParents value of the page or form XObject
+     * @param mcid the MCID of the marked-content sequence
+     * @return the parent structure element, or null if there is none
+     */
+    public PDStructureElement getParent(int structParents, int mcid)
+    {
+        COSDictionary parent = getParentObject(structParents, mcid);
+        return parent != null ? new PDStructureElement(parent) : null;
+    }
+
+    /**
+     * Returns the structure element which contains an annotation or XObject.
+     *
+     * @param structParent the StructParent value of the annotation or XObject
+     * @return the parent structure element, or null if there is none
+     */
+    public PDStructureElement getParent(int structParent)
+    {
+        COSDictionary parent = getParentObject(structParent);
+        return parent != null ? new PDStructureElement(parent) : null;
+    }
+}
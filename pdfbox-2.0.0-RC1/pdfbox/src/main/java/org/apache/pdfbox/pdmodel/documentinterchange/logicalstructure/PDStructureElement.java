@@ -106,6 +106,7 @@ public class PDStructureElement extends PDStructureNode
     public final void setParent(PDStructureNode structureNode)
     {
         this.getCOSObject().setItem(COSName.P, structureNode);
+        structureChanged();
     }
 
     /**
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+
+/**
+ * The kid indexes of the structure elements of a structure tree, shared by the
+ * {@link PDPageStructure} lookups of all pages.
+ *
+ * <p>The K entry of a node is read once, when a page first needs it. All tables and paths are
+ * dropped when a K or P entry has been changed through a {@link PDStructureNode}. Changes made
+ * directly to the COS objects are noticed when a K or P entry has been replaced or a K array
+ * has changed size: a table is read again, and an element path is computed again when the P
+ * entry or the kid table of the element or one of its ancestors has changed. Replacing a kid of
+ * a K array in place is not noticed.</p>
+ */
+final class PDStructureKidIndex
+{
+    /**
+     * A content item, an MCID or a marked-content reference, and its kid index.
+     */
+    static final class ContentKid
+    {
+        private final COSDictionary reference;
+        private final int index;
+
+        private ContentKid(COSDictionary reference, int index)
+        {
+            this.reference = reference;
+            this.index = index;
+        }
+
+        /**
+         * Returns the marked-content reference dictionary, or null for an MCID kid.
+         */
+        COSDictionary getReference()
+        {
+            return reference;
+        }
+
+        /**
+         * Returns the index of the kid in {@link PDStructureNode#getKids()}.
+         */
+        int getIndex()
+        {
+            return index;
+        }
+    }
+
+    /**
+     * The kids of a structure node: the kid index of each structure element and the content
+     * items by MCID, read from the K entry.
+     */
+    private static final class KidTable
+    {
+        private final COSDictionary node;
+        private final COSBase k;
+        private final int size;
+        private final Map<COSDictionary, Integer> elements =
+                new IdentityHashMap<COSDictionary, Integer>();
+        // usually one content item per MCID, several if they are in different streams
+        private final Map<Integer, List<ContentKid>> contents =
+                new HashMap<Integer, List<ContentKid>>();
+
+        private KidTable(COSDictionary node, COSBase k)
+        {
+            this.node = node;
+            this.k = k;
+            this.size = k instanceof COSArray ? ((COSArray) k).size() : -1;
+        }
+
+        private boolean isValid()
+        {
+            COSBase current = node.getDictionaryObject(COSName.K);
+            return current == k && (size < 0 || ((COSArray) k).size() == size);
+        }
+    }
+
+    /**
+     * The kid index path of a structure element and what it was computed from.
+     */
+    private static final class ElementPath
+    {
+        private final COSBase p;
+        private KidTable parentTable;
+        private ElementPath parentPath;
+        private int[] path;
+
+        private ElementPath(COSBase p)
+        {
+            this.p = p;
+        }
+
+        private boolean isValid(COSDictionary element)
+        {
+            ElementPath current = this;
+            while (current != null)
+            {
+                if (element.getDictionaryObject(COSName.P) != current.p)
+                {
+                    return false;
+                }
+                if (current.parentTable != null && !current.parentTable.isValid())
+                {
+                    return false;
+                }
+                element = current.parentTable == null ? null : current.parentTable.node;
+                current = current.parentPath;
+            }
+            return true;
+        }
+    }
+
+    /** marks an element whose path is being computed, to stop at cycles in the P entries */
+    private static final ElementPath IN_PROGRESS = new ElementPath(null);
+
+    private final PDStructureTreeRoot root;
+    private final Map<COSDictionary, KidTable> kidTables =
+            new IdentityHashMap<COSDictionary, KidTable>();
+    private final Map<COSDictionary, ElementPath> elementPaths =
+            new IdentityHashMap<COSDictionary, ElementPath>();
+    private long structureChanges = -1;
+
+    PDStructureKidIndex(PDStructureTreeRoot root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * Returns the kid index path of a structure element: the index in the kids of the structure
+     * tree root, followed by the kid indexes of the descendants down to the element.
+     *
+     * @param element the structure element
+     * @return the path, or null if the element isn't connected to the structure tree root
+     */
+    synchronized int[] getElementPath(COSDictionary element)
+    {
+        checkStructureChanges();
+        return getPath(element).path;
+    }
+
+    /**
+     * Returns the content items of a structure element with the given MCID.
+     *
+     * @param element the structure element
+     * @param mcid the MCID
+     * @return the content items, in the order of the K entry
+     */
+    synchronized List<ContentKid> getContentKids(COSDictionary element, int mcid)
+    {
+        checkStructureChanges();
+        List<ContentKid> kids = getKidTable(element).contents.get(mcid);
+        return kids == null ? Collections.<ContentKid>emptyList() : kids;
+    }
+
+    private void checkStructureChanges()
+    {
+        long changes = PDStructureNode.getStructureChanges();
+        if (changes != structureChanges)
+        {
+            kidTables.clear();
+            elementPaths.clear();
+            structureChanges = changes;
+        }
+    }
+
+    private ElementPath getPath(COSDictionary element)
+    {
+        ElementPath cached = elementPaths.get(element);
+        if (cached == IN_PROGRESS || cached != null && cached.isValid(element))
+        {
+            return cached;
+        }
+        elementPaths.put(element, IN_PROGRESS);
+        COSBase p = element.getDictionaryObject(COSName.P);
+        ElementPath result = new ElementPath(p);
+        boolean cycle = false;
+        if (p instanceof COSDictionary)
+        {
+            COSDictionary parent = (COSDictionary) p;
+            result.parentTable = getKidTable(parent);
+            Integer index = result.parentTable.elements.get(element);
+            if (index != null)
+            {
+                int[] parentPath = null;
+                if (parent == root.getCOSObject())
+                {
+                    parentPath = new int[0];
+                }
+                else
+                {
+                    ElementPath parentResult = getPath(parent);
+                    if (parentResult == IN_PROGRESS)
+                    {
+                        cycle = true;
+                    }
+                    else
+                    {
+                        result.parentPath = parentResult;
+                        parentPath = parentResult.path;
+                    }
+                }
+                if (parentPath != null)
+                {
+                    result.path = new int[parentPath.length + 1];
+                    System.arraycopy(parentPath, 0, result.path, 0, parentPath.length);
+                    result.path[parentPath.length] = index;
+                }
+            }
+        }
+        if (cycle)
+        {
+            // the result depends on an element which isn't done yet, it isn't kept
+            elementPaths.remove(element);
+        }
+        else
+        {
+            elementPaths.put(element, result);
+        }
+        return result;
+    }
+
+    private KidTable getKidTable(COSDictionary node)
+    {
+        KidTable table = kidTables.get(node);
+        if (table != null && table.isValid())
+        {
+            return table;
+        }
+        COSBase k = node.getDictionaryObject(COSName.K);
+        table = new KidTable(node, k);
+        PDStructureNode structureNode = node == root.getCOSObject() ? root
+                : new PDStructureElement(node);
+        if (k instanceof COSArray)
+        {
+            COSArray array = (COSArray) k;
+            int index = 0;
+            for (int i = 0; i < array.size(); i++)
+            {
+                if (addKid(table, structureNode.createObject(array.get(i)), index))
+                {
+                    index++;
+                }
+            }
+        }
+        else if (k != null)
+        {
+            addKid(table, structureNode.createObject(k), 0);
+        }
+        kidTables.put(node, table);
+        return table;
+    }
+
+    /**
+     * Adds a kid with the given index in {@link PDStructureNode#getKids()}, returns false if
+     * getKids() would skip it.
+     */
+    private static boolean addKid(KidTable table, Object kid, int index)
+    {
+        if (kid == null)
+        {
+            return false;
+        }
+        if (kid instanceof PDStructureElement)
+        {
+            COSDictionary element = ((PDStructureElement) kid).getCOSObject();
+            if (!table.elements.containsKey(element))
+            {
+                table.elements.put(element, index);
+            }
+        }
+        else if (kid instanceof Integer || kid instanceof PDMarkedContentReference)
+        {
+            int mcid;
+            COSDictionary reference = null;
+            if (kid instanceof Integer)
+            {
+                mcid = (Integer) kid;
+            }
+            else
+            {
+                reference = ((PDMarkedContentReference) kid).getCOSObject();
+                mcid = reference.getInt(COSName.MCID);
+            }
+            List<ContentKid> kids = table.contents.get(mcid);
+            if (kids == null)
+            {
+                kids = new ArrayList<ContentKid>(1);
+                table.contents.put(mcid, kids);
+            }
+            kids.add(new ContentKid(reference, index));
+        }
+        return true;
+    }
+}
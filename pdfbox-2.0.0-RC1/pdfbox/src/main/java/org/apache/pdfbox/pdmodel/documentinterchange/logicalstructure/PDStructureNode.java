@@ -19,6 +19,7 @@ package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
@@ -58,6 +59,11 @@ public abstract class PDStructureNode implements COSObjectable
         throw new IllegalArgumentException("Dictionary must not include a Type entry with a value that is neither StructTreeRoot nor StructElem.");
     }
 
+    /**
+     * Counts the changes of K and P entries made through structure nodes, so that the
+     * {@link PDStructureKidIndex} knows when it has to read them again.
+     */
+    private static final AtomicLong STRUCTURE_CHANGES = new AtomicLong();
 
     private final COSDictionary dictionary;
 
@@ -90,6 +96,22 @@ public abstract class PDStructureNode implements COSObjectable
         this.dictionary = dictionary;
     }
 
+    /**
+     * Returns the number of changes of K and P entries made through structure nodes so far.
+     */
+    static long getStructureChanges()
+    {
+        return STRUCTURE_CHANGES.get();
+    }
+
+    /**
+     * To be called when a K or P entry has been changed.
+     */
+    static void structureChanged()
+    {
+        STRUCTURE_CHANGES.incrementAndGet();
+    }
+
     /**
      * Returns the type.
      * 
@@ -142,6 +164,7 @@ public abstract class PDStructureNode implements COSObjectable
     {
         this.getCOSObject().setItem(COSName.K,
             COSArrayList.converterToCOSArray(kids));
+        structureChanged();
     }
 
     /**
@@ -200,6 +223,7 @@ public abstract class PDStructureNode implements COSObjectable
             array.add(object);
             this.getCOSObject().setItem(COSName.K, array);
         }
+        structureChanged();
     }
 
     /**
@@ -254,6 +278,7 @@ public abstract class PDStructureNode implements COSObjectable
         {
             refKidBase = (COSBase) refKid;
         }
+        structureChanged();
         if (k instanceof COSArray)
         {
             COSArray array = (COSArray) k;
@@ -321,6 +346,7 @@ public abstract class PDStructureNode implements COSObjectable
         {
             return false;
         }
+        structureChanged();
         COSBase k = this.getCOSObject().getDictionaryObject(COSName.K);
         if (k == null)
         {
@@ -25,6 +25,7 @@ import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDStructureElementNameTreeNode;
 import org.apache.pdfbox.pdmodel.common.COSDictionaryMap;
 import org.apache.pdfbox.pdmodel.common.PDNameTreeNode;
@@ -47,6 +48,9 @@ public class PDStructureTreeRoot extends PDStructureNode
 
     private static final String TYPE = "StructTreeRoot";
 
+    private PDParentTreeIndex parentTreeIndex;
+    private PDStructureKidIndex kidIndex;
+
     /**
      * Default Constructor.
      * 
@@ -111,6 +115,7 @@ public class PDStructureTreeRoot extends PDStructureNode
     public void setK(COSBase k)
     {
         this.getCOSObject().setItem(COSName.K, k);
+        structureChanged();
     }
 
     /**
@@ -162,6 +167,55 @@ public class PDStructureTreeRoot extends PDStructureNode
     public void setParentTree(PDNumberTreeNode parentTree)
     {
         this.getCOSObject().setItem(COSName.PARENT_TREE, parentTree);
+        this.parentTreeIndex = null;
+    }
+
+    /**
+     * Returns an index of the parent tree for reverse lookups from a StructParents key and MCID
+     * to the structure element. The parent tree is read on first call, changes made to it
+     * afterwards are not seen by the index.
+     * 
+     * @return the parent tree index, or null if there is no parent tree
+     */
+    public PDParentTreeIndex getParentTreeIndex()
+    {
+        if (this.parentTreeIndex == null)
+        {
+            COSBase parentTree = this.getCOSObject().getDictionaryObject(COSName.PARENT_TREE);
+            if (parentTree instanceof COSDictionary)
+            {
+                this.parentTreeIndex = new PDParentTreeIndex((COSDictionary) parentTree);
+            }
+        }
+        return this.parentTreeIndex;
+    }
+
+    /**
+     * Returns the kid indexes of the structure elements, which are shared by the page structures
+     * of all pages and are read again for elements whose K entries have changed.
+     * 
+     * @return the kid index
+     */
+    synchronized PDStructureKidIndex getKidIndex()
+    {
+        if (this.kidIndex == null)
+        {
+            this.kidIndex = new PDStructureKidIndex(this);
+        }
+        return this.kidIndex;
+    }
+
+    /**
+     * Returns the structure elements and marked contents of a page in reading order, using the
+     * parent tree instead of walking the whole structure tree. The K entries which are read for
+     * this are kept by this object, so the same instance should be used for all pages.
+     * 
+     * @param page the page
+     * @return the page structure, or null if there is no parent tree
+     */
+    public PDPageStructure getPageStructure(PDPage page)
+    {
+        return PDPageStructure.create(this, page);
     }
 
     /**
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
+
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+
+/**
+ * Callback interface of {@link PDStructureTreeWalker}. The walker reports the structure elements
+ * in document order and, between the begin and end calls of an element, its content items. No
+ * page content is parsed by the walker, a visitor which needs the marked content of an item can
+ * extract it from the given page on demand.
+ */
+public interface PDStructureTreeVisitor
+{
+    /**
+     * Called when a structure element is entered.
+     *
+     * @param element the structure element
+     * @param page the page of the element, inherited from its ancestors if it has no Pg entry,
+     * or null
+     * @param depth the depth of the element, the kids of the structure tree root have depth 0
+     * @return true to walk the kids of the element, false to skip them
+     * @throws IOException if the visitor fails
+     */
+    boolean beginStructureElement(PDStructureElement element, PDPage page, int depth)
+            throws IOException;
+
+    /**
+     * Called when a structure element is left, also if its kids were skipped.
+     *
+     * @param element the structure element
+     * @param depth the depth of the element
+     * @throws IOException if the visitor fails
+     */
+    void endStructureElement(PDStructureElement element, int depth) throws IOException;
+
+    /**
+     * Called for a marked content kid given as an integer MCID or as a marked-content reference
+     * dictionary (MCR).
+     *
+     * @param parent the structure element which contains the kid
+     * @param mcid the marked-content identifier
+     * @param page the page containing the marked content, or null if it isn't known
+     * @param reference the marked-content reference, or null if the kid is an integer MCID
+     * @throws IOException if the visitor fails
+     */
+    void visitMarkedContent(PDStructureElement parent, int mcid, PDPage page,
+            PDMarkedContentReference reference) throws IOException;
+
+    /**
+     * Called for an object reference kid (OBJR), e.g. an annotation.
+     *
+     * @param parent the structure element which contains the kid
+     * @param reference the object reference
+     * @throws IOException if the visitor fails
+     */
+    void visitObjectReference(PDStructureElement parent, PDObjectReference reference)
+            throws IOException;
+}
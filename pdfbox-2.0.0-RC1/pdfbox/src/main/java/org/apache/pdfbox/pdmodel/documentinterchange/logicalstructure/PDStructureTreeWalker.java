@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+/**
+ * Walks a structure tree depth first and reports it to a {@link PDStructureTreeVisitor}.
+ *
+ * <p>Unlike {@link PDStructureNode#getKids()} the walker doesn't build kid lists: the K entries
+ * are read one at a time and a kid object is only created when it is reported. Memory use is
+ * proportional to the depth of the tree, so results can be streamed for documents with a very
+ * large number of structure elements. Page content is never parsed.</p>
+ *
+ * <p>A kid which is one of its own ancestors, i.e. which would close a cycle, is skipped and
+ * reported to {@link #cycleDetected(PDStructureNode, PDStructureElement)}. A kid which is shared
+ * by several elements without a cycle is walked once for each of them.</p>
+ */
+public class PDStructureTreeWalker
+{
+    private static final Log LOG = LogFactory.getLog(PDStructureTreeWalker.class);
+
+    private final PDStructureTreeVisitor visitor;
+    private final Map<COSDictionary, Boolean> ancestors =
+            new IdentityHashMap<COSDictionary, Boolean>();
+
+    /**
+     * Constructor.
+     *
+     * @param visitor the visitor which is called for all nodes
+     */
+    public PDStructureTreeWalker(PDStructureTreeVisitor visitor)
+    {
+        this.visitor = visitor;
+    }
+
+    /**
+     * Walks the whole structure tree.
+     *
+     * @param root the structure tree root
+     * @throws IOException if the visitor fails
+     */
+    public void walk(PDStructureTreeRoot root) throws IOException
+    {
+        ancestors.clear();
+        ancestors.put(root.getCOSObject(), Boolean.TRUE);
+        walkKids(root, null, null, 0);
+        ancestors.clear();
+    }
+
+    /**
+     * Walks the sub tree of a structure element, the element itself is reported with depth 0.
+     *
+     * @param element the structure element
+     * @throws IOException if the visitor fails
+     */
+    public void walk(PDStructureElement element) throws IOException
+    {
+        ancestors.clear();
+        walkElement(element, null, 0);
+        ancestors.clear();
+    }
+
+    private void walkElement(PDStructureElement element, COSDictionary inheritedPage, int depth)
+            throws IOException
+    {
+        COSDictionary dictionary = element.getCOSObject();
+        COSBase pg = dictionary.getDictionaryObject(COSName.PG);
+        COSDictionary page = pg instanceof COSDictionary ? (COSDictionary) pg : inheritedPage;
+
+        ancestors.put(dictionary, Boolean.TRUE);
+        if (visitor.beginStructureElement(element, toPage(page), depth))
+        {
+            walkKids(element, element, page, depth + 1);
+        }
+        visitor.endStructureElement(element, depth);
+        ancestors.remove(dictionary);
+    }
+
+    private void walkKids(PDStructureNode node, PDStructureElement parent, COSDictionary page,
+            int depth) throws IOException
+    {
+        COSBase k = node.getCOSObject().getDictionaryObject(COSName.K);
+        if (k instanceof COSArray)
+        {
+            COSArray array = (COSArray) k;
+            for (int i = 0; i < array.size(); i++)
+            {
+                walkKid(node, parent, array.get(i), page, depth);
+            }
+        }
+        else if (k != null)
+        {
+            walkKid(node, parent, k, page, depth);
+        }
+    }
+
+    private void walkKid(PDStructureNode node, PDStructureElement parent, COSBase kid,
+            COSDictionary page, int depth) throws IOException
+    {
+        Object kidObject = node.createObject(kid);
+        if (kidObject instanceof PDStructureElement)
+        {
+            PDStructureElement element = (PDStructureElement) kidObject;
+            if (ancestors.containsKey(element.getCOSObject()))
+            {
+                cycleDetected(node, element);
+            }
+            else
+            {
+                walkElement(element, page, depth);
+            }
+        }
+        else if (parent == null)
+        {
+            // content items aren't allowed as kids of the structure tree root
+            return;
+        }
+        else if (kidObject instanceof Integer)
+        {
+            visitor.visitMarkedContent(parent, (Integer) kidObject, toPage(page), null);
+        }
+        else if (kidObject instanceof PDMarkedContentReference)
+        {
+            PDMarkedContentReference mcr = (PDMarkedContentReference) kidObject;
+            COSBase pg = mcr.getCOSObject().getDictionaryObject(COSName.PG);
+            COSDictionary mcrPage = pg instanceof COSDictionary ? (COSDictionary) pg : page;
+            visitor.visitMarkedContent(parent, mcr.getMCID(), toPage(mcrPage), mcr);
+        }
+        else if (kidObject instanceof PDObjectReference)
+        {
+            visitor.visitObjectReference(parent, (PDObjectReference) kidObject);
+        }
+    }
+
+    /**
+     * Called for a kid which is one of the ancestors of its parent, the kid is skipped. The
+     * default implementation logs a warning, override it to handle broken structure trees
+     * differently.
+     *
+     * @param parent the structure tree root or element whose K entry contains the kid
+     * @param kid the kid which closes the cycle
+     * @throws IOException if the walk should be aborted
+     */
+    protected void cycleDetected(PDStructureNode parent, PDStructureElement kid)
+            throws IOException
+    {
+        LOG.warn("Skipped structure element " + kid.getStructureType()
+                + " which is its own ancestor, the structure tree has a cycle");
+    }
+
+    private static PDPage toPage(COSDictionary page)
+    {
+        return page == null ? null : new PDPage(page);
+    }
+}
@@ -18,12 +18,16 @@ package org.apache.pdfbox.pdmodel.documentinterchange.markedcontent;
 
 import java.awt.Shape;
 import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.pdmodel.documentinterchange.taggedpdf.PDArtifactMarkedContent;
 import org.apache.pdfbox.pdmodel.graphics.PDXObject;
 import org.apache.pdfbox.text.TextPosition;
@@ -52,15 +56,21 @@ public class PDMarkedContent
         return new PDMarkedContent(tag, properties);
     }
 
+    // estimated bytes of an outline shape, of a path segment, and of an area edge
+    private static final long SHAPE_WEIGHT = 48;
+    private static final long PATH_SEGMENT_WEIGHT = 28;
+    private static final long AREA_SEGMENT_WEIGHT = 64;
 
     private final String tag;
     private final COSDictionary properties;
     private final List<Object> contents;
 
     private Area area;
+    private Rectangle2D bounds;
     private List<Shape> outline;
     private StringBuilder contentString;
     private String xObjectRefTag = null;
+    private int xObjectStructParents = -1;
     
     /**
      * Creates a new marked content object.
@@ -198,12 +208,27 @@ public class PDMarkedContent
 
     public void setXObjectRefTag(COSObject xobj) {
     	this.xObjectRefTag = PDMarkedContent.createXObjectRefTag(xobj);
+    	COSBase form = xobj.getObject();
+    	if (form instanceof COSStream) {
+    		this.xObjectStructParents = ((COSStream) form).getInt(COSName.STRUCT_PARENTS);
+    	}
     }
     
     public String getXObjectRefTag() {
     	return this.xObjectRefTag;
     }
 
+    /**
+     * Returns the StructParents key of the form XObject which contains this marked content, its
+     * MCID is resolved against this key instead of the one of the page.
+     *
+     * @return the StructParents key, or -1 if the marked content isn't in a form XObject or the
+     * form has none
+     */
+    public int getXObjectStructParents() {
+    	return this.xObjectStructParents;
+    }
+
     public static final String createXObjectRefTag(COSObject obj) {
     	return obj.getObjectNumber() + "_" + obj.getGenerationNumber();
     }
@@ -254,8 +279,122 @@ public class PDMarkedContent
     		this.outline = new ArrayList<Shape>();
     	}
     	this.outline.add(shape);
+    	this.area = null;
+    	this.bounds = null;
+    }
+    
+    /**
+     * Estimates the memory held by this marked content and its marked content kids, in bytes.
+     * Paths are weighted by their number of segments, including the {@link #getOutlineArea()}
+     * which may be built from them.
+     * 
+     * @return the estimated size
+     */
+    public long getWeight() {
+    	long weight = 96;
+    	if (this.outline != null) {
+    		for (Shape s : this.outline) {
+    			weight += getShapeWeight(s);
+    		}
+    	}
+    	if (this.contentString != null) {
+    		weight += 2L * this.contentString.length();
+    	}
+    	for (Object obj : this.contents) {
+    		weight += 8;
+    		if (obj instanceof PDMarkedContent) {
+    			weight += ((PDMarkedContent) obj).getWeight();
+    		}
+    	}
+    	return weight;
+    }
+    
+    /**
+     * Estimates the memory of an outline shape: the shape itself, a small object for the
+     * bounding box of a glyph, and the edges which an {@link Area} holds for each segment.
+     */
+    private static long getShapeWeight(Shape shape) {
+    	if (shape instanceof Rectangle2D) {
+    		// an area keeps the two vertical edges of a rectangle
+    		return SHAPE_WEIGHT + 2 * AREA_SEGMENT_WEIGHT;
+    	}
+    	long segments = 0;
+    	for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+    		segments++;
+    	}
+    	return SHAPE_WEIGHT + segments * (PATH_SEGMENT_WEIGHT + AREA_SEGMENT_WEIGHT);
     }
     
+    /**
+     * Gets the bounding box of the outline, the union of the bounds of all outline shapes. This
+     * is computed in linear time and should be used for highlighting instead of
+     * {@link #getOutlineArea()}.
+     * 
+     * @return the bounding box, or null if there is no outline
+     */
+    public Rectangle2D getOutlineBounds() {
+    	if (this.bounds == null) {
+    		if (this.outline != null) {
+    			for (Shape s : this.outline) {
+    				this.bounds = addBounds(this.bounds, s.getBounds2D());
+    			}
+    		} else {
+    			for (Object obj : this.contents) {
+    				if (obj instanceof PDMarkedContent) {
+    					this.bounds = addBounds(this.bounds,
+    							((PDMarkedContent) obj).getOutlineBounds());
+    				}
+    			}
+    		}
+    	}
+    	return this.bounds;
+    }
+    
+    private static Rectangle2D addBounds(Rectangle2D bounds, Rectangle2D box) {
+    	if (box == null) {
+    		return bounds;
+    	}
+    	if (bounds == null) {
+    		return (Rectangle2D) box.clone();
+    	}
+    	bounds.add(box);
+    	return bounds;
+    }
+    
+    /**
+     * Tests if a point is inside the bounding box of one of the outline shapes.
+     * 
+     * @param x the x coordinate in user space
+     * @param y the y coordinate in user space
+     * @return true if the point hits the outline
+     */
+    public boolean outlineContains(double x, double y) {
+    	Rectangle2D bbox = this.getOutlineBounds();
+    	if (bbox == null || !bbox.contains(x, y)) {
+    		return false;
+    	}
+    	if (this.outline != null) {
+    		for (Shape s : this.outline) {
+    			if (s.getBounds2D().contains(x, y)) {
+    				return true;
+    			}
+    		}
+    		return false;
+    	}
+    	for (Object obj : this.contents) {
+    		if (obj instanceof PDMarkedContent && ((PDMarkedContent) obj).outlineContains(x, y)) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+    
+    /**
+     * Gets the exact union of all outline shapes. The union is expensive for many shapes, it is
+     * computed on first call only.
+     * 
+     * @return the outline area
+     */
     public Area getOutlineArea() {
     	if (this.area != null) {
     		return this.area;
@@ -266,7 +405,6 @@ public class PDMarkedContent
         		this.area.add(new Area(s));
         	}    		
     	} else if (this.contents != null && !this.contents.isEmpty()) {
-    		this.contentString = new StringBuilder();
     		for (Object obj : this.contents) {
     			if (obj instanceof PDMarkedContent) {
     				this.area.add(((PDMarkedContent) obj).getOutlineArea());    				
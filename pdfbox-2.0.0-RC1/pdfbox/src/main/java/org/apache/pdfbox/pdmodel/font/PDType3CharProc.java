@@ -69,7 +69,7 @@ public final class PDType3CharProc implements PDContentStream
     @Override
     public InputStream getContents() throws IOException
     {
-        return charStream.createInputStream();
+        return charStream.createStreamingInputStream();
     }
 
     @Override
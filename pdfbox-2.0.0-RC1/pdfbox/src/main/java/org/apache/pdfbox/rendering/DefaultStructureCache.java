@@ -0,0 +1,136 @@
+package org.apache.pdfbox.rendering;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.pdfbox.cos.COSDictionary;
+
+/**
+ * A least recently used {@link StructureCache} bounded by the number of pages and by the sum of
+ * the entry weights, see {@link MarkedContentIndex#getWeight()}. Hit, miss and eviction counters
+ * are kept to help sizing the cache. This class is thread-safe.
+ */
+public class DefaultStructureCache implements StructureCache {
+
+	/** Default maximum number of cached pages. */
+	public static final int DEFAULT_MAX_PAGES = 256;
+
+	/** Default maximum total weight, about 64 MB. */
+	public static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
+
+	private final int maxPages;
+	private final long maxWeight;
+	private final Map<COSDictionary, MarkedContentIndex> entries;
+	private long weight;
+
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	public DefaultStructureCache() {
+		this(DEFAULT_MAX_PAGES, DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * Creates a cache with the given limits.
+	 *
+	 * @param maxPages the maximum number of cached pages
+	 * @param maxWeight the maximum total weight of the cached pages, a single page heavier than
+	 * this is not cached
+	 */
+	public DefaultStructureCache(int maxPages, long maxWeight) {
+		if (maxPages < 0 || maxWeight < 0) {
+			throw new IllegalArgumentException("Cache limits must not be negative");
+		}
+		this.maxPages = maxPages;
+		this.maxWeight = maxWeight;
+		this.entries = new LinkedHashMap<COSDictionary, MarkedContentIndex>(16, 0.75f, true);
+	}
+
+	@Override
+	public synchronized MarkedContentIndex get(COSDictionary page) {
+		MarkedContentIndex index = this.entries.get(page);
+		if (index != null) {
+			this.hitCount++;
+		} else {
+			this.missCount++;
+		}
+		return index;
+	}
+
+	@Override
+	public synchronized void put(COSDictionary page, MarkedContentIndex index) {
+		MarkedContentIndex old = this.entries.remove(page);
+		if (old != null) {
+			this.weight -= old.getWeight();
+		}
+		if (index == null || this.maxPages == 0 || index.getWeight() > this.maxWeight) {
+			return;
+		}
+		this.entries.put(page, index);
+		this.weight += index.getWeight();
+		this.evict();
+	}
+
+	@Override
+	public synchronized void clear() {
+		this.entries.clear();
+		this.weight = 0;
+	}
+
+	private void evict() {
+		Iterator<MarkedContentIndex> it = this.entries.values().iterator();
+		while (it.hasNext() && (this.entries.size() > this.maxPages || this.weight > this.maxWeight)) {
+			MarkedContentIndex eldest = it.next();
+			it.remove();
+			this.weight -= eldest.getWeight();
+			this.evictionCount++;
+		}
+	}
+
+	public int getMaxPages() {
+		return this.maxPages;
+	}
+
+	public long getMaxWeight() {
+		return this.maxWeight;
+	}
+
+	/**
+	 * Gets the number of cached pages.
+	 *
+	 * @return the page count
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Gets the total weight of the cached pages.
+	 *
+	 * @return the weight
+	 */
+	public synchronized long getWeight() {
+		return this.weight;
+	}
+
+	public synchronized long getHitCount() {
+		return this.hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return this.missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "DefaultStructureCache{pages=" + this.entries.size() + ", weight=" + this.weight
+				+ ", hits=" + this.hitCount + ", misses=" + this.missCount
+				+ ", evictions=" + this.evictionCount + "}";
+	}
+}
@@ -1,45 +1,258 @@
 package org.apache.pdfbox.rendering;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.apache.pdfbox.pdmodel.DefaultResourceCache;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.ResourceCache;
 import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDMarkedContent;
 
+/**
+ * Extracts and caches the marked content structure of the pages of a document.
+ *
+ * <p>An extractor instance is not thread-safe and must be used by one thread. The
+ * {@link #extractAll(ExecutorService)} and {@link #extractRange(int, int, ExecutorService)} methods
+ * use several threads internally, the following holds while they run:</p>
+ * <ul>
+ *   <li>The document must not be modified or closed, and it must have been loaded completely,
+ *   i.e. {@code PDDocument.load} has returned. A document which is loaded with lazy object
+ *   loading parses an object when it is first used, under the lock of the parser, so it is
+ *   parsed once even if several pages use it. Stream data is read through
+ *   {@link org.apache.pdfbox.io.RandomAccessInputStream} under the lock of the underlying
+ *   buffer, also if it is left in the source with lazy stream loading, so a stream may be read
+ *   by several threads.</li>
+ *   <li>Each page is processed by its own {@link PageStructureExtractor} on a {@link PDPage}
+ *   which doesn't use the document {@link ResourceCache}. Every worker thread has a private
+ *   {@link DefaultResourceCache}, so fonts and other resources are reused across the pages of one
+ *   thread but a PDFont instance is never used by two threads.</li>
+ *   <li>Results are collected and cached by the calling thread, in page order.</li>
+ * </ul>
+ */
 public class DocumentStructureExtractor {
 	private PDDocument document;
-	private Map<Integer, List<PDMarkedContent>> markedContentMap;
-	
+	private StructureCache structureCache;
+	private boolean textOnly;
+
 	public DocumentStructureExtractor(PDDocument document) {
+		this(document, new DefaultStructureCache());
+	}
+
+	/**
+	 * Creates an extractor, in text only mode the pages are extracted without outlines, see
+	 * {@link PageStructureExtractor#PageStructureExtractor(PDPage, boolean)}.
+	 *
+	 * @param document the document
+	 * @param textOnly true to extract marked content and text only
+	 */
+	public DocumentStructureExtractor(PDDocument document, boolean textOnly) {
+		this(document, new DefaultStructureCache(), textOnly);
+	}
+
+	/**
+	 * Creates an extractor which keeps the extracted pages in the given cache.
+	 *
+	 * @param document the document
+	 * @param structureCache the cache, it may be shared by several extractors of the same document
+	 */
+	public DocumentStructureExtractor(PDDocument document, StructureCache structureCache) {
+		this(document, structureCache, false);
+	}
+
+	/**
+	 * Creates an extractor which keeps the extracted pages in the given cache.
+	 *
+	 * @param document the document
+	 * @param structureCache the cache, it may only be shared by extractors of the same document
+	 * and mode
+	 * @param textOnly true to extract marked content and text only
+	 */
+	public DocumentStructureExtractor(PDDocument document, StructureCache structureCache, boolean textOnly) {
 		this.document = document;
-		this.markedContentMap = new HashMap<Integer, List<PDMarkedContent>>();
+		this.structureCache = structureCache;
+		this.textOnly = textOnly;
+	}
+
+	public boolean isTextOnly() {
+		return this.textOnly;
+	}
+
+	public StructureCache getStructureCache() {
+		return this.structureCache;
 	}
-	
+
 	public List<PDMarkedContent> extract(int pageIndex) throws IOException {
-		if (this.markedContentMap.containsKey(pageIndex)) {
-			return this.markedContentMap.get(pageIndex);
-		}
-		PDPage page = this.document.getPage(pageIndex);
+		MarkedContentIndex index = this.getMarkedContentIndex(pageIndex);
+		return index == null ? null : index.getMarkedContentList();
+	}
+
+	public List<PDMarkedContent> extract(PDPage page) throws IOException {
+		MarkedContentIndex index = this.getMarkedContentIndex(page);
+		return index == null ? null : index.getMarkedContentList();
+	}
+
+	/**
+	 * Gets the MCID and XObject index of a page, the page is extracted if it isn't cached.
+	 *
+	 * @param pageIndex the page index
+	 * @return the marked content index, or null if there is no such page
+	 * @throws IOException if the page content can't be processed
+	 */
+	public MarkedContentIndex getMarkedContentIndex(int pageIndex) throws IOException {
+		return this.getMarkedContentIndex(this.document.getPage(pageIndex));
+	}
+
+	public MarkedContentIndex getMarkedContentIndex(PDPage page) throws IOException {
 		if (page == null) {
 			return null;
 		}
-		
-		List<PDMarkedContent> contentList = this.extractStructure(page);
-		this.markedContentMap.put(pageIndex, contentList);
-		return contentList;
+		MarkedContentIndex index = this.structureCache.get(page.getCOSObject());
+		if (index == null) {
+			index = this.extractIndex(page);
+			this.structureCache.put(page.getCOSObject(), index);
+		}
+		return index;
 	}
-	
-	public List<PDMarkedContent> extract(PDPage page) throws IOException {
-		int pageIndex = this.document.getPages().indexOf(page);
-		return this.extract(pageIndex);
+
+	/**
+	 * Finds the top level marked content of a page by its MCID.
+	 *
+	 * @param page the page
+	 * @param mcid the marked-content identifier
+	 * @return the marked content, or null if the page has none with this MCID
+	 * @throws IOException if the page content can't be processed
+	 */
+	public PDMarkedContent findMarkedContent(PDPage page, int mcid) throws IOException {
+		MarkedContentIndex index = this.getMarkedContentIndex(page);
+		return index == null ? null : index.get(mcid);
+	}
+
+	/**
+	 * Finds the marked content of a page drawn by a referenced XObject (the Stm entry of a
+	 * marked-content reference).
+	 *
+	 * @param page the page
+	 * @param xobjectRefTag the tag, see {@link PDMarkedContent#createXObjectRefTag}
+	 * @return the marked content, or null if there is none
+	 * @throws IOException if the page content can't be processed
+	 */
+	public PDMarkedContent findXObjectMarkedContent(PDPage page, String xobjectRefTag) throws IOException {
+		MarkedContentIndex index = this.getMarkedContentIndex(page);
+		return index == null ? null : index.getByXObjectRefTag(xobjectRefTag);
+	}
+
+	/**
+	 * Extracts all pages in parallel, see {@link #extractRange(int, int, ExecutorService)}.
+	 *
+	 * @param executor the executor which runs the page extraction tasks
+	 * @return the marked content lists of all pages in page order
+	 * @throws IOException if a page content can't be processed
+	 */
+	public List<List<PDMarkedContent>> extractAll(ExecutorService executor) throws IOException {
+		return this.extractRange(0, this.document.getNumberOfPages(), executor);
+	}
+
+	/**
+	 * Extracts the pages fromIndex (inclusive) to toIndex (exclusive) in parallel, one task per
+	 * page on the given executor. Pages which were extracted before are taken from the cache,
+	 * the results of the new ones are put into the cache. The executor is not shut down.
+	 *
+	 * @param fromIndex the first page index
+	 * @param toIndex the page index after the last page
+	 * @param executor the executor which runs the page extraction tasks
+	 * @return the marked content lists of the pages in page order
+	 * @throws IOException if a page content can't be processed
+	 */
+	public List<List<PDMarkedContent>> extractRange(int fromIndex, int toIndex, ExecutorService executor)
+			throws IOException {
+		if (fromIndex < 0 || toIndex > this.document.getNumberOfPages() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("Invalid page range " + fromIndex + " - " + toIndex);
+		}
+
+		final ThreadLocal<ResourceCache> workerCache = new ThreadLocal<ResourceCache>() {
+			@Override
+			protected ResourceCache initialValue() {
+				return new DefaultResourceCache();
+			}
+		};
+
+		List<PDPage> pages = new ArrayList<PDPage>(toIndex - fromIndex);
+		List<MarkedContentIndex> indexes = new ArrayList<MarkedContentIndex>(toIndex - fromIndex);
+		Map<Integer, Future<MarkedContentIndex>> futures = new HashMap<Integer, Future<MarkedContentIndex>>();
+		for (int i = fromIndex; i < toIndex; i++) {
+			final PDPage page = this.document.getPage(i);
+			MarkedContentIndex index = this.structureCache.get(page.getCOSObject());
+			pages.add(page);
+			indexes.add(index);
+			if (index != null) {
+				continue;
+			}
+			futures.put(i, executor.submit(new Callable<MarkedContentIndex>() {
+				@Override
+				public MarkedContentIndex call() throws IOException {
+					return extractIndex(new PDPage(page.getCOSObject(), workerCache.get()));
+				}
+			}));
+		}
+
+		List<List<PDMarkedContent>> result = new ArrayList<List<PDMarkedContent>>(toIndex - fromIndex);
+		try {
+			for (int i = fromIndex; i < toIndex; i++) {
+				MarkedContentIndex index = indexes.get(i - fromIndex);
+				Future<MarkedContentIndex> future = futures.get(i);
+				if (future != null) {
+					index = waitFor(future);
+					this.structureCache.put(pages.get(i - fromIndex).getCOSObject(), index);
+				}
+				result.add(index.getMarkedContentList());
+			}
+		} finally {
+			for (Future<MarkedContentIndex> future : futures.values()) {
+				future.cancel(true);
+			}
+		}
+		return result;
+	}
+
+	private static MarkedContentIndex waitFor(Future<MarkedContentIndex> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			InterruptedIOException ioe = new InterruptedIOException("Structure extraction interrupted");
+			ioe.initCause(e);
+			throw ioe;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
 	}
-	
+
 	public List<PDMarkedContent> extractStructure(PDPage page) throws IOException {
-		PageStructureExtractor pageExtractor = new PageStructureExtractor(page);
+		return this.extractIndex(page).getMarkedContentList();
+	}
+
+	public MarkedContentIndex extractIndex(PDPage page) throws IOException {
+		PageStructureExtractor pageExtractor = new PageStructureExtractor(page, this.textOnly);
 		pageExtractor.extract();
-		return pageExtractor.getMarkedContentList(); 
+		return pageExtractor.getMarkedContentIndex();
 	}
 }
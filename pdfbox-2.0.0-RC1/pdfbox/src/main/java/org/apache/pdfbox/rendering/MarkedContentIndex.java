@@ -0,0 +1,158 @@
+package org.apache.pdfbox.rendering;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDMarkedContent;
+
+/**
+ * The marked contents of one page, indexed by MCID and by XObject reference tag so that
+ * structure elements can resolve their content in constant time.
+ *
+ * The MCID index is a primitive open-addressing table, page MCIDs are usually dense but may
+ * be arbitrary non-negative integers.
+ */
+public class MarkedContentIndex {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final List<PDMarkedContent> contents;
+	private int[] keys;
+	private PDMarkedContent[] values;
+	private int size;
+	private Map<String, PDMarkedContent> xobjectRefTagMap;
+	private long weight = -1;
+
+	public MarkedContentIndex(List<PDMarkedContent> contents) {
+		this.contents = contents;
+		this.keys = new int[INITIAL_CAPACITY];
+		this.values = new PDMarkedContent[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Gets all top level marked contents of the page in content stream order.
+	 *
+	 * @return the marked content list
+	 */
+	public List<PDMarkedContent> getMarkedContentList() {
+		return this.contents;
+	}
+
+	/**
+	 * Gets the top level marked content with the given MCID.
+	 *
+	 * @param mcid the marked-content identifier
+	 * @return the first marked content with this MCID, or null if there is none
+	 */
+	public PDMarkedContent get(int mcid) {
+		if (mcid < 0) {
+			return null;
+		}
+		int mask = this.keys.length - 1;
+		int i = hash(mcid) & mask;
+		while (this.values[i] != null) {
+			if (this.keys[i] == mcid) {
+				return this.values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the marked content drawn by the XObject with the given reference tag.
+	 *
+	 * @param xobjectRefTag the tag, see {@link PDMarkedContent#createXObjectRefTag}
+	 * @return the first marked content with this tag, or null if there is none
+	 */
+	public PDMarkedContent getByXObjectRefTag(String xobjectRefTag) {
+		if (this.xobjectRefTagMap == null || xobjectRefTag == null) {
+			return null;
+		}
+		return this.xobjectRefTagMap.get(xobjectRefTag);
+	}
+
+	/**
+	 * Gets the number of indexed MCIDs.
+	 *
+	 * @return the MCID count
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Gets the estimated memory held by the marked contents of the page, in bytes. It is
+	 * computed on first call.
+	 *
+	 * @return the estimated size
+	 */
+	public long getWeight() {
+		if (this.weight < 0) {
+			long w = 64 + 8L * this.keys.length;
+			for (PDMarkedContent content : this.contents) {
+				w += content.getWeight();
+			}
+			this.weight = w;
+		}
+		return this.weight;
+	}
+
+	void put(int mcid, PDMarkedContent content) {
+		if (mcid < 0 || content == null) {
+			return;
+		}
+		if ((this.size + 1) * 2 > this.keys.length) {
+			this.rehash(this.keys.length * 2);
+		}
+		int mask = this.keys.length - 1;
+		int i = hash(mcid) & mask;
+		while (this.values[i] != null) {
+			if (this.keys[i] == mcid) {
+				// keep the first occurrence
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		this.keys[i] = mcid;
+		this.values[i] = content;
+		this.size++;
+	}
+
+	void putXObjectRefTag(String xobjectRefTag, PDMarkedContent content) {
+		if (xobjectRefTag == null || content == null) {
+			return;
+		}
+		if (this.xobjectRefTagMap == null) {
+			this.xobjectRefTagMap = new HashMap<String, PDMarkedContent>();
+		}
+		if (!this.xobjectRefTagMap.containsKey(xobjectRefTag)) {
+			this.xobjectRefTagMap.put(xobjectRefTag, content);
+		}
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = this.keys;
+		PDMarkedContent[] oldValues = this.values;
+		this.keys = new int[capacity];
+		this.values = new PDMarkedContent[capacity];
+		int mask = capacity - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldValues[j] == null) {
+				continue;
+			}
+			int i = hash(oldKeys[j]) & mask;
+			while (this.values[i] != null) {
+				i = (i + 1) & mask;
+			}
+			this.keys[i] = oldKeys[j];
+			this.values[i] = oldValues[j];
+		}
+	}
+
+	private static int hash(int mcid) {
+		int h = mcid * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -20,9 +20,11 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -32,6 +34,9 @@ import org.apache.pdfbox.pdmodel.common.PDRectangle;
 /**
  * Renders a PDF document to an AWT BufferedImage.
  * This class may be overridden in order to perform custom rendering.
+ * Page images rendered by page index can be kept in a least recently used cache with a byte
+ * budget, e.g. by a viewer which shows the same pages again, see
+ * {@link #setCacheEnabled(boolean)} and {@link #setMaxCacheBytes(long)}.
  *
  * @author John Hewson
  */
@@ -40,49 +45,60 @@ public class PDFRenderer
     protected final PDDocument document;
     // TODO keep rendering state such as caches here
 
-    private Map<Key, BufferedImage> cache = new HashMap<Key, BufferedImage>(); 
-    
-    class Key {
-    	private int pageIndex; 
-    	private int scale;
-    	public Key(int pageIndex, float scale) {
-    		this.pageIndex = pageIndex;
-    		this.scale = (int) (scale * 100);
-    	}
-    	
-    	@Override
-    	public int hashCode() {
-    		return this.pageIndex * 1000 + this.scale;
-    	}
-    	
-    	@Override
-    	public boolean equals(Object obj) {
-    		if (this == obj) {
-    			return true;
-    		}
-    		if (obj instanceof Key) {
-    			return ((Key) obj).pageIndex == this.pageIndex && ((Key) obj).scale == this.scale; 
-    		}
-    		return false;
-    	}
-    }
-    
-    private BufferedImage getImage(int pageIndex, float scale) {
-    	Key key = new Key(pageIndex, scale);
-    	if (this.cache.containsKey(key)) {
-    		return this.cache.get(key);
-    	}
-    	return null;
-    }
-    
-    private void cacheImage(int pageIndex, float scale, BufferedImage image) {
-    	Key key = new Key(pageIndex, scale);
-    	if (this.cache.containsKey(key)) {
-    		return;
-    	}
-    	this.cache.put(key, image);
+    /** Default byte budget of the image cache, 64 MB. */
+    public static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+    // rendered page images in least recently used order
+    private final Map<Key, BufferedImage> cache = new LinkedHashMap<Key, BufferedImage>(16, 0.75f, true);
+    private boolean cacheEnabled;
+    private long maxCacheBytes = DEFAULT_CACHE_BYTES;
+    private long cacheBytes;
+    private long cacheHits;
+    private long cacheMisses;
+    private long cacheEvictions;
+
+    /**
+     * Cache key of a rendered page image.
+     */
+    private static final class Key
+    {
+        private final int pageIndex;
+        private final int scaleBits;
+        private final ImageType imageType;
+
+        Key(int pageIndex, float scale, ImageType imageType)
+        {
+            this.pageIndex = pageIndex;
+            this.scaleBits = Float.floatToIntBits(scale);
+            this.imageType = imageType;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = pageIndex;
+            result = 31 * result + scaleBits;
+            result = 31 * result + imageType.hashCode();
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) obj;
+            return pageIndex == other.pageIndex && scaleBits == other.scaleBits &&
+                   imageType == other.imageType;
+        }
     }
-    
+
     /**
      * Creates a new PDFRenderer.
      * @param document the document to render
@@ -92,6 +108,148 @@ public class PDFRenderer
         this.document = document;
     }
 
+    /**
+     * Returns true if rendered page images are cached, the cache is disabled by default. Only the
+     * methods taking a page index use the cache, they return a copy of the cached image.
+     */
+    public boolean isCacheEnabled()
+    {
+        return cacheEnabled;
+    }
+
+    /**
+     * Enables or disables the image cache. Enable it when the same pages are rendered again at
+     * the same scale, it isn't worth the copy of every image when each page is rendered once.
+     * Disabling clears the cache.
+     *
+     * @param cacheEnabled true to cache rendered page images
+     */
+    public void setCacheEnabled(boolean cacheEnabled)
+    {
+        this.cacheEnabled = cacheEnabled;
+        if (!cacheEnabled)
+        {
+            clearCache();
+        }
+    }
+
+    /**
+     * Returns the byte budget of the image cache.
+     */
+    public long getMaxCacheBytes()
+    {
+        return maxCacheBytes;
+    }
+
+    /**
+     * Sets the byte budget of the image cache. The least recently used images are evicted when
+     * the size of the cached rasters exceeds it, larger images aren't cached at all.
+     *
+     * @param maxCacheBytes the maximum size of all cached images, in bytes
+     */
+    public void setMaxCacheBytes(long maxCacheBytes)
+    {
+        if (maxCacheBytes < 0)
+        {
+            throw new IllegalArgumentException("maxCacheBytes must not be negative");
+        }
+        this.maxCacheBytes = maxCacheBytes;
+        evict();
+    }
+
+    /**
+     * Removes all images from the cache, the statistics are kept.
+     */
+    public void clearCache()
+    {
+        cache.clear();
+        cacheBytes = 0;
+    }
+
+    /**
+     * Returns the size of the cached images, in bytes.
+     */
+    public long getCacheBytes()
+    {
+        return cacheBytes;
+    }
+
+    /**
+     * Returns the number of cached images.
+     */
+    public int getCacheSize()
+    {
+        return cache.size();
+    }
+
+    /**
+     * Returns the number of page images served from the cache.
+     */
+    public long getCacheHitCount()
+    {
+        return cacheHits;
+    }
+
+    /**
+     * Returns the number of page images which had to be rendered while the cache was enabled.
+     */
+    public long getCacheMissCount()
+    {
+        return cacheMisses;
+    }
+
+    /**
+     * Returns the number of images evicted from the cache.
+     */
+    public long getCacheEvictionCount()
+    {
+        return cacheEvictions;
+    }
+
+    // returns false if the image is too large to be cached
+    private boolean cacheImage(Key key, BufferedImage image)
+    {
+        long size = getImageBytes(image);
+        if (size > maxCacheBytes)
+        {
+            return false;
+        }
+        BufferedImage old = cache.put(key, image);
+        if (old != null)
+        {
+            cacheBytes -= getImageBytes(old);
+        }
+        cacheBytes += size;
+        evict();
+        return true;
+    }
+
+    private void evict()
+    {
+        Iterator<BufferedImage> it = cache.values().iterator();
+        while (cacheBytes > maxCacheBytes && it.hasNext())
+        {
+            BufferedImage eldest = it.next();
+            it.remove();
+            cacheBytes -= getImageBytes(eldest);
+            cacheEvictions++;
+        }
+    }
+
+    private static long getImageBytes(BufferedImage image)
+    {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() *
+               DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    private static BufferedImage copyImage(BufferedImage image)
+    {
+        ColorModel cm = image.getColorModel();
+        WritableRaster raster = image.copyData(null);
+        return new BufferedImage(cm, raster, cm.isAlphaPremultiplied(), null);
+    }
+
     /**
      * Returns the given page as an RGB image at 72 DPI
      * @param pageIndex the zero-based index of the page to be converted.
@@ -113,15 +271,7 @@ public class PDFRenderer
      */
     public BufferedImage renderImage(int pageIndex, float scale) throws IOException
     {
-    	BufferedImage image = this.getImage(pageIndex, scale);
-    	if (image == null) {
-    		image = renderImage(pageIndex, scale, ImageType.RGB);
-    		this.cacheImage(pageIndex, scale, image);
-    	}
-   		ColorModel cm = image.getColorModel();
-   		boolean isAlphaPremultiplied = cm.isAlphaPremultiplied();
-   		WritableRaster raster = image.copyData(null);
-   		return new BufferedImage(cm, raster, isAlphaPremultiplied, null);
+        return renderImage(pageIndex, scale, ImageType.RGB);
     }
     
     public BufferedImage renderImage(PDPage page, float scale) throws IOException
@@ -166,8 +316,26 @@ public class PDFRenderer
     public BufferedImage renderImage(int pageIndex, float scale, ImageType imageType)
             throws IOException
     {
-        PDPage page = document.getPage(pageIndex);
-        return this.renderImage(page, scale, imageType);
+        if (!cacheEnabled)
+        {
+            return renderImage(document.getPage(pageIndex), scale, imageType);
+        }
+        Key key = new Key(pageIndex, scale, imageType);
+        BufferedImage image = cache.get(key);
+        if (image != null)
+        {
+            cacheHits++;
+        }
+        else
+        {
+            cacheMisses++;
+            image = renderImage(document.getPage(pageIndex), scale, imageType);
+            if (!cacheImage(key, image))
+            {
+                return image;
+            }
+        }
+        return copyImage(image);
     }
 
     public BufferedImage renderImage(PDPage page, float scale, ImageType imageType)
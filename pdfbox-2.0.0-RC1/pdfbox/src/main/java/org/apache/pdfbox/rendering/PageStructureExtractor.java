@@ -24,15 +24,24 @@ import org.apache.pdfbox.pdmodel.font.PDTrueTypeFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.apache.pdfbox.pdmodel.font.PDType1CFont;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.PDType3Font;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
 import org.apache.pdfbox.util.Matrix;
 import org.apache.pdfbox.util.Vector;
 
+/**
+ * Extracts the marked content sequences of a page together with their text and the outlines of
+ * the glyphs, paths and images they contain.
+ *
+ * In text only mode no geometry is computed: glyph outlines, path shapes, image bounds, clipping
+ * and Type3 glyph procedures are skipped, only the marked content nesting, the text and the
+ * properties (e.g. ActualText) are extracted.
+ */
 public class PageStructureExtractor extends StructuredPDFStreamEngine {
 
 	private List<PDMarkedContent> contents = new ArrayList<PDMarkedContent>();
-	private Map<Integer, PDMarkedContent> markedContentMap = new HashMap<Integer, PDMarkedContent>();
+	private MarkedContentIndex markedContentIndex = new MarkedContentIndex(this.contents);
 	private Stack<PDMarkedContent> runtimeMarkedContentStack = new Stack<PDMarkedContent>();
 	private Stack<COSObject> xobjectStack = new Stack<COSObject>();
 	private StringBuilder textBuffer = new StringBuilder();
@@ -42,9 +51,25 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
     // glyph cache
     private final Map<PDFont, Glyph2D> fontGlyph2D = new HashMap<PDFont, Glyph2D>();
     private GeneralPath linePath = new GeneralPath();
+    private final boolean textOnly;
 
 	public PageStructureExtractor(PDPage page) {
+		this(page, false);
+	}
+
+	/**
+	 * Creates an extractor for the given page.
+	 * 
+	 * @param page the page
+	 * @param textOnly true to extract marked content and text without outlines
+	 */
+	public PageStructureExtractor(PDPage page, boolean textOnly) {
 		super(page);
+		this.textOnly = textOnly;
+	}
+
+	public boolean isTextOnly() {
+		return this.textOnly;
 	}
 
 	public void extract() throws IOException {
@@ -78,6 +103,9 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
 
 	@Override
 	public void drawImage(PDImage pdImage) throws IOException {
+		if (this.textOnly) {
+			return;
+		}
         Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
         AffineTransform at = ctm.createAffineTransform();		
         
@@ -119,7 +147,7 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
 
 	@Override
 	public void endPath() throws IOException {
-        if (this.clipWindingRule != -1) {
+        if (this.clipWindingRule != -1 && !this.textOnly) {
             this.linePath.setWindingRule(this.clipWindingRule);
             getGraphicsState().intersectClippingPath(this.linePath);
             this.clipWindingRule = -1;
@@ -137,11 +165,11 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
     
 	@Override
 	public void strokePath() throws IOException {
-		this.strokePath((GeneralPath) this.getLinePath().clone(), true);
+		this.strokePath(this.getLinePath(), true);
 	}
 	
 	void strokePath(GeneralPath path, boolean mark) throws IOException {
-		if (mark) {
+		if (mark && !this.textOnly) {
 			this.markPath((GeneralPath) this.getLinePath().clone());			
 		}
 		this.linePath.reset();
@@ -149,11 +177,11 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
 	
 	@Override
 	public void fillPath(int windingRule) throws IOException {
-		this.fillPath((GeneralPath) this.getLinePath().clone(), true, windingRule);
+		this.fillPath(this.getLinePath(), true, windingRule);
 	}
 	
 	void fillPath(GeneralPath path, boolean mark, int windingRule) throws IOException {
-		if (mark) {
+		if (mark && !this.textOnly) {
 			this.markPath((GeneralPath) this.getLinePath().clone());
 		}
 		this.linePath.reset();
@@ -161,7 +189,7 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
 	
 	@Override
 	public void fillAndStrokePath(int windingRule) throws IOException {
-        GeneralPath path = (GeneralPath) this.getLinePath().clone();
+        GeneralPath path = this.getLinePath();
         this.fillPath(path, false, windingRule);
         this.strokePath(path, true);
 	}
@@ -178,14 +206,27 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
     @Override
     protected void showFontGlyph(Matrix textRenderingMatrix, PDFont font, int code, String unicode,
                                  Vector displacement) throws IOException {
+        this.textBuffer.append(unicode);
+        if (this.textOnly) {
+        	return;
+        }
         AffineTransform at = textRenderingMatrix.createAffineTransform();
         at.concatenate(font.getFontMatrix().createAffineTransform());
 
         Glyph2D glyph2D = createGlyph2D(font);
-        this.textBuffer.append(unicode);
         drawGlyph2D(glyph2D, font, code, displacement, at);
     }
     
+    @Override
+    protected void showType3Glyph(Matrix textRenderingMatrix, PDType3Font font, int code,
+    		String unicode, Vector displacement) throws IOException {
+    	if (this.textOnly) {
+    		// the glyph procedure only paints
+    		return;
+    	}
+    	super.showType3Glyph(textRenderingMatrix, font, code, unicode, displacement);
+    }
+    
     protected void drawGlyph2D(Glyph2D glyph2D, PDFont font, int code, Vector displacement,
             AffineTransform at) throws IOException {
     	GeneralPath path = glyph2D.getPathForCharacterCode(code);
@@ -306,7 +347,7 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
 		if (!markedContent.isArtifact()) {
 			int mcid = markedContent.getMCID();
 			if (mcid >= 0) {
-				this.markedContentMap.put(mcid, markedContent);
+				this.markedContentIndex.put(mcid, markedContent);
 			}
 		}
 		
@@ -320,12 +361,21 @@ public class PageStructureExtractor extends StructuredPDFStreamEngine {
 		PDMarkedContent last = this.runtimeMarkedContentStack.pop();
 		if (!this.xobjectStack.isEmpty()) {
 			last.setXObjectRefTag(this.xobjectStack.peek());
+			
+			// index XObject marked contents which are direct kids of a top level structure content
+			if (this.runtimeMarkedContentStack.size() == 1 && !this.runtimeMarkedContentStack.peek().isArtifact()) {
+				this.markedContentIndex.putXObjectRefTag(last.getXObjectRefTag(), last);
+			}
 		}
 	}
 	
 	public List<PDMarkedContent> getMarkedContentList() {
 		return this.contents;
 	}
+	
+	public MarkedContentIndex getMarkedContentIndex() {
+		return this.markedContentIndex;
+	}
 
 	public void beginXObject(COSObject xobject) {
 		this.xobjectStack.push(xobject);
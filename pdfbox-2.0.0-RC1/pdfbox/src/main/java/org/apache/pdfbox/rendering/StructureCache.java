@@ -0,0 +1,32 @@
+package org.apache.pdfbox.rendering;
+
+import org.apache.pdfbox.cos.COSDictionary;
+
+/**
+ * A cache for the extracted marked content structure of pages, keyed on the page dictionary.
+ * Implementations may evict entries at any time, evicted pages are extracted again on the next
+ * access.
+ */
+public interface StructureCache {
+
+	/**
+	 * Returns the marked content index of the given page, if it is in the cache.
+	 *
+	 * @param page the page dictionary
+	 * @return the cached index, or null
+	 */
+	MarkedContentIndex get(COSDictionary page);
+
+	/**
+	 * Puts the marked content index of the given page into the cache.
+	 *
+	 * @param page the page dictionary
+	 * @param index the extracted index
+	 */
+	void put(COSDictionary page, MarkedContentIndex index);
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	void clear();
+}
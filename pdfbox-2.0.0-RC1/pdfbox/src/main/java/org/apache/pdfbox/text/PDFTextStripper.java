@@ -342,9 +342,7 @@ public class PDFTextStripper extends PDFTextStreamEngine
     @Override
     public void processPage(PDPage page) throws IOException
     {
-        if (currentPageNo >= startPage && currentPageNo <= endPage
-                && (startBookmarkPageNumber == -1 || currentPageNo >= startBookmarkPageNumber)
-                && (endBookmarkPageNumber == -1 || currentPageNo <= endBookmarkPageNumber))
+        if (isCurrentPageInRange())
         {
             startPage(page);
             pageArticles = page.getThreadBeads();
@@ -373,6 +371,86 @@ public class PDFTextStripper extends PDFTextStreamEngine
         }
     }
 
+    /**
+     * Returns true if the current page is in the range of pages and bookmarks to extract.
+     */
+    boolean isCurrentPageInRange()
+    {
+        return currentPageNo >= startPage && currentPageNo <= endPage
+                && (startBookmarkPageNumber == -1 || currentPageNo >= startBookmarkPageNumber)
+                && (endBookmarkPageNumber == -1 || currentPageNo <= endBookmarkPageNumber);
+    }
+
+    /**
+     * Writes the text of a single page, as {@link #writeText(PDDocument, Writer)} would write it
+     * for this page, but without {@link #startDocument(PDDocument)} and
+     * {@link #endDocument(PDDocument)}. This is used by {@link ParallelPDFTextStripper}.
+     *
+     * @param doc The document of the page.
+     * @param page The page.
+     * @param pageNo The 1-based number of the page.
+     * @param paragraph True if a paragraph was started on a previous page but not ended.
+     * @param outputStream The location to put the text.
+     * @throws IOException If there is an error processing the page.
+     */
+    void writePageText(PDDocument doc, PDPage page, int pageNo, boolean paragraph,
+            Writer outputStream) throws IOException
+    {
+        resetEngine();
+        document = doc;
+        output = outputStream;
+        currentPageNo = pageNo;
+        startBookmarkPageNumber = -1;
+        endBookmarkPageNumber = -1;
+        inParagraph = paragraph;
+        processPage(page);
+    }
+
+    /**
+     * Returns true if a paragraph was started but not ended yet.
+     */
+    boolean isInParagraph()
+    {
+        return inParagraph;
+    }
+
+    /**
+     * Sets if a paragraph was started but not ended yet.
+     */
+    void setInParagraph(boolean paragraph)
+    {
+        inParagraph = paragraph;
+    }
+
+    /**
+     * Copies the settings of another stripper which affect the text of a page, i.e. all settings
+     * except the bookmarks.
+     *
+     * @param settings The stripper to copy the settings from.
+     */
+    void copySettings(PDFTextStripper settings)
+    {
+        lineSeparator = settings.lineSeparator;
+        wordSeparator = settings.wordSeparator;
+        paragraphStart = settings.paragraphStart;
+        paragraphEnd = settings.paragraphEnd;
+        pageStart = settings.pageStart;
+        pageEnd = settings.pageEnd;
+        articleStart = settings.articleStart;
+        articleEnd = settings.articleEnd;
+        startPage = settings.startPage;
+        endPage = settings.endPage;
+        suppressDuplicateOverlappingText = settings.suppressDuplicateOverlappingText;
+        shouldSeparateByBeads = settings.shouldSeparateByBeads;
+        sortByPosition = settings.sortByPosition;
+        addMoreFormatting = settings.addMoreFormatting;
+        indentThreshold = settings.indentThreshold;
+        dropThreshold = settings.dropThreshold;
+        spacingTolerance = settings.spacingTolerance;
+        averageCharTolerance = settings.averageCharTolerance;
+        listOfPatterns = settings.listOfPatterns;
+    }
+
     /**
      * Start a new article, which is typically defined as a column on a single page (also referred to as a bead). This
      * assumes that the primary direction of text is left to right. Default implementation is to do nothing. Subclasses
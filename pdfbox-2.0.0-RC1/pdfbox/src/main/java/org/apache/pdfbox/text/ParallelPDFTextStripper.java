@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.pdmodel.DefaultResourceCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageTree;
+import org.apache.pdfbox.pdmodel.ResourceCache;
+
+/**
+ * Extracts the text of the pages on several threads. The text of each page is extracted by a
+ * separate stripper with the settings of this one, and the pages are written in order, so the
+ * text is the same as the text of a {@link PDFTextStripper} with the same settings, including the
+ * separation by articles and beads, which only depends on the page.
+ *
+ * <p>The pages are read from the document at the same time, which must not be modified while
+ * the text is extracted. Objects which are loaded lazily are parsed under the lock of the
+ * source, and stream data is read under that lock, so this is safe for a document loaded by
+ * PDFBox. The {@link ResourceCache} of the document isn't used, because it and the fonts it
+ * holds aren't thread safe: each thread has its own {@link DefaultResourceCache} instead, see
+ * {@link #createResourceCache()}. The content stream cache of the document is shared, it is
+ * thread safe.</p>
+ *
+ * <p>{@link #startDocument(PDDocument)} and {@link #endDocument(PDDocument)} are called on this
+ * stripper, everything else on the strippers created by {@link #createPageStripper()}.</p>
+ */
+public class ParallelPDFTextStripper extends PDFTextStripper
+{
+    private final int threads;
+
+    private ExecutorService executor;
+    private ThreadLocal<PageWorker> workers;
+    private final Queue<Future<PageText>> pending = new ArrayDeque<Future<PageText>>();
+    private boolean paragraph;
+
+    /**
+     * Creates a stripper which uses one thread for each processor.
+     *
+     * @throws IOException If there is an error loading properties.
+     */
+    public ParallelPDFTextStripper() throws IOException
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a stripper which uses the given number of threads.
+     *
+     * @param threads The number of threads.
+     * @throws IOException If there is an error loading properties.
+     */
+    public ParallelPDFTextStripper(int threads) throws IOException
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the number of threads.
+     */
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * Creates the stripper which extracts the text of the pages of one thread. The settings of
+     * this stripper are copied to it. Override to extract the text with a subclass of
+     * {@link PDFTextStripper}, it must not keep state from one page to the next.
+     *
+     * @return A new stripper.
+     * @throws IOException If there is an error loading properties.
+     */
+    protected PDFTextStripper createPageStripper() throws IOException
+    {
+        return new PDFTextStripper();
+    }
+
+    /**
+     * Creates the resource cache of one thread, or returns null if the document has none.
+     *
+     * @return A new resource cache, or null.
+     */
+    protected ResourceCache createResourceCache()
+    {
+        return document.getResourceCache() != null ? new DefaultResourceCache() : null;
+    }
+
+    @Override
+    protected void processPages(PDPageTree pages) throws IOException
+    {
+        executor = Executors.newFixedThreadPool(threads);
+        workers = new ThreadLocal<PageWorker>();
+        paragraph = isInParagraph();
+        try
+        {
+            // processPage() submits the pages
+            super.processPages(pages);
+            while (!pending.isEmpty())
+            {
+                writeNextPage();
+            }
+            setInParagraph(paragraph);
+        }
+        finally
+        {
+            executor.shutdownNow();
+            executor = null;
+            workers.remove();
+            workers = null;
+            for (Future<PageText> future : pending)
+            {
+                future.cancel(true);
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Submits the page for extraction, if it is in the range of pages to extract.
+     *
+     * @param page The page to process.
+     * @throws IOException If there is an error writing the text of a previous page.
+     */
+    @Override
+    public void processPage(final PDPage page) throws IOException
+    {
+        if (!isCurrentPageInRange())
+        {
+            return;
+        }
+        final int pageNo = getCurrentPageNo();
+        pending.add(executor.submit(new Callable<PageText>()
+        {
+            @Override
+            public PageText call() throws IOException
+            {
+                return extract(page, pageNo, false);
+            }
+        }));
+
+        // limit the text which is kept in memory
+        if (pending.size() > threads * 4)
+        {
+            writeNextPage();
+        }
+    }
+
+    /**
+     * Writes the text of the first pending page.
+     */
+    private void writeNextPage() throws IOException
+    {
+        PageText text;
+        try
+        {
+            text = pending.remove().get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting text", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        if (paragraph)
+        {
+            // rare: the previous page didn't end its paragraph, which changes how this one starts
+            text = extract(text.page, text.pageNo, true);
+        }
+        output.write(text.text);
+        paragraph = text.paragraph;
+    }
+
+    /**
+     * Extracts the text of a page with the stripper of the current thread.
+     */
+    private PageText extract(PDPage page, int pageNo, boolean paragraph) throws IOException
+    {
+        PageWorker worker = workers.get();
+        if (worker == null)
+        {
+            PDFTextStripper stripper = createPageStripper();
+            stripper.copySettings(this);
+            worker = new PageWorker(stripper, createResourceCache());
+            workers.set(worker);
+        }
+        PDPage threadPage = new PDPage(page.getCOSObject(), worker.resourceCache,
+                page.getContentStreamCache());
+        StringWriter text = new StringWriter();
+        worker.stripper.writePageText(document, threadPage, pageNo, paragraph, text);
+        return new PageText(page, pageNo, text.toString(), worker.stripper.isInParagraph());
+    }
+
+    /**
+     * The stripper and the resource cache of a thread.
+     */
+    private static final class PageWorker
+    {
+        private final PDFTextStripper stripper;
+        private final ResourceCache resourceCache;
+
+        private PageWorker(PDFTextStripper stripper, ResourceCache resourceCache)
+        {
+            this.stripper = stripper;
+            this.resourceCache = resourceCache;
+        }
+    }
+
+    /**
+     * The text of a page.
+     */
+    private static final class PageText
+    {
+        private final PDPage page;
+        private final int pageNo;
+        private final String text;
+        private final boolean paragraph;
+
+        private PageText(PDPage page, int pageNo, String text, boolean paragraph)
+        {
+            this.page = page;
+            this.pageNo = pageNo;
+            this.text = text;
+            this.paragraph = paragraph;
+        }
+    }
+}
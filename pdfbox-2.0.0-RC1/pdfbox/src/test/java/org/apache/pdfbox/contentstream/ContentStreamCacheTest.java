@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.contentstream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.pdfbox.contentstream.operator.OperandStack;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.util.Charsets;
+import org.junit.Test;
+
+/**
+ * Test for the cache of parsed content streams.
+ */
+public class ContentStreamCacheTest
+{
+    @Test
+    public void testReplayedTextIsUnchanged() throws IOException
+    {
+        PDDocument document = PDDocument.load(
+                ContentStreamCacheTest.class.getResourceAsStream("/input/cweb.pdf"));
+        try
+        {
+            String expected = new PDFTextStripper().getText(document);
+
+            ContentStreamCache cache = new ContentStreamCache();
+            document.setContentStreamCache(cache);
+            PDPage page = document.getPage(0);
+            assertSame(cache, page.getContentStreamCache());
+            assertNull(cache.get(page));
+
+            // the first pass parses and stores the pages, the second replays them
+            assertEquals(expected, new PDFTextStripper().getText(document));
+            assertNotNull(cache.get(page));
+            assertEquals(expected, new PDFTextStripper().getText(document));
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testParsedOperands() throws IOException
+    {
+        PDDocument document = createDocument();
+        try
+        {
+            ParsedContentStream parsed = ParsedContentStream.parse(document.getPage(0));
+            assertEquals(5, parsed.getOperatorCount());
+            assertEquals("Tf", parsed.getOperator(1).getName());
+
+            OperandStack operands = new OperandStack();
+            parsed.getOperands(2, operands);
+            assertEquals("Td", parsed.getOperator(2).getName());
+            assertEquals(2, operands.size());
+            assertEquals(100f, operands.getFloat(0), 0);
+            assertEquals(700f, operands.getFloat(1), 0);
+
+            parsed.getOperands(0, operands);
+            assertEquals(0, operands.size());
+            // 5 operators and 5 operand slots, the string "Hello" and its bytes
+            assertEquals(5 * 8 + 5 * 17 + 16 + 5, parsed.getSize());
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testEviction() throws IOException
+    {
+        PDDocument document = createDocument();
+        try
+        {
+            ContentStreamCache cache = new ContentStreamCache();
+            document.setContentStreamCache(cache);
+            PDPage page = document.getPage(0);
+            cache.put(page, ParsedContentStream.parse(page));
+            assertNotNull(cache.get(page));
+
+            // appending keeps the /Contents array, the writer removes the page itself
+            PDPageContentStream contents = new PDPageContentStream(document, page, true, false);
+            assertNull(cache.get(page));
+            contents.close();
+
+            // new contents are detected
+            cache.put(page, ParsedContentStream.parse(page));
+            page.setContents(new PDStream(document));
+            assertNull(cache.get(page));
+
+            cache.put(page, ParsedContentStream.parse(page));
+            cache.remove(page);
+            assertNull(cache.get(page));
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testMaximumSize() throws IOException
+    {
+        PDDocument document = createDocument();
+        try
+        {
+            PDPage page = document.getPage(0);
+            ParsedContentStream parsed = ParsedContentStream.parse(page);
+
+            // too large on its own
+            ContentStreamCache cache = new ContentStreamCache(parsed.getSize() - 1);
+            cache.put(page, parsed);
+            assertNull(cache.get(page));
+
+            // the least recently used stream is evicted
+            PDPage other = new PDPage();
+            PDPage third = new PDPage();
+            cache = new ContentStreamCache(parsed.getSize() * 2);
+            cache.put(page, parsed);
+            cache.put(other, parsed);
+            assertNotNull(cache.get(page));
+            cache.put(third, parsed);
+            assertNull(cache.get(other));
+            assertNotNull(cache.get(page));
+            assertNotNull(cache.get(third));
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testInlineImageSize() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        try
+        {
+            PDFormXObject form = new PDFormXObject(document);
+            form.setBBox(new PDRectangle(100, 100));
+            StringBuilder data = new StringBuilder();
+            for (int i = 0; i < 10000; i++)
+            {
+                data.append('A');
+            }
+            writeForm(form, "q 100 0 0 100 0 0 cm BI /W 100 /H 100 /BPC 8 /CS /G ID "
+                    + data + " EI Q (" + data + ") Tj");
+            ParsedContentStream parsed = ParsedContentStream.parse(form);
+
+            // the image data and the string are counted, not only the operators
+            assertTrue(parsed.getSize() > 2 * 10000);
+            ContentStreamCache cache = new ContentStreamCache(10000);
+            cache.put(form, parsed);
+            assertNull(cache.get(form));
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testSharedForm() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        try
+        {
+            // a letterhead which is drawn on every page
+            PDFormXObject form = new PDFormXObject(document);
+            form.setBBox(new PDRectangle(612, 792));
+            PDResources resources = new PDResources();
+            COSName font = resources.add(PDType1Font.HELVETICA);
+            form.setResources(resources);
+            writeForm(form, "BT /" + font.getName() + " 12 Tf 100 750 Td (Letterhead) Tj ET");
+            for (int i = 0; i < 3; i++)
+            {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                PDPageContentStream contents = new PDPageContentStream(document, page);
+                contents.drawForm(form);
+                contents.close();
+            }
+
+            // forms are cached by default, pages aren't
+            ContentStreamCache cache = document.getContentStreamCache();
+            assertNotNull(cache);
+            assertFalse(cache.isCached(document.getPage(0)));
+            assertTrue(cache.isCached(form));
+
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setEndPage(1);
+            assertEquals("Letterhead", stripper.getText(document).trim());
+            ParsedContentStream parsed = cache.get(form);
+            assertNotNull(parsed);
+            assertNull(cache.get(document.getPage(0)));
+
+            // the other pages replay the form parsed on the first page
+            stripper.setStartPage(2);
+            stripper.setEndPage(3);
+            assertEquals(2, stripper.getText(document).split("Letterhead", -1).length - 1);
+            assertSame(parsed, cache.get(form));
+
+            // new data is detected
+            writeForm(form, "BT /" + font.getName() + " 12 Tf 100 750 Td (Header) Tj ET");
+            assertNull(cache.get(form));
+            stripper.setStartPage(1);
+            stripper.setEndPage(1);
+            assertEquals("Header", stripper.getText(document).trim());
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    private static void writeForm(PDFormXObject form, String operators) throws IOException
+    {
+        OutputStream out = form.getStream().createOutputStream();
+        out.write(operators.getBytes(Charsets.ISO_8859_1));
+        out.close();
+    }
+
+    private static PDDocument createDocument() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        PDPage page = new PDPage();
+        document.addPage(page);
+        PDPageContentStream contents = new PDPageContentStream(document, page, false, false);
+        contents.beginText();
+        contents.setFont(PDType1Font.HELVETICA, 12);
+        contents.newLineAtOffset(100, 700);
+        contents.showText("Hello");
+        contents.endText();
+        contents.close();
+        return document;
+    }
+}
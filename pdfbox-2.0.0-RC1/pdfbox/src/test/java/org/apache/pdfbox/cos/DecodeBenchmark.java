@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.cos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the throughput of {@link COSStream#createInputStream()} with an increasing number of
+ * threads. Every thread decodes its own Flate stream, like workers which each process their
+ * own document. With no lock around the decoding the throughput should grow with the number of
+ * cores.
+ *
+ * <p>Usage: DecodeBenchmark [maxThreads [decodesPerThread [streamSizeKB]]]</p>
+ */
+public final class DecodeBenchmark
+{
+    private DecodeBenchmark()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        int decodes = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int size = (args.length > 2 ? Integer.parseInt(args[2]) : 1024) * 1024;
+
+        byte[] data = createData(size);
+        final List<COSStream> streams = new ArrayList<COSStream>();
+        for (int i = 0; i < maxThreads; i++)
+        {
+            COSStream stream = new COSStream();
+            OutputStream output = stream.createOutputStream(COSName.FLATE_DECODE);
+            output.write(data);
+            output.close();
+            streams.add(stream);
+        }
+
+        // warm up
+        run(streams, 1, decodes);
+
+        System.out.println("threads\tms\tMB/s\tspeedup");
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads;
+                threads = threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads))
+        {
+            long time = run(streams, threads, decodes);
+            double mbPerSecond = (double) threads * decodes * size / (1024 * 1024) / (time / 1000.0);
+            if (threads == 1)
+            {
+                single = mbPerSecond;
+            }
+            System.out.println(threads + "\t" + time + "\t" + String.format("%.1f", mbPerSecond)
+                    + "\t" + String.format("%.2f", mbPerSecond / single));
+        }
+        for (COSStream stream : streams)
+        {
+            stream.close();
+        }
+    }
+
+    private static byte[] createData(int size)
+    {
+        // text like data which compresses about as well as content streams
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        String[] words = { "BT ", "ET ", "/F1 12 Tf ", "(Hello) Tj ", "0 0 m ", "100 200 l ", "S ",
+                "q ", "Q ", "1 0 0 1 72 720 cm " };
+        int pos = 0;
+        while (pos < size)
+        {
+            byte[] word = words[random.nextInt(words.length)].getBytes();
+            int length = Math.min(word.length, size - pos);
+            System.arraycopy(word, 0, data, pos, length);
+            pos += length;
+        }
+        return data;
+    }
+
+    private static long run(List<COSStream> streams, int threads, final int decodes)
+            throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            long start = System.currentTimeMillis();
+            List<Future<Long>> results = new ArrayList<Future<Long>>();
+            for (int i = 0; i < threads; i++)
+            {
+                final COSStream stream = streams.get(i);
+                results.add(executor.submit(new Callable<Long>()
+                {
+                    @Override
+                    public Long call() throws IOException
+                    {
+                        byte[] buffer = new byte[8192];
+                        long total = 0;
+                        for (int j = 0; j < decodes; j++)
+                        {
+                            InputStream input = stream.createInputStream();
+                            try
+                            {
+                                int n;
+                                while ((n = input.read(buffer)) != -1)
+                                {
+                                    total += n;
+                                }
+                            }
+                            finally
+                            {
+                                input.close();
+                            }
+                        }
+                        return total;
+                    }
+                }));
+            }
+            for (Future<Long> result : results)
+            {
+                result.get();
+            }
+            return System.currentTimeMillis() - start;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -300,6 +300,76 @@ public class TestCOSFloat extends TestCOSNumber
         writePDFTester.runTest(0.000000000000000000000000000000001f);
     }
 
+    /**
+     * Tests that parsed numbers have the correctly rounded values of the decimal numbers, that
+     * the same strings are rejected as before, and that written numbers are read back unchanged.
+     */
+    public void testParse() throws IOException
+    {
+        String[] numbers = { "1.1", ".5", "-.5", "+1.5", "5.", "-0.0", "0.0", "1e5", "1.5E-3",
+            "-2.5e+2", "595.27559", "0.123456789012", "16777217.0", "3.4028235E38", "1e-50",
+            "12345678901234567890.123", "0.000000000000000000000000000000001", "1.00000005960464477539",
+            "20000000.0", "1e7", "-1.5e21" };
+        for (String number : numbers)
+        {
+            COSFloat cosFloat = new COSFloat(number);
+            BigDecimal decimal = new BigDecimal(number);
+            assertEquals(number, decimal.floatValue(), cosFloat.floatValue());
+            assertEquals(number, decimal.doubleValue(), cosFloat.doubleValue());
+            if (Math.abs(decimal.doubleValue()) < 1L << 53)
+            {
+                assertEquals(number, decimal.longValue(), cosFloat.longValue());
+            }
+            assertReadBack(cosFloat);
+        }
+
+        Random rnd = new Random(123456);
+        for (int i = 0; i < 100000; i++)
+        {
+            String number = BigDecimal.valueOf(rnd.nextLong() % 100000000000L, rnd.nextInt(14))
+                    .toPlainString();
+            COSFloat cosFloat = new COSFloat(number);
+            BigDecimal decimal = new BigDecimal(number);
+            assertEquals(number, decimal.floatValue(), cosFloat.floatValue());
+            assertEquals(number, decimal.doubleValue(), cosFloat.doubleValue());
+            assertReadBack(cosFloat);
+        }
+
+        // whole numbers keep a fraction digit
+        assertEquals("COSFloat{20000000.0}", new COSFloat("20000000.0").toString());
+        assertEquals("COSFloat{20000000.0}", new COSFloat(2e7f).toString());
+
+        // PDFBOX-2990
+        assertEquals(-0.0000033917698, new COSFloat("0.00000-33917698").doubleValue());
+
+        String[] malformed = { "-", ".", "1.2.3", "e5", "1e", "1e+", "--1", "1-2", "0.00000-", "1f" };
+        for (String number : malformed)
+        {
+            try
+            {
+                new COSFloat(number);
+                fail(number + " is not a number");
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    private void assertReadBack(COSFloat cosFloat) throws IOException
+    {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        cosFloat.writePDF(outStream);
+        String written = outStream.toString("ISO-8859-1");
+        // plain notation only
+        assertEquals(written, -1, written.indexOf('E'));
+        // read back as the parser does, a real must not become an integer
+        COSNumber readBack = COSNumber.get(written);
+        assertTrue(written, readBack instanceof COSFloat);
+        assertEquals(written, cosFloat.doubleValue(), readBack.doubleValue());
+    }
+
     private String floatToString(float value)
     {
         // use a BigDecimal as intermediate state to avoid 
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.cos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test class for the lazy loading of {@link COSObject}.
+ */
+public class TestCOSObject
+{
+    /**
+     * All threads get the object, which is parsed once, also while it is being parsed.
+     */
+    @Test
+    public void testConcurrentDereference() throws Exception
+    {
+        final COSDictionary dictionary = new COSDictionary();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final COSObject object = new COSObject(null);
+        object.setParser(new ICOSParser()
+        {
+            @Override
+            public COSBase dereferenceCOSObject(COSObject cosObject) throws IOException
+            {
+                calls.incrementAndGet();
+                started.countDown();
+                try
+                {
+                    // let the other threads ask for the object while it is loaded
+                    Thread.sleep(100);
+                }
+                catch (InterruptedException e)
+                {
+                    throw new IOException(e);
+                }
+                return dictionary;
+            }
+        });
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<COSBase>> results = new ArrayList<Future<COSBase>>();
+            results.add(executor.submit(new Callable<COSBase>()
+            {
+                @Override
+                public COSBase call()
+                {
+                    return object.getObject();
+                }
+            }));
+            started.await();
+            for (int i = 1; i < threads; i++)
+            {
+                results.add(executor.submit(new Callable<COSBase>()
+                {
+                    @Override
+                    public COSBase call()
+                    {
+                        return object.getObject();
+                    }
+                }));
+            }
+            for (Future<COSBase> result : results)
+            {
+                assertSame(dictionary, result.get());
+            }
+            assertEquals(1, calls.get());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * An object which is reached again while it is parsed, or can't be parsed, is loaded once.
+     */
+    @Test
+    public void testLoadOnce() throws IOException
+    {
+        final AtomicInteger calls = new AtomicInteger();
+        COSObject object = new COSObject(null);
+        object.setParser(new ICOSParser()
+        {
+            @Override
+            public COSBase dereferenceCOSObject(COSObject cosObject) throws IOException
+            {
+                calls.incrementAndGet();
+                // a reference to itself
+                assertNull(cosObject.getObject());
+                throw new IOException("broken object");
+            }
+        });
+        assertNull(object.getObject());
+        assertNull(object.getObject());
+        assertEquals(1, calls.get());
+    }
+}
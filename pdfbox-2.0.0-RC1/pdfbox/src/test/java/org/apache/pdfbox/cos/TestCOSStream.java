@@ -19,8 +19,15 @@ package org.apache.pdfbox.cos;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.TestCase;
 
@@ -129,6 +136,122 @@ public class TestCOSStream extends TestCase
         validateDecoded(stream, testString);
     }
 
+    /**
+     * Tests decoding of one stream by several threads at once.
+     *
+     * @throws Exception
+     */
+    public void testConcurrentDecode() throws Exception
+    {
+        byte[] testString = new byte[100000];
+        for (int i = 0; i < testString.length; i++)
+        {
+            testString[i] = (byte) ('a' + (i * 31 + i / 7) % 26);
+        }
+        final byte[] expected = testString;
+        final COSStream stream = createStream(testString, COSName.FLATE_DECODE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 64; i++)
+            {
+                results.add(executor.submit(new Callable<Boolean>()
+                {
+                    @Override
+                    public Boolean call() throws IOException
+                    {
+                        InputStream input = stream.createInputStream();
+                        try
+                        {
+                            return Arrays.equals(expected, IOUtils.toByteArray(input));
+                        }
+                        finally
+                        {
+                            input.close();
+                        }
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results)
+            {
+                assertTrue("Decoded data doesn't match input", result.get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            stream.close();
+        }
+    }
+
+    /**
+     * Tests that the streaming decoding of a filter chain returns the same data as the full
+     * decoding.
+     *
+     * @throws IOException
+     */
+    public void testStreamingDecode() throws IOException
+    {
+        byte[] testString = new byte[50000];
+        for (int i = 0; i < testString.length; i++)
+        {
+            testString[i] = (byte) ('a' + (i * 31 + i / 7) % 26);
+        }
+        validateStreamingDecoded(createStream(testString, COSName.FLATE_DECODE), testString);
+        validateStreamingDecoded(createStream(testString, COSName.ASCII_HEX_DECODE), testString);
+
+        COSArray filters = new COSArray();
+        filters.add(COSName.ASCII85_DECODE);
+        filters.add(COSName.FLATE_DECODE);
+        COSStream stream = new COSStream();
+        stream.setItem(COSName.FILTER, filters);
+        OutputStream output = stream.createRawOutputStream();
+        output.write(encodeData(encodeData(testString, COSName.FLATE_DECODE), COSName.ASCII85_DECODE));
+        output.close();
+        validateStreamingDecoded(stream, testString);
+
+        // two literal bytes, 'x' repeated 10 times, EOD
+        stream = new COSStream();
+        stream.setItem(COSName.FILTER, COSName.RUN_LENGTH_DECODE);
+        output = stream.createRawOutputStream();
+        output.write(new byte[] { 1, 'a', 'b', (byte) 247, 'x', (byte) 128 });
+        output.close();
+        validateStreamingDecoded(stream, "abxxxxxxxxxx".getBytes("ASCII"));
+    }
+
+    /**
+     * Tests that the streaming decoding of a Flate stream with a PNG predictor returns the same
+     * data as the full decoding.
+     *
+     * @throws IOException
+     */
+    public void testStreamingDecodePredictor() throws IOException
+    {
+        int columns = 37;
+        byte[] predicted = new byte[100 * (columns * 3 + 1)];
+        for (int i = 0; i < predicted.length; i++)
+        {
+            // every row starts with a PNG filter type, cycle through all of them
+            predicted[i] = i % (columns * 3 + 1) == 0 ? (byte) (i / (columns * 3 + 1) % 5)
+                    : (byte) (i * 17 + i / 11);
+        }
+        COSStream stream = new COSStream();
+        stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        COSDictionary decodeParms = new COSDictionary();
+        decodeParms.setInt(COSName.PREDICTOR, 15);
+        decodeParms.setInt(COSName.COLORS, 3);
+        decodeParms.setInt(COSName.COLUMNS, columns);
+        stream.setItem(COSName.DECODE_PARMS, decodeParms);
+        OutputStream output = stream.createRawOutputStream();
+        output.write(encodeData(predicted, COSName.FLATE_DECODE));
+        output.close();
+
+        byte[] expected = IOUtils.toByteArray(stream.createInputStream());
+        assertEquals(100 * columns * 3, expected.length);
+        validateStreamingDecoded(stream, expected);
+    }
+
     private byte[] encodeData(byte[] original, COSName filter) throws IOException
     {
         Filter encodingFilter = FilterFactory.INSTANCE.getFilter(filter);
@@ -159,4 +282,22 @@ public class TestCOSStream extends TestCase
         stream.close();
         assertTrue("Decoded data doesn't match input", Arrays.equals(expected, encoded));
     }
+
+    private void validateStreamingDecoded(COSStream stream, byte[] expected) throws IOException
+    {
+        byte[] decoded = IOUtils.toByteArray(stream.createStreamingInputStream());
+        assertTrue("Streamed data doesn't match input", Arrays.equals(expected, decoded));
+
+        // single byte reads
+        InputStream input = stream.createStreamingInputStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != -1)
+        {
+            bytes.write(b);
+        }
+        input.close();
+        stream.close();
+        assertTrue("Streamed data doesn't match input", Arrays.equals(expected, bytes.toByteArray()));
+    }
 }
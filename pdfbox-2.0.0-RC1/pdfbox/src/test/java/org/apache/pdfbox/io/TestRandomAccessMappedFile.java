@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * This is a unit test for {@link RandomAccessMappedFile}.
+ */
+public class TestRandomAccessMappedFile extends TestCase
+{
+    private File file;
+    private byte[] data;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        data = new byte[10000];
+        new Random(1).nextBytes(data);
+        file = File.createTempFile("pdfbox", ".bin");
+        FileOutputStream output = new FileOutputStream(file);
+        try
+        {
+            output.write(data);
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        file.delete();
+    }
+
+    /**
+     * Reads across chunk boundaries with small chunks and compares the result with the data.
+     *
+     * @throws IOException
+     */
+    public void testReadAcrossChunks() throws IOException
+    {
+        // 1 KB chunks, the last chunk is shorter
+        RandomAccessMappedFile mappedFile = new RandomAccessMappedFile(file, 10);
+        assertEquals(data.length, mappedFile.length());
+
+        byte[] b = mappedFile.readFully(data.length);
+        assertEquals(data.length, mappedFile.getPosition());
+        assertTrue(mappedFile.isEOF());
+        assertEquals(-1, mappedFile.read());
+        assertEquals(-1, mappedFile.read(b, 0, 1));
+        for (int i = 0; i < data.length; i++)
+        {
+            assertEquals(data[i], b[i]);
+        }
+
+        Random random = new Random(2);
+        for (int i = 0; i < 1000; i++)
+        {
+            int position = random.nextInt(data.length);
+            mappedFile.seek(position);
+            assertEquals(data[position] & 0xff, mappedFile.peek());
+            b = new byte[random.nextInt(3000)];
+            int count = mappedFile.read(b);
+            assertEquals(Math.min(b.length, data.length - position), Math.max(count, 0));
+            for (int j = 0; j < count; j++)
+            {
+                assertEquals(data[position + j], b[j]);
+            }
+            assertEquals(position + Math.max(count, 0), mappedFile.getPosition());
+        }
+        mappedFile.close();
+        assertTrue(mappedFile.isClosed());
+        try
+        {
+            mappedFile.read();
+            fail("read after close should fail");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Checks that views have their own position and stay usable when the original is closed.
+     *
+     * @throws IOException
+     */
+    public void testViews() throws IOException
+    {
+        RandomAccessMappedFile mappedFile = new RandomAccessMappedFile(file, 10);
+        RandomAccessMappedFile view = mappedFile.createView();
+        mappedFile.seek(5000);
+        assertEquals(0, view.getPosition());
+        assertEquals(data[0] & 0xff, view.read());
+        assertEquals(data[5000] & 0xff, mappedFile.read());
+        mappedFile.close();
+
+        view.seek(9999);
+        assertEquals(data[9999] & 0xff, view.read());
+        assertEquals(-1, view.read());
+        view.close();
+    }
+
+    /**
+     * Loads a PDF with the mapped file option.
+     *
+     * @throws IOException
+     */
+    public void testLoadMapped() throws IOException
+    {
+        File pdf = File.createTempFile("pdfbox", ".pdf");
+        try
+        {
+            InputStream input = TestRandomAccessMappedFile.class.getResourceAsStream(
+                    "/org/apache/pdfbox/pdmodel/test_pagelabels.pdf");
+            FileOutputStream output = new FileOutputStream(pdf);
+            try
+            {
+                IOUtils.copy(input, output);
+            }
+            finally
+            {
+                input.close();
+                output.close();
+            }
+            PDDocument document = PDDocument.load(pdf,
+                    MemoryUsageSetting.setupMainMemoryOnly().setMapInputFile(true));
+            assertEquals(12, document.getNumberOfPages());
+            document.close();
+        }
+        finally
+        {
+            pdf.delete();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * This is a unit test for {@link ScratchFile} and its buffers.
+ */
+public class TestScratchFile extends TestCase
+{
+    private static final int PAGE_SIZE = 4096;
+
+    /**
+     * Writes and reads buffers with pages on the heap, off the heap and in a temporary file.
+     *
+     * @throws IOException
+     */
+    public void testBuffers() throws IOException
+    {
+        checkBuffers(MemoryUsageSetting.setupMainMemoryOnly());
+        checkBuffers(MemoryUsageSetting.setupMainMemoryOnly().setOffHeapMainMemory(true));
+        checkBuffers(MemoryUsageSetting.setupMixed(10 * PAGE_SIZE));
+        checkBuffers(MemoryUsageSetting.setupMixed(10 * PAGE_SIZE).setOffHeapMainMemory(true));
+        checkBuffers(MemoryUsageSetting.setupTempFileOnly());
+    }
+
+    private void checkBuffers(MemoryUsageSetting memUsageSetting) throws IOException
+    {
+        ScratchFile scratchFile = new ScratchFile(memUsageSetting);
+        Random random = new Random(1);
+        List<RandomAccess> buffers = new ArrayList<RandomAccess>();
+        List<byte[]> contents = new ArrayList<byte[]>();
+        for (int i = 0; i < 5; i++)
+        {
+            byte[] data = new byte[random.nextInt(10 * PAGE_SIZE)];
+            random.nextBytes(data);
+            buffers.add(scratchFile.createBuffer());
+            contents.add(data);
+        }
+        // write the buffers in turns, so that their pages are mixed up
+        for (int offset = 0; offset < 10 * PAGE_SIZE; offset += 1000)
+        {
+            for (int i = 0; i < buffers.size(); i++)
+            {
+                byte[] data = contents.get(i);
+                if (offset < data.length)
+                {
+                    buffers.get(i).write(data, offset, Math.min(1000, data.length - offset));
+                }
+            }
+        }
+        for (int i = 0; i < buffers.size(); i++)
+        {
+            checkContent(buffers.get(i), contents.get(i), random);
+        }
+
+        // overwrite a range crossing a page boundary
+        RandomAccess buffer = buffers.get(0);
+        byte[] data = contents.get(0);
+        if (data.length > PAGE_SIZE + 10)
+        {
+            buffer.seek(PAGE_SIZE - 10);
+            for (int i = 0; i < 20; i++)
+            {
+                data[PAGE_SIZE - 10 + i] = (byte) i;
+                buffer.write(i);
+            }
+            checkContent(buffer, data, random);
+        }
+
+        // pages of closed buffers are reused
+        buffers.get(1).close();
+        buffer.clear();
+        assertEquals(0, buffer.length());
+        buffer.write(contents.get(2));
+        checkContent(buffer, contents.get(2), random);
+        checkContent(buffers.get(2), contents.get(2), random);
+
+        scratchFile.close();
+        try
+        {
+            buffers.get(3).read();
+            fail("read after close should fail");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkContent(RandomAccess buffer, byte[] data, Random random) throws IOException
+    {
+        assertEquals(data.length, buffer.length());
+        buffer.seek(0);
+        byte[] b = new byte[data.length];
+        assertEquals(data.length, Math.max(buffer.read(b), 0));
+        for (int i = 0; i < data.length; i++)
+        {
+            assertEquals(data[i], b[i]);
+        }
+        for (int i = 0; i < 100 && data.length > 0; i++)
+        {
+            int position = random.nextInt(data.length);
+            buffer.seek(position);
+            assertEquals(data[position] & 0xff, buffer.read());
+        }
+    }
+
+    /**
+     * Checks that clearing and closing buffers frees all their pages, so that a scratch file
+     * with restricted memory can be reused.
+     *
+     * @throws IOException
+     */
+    public void testFreePages() throws IOException
+    {
+        for (boolean offHeap : new boolean[] { false, true })
+        {
+            ScratchFile scratchFile = new ScratchFile(
+                    MemoryUsageSetting.setupMainMemoryOnly(8 * PAGE_SIZE).setOffHeapMainMemory(offHeap));
+            byte[] data = new byte[8 * PAGE_SIZE];
+            RandomAccess buffer = scratchFile.createBuffer();
+            for (int i = 0; i < 10; i++)
+            {
+                buffer.write(data);
+                buffer.clear();
+            }
+            buffer.close();
+            for (int i = 0; i < 10; i++)
+            {
+                buffer = scratchFile.createBuffer();
+                buffer.write(data);
+                buffer.close();
+            }
+            buffer = scratchFile.createBuffer();
+            buffer.write(data);
+            try
+            {
+                buffer.write(0);
+                fail("the memory restriction should have been exceeded");
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+            scratchFile.close();
+        }
+    }
+
+    /**
+     * Uses one scratch file from several threads at once.
+     *
+     * @throws Exception
+     */
+    public void testConcurrentBuffers() throws Exception
+    {
+        for (boolean offHeap : new boolean[] { false, true })
+        {
+            final ScratchFile scratchFile = new ScratchFile(
+                    MemoryUsageSetting.setupMixed(100 * PAGE_SIZE).setOffHeapMainMemory(offHeap));
+            final List<Throwable> errors = new ArrayList<Throwable>();
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int t = 0; t < 4; t++)
+            {
+                final Random random = new Random(t);
+                threads.add(new Thread()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            for (int i = 0; i < 50; i++)
+                            {
+                                byte[] data = new byte[random.nextInt(20 * PAGE_SIZE)];
+                                random.nextBytes(data);
+                                RandomAccess buffer = scratchFile.createBuffer();
+                                buffer.write(data);
+                                checkContent(buffer, data, random);
+                                buffer.close();
+                            }
+                        }
+                        catch (Throwable e)
+                        {
+                            synchronized (errors)
+                            {
+                                errors.add(e);
+                            }
+                        }
+                    }
+                });
+            }
+            for (Thread thread : threads)
+            {
+                thread.start();
+            }
+            for (Thread thread : threads)
+            {
+                thread.join();
+            }
+            scratchFile.close();
+            assertTrue(errors.toString(), errors.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.contentstream.operator.OperandStack;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.util.Charsets;
+
+/**
+ * Compares tokenizing generated content streams with {@link PDFStreamParser#parseNextToken()},
+ * collecting the operands of every operator in a new list as PDFStreamEngine used to do, and
+ * with {@link PDFStreamParser#parseNextOperator(OperandStack)}. In both cases the float values
+ * of all numeric operands are read. Prints the time and, where the JVM supports it, the bytes
+ * allocated on the heap per operator.
+ *
+ * <p>Usage: ContentStreamBenchmark [operators [rounds]]</p>
+ */
+public final class ContentStreamBenchmark
+{
+    private ContentStreamBenchmark()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int operators = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        byte[] text = createTextStream(operators);
+        byte[] paths = createPathStream(operators);
+
+        // warm up
+        for (int i = 0; i < rounds; i++)
+        {
+            runTokens(text);
+            runOperators(text);
+        }
+
+        System.out.println("stream\tparser\tms\tbytes/op");
+        report("text", "tokens", text, false, rounds);
+        report("text", "operators", text, true, rounds);
+        report("paths", "tokens", paths, false, rounds);
+        report("paths", "operators", paths, true, rounds);
+    }
+
+    private static byte[] createTextStream(int operators)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < operators / 5; i++)
+        {
+            builder.append("BT\n/F").append(i % 4).append(" 11.5 Tf\n");
+            builder.append(72 + i % 400).append(".25 ").append(700 - i % 600).append(".5 Td\n");
+            builder.append("[(Hello) -250 (World) 12.75 (!)] TJ\nET\n");
+        }
+        return builder.toString().getBytes(Charsets.ISO_8859_1);
+    }
+
+    private static byte[] createPathStream(int operators)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < operators / 5; i++)
+        {
+            builder.append("q 1 0 0 1 ").append(i % 100).append(".5 ").append(i % 50).append(" cm\n");
+            builder.append("0.5 w ").append(i % 300).append(".125 10 m\n");
+            builder.append("12.5 -3.75 24.125 8 36 0.5 c\n");
+            builder.append("10 20 30.5 40.25 re S Q\n");
+        }
+        return builder.toString().getBytes(Charsets.ISO_8859_1);
+    }
+
+    private static void report(String stream, String parser, byte[] data, boolean operators,
+            int rounds) throws IOException
+    {
+        long allocated = allocatedBytes();
+        long start = System.currentTimeMillis();
+        long count = 0;
+        for (int i = 0; i < rounds; i++)
+        {
+            count += operators ? runOperators(data) : runTokens(data);
+        }
+        long time = System.currentTimeMillis() - start;
+        String perOperator = allocated < 0 ? "n/a"
+                : String.valueOf((allocatedBytes() - allocated) / count);
+        System.out.println(stream + "\t" + parser + "\t" + time + "\t" + perOperator);
+    }
+
+    private static int runTokens(byte[] data) throws IOException
+    {
+        PDFStreamParser parser = new PDFStreamParser(data);
+        List<COSBase> arguments = new ArrayList<COSBase>();
+        int count = 0;
+        float sum = 0;
+        Object token;
+        while ((token = parser.parseNextToken()) != null)
+        {
+            if (token instanceof COSObject)
+            {
+                arguments.add(((COSObject) token).getObject());
+            }
+            else if (token instanceof Operator)
+            {
+                for (COSBase argument : arguments)
+                {
+                    if (argument instanceof COSNumber)
+                    {
+                        sum += ((COSNumber) argument).floatValue();
+                    }
+                }
+                arguments = new ArrayList<COSBase>();
+                count++;
+            }
+            else
+            {
+                arguments.add((COSBase) token);
+            }
+        }
+        return sum == Float.MIN_VALUE ? 0 : count;
+    }
+
+    private static int runOperators(byte[] data) throws IOException
+    {
+        PDFStreamParser parser = new PDFStreamParser(data);
+        OperandStack arguments = new OperandStack();
+        int count = 0;
+        float sum = 0;
+        while (parser.parseNextOperator(arguments) != null)
+        {
+            for (int i = 0; i < arguments.size(); i++)
+            {
+                if (arguments.isNumber(i))
+                {
+                    sum += arguments.getFloat(i);
+                }
+            }
+            arguments.clear();
+            count++;
+        }
+        return sum == Float.MIN_VALUE ? 0 : count;
+    }
+
+    private static long allocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported())
+            {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdfparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+/**
+ * Compares loading the same small document many times with {@link PDDocument#load(InputStream)}
+ * and with a {@link PDFParserSession}. Every document is loaded, its page contents are decoded,
+ * and it's closed again. Prints the time and, where the JVM supports it, the bytes allocated
+ * on the heap per document.
+ *
+ * <p>Usage: LoadBenchmark [pdfFile [loads]]</p>
+ */
+public final class LoadBenchmark
+{
+    private LoadBenchmark()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        File file = new File(args.length > 0 ? args[0] : "src/test/resources/input/yaddatest.pdf");
+        int loads = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        InputStream input = new FileInputStream(file);
+        final byte[] data;
+        try
+        {
+            data = IOUtils.toByteArray(input);
+        }
+        finally
+        {
+            input.close();
+        }
+
+        PDFParserSession session = new PDFParserSession();
+        try
+        {
+            // warm up
+            run(null, data, loads / 4);
+            run(session, data, loads / 4);
+
+            System.out.println("loader\tms\tKB/doc");
+            report("load", run(null, data, loads), loads);
+            report("session", run(session, data, loads), loads);
+        }
+        finally
+        {
+            session.close();
+        }
+    }
+
+    private static void report(String name, long[] result, int loads)
+    {
+        System.out.println(name + "\t" + result[0] + "\t"
+                + (result[1] < 0 ? "n/a" : String.valueOf(result[1] / 1024 / loads)));
+    }
+
+    /**
+     * Returns the time in ms and the allocated bytes, or -1 if they can't be measured.
+     */
+    private static long[] run(PDFParserSession session, byte[] data, int loads)
+            throws IOException
+    {
+        long allocated = allocatedBytes();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < loads; i++)
+        {
+            InputStream input = new ByteArrayInputStream(data);
+            PDDocument document = session == null ? PDDocument.load(input) : session.load(input);
+            try
+            {
+                for (PDPage page : document.getPages())
+                {
+                    IOUtils.toByteArray(page.getContents());
+                }
+            }
+            finally
+            {
+                document.close();
+            }
+        }
+        long time = System.currentTimeMillis() - start;
+        return new long[] { time, allocated < 0 ? -1 : allocatedBytes() - allocated };
+    }
+
+    private static long allocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported())
+            {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
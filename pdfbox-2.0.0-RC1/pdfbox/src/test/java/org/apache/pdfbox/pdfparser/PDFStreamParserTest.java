@@ -16,9 +16,14 @@
 package org.apache.pdfbox.pdfparser;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import junit.framework.TestCase;
+import org.apache.pdfbox.contentstream.operator.OperandStack;
 import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSObject;
 
 
 import static org.junit.Assert.assertArrayEquals;
@@ -85,6 +90,101 @@ public class PDFStreamParserTest extends TestCase
         testInlineImage2ops("ID\n12EI5EI          Q   ", "12EI5", "Q");
     }
 
+    /**
+     * Tests that parseNextOperator() returns the same operators and operands as parseNextToken(),
+     * also for numbers which are kept as primitives.
+     *
+     * @throws IOException
+     */
+    public void testParseNextOperator() throws IOException
+    {
+        testParseNextOperator("1 0 0 1 72 720 cm 0.5 -2.50 .25 +3 -.75 +.5 00012 re");
+        testParseNextOperator("- . 5. -0 -0.0 1234567890123456789 9.87654321098765432109 m");
+        testParseNextOperator("16777217 0.1 3.14159265358979 1e5 0.0000001 l");
+        testParseNextOperator("BT /F1 12 Tf [(a) -250 (b)] TJ <41> Tj ET");
+        testParseNextOperator("/Span <</MCID 3>> BDC EMC true false null 0 0 R d0 1 2 d1");
+        testParseNextOperator("q Q W n BI /W 1 /H 1 /BPC 8 /CS /G ID\n\377EI Q");
+        testParseNextOperator("0 0 m 1 1 l S ] 2 w");
+        testParseNextOperator("12 Tz 1 2 3");
+
+        try
+        {
+            new PDFStreamParser("12345678901234567890 w".getBytes("ISO-8859-1"))
+                    .parseNextOperator(new OperandStack());
+            fail("an integer which doesn't fit into a long is an error");
+        }
+        catch (IOException e)
+        {
+            // expected, like parseNextToken()
+        }
+    }
+
+    private void testParseNextOperator(String s) throws IOException
+    {
+        List<List<COSBase>> expectedOperands = new ArrayList<List<COSBase>>();
+        List<Operator> expectedOperators = new ArrayList<Operator>();
+        PDFStreamParser parser = new PDFStreamParser(s.getBytes("ISO-8859-1"));
+        List<COSBase> operands = new ArrayList<COSBase>();
+        Object token;
+        while ((token = parser.parseNextToken()) != null)
+        {
+            if (token instanceof Operator)
+            {
+                expectedOperators.add((Operator) token);
+                expectedOperands.add(operands);
+                operands = new ArrayList<COSBase>();
+            }
+            else if (token instanceof COSObject)
+            {
+                operands.add(((COSObject) token).getObject());
+            }
+            else
+            {
+                operands.add((COSBase) token);
+            }
+        }
+
+        parser = new PDFStreamParser(s.getBytes("ISO-8859-1"));
+        OperandStack stack = new OperandStack();
+        Operator operator;
+        int index = 0;
+        while ((operator = parser.parseNextOperator(stack)) != null)
+        {
+            Operator expected = expectedOperators.get(index);
+            assertEquals(expected.getName(), operator.getName());
+            assertArrayEquals(expected.getImageData(), operator.getImageData());
+            assertEquals(String.valueOf(expected.getImageParameters()),
+                    String.valueOf(operator.getImageParameters()));
+            assertOperands(expectedOperands.get(index), stack);
+            stack.clear();
+            index++;
+        }
+        assertEquals(expectedOperators.size(), index);
+        assertOperands(operands, stack);
+    }
+
+    private void assertOperands(List<COSBase> expected, OperandStack actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            COSBase base = expected.get(i);
+            assertEquals(base instanceof COSNumber, actual.isNumber(i));
+            if (base instanceof COSNumber)
+            {
+                float value = ((COSNumber) base).floatValue();
+                assertEquals(Float.floatToIntBits(value), Float.floatToIntBits(actual.getFloat(i)));
+                assertEquals(((COSNumber) base).doubleValue(), actual.getDouble(i));
+                assertEquals(base.getClass(), actual.get(i).getClass());
+                assertEquals(value, ((COSNumber) actual.get(i)).floatValue());
+            }
+            else
+            {
+                assertEquals(String.valueOf(base), String.valueOf(actual.get(i)));
+            }
+        }
+    }
+
     // checks whether there are two operators, one inline image and the named operator
     private void testInlineImage2ops(String s, String imageDataString, String opName) throws IOException
     {
@@ -22,18 +22,34 @@
 package org.apache.pdfbox.pdfparser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSObjectKey;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
 import org.apache.pdfbox.io.RandomAccessRead;
 import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -106,6 +122,291 @@ public class TestPDFParser
         executeParserTest(new RandomAccessBufferedFileInputStream(new FileInputStream(PATH_OF_PDF)), MemoryUsageSetting.setupTempFileOnly());
     }
 
+    @Test
+    public void testPDFParserLazyStreamLoading() throws IOException
+    {
+        List<byte[]> expected = new ArrayList<byte[]>();
+        RandomAccessRead source = new RandomAccessBufferedFileInputStream(new File(PATH_OF_PDF));
+        PDFParser pdfParser = new PDFParser(source);
+        pdfParser.parse();
+        for (COSStream stream : getStreams(pdfParser.getDocument()))
+        {
+            expected.add(IOUtils.toByteArray(stream.createInputStream()));
+        }
+        pdfParser.getDocument().close();
+        source.close();
+
+        source = new RandomAccessBufferedFileInputStream(new File(PATH_OF_PDF));
+        pdfParser = new PDFParser(source);
+        pdfParser.setLazyStreamLoading(true);
+        pdfParser.parse();
+        List<COSStream> streams = getStreams(pdfParser.getDocument());
+        assertEquals(expected.size(), streams.size());
+        assertTrue(streams.size() > 0);
+        for (int i = 0; i < streams.size(); i++)
+        {
+            assertArrayEquals(expected.get(i), IOUtils.toByteArray(streams.get(i).createInputStream()));
+        }
+        // the stream data is read from the source
+        source.close();
+        try
+        {
+            streams.get(0).createInputStream();
+            fail("reading a stream after closing the source should fail");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        pdfParser.getDocument().close();
+    }
+
+    @Test
+    public void testPDFParserLazyObjectLoading() throws IOException
+    {
+        RandomAccessRead source = new RandomAccessBufferedFileInputStream(new File(PATH_OF_PDF));
+        PDFParser pdfParser = new PDFParser(source);
+        pdfParser.parse();
+        PDDocument document = pdfParser.getPDDocument();
+        int loadedObjects = countLoadedObjects(document.getDocument());
+        List<byte[]> expected = new ArrayList<byte[]>();
+        for (PDPage page : document.getPages())
+        {
+            expected.add(IOUtils.toByteArray(page.getContents()));
+        }
+        document.close();
+
+        source = new RandomAccessBufferedFileInputStream(new File(PATH_OF_PDF));
+        pdfParser = new PDFParser(source);
+        pdfParser.setLazyObjectLoading(true);
+        pdfParser.parse();
+        document = pdfParser.getPDDocument();
+        // only the trailer entries and the catalog are parsed when the document is opened
+        assertTrue(countLoadedObjects(document.getDocument()) < loadedObjects);
+        assertEquals(expected.size(), document.getNumberOfPages());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertArrayEquals(expected.get(i), IOUtils.toByteArray(document.getPage(i).getContents()));
+        }
+        document.close();
+    }
+
+    @Test
+    public void testPDFParserObjectStreamThreads() throws IOException
+    {
+        // most of the objects of this file are in object streams
+        File file = new File("src/test/resources/org/apache/pdfbox/pdmodel/interactive/form/AcroFormsBasicFields.pdf");
+        PDFParser pdfParser = new PDFParser(new RandomAccessBufferedFileInputStream(file));
+        pdfParser.parse();
+        PDDocument document = pdfParser.getPDDocument();
+        Map<COSObjectKey, String> expected = getObjectTypes(document.getDocument());
+        List<byte[]> expectedContents = new ArrayList<byte[]>();
+        for (PDPage page : document.getPages())
+        {
+            expectedContents.add(IOUtils.toByteArray(page.getContents()));
+        }
+        document.close();
+
+        pdfParser = new PDFParser(new RandomAccessBufferedFileInputStream(file));
+        pdfParser.setObjectStreamParserThreads(4);
+        pdfParser.parse();
+        document = pdfParser.getPDDocument();
+        Map<COSObjectKey, String> actual = getObjectTypes(document.getDocument());
+        // all objects of the object streams have been loaded, not only the reachable ones
+        for (Map.Entry<COSObjectKey, String> entry : expected.entrySet())
+        {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()));
+        }
+        assertTrue(actual.size() >= expected.size());
+        List<byte[]> contents = new ArrayList<byte[]>();
+        for (PDPage page : document.getPages())
+        {
+            contents.add(IOUtils.toByteArray(page.getContents()));
+        }
+        assertPageContents(expectedContents, contents);
+        document.close();
+    }
+
+    private Map<COSObjectKey, String> getObjectTypes(COSDocument document)
+    {
+        Map<COSObjectKey, String> types = new HashMap<COSObjectKey, String>();
+        for (COSObject object : document.getObjects())
+        {
+            if (!object.isObjectNull())
+            {
+                types.put(new COSObjectKey(object), object.getObject().getClass().getName());
+            }
+        }
+        return types;
+    }
+
+    @Test
+    public void testPDFParserXrefIndexStore() throws IOException
+    {
+        final List<String> saved = new ArrayList<String>();
+        MemoryXrefIndexStore store = new MemoryXrefIndexStore()
+        {
+            @Override
+            public void save(String fingerprint, XrefIndex index)
+            {
+                saved.add(fingerprint);
+                super.save(fingerprint, index);
+            }
+        };
+        List<byte[]> expected = getPageContents(new File(PATH_OF_PDF), store);
+        assertEquals(1, saved.size());
+        XrefIndex index = store.load(saved.get(0));
+        assertTrue(index.size() > 0);
+
+        // the second time the stored index is used instead of the xref table
+        assertPageContents(expected, getPageContents(new File(PATH_OF_PDF), store));
+        assertEquals(1, saved.size());
+
+        // the index survives a round trip through its binary form
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(bytes);
+        store.clear();
+        store.save(saved.get(0), XrefIndex.read(new ByteArrayInputStream(bytes.toByteArray())));
+        assertPageContents(expected, getPageContents(new File(PATH_OF_PDF), store));
+        assertEquals(2, saved.size());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testPDFParserXrefIndexSidecar() throws IOException
+    {
+        File pdf = File.createTempFile("pdfbox", ".pdf");
+        FileXrefIndexStore store = new FileXrefIndexStore(pdf);
+        try
+        {
+            FileInputStream input = new FileInputStream(PATH_OF_PDF);
+            FileOutputStream output = new FileOutputStream(pdf);
+            try
+            {
+                IOUtils.copy(input, output);
+            }
+            finally
+            {
+                input.close();
+                output.close();
+            }
+            List<byte[]> expected = getPageContents(pdf, store);
+            assertTrue(store.getIndexFile().isFile());
+            long indexModified = store.getIndexFile().lastModified();
+            assertPageContents(expected, getPageContents(pdf, store));
+
+            // the index isn't used when the file has been modified
+            assertTrue(pdf.setLastModified(pdf.lastModified() - 10000));
+            assertEquals(null, store.load("unknown"));
+            assertPageContents(expected, getPageContents(pdf, store));
+            assertTrue(store.getIndexFile().lastModified() >= indexModified);
+        }
+        finally
+        {
+            pdf.delete();
+            store.getIndexFile().delete();
+        }
+    }
+
+    @Test
+    public void testPDFParserSession() throws IOException
+    {
+        File file = new File(PATH_OF_PDF);
+        List<byte[]> expected = getPageContents(file, null);
+        FileInputStream input = new FileInputStream(file);
+        byte[] bytes;
+        try
+        {
+            bytes = IOUtils.toByteArray(input);
+        }
+        finally
+        {
+            input.close();
+        }
+        PDFParserSession session = new PDFParserSession();
+        try
+        {
+            // documents of a session may be open at the same time
+            PDDocument first = session.load(file);
+            for (int i = 0; i < 5; i++)
+            {
+                PDDocument document = session.load(new ByteArrayInputStream(bytes));
+                assertPageContents(expected, getPageContents(document));
+                document.close();
+                document = session.load(bytes);
+                assertPageContents(expected, getPageContents(document));
+                document.close();
+            }
+            // closing a document leaves the pages of the other documents alone
+            assertPageContents(expected, getPageContents(first));
+            first.close();
+        }
+        finally
+        {
+            session.close();
+        }
+    }
+
+    private List<byte[]> getPageContents(PDDocument document) throws IOException
+    {
+        List<byte[]> contents = new ArrayList<byte[]>();
+        for (PDPage page : document.getPages())
+        {
+            contents.add(IOUtils.toByteArray(page.getContents()));
+        }
+        return contents;
+    }
+
+    private List<byte[]> getPageContents(File file, XrefIndexStore store) throws IOException
+    {
+        PDFParser pdfParser = new PDFParser(new RandomAccessBufferedFileInputStream(file));
+        pdfParser.setXrefIndexStore(store);
+        pdfParser.parse();
+        PDDocument document = pdfParser.getPDDocument();
+        List<byte[]> contents = new ArrayList<byte[]>();
+        for (PDPage page : document.getPages())
+        {
+            contents.add(IOUtils.toByteArray(page.getContents()));
+        }
+        document.close();
+        return contents;
+    }
+
+    private void assertPageContents(List<byte[]> expected, List<byte[]> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private int countLoadedObjects(COSDocument document)
+    {
+        int count = 0;
+        for (COSObject object : document.getObjects())
+        {
+            if (!object.isObjectNull())
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<COSStream> getStreams(COSDocument document)
+    {
+        List<COSStream> streams = new ArrayList<COSStream>();
+        for (COSObject object : document.getObjects())
+        {
+            if (object.getObject() instanceof COSStream)
+            {
+                streams.add((COSStream) object.getObject());
+            }
+        }
+        return streams;
+    }
+
     private void executeParserTest(RandomAccessRead source, MemoryUsageSetting memUsageSetting) throws IOException
     {
         ScratchFile scratchFile = new ScratchFile(memUsageSetting);
@@ -26,8 +26,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
 
 import junit.framework.TestCase;
 import static junit.framework.TestCase.assertNull;
@@ -163,6 +166,60 @@ public class TestPDDocument extends TestCase
         loadDoc.close();
     }
     
+    /**
+     * Test an incremental save which changes one page and adds an annotation, with an xref table
+     * and with an xref stream.
+     * @throws IOException if something went wrong
+     */
+    public void testSaveIncremental() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        for (int i = 0; i < 3; i++)
+        {
+            document.addPage(new PDPage());
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.save(baos);
+        document.close();
+        checkSaveIncremental(baos.toByteArray(), 1);
+
+        InputStream in = new FileInputStream(
+                "src/test/resources/org/apache/pdfbox/pdmodel/interactive/form/AcroFormsBasicFields.pdf");
+        byte[] pdf = IOUtils.toByteArray(in);
+        in.close();
+        checkSaveIncremental(pdf, 0);
+    }
+
+    private void checkSaveIncremental(byte[] pdf, int pageIndex) throws IOException
+    {
+        PDDocument document = PDDocument.load(pdf);
+        int pageCount = document.getNumberOfPages();
+        PDPage page = document.getPage(pageIndex);
+        page.setRotation(90);
+        List<PDAnnotation> annotations = page.getAnnotations();
+        annotations.add(new PDAnnotationLink());
+        page.setAnnotations(annotations);
+        // only the page is marked, not the objects referring to it
+        page.getCOSObject().setNeedToBeUpdated(true);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.saveIncremental(baos);
+        document.close();
+
+        // the original is copied unchanged, only the changes are appended
+        byte[] updated = baos.toByteArray();
+        assertTrue(updated.length > pdf.length);
+        assertTrue(Arrays.equals(pdf, Arrays.copyOf(updated, pdf.length)));
+        assertTrue(updated.length - pdf.length < 2000);
+
+        PDDocument loadDoc = PDDocument.load(updated);
+        assertEquals(pageCount, loadDoc.getNumberOfPages());
+        page = loadDoc.getPage(pageIndex);
+        assertEquals(90, page.getRotation());
+        assertEquals(annotations.size(), page.getAnnotations().size());
+        assertTrue(page.getAnnotations().get(annotations.size() - 1) instanceof PDAnnotationLink);
+        loadDoc.close();
+    }
+
     /**
      * Test get/setVersion.
      * @throws IOException if something went wrong
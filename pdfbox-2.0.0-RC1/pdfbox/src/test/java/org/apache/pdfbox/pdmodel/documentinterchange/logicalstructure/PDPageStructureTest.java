@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PDPageStructure}.
+ */
+public class PDPageStructureTest
+{
+    /**
+     * The marked contents found through the parent tree are the ones of a walk of the whole
+     * structure tree, in the same order.
+     */
+    @Test
+    public void testSameAsTreeWalk() throws IOException
+    {
+        PDDocument document = PDDocument.load(PDPageStructureTest.class.getResourceAsStream(
+                "/org/apache/pdfbox/pdmodel/test_pagelabels.pdf"));
+        try
+        {
+            PDStructureTreeRoot root = document.getDocumentCatalog().getStructureTreeRoot();
+            int total = 0;
+            for (PDPage page : document.getPages())
+            {
+                List<Object[]> expected = walk(root, page);
+                List<PDPageStructure.Entry> entries = root.getPageStructure(page)
+                        .getMarkedContents();
+                assertEquals(expected.size(), entries.size());
+                for (int i = 0; i < entries.size(); i++)
+                {
+                    PDPageStructure.Entry entry = entries.get(i);
+                    assertSame(expected.get(i)[0], entry.getStructureElement().getCOSObject());
+                    assertEquals(expected.get(i)[1], entry.getMCID());
+                    assertSame(expected.get(i)[2], entry.getContentStream());
+                }
+                total += entries.size();
+            }
+            assertEquals(538, total);
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    /**
+     * An MCID which is used by the page and by a form XObject is found in both.
+     */
+    @Test
+    public void testSameMCIDInPageAndForm() throws IOException
+    {
+        PDPage page = new PDPage();
+        page.setStructParents(0);
+        COSStream form = new COSStream();
+        COSDictionary root = new COSDictionary();
+        COSDictionary element = new COSDictionary();
+        element.setItem(COSName.P, root);
+        element.setItem(COSName.PG, page);
+        root.setItem(COSName.K, element);
+
+        // many kids, the form reference last
+        COSArray kids = new COSArray();
+        for (int mcid = 0; mcid < 1000; mcid++)
+        {
+            kids.add(COSInteger.get(mcid));
+        }
+        COSDictionary mcr = new COSDictionary();
+        mcr.setItem(COSName.TYPE, COSName.getPDFName("MCR"));
+        mcr.setItem(COSName.STM, form);
+        mcr.setInt(COSName.MCID, 0);
+        kids.add(mcr);
+        element.setItem(COSName.K, kids);
+
+        COSArray pageParents = new COSArray();
+        for (int mcid = 0; mcid < 1000; mcid++)
+        {
+            pageParents.add(element);
+        }
+        COSArray formParents = new COSArray();
+        formParents.add(element);
+        COSArray nums = new COSArray();
+        nums.add(COSInteger.get(0));
+        nums.add(pageParents);
+        nums.add(COSInteger.get(1));
+        nums.add(formParents);
+        COSDictionary parentTree = new COSDictionary();
+        parentTree.setItem(COSName.NUMS, nums);
+        root.setItem(COSName.PARENT_TREE, parentTree);
+
+        form.setItem(COSName.SUBTYPE, COSName.FORM);
+        form.setInt(COSName.STRUCT_PARENTS, 1);
+        COSDictionary xobjects = new COSDictionary();
+        xobjects.setItem(COSName.getPDFName("Fm1"), form);
+        COSDictionary resources = new COSDictionary();
+        resources.setItem(COSName.XOBJECT, xobjects);
+        page.getCOSObject().setItem(COSName.RESOURCES, resources);
+
+        List<PDPageStructure.Entry> entries = PDPageStructure.create(
+                new PDStructureTreeRoot(root), page).getMarkedContents();
+        assertEquals(1001, entries.size());
+        for (int mcid = 0; mcid < 1000; mcid++)
+        {
+            assertEquals(mcid, entries.get(mcid).getMCID());
+            assertEquals(mcid, entries.get(mcid).getKidPath()[1]);
+            assertNull(entries.get(mcid).getContentStream());
+        }
+        PDPageStructure.Entry formEntry = entries.get(1000);
+        assertEquals(0, formEntry.getMCID());
+        assertEquals(1000, formEntry.getKidPath()[1]);
+        assertSame(form, formEntry.getContentStream());
+    }
+
+    /**
+     * The kid indexes kept by the structure tree root follow changes of the K entries, made
+     * through the structure nodes or directly to the COS objects.
+     */
+    @Test
+    public void testChangedKids()
+    {
+        PDPage page = new PDPage();
+        page.setStructParents(0);
+        COSDictionary root = new COSDictionary();
+        COSDictionary document = new COSDictionary();
+        document.setItem(COSName.P, root);
+        root.setItem(COSName.K, document);
+        COSDictionary p1 = new COSDictionary();
+        p1.setItem(COSName.P, document);
+        p1.setInt(COSName.K, 0);
+        COSDictionary p2 = new COSDictionary();
+        p2.setItem(COSName.P, document);
+        p2.setInt(COSName.K, 1);
+        COSArray kids = new COSArray();
+        kids.add(p1);
+        kids.add(p2);
+        document.setItem(COSName.K, kids);
+
+        COSArray pageParents = new COSArray();
+        pageParents.add(p1);
+        pageParents.add(p2);
+        COSArray nums = new COSArray();
+        nums.add(COSInteger.get(0));
+        nums.add(pageParents);
+        COSDictionary parentTree = new COSDictionary();
+        parentTree.setItem(COSName.NUMS, nums);
+        root.setItem(COSName.PARENT_TREE, parentTree);
+
+        PDStructureTreeRoot treeRoot = new PDStructureTreeRoot(root);
+        assertElements(treeRoot.getPageStructure(page), p1, p2);
+
+        PDStructureElement documentElement = new PDStructureElement(document);
+        PDStructureElement first = new PDStructureElement(p1);
+        documentElement.removeKid(first);
+        documentElement.appendKid(first);
+        assertElements(treeRoot.getPageStructure(page), p2, p1);
+
+        COSArray changed = new COSArray();
+        changed.add(p1);
+        document.setItem(COSName.K, changed);
+        assertElements(treeRoot.getPageStructure(page), p1);
+    }
+
+    private static void assertElements(PDPageStructure structure, COSDictionary... elements)
+    {
+        List<PDStructureElement> found = structure.getStructureElements();
+        assertEquals(elements.length, found.size());
+        for (int i = 0; i < elements.length; i++)
+        {
+            assertSame(elements[i], found.get(i).getCOSObject());
+        }
+    }
+
+    /**
+     * Collects the parent element, MCID and form XObject of the marked contents of a page by
+     * walking the structure tree.
+     */
+    private static List<Object[]> walk(PDStructureTreeRoot root, final PDPage page)
+            throws IOException
+    {
+        final List<Object[]> result = new ArrayList<Object[]>();
+        new PDStructureTreeWalker(new PDStructureTreeVisitor()
+        {
+            @Override
+            public boolean beginStructureElement(PDStructureElement element, PDPage elementPage,
+                    int depth)
+            {
+                return true;
+            }
+
+            @Override
+            public void endStructureElement(PDStructureElement element, int depth)
+            {
+            }
+
+            @Override
+            public void visitMarkedContent(PDStructureElement parent, int mcid,
+                    PDPage contentPage, PDMarkedContentReference reference)
+            {
+                if (contentPage == null || contentPage.getCOSObject() != page.getCOSObject())
+                {
+                    return;
+                }
+                COSBase stm = null;
+                if (reference != null && reference.getStm() != null)
+                {
+                    stm = reference.getStm().getObject();
+                }
+                result.add(new Object[] { parent.getCOSObject(), mcid, stm });
+            }
+
+            @Override
+            public void visitObjectReference(PDStructureElement parent,
+                    PDObjectReference reference)
+            {
+            }
+        }).walk(root);
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PDParentTreeIndex}.
+ */
+public class PDParentTreeIndexTest
+{
+    @Test
+    public void testLookup()
+    {
+        COSDictionary p1 = new COSDictionary();
+        COSDictionary p2 = new COSDictionary();
+        COSDictionary link = new COSDictionary();
+
+        COSArray mcids = new COSArray();
+        mcids.add(p1);
+        mcids.add(COSNull.NULL);
+        mcids.add(p2);
+        COSArray nums1 = new COSArray();
+        nums1.add(COSInteger.get(0));
+        nums1.add(mcids);
+        COSDictionary leaf1 = new COSDictionary();
+        leaf1.setItem(COSName.NUMS, nums1);
+
+        COSArray nums2 = new COSArray();
+        nums2.add(COSInteger.get(1000));
+        nums2.add(link);
+        COSDictionary leaf2 = new COSDictionary();
+        leaf2.setItem(COSName.NUMS, nums2);
+
+        COSArray kids = new COSArray();
+        kids.add(leaf2);
+        kids.add(leaf1);
+        COSDictionary root = new COSDictionary();
+        root.setItem(COSName.KIDS, kids);
+
+        PDParentTreeIndex index = new PDParentTreeIndex(root);
+        assertEquals(2, index.size());
+        assertTrue(index.containsKey(0));
+        assertTrue(index.containsKey(1000));
+        assertFalse(index.containsKey(1));
+
+        assertEquals(3, index.getMarkedContentCount(0));
+        assertSame(p1, index.getParentObject(0, 0));
+        assertNull(index.getParentObject(0, 1));
+        assertSame(p2, index.getParentObject(0, 2));
+        assertNull(index.getParentObject(0, 3));
+        assertNull(index.getParentObject(0));
+
+        assertEquals(0, index.getMarkedContentCount(1000));
+        assertSame(link, index.getParentObject(1000));
+        assertNull(index.getParentObject(1000, 0));
+        assertNull(index.getParentObject(-1));
+    }
+
+    /**
+     * Every marked-content reference of the structure tree must be found in the parent tree.
+     */
+    @Test
+    public void testTaggedDocument() throws IOException
+    {
+        PDDocument document = PDDocument.load(PDParentTreeIndexTest.class.getResourceAsStream(
+                "/org/apache/pdfbox/pdmodel/test_pagelabels.pdf"));
+        try
+        {
+            PDStructureTreeRoot root = document.getDocumentCatalog().getStructureTreeRoot();
+            final PDParentTreeIndex index = root.getParentTreeIndex();
+            assertNotNull(index);
+            assertSame(index, root.getParentTreeIndex());
+            final int[] count = new int[1];
+            new PDStructureTreeWalker(new PDStructureTreeVisitor()
+            {
+                @Override
+                public boolean beginStructureElement(PDStructureElement element, PDPage page,
+                        int depth)
+                {
+                    return true;
+                }
+
+                @Override
+                public void endStructureElement(PDStructureElement element, int depth)
+                {
+                }
+
+                @Override
+                public void visitMarkedContent(PDStructureElement parent, int mcid, PDPage page,
+                        PDMarkedContentReference reference)
+                {
+                    // marked content in a form XObject uses the StructParents key of the form
+                    int key = page.getStructParents();
+                    if (reference != null && reference.getStm() != null)
+                    {
+                        COSDictionary stm = (COSDictionary) reference.getStm().getObject();
+                        key = stm.getInt(COSName.STRUCT_PARENTS);
+                    }
+                    assertSame(parent.getCOSObject(), index.getParentObject(key, mcid));
+                    count[0]++;
+                }
+
+                @Override
+                public void visitObjectReference(PDStructureElement parent,
+                        PDObjectReference reference)
+                {
+                }
+            }).walk(root);
+            assertEquals(538, count[0]);
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+}
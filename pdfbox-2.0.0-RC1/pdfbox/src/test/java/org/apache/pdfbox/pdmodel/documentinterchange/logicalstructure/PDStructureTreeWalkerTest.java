@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PDStructureTreeWalker}.
+ */
+public class PDStructureTreeWalkerTest
+{
+    /**
+     * A kid shared by two elements is walked for both, a kid which is its own ancestor is
+     * skipped and reported.
+     */
+    @Test
+    public void testCycleAndSharedKid() throws IOException
+    {
+        COSDictionary root = new COSDictionary();
+        COSDictionary a = element("A");
+        COSDictionary b = element("B");
+        COSDictionary c = element("C");
+        COSDictionary shared = element("S");
+        root.setItem(COSName.K, a);
+        a.setItem(COSName.K, array(b, c));
+        b.setItem(COSName.K, array(shared, COSInteger.get(0)));
+        c.setItem(COSName.K, array(shared, a));
+        shared.setInt(COSName.K, 1);
+
+        final List<String> events = new ArrayList<String>();
+        PDStructureTreeWalker walker = new PDStructureTreeWalker(new PDStructureTreeVisitor()
+        {
+            @Override
+            public boolean beginStructureElement(PDStructureElement element, PDPage page,
+                    int depth)
+            {
+                events.add(element.getStructureType() + depth);
+                return true;
+            }
+
+            @Override
+            public void endStructureElement(PDStructureElement element, int depth)
+            {
+                events.add("/" + element.getStructureType());
+            }
+
+            @Override
+            public void visitMarkedContent(PDStructureElement parent, int mcid, PDPage page,
+                    PDMarkedContentReference reference)
+            {
+                events.add(parent.getStructureType() + ":" + mcid);
+            }
+
+            @Override
+            public void visitObjectReference(PDStructureElement parent,
+                    PDObjectReference reference)
+            {
+            }
+        })
+        {
+            @Override
+            protected void cycleDetected(PDStructureNode parent, PDStructureElement kid)
+            {
+                events.add("cycle " + ((PDStructureElement) parent).getStructureType() + "->"
+                        + kid.getStructureType());
+            }
+        };
+        walker.walk(new PDStructureTreeRoot(root));
+
+        assertEquals(Arrays.asList("A0", "B1", "S2", "S:1", "/S", "B:0", "/B", "C1", "S2", "S:1",
+                "/S", "cycle C->A", "/C", "/A"), events);
+
+        // the walker can be used again, also for a sub tree
+        events.clear();
+        walker.walk(new PDStructureElement(c));
+        assertEquals(Arrays.asList("C0", "S1", "S:1", "/S", "A1", "B2", "S3", "S:1", "/S", "B:0",
+                "/B", "cycle A->C", "/A", "/C"), events);
+    }
+
+    private static COSDictionary element(String type)
+    {
+        COSDictionary element = new COSDictionary();
+        element.setItem(COSName.TYPE, COSName.getPDFName("StructElem"));
+        element.setItem(COSName.S, COSName.getPDFName(type));
+        return element;
+    }
+
+    private static COSArray array(COSBase... kids)
+    {
+        COSArray array = new COSArray();
+        for (COSBase kid : kids)
+        {
+            array.add(kid);
+        }
+        return array;
+    }
+}
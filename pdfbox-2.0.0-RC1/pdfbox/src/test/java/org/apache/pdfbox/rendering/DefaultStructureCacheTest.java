@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.GeneralPath;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDMarkedContent;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DefaultStructureCache} and {@link MarkedContentIndex}.
+ */
+public class DefaultStructureCacheTest
+{
+    private static MarkedContentIndex createIndex(int mcidCount)
+    {
+        List<PDMarkedContent> contents = new ArrayList<PDMarkedContent>();
+        MarkedContentIndex index = new MarkedContentIndex(contents);
+        for (int i = 0; i < mcidCount; i++)
+        {
+            COSDictionary properties = new COSDictionary();
+            properties.setInt(COSName.MCID, i * 7);
+            PDMarkedContent content = PDMarkedContent.create(COSName.P, properties);
+            contents.add(content);
+            index.put(i * 7, content);
+        }
+        return index;
+    }
+
+    @Test
+    public void testIndexLookup()
+    {
+        MarkedContentIndex index = createIndex(100);
+        assertEquals(100, index.size());
+        for (int i = 0; i < 100; i++)
+        {
+            assertSame(index.getMarkedContentList().get(i), index.get(i * 7));
+        }
+        assertNull(index.get(1));
+        assertNull(index.get(-1));
+    }
+
+    @Test
+    public void testPageLimit()
+    {
+        DefaultStructureCache cache = new DefaultStructureCache(2, Long.MAX_VALUE);
+        COSDictionary page1 = new COSDictionary();
+        COSDictionary page2 = new COSDictionary();
+        COSDictionary page3 = new COSDictionary();
+        MarkedContentIndex index1 = createIndex(1);
+        cache.put(page1, index1);
+        cache.put(page2, createIndex(1));
+
+        // page1 becomes the most recently used entry
+        assertSame(index1, cache.get(page1));
+        cache.put(page3, createIndex(1));
+
+        assertNull(cache.get(page2));
+        assertSame(index1, cache.get(page1));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testWeightLimit()
+    {
+        MarkedContentIndex small = createIndex(1);
+        MarkedContentIndex large = createIndex(50);
+        DefaultStructureCache cache = new DefaultStructureCache(100, large.getWeight());
+
+        COSDictionary page1 = new COSDictionary();
+        COSDictionary page2 = new COSDictionary();
+        cache.put(page1, small);
+        assertEquals(small.getWeight(), cache.getWeight());
+
+        cache.put(page2, large);
+        assertNull(cache.get(page1));
+        assertSame(large, cache.get(page2));
+        assertEquals(large.getWeight(), cache.getWeight());
+
+        // an entry heavier than the whole cache is not kept
+        cache.put(page1, createIndex(100));
+        assertNull(cache.get(page1));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testPathWeight()
+    {
+        PDMarkedContent glyphs = PDMarkedContent.create(COSName.P, new COSDictionary());
+        PDMarkedContent path = PDMarkedContent.create(COSName.P, new COSDictionary());
+        PDMarkedContent longPath = PDMarkedContent.create(COSName.P, new COSDictionary());
+        GeneralPath shape = new GeneralPath();
+        GeneralPath longShape = new GeneralPath();
+        shape.moveTo(0, 0);
+        longShape.moveTo(0, 0);
+        for (int i = 1; i <= 1000; i++)
+        {
+            longShape.lineTo(i, i % 2);
+        }
+        for (int i = 0; i < 100; i++)
+        {
+            glyphs.addOutlineShape(new Rectangle(i * 10, 0, 8, 10));
+        }
+        shape.lineTo(1000, 1);
+        path.addOutlineShape(shape);
+        longPath.addOutlineShape(longShape);
+
+        // a path is weighted by its segments, not as a single shape like a glyph box
+        assertTrue(longPath.getWeight() > 100 * path.getWeight());
+        assertTrue(longPath.getWeight() > glyphs.getWeight());
+    }
+}
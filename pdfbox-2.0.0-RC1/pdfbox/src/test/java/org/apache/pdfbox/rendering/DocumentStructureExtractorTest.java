@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDMarkedContent;
+import org.junit.Test;
+
+/**
+ * Tests that the parallel extraction of {@link DocumentStructureExtractor} gives the same marked
+ * content as the sequential one.
+ */
+public class DocumentStructureExtractorTest
+{
+    private static final String[] FILES = { "/org/apache/pdfbox/pdmodel/test_pagelabels.pdf",
+        "/input/cweb.pdf" };
+
+    @Test
+    public void testExtractAll() throws IOException
+    {
+        for (String file : FILES)
+        {
+            assertParallelEqualsSequential(file, MemoryUsageSetting.setupMainMemoryOnly());
+        }
+    }
+
+    @Test
+    public void testExtractAllLazyLoading() throws IOException
+    {
+        for (String file : FILES)
+        {
+            assertParallelEqualsSequential(file, MemoryUsageSetting.setupMainMemoryOnly()
+                    .setLazyObjectLoading(true).setLazyStreamLoading(true));
+        }
+    }
+
+    @Test
+    public void testExtractRange() throws IOException
+    {
+        String file = FILES[0];
+        List<String> expected = extractSequential(file, MemoryUsageSetting.setupMainMemoryOnly());
+        PDDocument document = load(file, MemoryUsageSetting.setupMainMemoryOnly());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            DocumentStructureExtractor extractor = new DocumentStructureExtractor(document);
+            // a page which is cached already is taken from the cache
+            extractor.extract(1);
+            int to = Math.min(4, document.getNumberOfPages());
+            List<List<PDMarkedContent>> pages = extractor.extractRange(0, to, executor);
+            assertEquals(to, pages.size());
+            for (int i = 0; i < to; i++)
+            {
+                assertEquals(expected.get(i), describe(pages.get(i)));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            document.close();
+        }
+    }
+
+    private static void assertParallelEqualsSequential(String file, MemoryUsageSetting setting)
+            throws IOException
+    {
+        List<String> expected = extractSequential(file, setting);
+        PDDocument document = load(file, setting);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<List<PDMarkedContent>> pages =
+                    new DocumentStructureExtractor(document).extractAll(executor);
+            assertEquals(expected.size(), pages.size());
+            for (int i = 0; i < pages.size(); i++)
+            {
+                assertEquals(file + " page " + i, expected.get(i), describe(pages.get(i)));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            document.close();
+        }
+    }
+
+    private static List<String> extractSequential(String file, MemoryUsageSetting setting)
+            throws IOException
+    {
+        PDDocument document = load(file, setting);
+        try
+        {
+            DocumentStructureExtractor extractor = new DocumentStructureExtractor(document);
+            List<String> pages = new ArrayList<String>();
+            for (int i = 0; i < document.getNumberOfPages(); i++)
+            {
+                pages.add(describe(extractor.extract(i)));
+            }
+            assertTrue(file, !pages.isEmpty());
+            return pages;
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    private static PDDocument load(String file, MemoryUsageSetting setting) throws IOException
+    {
+        return PDDocument.load(DocumentStructureExtractorTest.class.getResourceAsStream(file),
+                setting);
+    }
+
+    /**
+     * Describes the marked contents of a page with their kids, text and outline bounds.
+     */
+    private static String describe(List<PDMarkedContent> contents)
+    {
+        StringBuilder buf = new StringBuilder();
+        for (PDMarkedContent content : contents)
+        {
+            describe(content, buf);
+        }
+        return buf.toString();
+    }
+
+    private static void describe(PDMarkedContent content, StringBuilder buf)
+    {
+        buf.append('(').append(content.getTag()).append(' ').append(content.getMCID());
+        buf.append(' ').append(content.isArtifact()).append(' ');
+        buf.append(content.getContentString()).append(' ').append(content.getOutlineBounds());
+        for (Object kid : content.getContents())
+        {
+            if (kid instanceof PDMarkedContent)
+            {
+                describe((PDMarkedContent) kid, buf);
+            }
+        }
+        buf.append(')');
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.text;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.interactive.pagenavigation.PDThreadBead;
+import org.junit.Test;
+
+/**
+ * Test that the parallel text extraction gives the same text as the sequential one.
+ */
+public class TestParallelPDFTextStripper
+{
+    private static final String[] FILES = { "cweb.pdf", "sampleForSpec.pdf", "yaddatest.pdf",
+        "FC60_Times.pdf", "openoffice-test-document.pdf", "rotation.pdf" };
+
+    @Test
+    public void testDefaultSettings() throws IOException
+    {
+        for (String file : FILES)
+        {
+            PDDocument document = load(file);
+            try
+            {
+                assertEquals(file, new PDFTextStripper().getText(document),
+                        new ParallelPDFTextStripper(4).getText(document));
+            }
+            finally
+            {
+                document.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSettings() throws IOException
+    {
+        for (String file : FILES)
+        {
+            PDDocument document = load(file);
+            try
+            {
+                PDFTextStripper sequential = new PDFTextStripper();
+                PDFTextStripper parallel = new ParallelPDFTextStripper(3);
+                for (PDFTextStripper stripper : new PDFTextStripper[] { sequential, parallel })
+                {
+                    stripper.setSortByPosition(true);
+                    stripper.setAddMoreFormatting(true);
+                    stripper.setParagraphStart("<p>");
+                    stripper.setParagraphEnd("</p>");
+                    stripper.setPageStart("<page>");
+                    stripper.setArticleStart("<article>");
+                    stripper.setStartPage(2);
+                }
+                assertEquals(file, sequential.getText(document), parallel.getText(document));
+            }
+            finally
+            {
+                document.close();
+            }
+        }
+    }
+
+    @Test
+    public void testBeads() throws IOException
+    {
+        PDDocument document = load("cweb.pdf");
+        try
+        {
+            // two columns on each page
+            for (PDPage page : document.getPages())
+            {
+                PDRectangle box = page.getMediaBox();
+                float half = box.getWidth() / 2;
+                List<PDThreadBead> beads = new ArrayList<PDThreadBead>();
+                for (int i = 0; i < 2; i++)
+                {
+                    PDThreadBead bead = new PDThreadBead();
+                    bead.setPage(page);
+                    bead.setRectangle(new PDRectangle(box.getLowerLeftX() + i * half,
+                            box.getLowerLeftY(), half, box.getHeight()));
+                    beads.add(bead);
+                }
+                page.setThreadBeads(beads);
+            }
+            PDFTextStripper sequential = new PDFTextStripper();
+            PDFTextStripper parallel = new ParallelPDFTextStripper(4);
+            for (PDFTextStripper stripper : new PDFTextStripper[] { sequential, parallel })
+            {
+                stripper.setArticleStart("<article>");
+                stripper.setArticleEnd("</article>");
+            }
+            String text = sequential.getText(document);
+            assertEquals(text, parallel.getText(document));
+            assertEquals(5 * document.getNumberOfPages(), text.split("<article>", -1).length - 1);
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testSingleThread() throws IOException
+    {
+        PDDocument document = load("cweb.pdf");
+        try
+        {
+            PDFTextStripper parallel = new ParallelPDFTextStripper(1);
+            parallel.setEndPage(3);
+            PDFTextStripper sequential = new PDFTextStripper();
+            sequential.setEndPage(3);
+            assertEquals(sequential.getText(document), parallel.getText(document));
+
+            // the stripper can be reused
+            assertEquals(sequential.getText(document), parallel.getText(document));
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    private static PDDocument load(String file) throws IOException
+    {
+        return PDDocument.load(TestParallelPDFTextStripper.class.getResourceAsStream(
+                "/input/" + file));
+    }
+}
@@ -18,6 +18,7 @@ package org.apache.pdfbox.tools;
 
 import org.apache.pdfbox.debugger.PDFDebugger;
 import org.apache.pdfbox.debugger.PDFViewer;
+import org.apache.pdfbox.tools.pdfua.TagsExtractor;
 
 /**
  * Simple wrapper around all the command line utilities included in PDFBox.
@@ -99,6 +100,10 @@ public final class PDFBox
             {
                 PDFToImage.main(arguments);
             }
+            else if (command.equals("TagsExtractor"))
+            {
+                TagsExtractor.main(arguments);
+            }
             else if (command.equals("TextToPDF"))
             {
                 TextToPDF.main(arguments);
@@ -140,6 +145,7 @@ public final class PDFBox
                 + "  PDFReader\n"
                 + "  PDFSplit\n"
                 + "  PDFToImage\n"
+                + "  TagsExtractor\n"
                 + "  TextToPDF\n"
                 + "  WriteDecodedDoc";
         
@@ -1,39 +1,516 @@
 package org.apache.pdfbox.tools.pdfua;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDMarkedContentReference;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDObjectReference;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDParentTreeIndex;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureElement;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureTreeRoot;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureTreeVisitor;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureTreeWalker;
 import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDMarkedContent;
+import org.apache.pdfbox.rendering.DefaultStructureCache;
 import org.apache.pdfbox.rendering.DocumentStructureExtractor;
 
-public class TagsExtractor {
+/**
+ * Extracts the structure trees and the marked content of many documents and writes them as
+ * newline delimited JSON, one record per line.
+ *
+ * <p>Each document is processed by one worker of a fixed thread pool. The structure tree is
+ * streamed with a {@link PDStructureTreeWalker} and the pages are extracted one after the
+ * other, so the memory used by a worker doesn't grow with the number of pages. The records
+ * are:</p>
+ * <ul>
+ *   <li>{"type":"element","file","id","parent","depth","structType","standardType","page",
+ *   "lang","alt","actualText"} for each structure element in tree order,</li>
+ *   <li>{"type":"content","file","page","mcid","tag","artifact","element","text"} for each
+ *   top level marked-content sequence of a page, element is the id of the structure element
+ *   which owns the MCID,</li>
+ *   <li>{"type":"document","file","status","error","pages","elements","contents","loadMs",
+ *   "structureMs","contentMs","totalMs"} after the other records of a document.</li>
+ * </ul>
+ * <p>Records of different documents may be interleaved, each record carries the file name.</p>
+ */
+public final class TagsExtractor {
 
-	public static void main(String[] args) {
-		File pdf = new File("c:/uatest/pdf_reference_1-7.pdf");
+	private static final String PASSWORD = "-password";
+	private static final String THREADS = "-threads";
+	private static final String OUTPUT = "-output";
+	private static final String NO_TEXT = "-noText";
+	private static final String NO_STRUCTURE = "-noStructure";
+	private static final String NO_CONTENT = "-noContent";
+	private static final String MAX_MEMORY = "-maxMemory";
+
+	private final Writer output;
+	private String password = "";
+	private boolean writeText = true;
+	private boolean writeStructure = true;
+	private boolean writeContent = true;
+	private long maxMainMemoryBytes = 32L * 1024 * 1024;
+
+	/**
+	 * Creates an extractor which writes NDJSON records to the given writer, the writer is used
+	 * by all workers and is not closed.
+	 *
+	 * @param output the output
+	 */
+	public TagsExtractor(Writer output) {
+		this.output = output;
+	}
+
+	public static void main(String[] args) throws IOException {
+		// suppress the Dock icon on OS X
+		System.setProperty("apple.awt.UIElement", "true");
+
+		String outputFile = null;
+		String password = "";
+		int threads = Runtime.getRuntime().availableProcessors();
+		long maxMemory = 32;
+		boolean text = true;
+		boolean structure = true;
+		boolean content = true;
+		List<File> inputs = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals(PASSWORD)) {
+				password = argument(args, ++i);
+			} else if (args[i].equals(THREADS)) {
+				threads = Integer.parseInt(argument(args, ++i));
+			} else if (args[i].equals(OUTPUT)) {
+				outputFile = argument(args, ++i);
+			} else if (args[i].equals(MAX_MEMORY)) {
+				maxMemory = Long.parseLong(argument(args, ++i));
+			} else if (args[i].equals(NO_TEXT)) {
+				text = false;
+			} else if (args[i].equals(NO_STRUCTURE)) {
+				structure = false;
+			} else if (args[i].equals(NO_CONTENT)) {
+				content = false;
+			} else {
+				collectFiles(new File(args[i]), inputs);
+			}
+		}
+		if (inputs.isEmpty() || threads < 1) {
+			usage();
+		}
+
+		Writer writer = null;
+		try {
+			if (outputFile == null) {
+				writer = new BufferedWriter(new OutputStreamWriter(System.out, "UTF-8"));
+			} else {
+				writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8"));
+			}
+			TagsExtractor extractor = new TagsExtractor(writer);
+			extractor.setPassword(password);
+			extractor.setMaxMainMemoryBytes(maxMemory * 1024 * 1024);
+			extractor.setWriteText(text);
+			extractor.setWriteStructure(structure);
+			extractor.setWriteContent(content);
+
+			long startTime = System.currentTimeMillis();
+			int failures = extractor.extractAll(inputs, threads);
+			long elapsed = System.currentTimeMillis() - startTime;
+			System.err.println("Processed " + inputs.size() + " documents (" + failures + " failed) in "
+					+ elapsed + " ms using " + threads + " threads");
+		} finally {
+			if (outputFile == null) {
+				if (writer != null) {
+					writer.flush();
+				}
+			} else {
+				IOUtils.closeQuietly(writer);
+			}
+		}
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	/**
+	 * Sets the main memory a document may use for decoded streams, temporary files are used
+	 * above.
+	 *
+	 * @param maxMainMemoryBytes the maximum in bytes
+	 */
+	public void setMaxMainMemoryBytes(long maxMainMemoryBytes) {
+		this.maxMainMemoryBytes = maxMainMemoryBytes;
+	}
+
+	public void setWriteText(boolean writeText) {
+		this.writeText = writeText;
+	}
+
+	public void setWriteStructure(boolean writeStructure) {
+		this.writeStructure = writeStructure;
+	}
+
+	public void setWriteContent(boolean writeContent) {
+		this.writeContent = writeContent;
+	}
+
+	private static String argument(String[] args, int i) {
+		if (i >= args.length) {
+			usage();
+		}
+		return args[i];
+	}
+
+	/**
+	 * Adds a file, or all PDF files found in a directory and its sub directories, sorted by name.
+	 */
+	private static void collectFiles(File file, List<File> files) {
+		if (!file.isDirectory()) {
+			files.add(file);
+			return;
+		}
+		File[] children = file.listFiles();
+		if (children == null) {
+			return;
+		}
+		Arrays.sort(children);
+		for (File child : children) {
+			if (child.isDirectory() || child.getName().toLowerCase().endsWith(".pdf")) {
+				collectFiles(child, files);
+			}
+		}
+	}
+
+	/**
+	 * Extracts the given documents on a pool of worker threads. A document which can't be
+	 * processed gets a document record with status "error", the others are processed anyway.
+	 *
+	 * @param files the PDF files
+	 * @param threads the number of worker threads
+	 * @return the number of documents which failed
+	 * @throws IOException if the output can't be written
+	 */
+	public int extractAll(List<File> files, int threads) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(files.size());
+			for (final File file : files) {
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws IOException {
+						return extract(file);
+					}
+				}));
+			}
+			int failures = 0;
+			for (Future<Boolean> future : futures) {
+				try {
+					if (!future.get()) {
+						failures++;
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Extraction interrupted", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException) {
+						// the output failed
+						throw (IOException) e.getCause();
+					}
+					throw new IOException(e.getCause());
+				}
+			}
+			this.output.flush();
+			return failures;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Extracts one document.
+	 *
+	 * @param file the PDF file
+	 * @return true if the document was processed, false if it failed
+	 * @throws IOException if the output can't be written
+	 */
+	public boolean extract(File file) throws IOException {
+		String fileName = file.getPath();
+		DocumentRecord record = new DocumentRecord();
+		long startTime = System.currentTimeMillis();
+		PDDocument document = null;
+		Map<COSDictionary, Integer> elementIds = new IdentityHashMap<COSDictionary, Integer>();
 		try {
-			extract(pdf);
+			document = PDDocument.load(file, this.password, MemoryUsageSetting.setupMixed(this.maxMainMemoryBytes));
+			record.pages = document.getNumberOfPages();
+			long loadTime = System.currentTimeMillis();
+			record.loadMs = loadTime - startTime;
+
+			PDStructureTreeRoot root = document.getDocumentCatalog().getStructureTreeRoot();
+			Map<COSDictionary, Integer> pageIndexes = new IdentityHashMap<COSDictionary, Integer>();
+			for (int i = 0; i < record.pages; i++) {
+				pageIndexes.put(document.getPage(i).getCOSObject(), i);
+			}
+			if (root != null && (this.writeStructure || this.writeContent)) {
+				this.writeStructure(fileName, root, pageIndexes, elementIds, record);
+			}
+			long structureTime = System.currentTimeMillis();
+			record.structureMs = structureTime - loadTime;
+
+			if (this.writeContent) {
+				PDParentTreeIndex parentTree = root == null ? null : root.getParentTreeIndex();
+				this.writeContent(fileName, document, parentTree, elementIds, record);
+			}
+			record.contentMs = System.currentTimeMillis() - structureTime;
+			record.status = "ok";
+		} catch (OutputException e) {
+			// not a problem of the document, stop the batch
+			throw e.getCause();
 		} catch (IOException e) {
-			e.printStackTrace();
+			record.status = "error";
+			record.error = e.toString();
+		} catch (RuntimeException e) {
+			record.status = "error";
+			record.error = e.toString();
+		} catch (Error e) {
+			// e.g. a StackOverflowError in a deeply nested structure tree, only this document fails
+			record.status = "error";
+			record.error = e.toString();
+		} finally {
+			elementIds.clear();
+			IOUtils.closeQuietly(document);
+		}
+		record.totalMs = System.currentTimeMillis() - startTime;
+
+		StringBuilder buf = new StringBuilder();
+		buf.append("{\"type\":\"document\",\"file\":");
+		appendString(buf, fileName);
+		buf.append(",\"status\":");
+		appendString(buf, record.status);
+		if (record.error != null) {
+			buf.append(",\"error\":");
+			appendString(buf, record.error);
 		}
+		buf.append(",\"pages\":").append(record.pages);
+		buf.append(",\"elements\":").append(record.elements);
+		buf.append(",\"contents\":").append(record.contents);
+		buf.append(",\"loadMs\":").append(record.loadMs);
+		buf.append(",\"structureMs\":").append(record.structureMs);
+		buf.append(",\"contentMs\":").append(record.contentMs);
+		buf.append(",\"totalMs\":").append(record.totalMs);
+		buf.append('}');
+		try {
+			this.writeRecord(buf);
+		} catch (OutputException e) {
+			throw e.getCause();
+		}
+		return "ok".equals(record.status);
 	}
 
-	public static void extract(File pdf) throws IOException {
-		PDDocument document = PDDocument.load(pdf);
-		int n = document.getNumberOfPages();
-		
-		DocumentStructureExtractor extractor = new DocumentStructureExtractor(document);	
-		for (int i = 0; i < n; i++) {
-	        PDPage page = document.getPage(i);
-	        
+	private void writeStructure(final String fileName, PDStructureTreeRoot root,
+			final Map<COSDictionary, Integer> pageIndexes, final Map<COSDictionary, Integer> elementIds,
+			final DocumentRecord record) throws IOException {
+		final List<Integer> parentIds = new ArrayList<Integer>();
+		new PDStructureTreeWalker(new PDStructureTreeVisitor() {
+			@Override
+			public boolean beginStructureElement(PDStructureElement element, PDPage page, int depth)
+					throws IOException {
+				int id = record.elements++;
+				elementIds.put(element.getCOSObject(), id);
+				if (TagsExtractor.this.writeStructure) {
+					StringBuilder buf = new StringBuilder();
+					buf.append("{\"type\":\"element\",\"file\":");
+					appendString(buf, fileName);
+					buf.append(",\"id\":").append(id);
+					buf.append(",\"parent\":").append(parentIds.isEmpty() ? -1 : parentIds.get(parentIds.size() - 1));
+					buf.append(",\"depth\":").append(depth);
+					buf.append(",\"structType\":");
+					appendString(buf, element.getStructureType());
+					buf.append(",\"standardType\":");
+					appendString(buf, element.getStandardStructureType());
+					Integer pageIndex = page == null ? null : pageIndexes.get(page.getCOSObject());
+					buf.append(",\"page\":").append(pageIndex == null ? -1 : pageIndex.intValue());
+					appendOptional(buf, "lang", element.getLanguage());
+					appendOptional(buf, "alt", element.getAlternateDescription());
+					appendOptional(buf, "actualText", element.getActualText());
+					buf.append('}');
+					TagsExtractor.this.writeRecord(buf);
+				}
+				parentIds.add(id);
+				return true;
+			}
+
+			@Override
+			public void endStructureElement(PDStructureElement element, int depth) {
+				parentIds.remove(parentIds.size() - 1);
+			}
+
+			@Override
+			public void visitMarkedContent(PDStructureElement parent, int mcid, PDPage page,
+					PDMarkedContentReference reference) {
+				// written with the page content
+			}
+
+			@Override
+			public void visitObjectReference(PDStructureElement parent, PDObjectReference reference) {
+				// not marked content
+			}
+		}).walk(root);
+	}
+
+	private void writeContent(String fileName, PDDocument document, PDParentTreeIndex parentTree,
+			Map<COSDictionary, Integer> elementIds, DocumentRecord record) throws IOException {
+		// the pages are extracted once and in order, only keep the current one
+		DocumentStructureExtractor extractor = new DocumentStructureExtractor(document,
+				new DefaultStructureCache(1, DefaultStructureCache.DEFAULT_MAX_WEIGHT), true);
+		for (int i = 0; i < record.pages; i++) {
+			PDPage page = document.getPage(i);
+			// not getStructParents(), which is 0 when the entry is missing
+			int pageStructParents = page.getCOSObject().getInt(COSName.STRUCT_PARENTS);
 			List<PDMarkedContent> contents = extractor.extract(page);
-			
-			System.out.println(contents.size());
 			for (PDMarkedContent content : contents) {
-				System.out.println(content.toString());
+				record.contents++;
+				int mcid = content.getMCID();
+				// the MCID of a marked content in a form XObject belongs to the form
+				int structParents = content.getXObjectRefTag() == null ? pageStructParents
+						: content.getXObjectStructParents();
+				COSDictionary parent = parentTree == null || mcid < 0 || structParents < 0 ? null
+						: parentTree.getParentObject(structParents, mcid);
+				Integer elementId = parent == null ? null : elementIds.get(parent);
+
+				StringBuilder buf = new StringBuilder();
+				buf.append("{\"type\":\"content\",\"file\":");
+				appendString(buf, fileName);
+				buf.append(",\"page\":").append(i);
+				buf.append(",\"mcid\":").append(mcid);
+				buf.append(",\"tag\":");
+				appendString(buf, content.getTag());
+				buf.append(",\"artifact\":").append(content.isArtifact());
+				buf.append(",\"element\":").append(elementId == null ? -1 : elementId.intValue());
+				if (this.writeText) {
+					buf.append(",\"text\":");
+					appendString(buf, content.getContentString());
+				}
+				buf.append('}');
+				this.writeRecord(buf);
 			}
+			extractor.getStructureCache().clear();
 		}
 	}
+
+	private void writeRecord(StringBuilder record) throws OutputException {
+		record.append('\n');
+		synchronized (this.output) {
+			try {
+				this.output.write(record.toString());
+			} catch (IOException e) {
+				throw new OutputException(e);
+			}
+		}
+	}
+
+	private static void appendOptional(StringBuilder buf, String name, String value) {
+		if (value != null) {
+			buf.append(",\"").append(name).append("\":");
+			appendString(buf, value);
+		}
+	}
+
+	private static void appendString(StringBuilder buf, String value) {
+		if (value == null) {
+			buf.append("null");
+			return;
+		}
+		buf.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				buf.append("\\\"");
+				break;
+			case '\\':
+				buf.append("\\\\");
+				break;
+			case '\n':
+				buf.append("\\n");
+				break;
+			case '\r':
+				buf.append("\\r");
+				break;
+			case '\t':
+				buf.append("\\t");
+				break;
+			default:
+				if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+					buf.append(String.format("\\u%04x", (int) c));
+				} else {
+					buf.append(c);
+				}
+			}
+		}
+		buf.append('"');
+	}
+
+	/**
+	 * An error of the output, which is passed on instead of failing the document.
+	 */
+	private static final class OutputException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		private OutputException(IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+	private static final class DocumentRecord {
+		private String status;
+		private String error;
+		private int pages;
+		private int elements;
+		private int contents;
+		private long loadMs;
+		private long structureMs;
+		private long contentMs;
+		private long totalMs;
+	}
+
+	/**
+	 * This will print the usage requirements and exit.
+	 */
+	private static void usage() {
+		String message = "Usage: java -jar pdfbox-app-x.y.z.jar TagsExtractor [options] <inputfile or directory>...\n"
+				+ "\nOptions:\n"
+				+ "  -password  <password>  : Password to decrypt the documents\n"
+				+ "  -threads <number>      : Number of documents processed in parallel (default: number of processors)\n"
+				+ "  -output <file>         : The NDJSON file to write to (default: console)\n"
+				+ "  -maxMemory <MB>        : Main memory per document for decoded streams, temporary files are used above (default: 32)\n"
+				+ "  -noStructure           : Don't write structure element records\n"
+				+ "  -noContent             : Don't write marked content records\n"
+				+ "  -noText                : Don't write the text of the marked content\n"
+				+ "  <inputfile or directory> : The PDF documents, directories are searched for *.pdf files";
+
+		System.err.println(message);
+		System.exit(1);
+	}
 }
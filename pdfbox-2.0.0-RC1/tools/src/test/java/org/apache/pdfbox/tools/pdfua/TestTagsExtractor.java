@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.pdfbox.tools.pdfua;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.util.Charsets;
+
+/**
+ * Test suite for TagsExtractor.
+ */
+public class TestTagsExtractor extends TestCase
+{
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        file = File.createTempFile("tagged", ".pdf");
+        PDDocument document = createTaggedDocument();
+        try
+        {
+            document.save(file);
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        file.delete();
+    }
+
+    /**
+     * The MCIDs of a form XObject are resolved with the StructParents of the form.
+     *
+     * @throws IOException if something went wrong
+     */
+    public void testFormMarkedContent() throws IOException
+    {
+        StringWriter output = new StringWriter();
+        assertTrue(new TagsExtractor(output).extract(file));
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(6, lines.length);
+        assertTrue(lines[1], lines[1].contains("\"id\":1") && lines[1].contains("\"structType\":\"P\""));
+        assertTrue(lines[2], lines[2].contains("\"id\":2") && lines[2].contains("\"structType\":\"Figure\""));
+        assertTrue(lines[3], lines[3].contains("\"mcid\":0") && lines[3].contains("\"text\":\"Page\""));
+        assertTrue(lines[3], lines[3].contains("\"element\":1"));
+        assertTrue(lines[4], lines[4].contains("\"mcid\":0") && lines[4].contains("\"text\":\"Form\""));
+        assertTrue(lines[4], lines[4].contains("\"element\":2"));
+        assertTrue(lines[5], lines[5].contains("\"status\":\"ok\""));
+    }
+
+    /**
+     * The MCIDs of a page without StructParents don't belong to the parent tree entry 0.
+     *
+     * @throws IOException if something went wrong
+     */
+    public void testPageWithoutStructParents() throws IOException
+    {
+        File untagged = File.createTempFile("untagged", ".pdf");
+        try
+        {
+            PDDocument document = PDDocument.load(file);
+            try
+            {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                PDResources resources = document.getPage(0).getResources();
+                page.setResources(resources);
+                PDStream contents = new PDStream(document);
+                write(contents, "/P <</MCID 0>> BDC BT /" + resources.getFontNames().iterator()
+                        .next().getName() + " 12 Tf 100 700 Td (Other) Tj ET EMC");
+                page.setContents(contents);
+                document.save(untagged);
+            }
+            finally
+            {
+                document.close();
+            }
+
+            StringWriter output = new StringWriter();
+            assertTrue(new TagsExtractor(output).extract(untagged));
+            String other = null;
+            for (String line : output.toString().split("\n"))
+            {
+                if (line.contains("\"text\":\"Other\""))
+                {
+                    other = line;
+                }
+            }
+            assertNotNull(output.toString(), other);
+            assertTrue(other, other.contains("\"element\":-1"));
+        }
+        finally
+        {
+            untagged.delete();
+        }
+    }
+
+    /**
+     * An output which can't be written stops the extraction, a broken document doesn't.
+     *
+     * @throws IOException if something went wrong
+     */
+    public void testErrors() throws IOException
+    {
+        Writer failing = new Writer()
+        {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException
+            {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+        try
+        {
+            new TagsExtractor(failing).extract(file);
+            fail("the output error must be passed on");
+        }
+        catch (IOException e)
+        {
+            assertEquals("disk full", e.getMessage());
+        }
+
+        File broken = File.createTempFile("broken", ".pdf");
+        try
+        {
+            StringWriter output = new StringWriter();
+            assertEquals(1, new TagsExtractor(output).extractAll(Arrays.asList(file, broken), 2));
+            assertTrue(output.toString().contains("\"status\":\"error\""));
+        }
+        finally
+        {
+            broken.delete();
+        }
+    }
+
+    /**
+     * Creates a page with a paragraph in the page content and a figure in a form XObject, both
+     * with MCID 0.
+     */
+    private static PDDocument createTaggedDocument() throws IOException
+    {
+        PDDocument document = new PDDocument();
+        PDPage page = new PDPage();
+        document.addPage(page);
+        PDResources resources = new PDResources();
+        COSName font = resources.add(PDType1Font.HELVETICA);
+
+        PDFormXObject form = new PDFormXObject(document);
+        form.setBBox(new PDRectangle(612, 792));
+        form.setResources(resources);
+        form.setStructParents(1);
+        write(form.getStream(), "/Figure <</MCID 0>> BDC BT /" + font.getName()
+                + " 12 Tf 100 600 Td (Form) Tj ET EMC");
+        COSName formName = resources.add(form);
+
+        page.setResources(resources);
+        page.setStructParents(0);
+        PDStream contents = new PDStream(document);
+        write(contents, "/P <</MCID 0>> BDC BT /" + font.getName()
+                + " 12 Tf 100 700 Td (Page) Tj ET EMC /" + formName.getName() + " Do");
+        page.setContents(contents);
+
+        COSDictionary root = new COSDictionary();
+        root.setItem(COSName.TYPE, COSName.STRUCT_TREE_ROOT);
+        COSDictionary documentElement = element("Document", root, page);
+        root.setItem(COSName.K, documentElement);
+
+        COSDictionary paragraph = element("P", documentElement, page);
+        paragraph.setInt(COSName.K, 0);
+        COSDictionary figure = element("Figure", documentElement, page);
+        COSDictionary mcr = new COSDictionary();
+        mcr.setItem(COSName.TYPE, COSName.getPDFName("MCR"));
+        mcr.setItem(COSName.PG, page);
+        mcr.setItem(COSName.getPDFName("Stm"), form);
+        mcr.setInt(COSName.MCID, 0);
+        figure.setItem(COSName.K, mcr);
+        COSArray kids = new COSArray();
+        kids.add(paragraph);
+        kids.add(figure);
+        documentElement.setItem(COSName.K, kids);
+
+        COSArray nums = new COSArray();
+        nums.add(COSInteger.get(0));
+        nums.add(array(paragraph));
+        nums.add(COSInteger.get(1));
+        nums.add(array(figure));
+        COSDictionary parentTree = new COSDictionary();
+        parentTree.setItem(COSName.NUMS, nums);
+        root.setItem(COSName.PARENT_TREE, parentTree);
+        root.setInt(COSName.PARENT_TREE_NEXT_KEY, 2);
+        document.getDocumentCatalog().getCOSObject().setItem(COSName.STRUCT_TREE_ROOT, root);
+        return document;
+    }
+
+    private static COSDictionary element(String type, COSDictionary parent, PDPage page)
+    {
+        COSDictionary element = new COSDictionary();
+        element.setItem(COSName.TYPE, COSName.getPDFName("StructElem"));
+        element.setItem(COSName.S, COSName.getPDFName(type));
+        element.setItem(COSName.P, parent);
+        element.setItem(COSName.PG, page);
+        return element;
+    }
+
+    private static COSArray array(COSDictionary element)
+    {
+        COSArray array = new COSArray();
+        array.add(element);
+        return array;
+    }
+
+    private static void write(PDStream stream, String operators) throws IOException
+    {
+        OutputStream out = stream.createOutputStream();
+        out.write(operators.getBytes(Charsets.ISO_8859_1));
+        out.close();
+    }
+}